@@ -0,0 +1,114 @@
+package com.multilevelcache.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按延遲自適應的並發限制（AIMD）
+ *
+ * 以延遲基線的倍數作為擁塞信號：樣本低於 基線 × 容忍倍數 且並發接近上限時加性增長（每個上限週期約加 1），
+ * 超過時乘性減小，每個冷卻週期最多減一次。基線取慢速 EWMA，回落快、上升慢，
+ * 過載期間不會被拉高。所有狀態都是原子變量，放行與結算路徑沒有鎖。
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoffRatio;
+    private final long cooldownNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    /** 上限以 double 位存儲，允許加性增長的小數部分累積 */
+    private final AtomicLong limitBits;
+    /** 延遲基線（納秒，double 位） */
+    private final AtomicLong baselineBits = new AtomicLong(Double.doubleToLongBits(-1));
+    private final AtomicLong lastDecrease = new AtomicLong();
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit,
+                                    double tolerance, double backoffRatio, long cooldownMillis) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.cooldownNanos = cooldownMillis * 1_000_000L;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initialLimit));
+        // nanoTime 的起點任意（可能很小甚至為負），按「剛好過了一個冷卻週期」初始化，首次擁塞即可減小
+        this.lastDecrease.set(System.nanoTime() - cooldownNanos);
+    }
+
+    /**
+     * 在上限的 share 比例內嘗試佔用一個並發名額；返回 true 後必須調用 {@link #release}
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (getLimit() * share));
+        if (inFlight.incrementAndGet() > allowed) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 歸還名額並以本次耗時調整上限
+     *
+     * @param sample 是否作為延遲樣本（長耗時類請求不參與，避免拉低上限）
+     */
+    public void release(long elapsedNanos, boolean sample) {
+        int current = inFlight.getAndDecrement();
+        if (!sample) {
+            return;
+        }
+        double baseline = updateBaseline(elapsedNanos);
+        double limit = getLimit();
+        if (elapsedNanos > baseline * tolerance) {
+            long now = System.nanoTime();
+            long last = lastDecrease.get();
+            if (now - last >= cooldownNanos && lastDecrease.compareAndSet(last, now)) {
+                setLimit(Math.max(minLimit, limit * backoffRatio));
+            }
+        } else if (current >= limit / 2) {
+            // 只有在並發確實接近上限時才增長，空閒時上限不會無限膨脹
+            addToLimit(1.0 / limit);
+        }
+    }
+
+    private double updateBaseline(long elapsedNanos) {
+        while (true) {
+            long bits = baselineBits.get();
+            double baseline = Double.longBitsToDouble(bits);
+            double next = baseline < 0 ? elapsedNanos
+                    : elapsedNanos < baseline ? baseline + 0.2 * (elapsedNanos - baseline)
+                    : baseline + 0.01 * (elapsedNanos - baseline);
+            if (baselineBits.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                return next;
+            }
+        }
+    }
+
+    private void addToLimit(double delta) {
+        while (true) {
+            long bits = limitBits.get();
+            double next = Math.min(maxLimit, Double.longBitsToDouble(bits) + delta);
+            if (limitBits.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    private void setLimit(double limit) {
+        limitBits.set(Double.doubleToLongBits(limit));
+    }
+
+    public double getLimit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public double getBaselineMillis() {
+        return Double.longBitsToDouble(baselineBits.get()) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,81 @@
+package com.multilevelcache.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.multilevelcache.dto.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 准入控制過濾器
+ *
+ * 在進入 MVC 之前按端點優先級放行或以 429 + Retry-After 拒絕，被拒絕的請求不佔用緩存與連接池。
+ * 異步請求（SSE、流式導出）在首次分派返回時即歸還並發名額。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final AdmissionController admissionController;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Priority priority = admissionController.isEnabled()
+                ? admissionController.classify(request.getRequestURI()) : null;
+        if (priority == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterMillis = admissionController.tryAdmit(priority, clientId(request));
+        if (retryAfterMillis > 0) {
+            reject(response, retryAfterMillis);
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            admissionController.release(priority, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * 按來源地址限速；客戶端標識頭只在請求來自受信任代理時採用，否則客戶端換一個標識就能拿到新的令牌桶
+     */
+    private String clientId(HttpServletRequest request) {
+        String remoteAddress = request.getRemoteAddr();
+        if (admissionController.isTrustedProxy(remoteAddress)) {
+            String clientId = request.getHeader(admissionController.getClientHeader());
+            if (clientId != null && !clientId.isEmpty()) {
+                return clientId;
+            }
+        }
+        return remoteAddress;
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterMillis) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        // Retry-After 只支持整秒
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString((retryAfterMillis + 999) / 1000));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error("請求過多，請稍後重試"));
+    }
+}
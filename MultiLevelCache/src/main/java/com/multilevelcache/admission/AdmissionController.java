@@ -0,0 +1,253 @@
+package com.multilevelcache.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import javax.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 准入控制
+ *
+ * 每個請求依次經過：端點分類 → 按客戶端的令牌桶 → 按端點類的令牌桶 → 按優先級分額的自適應並發限制，
+ * 任一環節拒絕即返回 429。CRITICAL 類默認不限速，只受並發限制，且可使用全部並發額度。
+ */
+@Component
+@RequiredArgsConstructor
+public class AdmissionController {
+
+    /** 不參與准入控制的路徑 */
+    private static final String[] EXEMPT_PATTERNS = {
+            "/api/monitor/**", "/actuator/**", "/api/transactions/health"
+    };
+
+    /** 按順序匹配，未匹配的歸為 NORMAL */
+    private static final String[][] CLASS_PATTERNS = {
+            {"/api/blacklist/check/**", "CRITICAL"},
+            {"/api/transactions/*/stream", "CRITICAL"},
+            {"/api/performance/**", "BULK"},
+            {"/api/transactions/user/**", "BULK"},
+            {"/api/transactions/account/**", "BULK"},
+            {"/api/blacklist/type/*", "BULK"},
+            {"/api/blacklist/active", "BULK"},
+            {"/api/blacklist/import", "BULK"},
+            {"/api/transactions/status/bulk", "BULK"},
+            {"/api/*/test-data", "BULK"},
+            {"/api/transactions/*", "CRITICAL"}
+    };
+
+    private final MeterRegistry meterRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Value("${admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${admission.concurrency.initial-limit:200}")
+    private int initialLimit;
+
+    @Value("${admission.concurrency.min-limit:20}")
+    private int minLimit;
+
+    @Value("${admission.concurrency.max-limit:1000}")
+    private int maxLimit;
+
+    @Value("${admission.concurrency.latency-tolerance:2.0}")
+    private double latencyTolerance;
+
+    @Value("${admission.concurrency.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${admission.concurrency.cooldown-ms:200}")
+    private long cooldownMs;
+
+    @Value("${admission.concurrency.normal-share:0.8}")
+    private double normalShare;
+
+    @Value("${admission.concurrency.bulk-share:0.5}")
+    private double bulkShare;
+
+    @Value("${admission.rate.client.normal-per-second:200}")
+    private double clientNormalRate;
+
+    @Value("${admission.rate.client.bulk-per-second:20}")
+    private double clientBulkRate;
+
+    @Value("${admission.rate.endpoint.bulk-per-second:200}")
+    private double endpointBulkRate;
+
+    @Value("${admission.rate.burst-seconds:2}")
+    private double burstSeconds;
+
+    @Value("${admission.client-header:X-Client-Id}")
+    private String clientHeader;
+
+    /** 只有來自這些地址（網關 / 反向代理）的請求才採用客戶端標識頭 */
+    @Value("${admission.trusted-proxies:}")
+    private Set<String> trustedProxies;
+
+    private AdaptiveConcurrencyLimit concurrencyLimit;
+    private Cache<String, TokenBucket> clientBuckets;
+    private final Map<Priority, TokenBucket> endpointBuckets = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> admitted = new EnumMap<>(Priority.class);
+    private final Map<String, Counter> rejected = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                latencyTolerance, backoffRatio, cooldownMs);
+        clientBuckets = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+        if (endpointBulkRate > 0) {
+            endpointBuckets.put(Priority.BULK, bucket(endpointBulkRate));
+        }
+
+        for (Priority priority : Priority.values()) {
+            admitted.put(priority, Counter.builder("admission.requests")
+                    .tag("priority", priority.name()).tag("result", "admitted").register(meterRegistry));
+            for (String reason : new String[]{"client-rate", "endpoint-rate", "concurrency"}) {
+                rejected.put(priority + reason, Counter.builder("admission.requests")
+                        .tag("priority", priority.name()).tag("result", "rejected").tag("reason", reason)
+                        .register(meterRegistry));
+            }
+        }
+        Gauge.builder("admission.concurrency.limit", this, c -> c.concurrencyLimit.getLimit())
+                .register(meterRegistry);
+        Gauge.builder("admission.concurrency.inflight", this, c -> c.concurrencyLimit.getInFlight())
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getClientHeader() {
+        return clientHeader;
+    }
+
+    public boolean isTrustedProxy(String remoteAddress) {
+        return remoteAddress != null && trustedProxies.contains(remoteAddress);
+    }
+
+    /**
+     * 端點分類，豁免路徑返回 null
+     */
+    public Priority classify(String path) {
+        for (String pattern : EXEMPT_PATTERNS) {
+            if (pathMatcher.match(pattern, path)) {
+                return null;
+            }
+        }
+        for (String[] rule : CLASS_PATTERNS) {
+            if (pathMatcher.match(rule[0], path)) {
+                return Priority.valueOf(rule[1]);
+            }
+        }
+        return Priority.NORMAL;
+    }
+
+    /**
+     * 准入判斷，返回 0 表示放行（之後必須調用 {@link #release}），否則返回建議的重試等待毫秒數
+     */
+    public long tryAdmit(Priority priority, String clientId) {
+        double clientRate = clientRate(priority);
+        if (clientRate > 0) {
+            TokenBucket bucket = clientBuckets.get(clientId + '|' + priority, key -> bucket(clientRate));
+            long wait = bucket.tryAcquire();
+            if (wait > 0) {
+                return reject(priority, "client-rate", wait);
+            }
+        }
+        TokenBucket endpointBucket = endpointBuckets.get(priority);
+        if (endpointBucket != null) {
+            long wait = endpointBucket.tryAcquire();
+            if (wait > 0) {
+                return reject(priority, "endpoint-rate", wait);
+            }
+        }
+        if (!concurrencyLimit.tryAcquire(share(priority))) {
+            return reject(priority, "concurrency", TimeUnit.SECONDS.toNanos(1));
+        }
+        admitted.get(priority).increment();
+        return 0L;
+    }
+
+    /**
+     * 請求結束，BULK 請求本身耗時長，不作為延遲樣本
+     */
+    public void release(Priority priority, long elapsedNanos) {
+        concurrencyLimit.release(elapsedNanos, priority != Priority.BULK);
+    }
+
+    private long reject(Priority priority, String reason, long waitNanos) {
+        rejected.get(priority + reason).increment();
+        return Math.max(1L, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+    }
+
+    private double clientRate(Priority priority) {
+        switch (priority) {
+            case NORMAL:
+                return clientNormalRate;
+            case BULK:
+                return clientBulkRate;
+            default:
+                return 0;
+        }
+    }
+
+    private double share(Priority priority) {
+        switch (priority) {
+            case NORMAL:
+                return normalShare;
+            case BULK:
+                return bulkShare;
+            default:
+                return 1.0;
+        }
+    }
+
+    private TokenBucket bucket(double permitsPerSecond) {
+        return new TokenBucket(permitsPerSecond, (int) Math.max(1, Math.ceil(permitsPerSecond * burstSeconds)));
+    }
+
+    /**
+     * 獲取准入統計信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("concurrencyLimit", Math.round(concurrencyLimit.getLimit() * 10) / 10.0);
+        stats.put("inFlight", concurrencyLimit.getInFlight());
+        stats.put("latencyBaselineMs", Math.round(concurrencyLimit.getBaselineMillis() * 1000) / 1000.0);
+        stats.put("trackedClients", clientBuckets.estimatedSize());
+        stats.put("trustedProxies", trustedProxies);
+
+        Map<String, Object> byPriority = new LinkedHashMap<>();
+        for (Priority priority : Priority.values()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("concurrencyShare", share(priority));
+            entry.put("clientRatePerSecond", clientRate(priority));
+            entry.put("admitted", (long) admitted.get(priority).count());
+            Map<String, Object> rejections = new LinkedHashMap<>();
+            for (String reason : new String[]{"client-rate", "endpoint-rate", "concurrency"}) {
+                rejections.put(reason, (long) rejected.get(priority + reason).count());
+            }
+            entry.put("rejected", rejections);
+            byPriority.put(priority.name(), entry);
+        }
+        stats.put("priorities", byPriority);
+        return stats;
+    }
+}
@@ -0,0 +1,16 @@
+package com.multilevelcache.admission;
+
+/**
+ * 端點優先級
+ *
+ * 過載時低優先級先被拒絕：並發限制按比例分給各級，CRITICAL 可用滿額度，
+ * 其他級別只能使用其中一部分，餘下的留給高優先級請求。
+ */
+public enum Priority {
+    /** 黑名單檢查、單筆交易查詢與狀態訂閱 */
+    CRITICAL,
+    /** 單條記錄讀寫等一般請求 */
+    NORMAL,
+    /** 列表、分頁、導出、導入與性能測試 */
+    BULK
+}
@@ -0,0 +1,44 @@
+package com.multilevelcache.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 無鎖令牌桶
+ *
+ * 按 GCRA 實現：只保存「理論到達時間」一個長整數，每次取令牌把它推後一個發放間隔，
+ * 超出突發容量即拒絕。狀態用單個 CAS 更新，不需要鎖，也不需要後台補充令牌。
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @param permitsPerSecond 持續速率
+     * @param burst            允許的突發請求數
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.intervalNanos = Math.max(1L, (long) (1_000_000_000L / permitsPerSecond));
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+    }
+
+    /**
+     * 嘗試取一個令牌，成功返回 0，否則返回需要等待的納秒數
+     */
+    public long tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long base = Math.max(tat, now);
+            long next = base + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return 0L;
+            }
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package com.multilevelcache.archive;
+
+import com.multilevelcache.entity.Transaction;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * 已結算交易的歸檔段文件存儲
+ *
+ * 交易記錄以 [length:4][crc32:4][payload] 追加寫入預分配並內存映射的段文件，
+ * 段寫滿後滾動到下一個段。內存中按用戶與賬戶維護記錄位置索引（段號 << 32 | 偏移），
+ * 啟動時掃描段文件重建，遇到長度為 0 或校驗失敗的記錄即視為段尾。
+ *
+ * 只允許單線程追加；讀取可以並發進行。追加的記錄在 {@link #commit} 之前對讀取方不可見，
+ * 提交時先發布索引再發布水位線，讀取方應先讀水位線再讀索引。
+ */
+@Slf4j
+public class TransactionSegmentStore implements Closeable {
+
+    private static final String MANIFEST_FILE = "manifest.properties";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final long[] NO_POSITIONS = new long[0];
+
+    private final Path directory;
+    private final int segmentBytes;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final Map<String, long[]> userIndex = new ConcurrentHashMap<>();
+    private final Map<String, long[]> accountIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 已歸檔範圍的上界：updated_at 早於此時間的已結算交易都在歸檔中
+     */
+    private volatile LocalDateTime watermark;
+    private volatile long recordCount;
+
+    private final Map<String, List<Long>> pendingUsers = new HashMap<>();
+    private final Map<String, List<Long>> pendingAccounts = new HashMap<>();
+    private int pendingRecords;
+    private ByteBuffer encodeBuffer = ByteBuffer.allocate(1024);
+
+    public TransactionSegmentStore(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * 打開存儲：讀取清單並掃描段文件重建索引
+     */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        watermark = readWatermark();
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+
+        long records = 0;
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            int id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            Segment segment = Segment.open(id, file, Math.max(segmentBytes, (int) Files.size(file)));
+            records += recover(segment);
+            segments.add(segment);
+        }
+        recordCount = records;
+        log.info("🗄️ 交易歸檔已加載: {} 個段, {} 條記錄, 水位線 {}", segments.size(), records, watermark);
+    }
+
+    /**
+     * 掃描段內記錄，重建索引並確定寫入位置
+     */
+    private long recover(Segment segment) {
+        ByteBuffer view = segment.buffer.duplicate();
+        int position = 0;
+        long records = 0;
+        boolean torn = false;
+        while (position + RECORD_HEADER_BYTES <= segment.capacity) {
+            int length = view.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || position + RECORD_HEADER_BYTES + length > segment.capacity
+                    || view.getInt(position + 4) != crc32(view, position + RECORD_HEADER_BYTES, length)) {
+                log.warn("⚠️ 歸檔段 {} 在偏移 {} 處記錄不完整，截斷其後內容", segment.id, position);
+                torn = true;
+                break;
+            }
+            RecordKeys keys = readKeys(view, position + RECORD_HEADER_BYTES);
+            long location = location(segment.id, position);
+            userIndex.put(keys.userId, append(userIndex.get(keys.userId), location));
+            accountIndex.put(keys.accountNumber, append(accountIndex.get(keys.accountNumber), location));
+            position += RECORD_HEADER_BYTES + length;
+            records++;
+        }
+
+        // 清除殘缺記錄，避免下次掃描誤讀
+        if (torn) {
+            for (int i = position; i < segment.capacity; i++) {
+                view.put(i, (byte) 0);
+            }
+        }
+        segment.writePosition = position;
+        return records;
+    }
+
+    /**
+     * 追加一條交易記錄（提交前不可見）
+     */
+    public void append(Transaction transaction) throws IOException {
+        ByteBuffer payload = encode(transaction);
+        int length = payload.remaining();
+        if (length + RECORD_HEADER_BYTES > segmentBytes) {
+            throw new IOException("交易記錄超過段大小: " + transaction.getTransactionId());
+        }
+
+        Segment segment = activeSegment();
+        if (segment.writePosition + RECORD_HEADER_BYTES + length > segment.capacity) {
+            segment.buffer.force();
+            segment = createSegment(segment.id + 1);
+        }
+
+        int position = segment.writePosition;
+        ByteBuffer target = segment.buffer.duplicate();
+        target.position(position + RECORD_HEADER_BYTES);
+        target.put(payload);
+        target.putInt(position + 4, crc32(target, position + RECORD_HEADER_BYTES, length));
+        // 長度最後寫入，長度非零即表示記錄完整
+        target.putInt(position, length);
+        segment.writePosition = position + RECORD_HEADER_BYTES + length;
+
+        long location = location(segment.id, position);
+        pendingUsers.computeIfAbsent(transaction.getUserId(), key -> new ArrayList<>()).add(location);
+        pendingAccounts.computeIfAbsent(transaction.getAccountNumber(), key -> new ArrayList<>()).add(location);
+        pendingRecords++;
+    }
+
+    /**
+     * 提交本批追加：刷盤、發布索引、持久化並發布新的水位線
+     */
+    public void commit(LocalDateTime newWatermark) throws IOException {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+        }
+        publish(pendingUsers, userIndex);
+        publish(pendingAccounts, accountIndex);
+        recordCount += pendingRecords;
+        pendingRecords = 0;
+
+        writeWatermark(newWatermark);
+        watermark = newWatermark;
+    }
+
+    /**
+     * 放棄本批追加的索引，已寫入的記錄在重啟掃描前不可見
+     */
+    public void discardPending() {
+        pendingUsers.clear();
+        pendingAccounts.clear();
+        pendingRecords = 0;
+    }
+
+    public LocalDateTime getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * 讀取用戶的歸檔交易（按追加順序，同一交易後追加的版本在後）
+     */
+    public List<Transaction> readByUser(String userId) {
+        return read(userIndex.getOrDefault(userId, NO_POSITIONS));
+    }
+
+    /**
+     * 讀取賬戶的歸檔交易（按追加順序，同一交易後追加的版本在後）
+     */
+    public List<Transaction> readByAccount(String accountNumber) {
+        return read(accountIndex.getOrDefault(accountNumber, NO_POSITIONS));
+    }
+
+    private List<Transaction> read(long[] locations) {
+        List<Transaction> transactions = new ArrayList<>(locations.length);
+        for (long location : locations) {
+            Segment segment = segments.get(segmentIndex((int) (location >>> 32)));
+            ByteBuffer view = segment.buffer.duplicate();
+            transactions.add(decode(view, (int) location + RECORD_HEADER_BYTES));
+        }
+        return transactions;
+    }
+
+    /**
+     * 獲取存儲統計信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("directory", directory.toAbsolutePath().toString());
+        stats.put("watermark", watermark);
+        stats.put("segments", segments.size());
+        long usedBytes = 0;
+        for (Segment segment : segments) {
+            usedBytes += segment.writePosition;
+        }
+        stats.put("usedBytes", usedBytes);
+        stats.put("records", recordCount);
+        stats.put("indexedUsers", userIndex.size());
+        stats.put("indexedAccounts", accountIndex.size());
+        return stats;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private Segment activeSegment() throws IOException {
+        if (segments.isEmpty()) {
+            return createSegment(1);
+        }
+        return segments.get(segments.size() - 1);
+    }
+
+    private Segment createSegment(int id) throws IOException {
+        Path file = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        Segment segment = Segment.open(id, file, segmentBytes);
+        segments.add(segment);
+        log.info("🗄️ 創建歸檔段: {}", file.getFileName());
+        return segment;
+    }
+
+    private int segmentIndex(int segmentId) {
+        // 段號連續遞增，通常直接對應下標
+        int index = segmentId - segments.get(0).id;
+        if (index >= 0 && index < segments.size() && segments.get(index).id == segmentId) {
+            return index;
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i).id == segmentId) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("歸檔段不存在: " + segmentId);
+    }
+
+    private static void publish(Map<String, List<Long>> pending, Map<String, long[]> index) {
+        for (Map.Entry<String, List<Long>> entry : pending.entrySet()) {
+            long[] current = index.getOrDefault(entry.getKey(), NO_POSITIONS);
+            long[] next = Arrays.copyOf(current, current.length + entry.getValue().size());
+            int i = current.length;
+            for (Long location : entry.getValue()) {
+                next[i++] = location;
+            }
+            // 整體替換數組，並發讀取方只會看到舊數組或新數組
+            index.put(entry.getKey(), next);
+        }
+        pending.clear();
+    }
+
+    private static long[] append(long[] current, long location) {
+        if (current == null) {
+            return new long[]{location};
+        }
+        long[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = location;
+        return next;
+    }
+
+    private static long location(int segmentId, int offset) {
+        return ((long) segmentId << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int crc32(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(offset);
+        slice.limit(offset + length);
+        crc.update(slice);
+        return (int) crc.getValue();
+    }
+
+    private LocalDateTime readWatermark() throws IOException {
+        Path manifest = directory.resolve(MANIFEST_FILE);
+        if (!Files.exists(manifest)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(manifest)) {
+            properties.load(in);
+        }
+        String value = properties.getProperty("watermark");
+        return value != null && !value.isEmpty() ? LocalDateTime.parse(value) : null;
+    }
+
+    private void writeWatermark(LocalDateTime value) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("watermark", value.toString());
+        Path temp = directory.resolve(MANIFEST_FILE + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            properties.store(out, "transaction archive manifest");
+        }
+        Files.move(temp, directory.resolve(MANIFEST_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ---------------------------------------------------------------- 編碼
+
+    private ByteBuffer encode(Transaction transaction) {
+        ByteBuffer buffer = encodeBuffer;
+        while (true) {
+            buffer.clear();
+            try {
+                // 用戶與賬戶放在最前，恢復索引時無需解碼整條記錄
+                putString(buffer, transaction.getUserId());
+                putString(buffer, transaction.getAccountNumber());
+                buffer.putLong(transaction.getId() != null ? transaction.getId() : 0L);
+                putString(buffer, transaction.getTransactionId());
+                putString(buffer, transaction.getTransactionType());
+                putString(buffer, transaction.getAmount() != null ? transaction.getAmount().toPlainString() : null);
+                putString(buffer, transaction.getCurrency());
+                putString(buffer, transaction.getDescription());
+                putString(buffer, transaction.getStatus());
+                putDateTime(buffer, transaction.getCreatedAt());
+                putDateTime(buffer, transaction.getUpdatedAt());
+                buffer.putInt(transaction.getDeleted() != null ? transaction.getDeleted() : 0);
+                buffer.flip();
+                return buffer;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                encodeBuffer = buffer;
+            }
+        }
+    }
+
+    private static RecordKeys readKeys(ByteBuffer buffer, int offset) {
+        buffer.position(offset);
+        return new RecordKeys(getString(buffer), getString(buffer));
+    }
+
+    private static Transaction decode(ByteBuffer buffer, int offset) {
+        buffer.position(offset);
+        Transaction transaction = new Transaction();
+        transaction.setUserId(getString(buffer));
+        transaction.setAccountNumber(getString(buffer));
+        transaction.setId(buffer.getLong());
+        transaction.setTransactionId(getString(buffer));
+        transaction.setTransactionType(getString(buffer));
+        String amount = getString(buffer);
+        transaction.setAmount(amount != null ? new BigDecimal(amount) : null);
+        transaction.setCurrency(getString(buffer));
+        transaction.setDescription(getString(buffer));
+        transaction.setStatus(getString(buffer));
+        transaction.setCreatedAt(getDateTime(buffer));
+        transaction.setUpdatedAt(getDateTime(buffer));
+        transaction.setDeleted(buffer.getInt());
+        return transaction;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putDateTime(ByteBuffer buffer, LocalDateTime value) {
+        if (value == null) {
+            buffer.putLong(Long.MIN_VALUE);
+            buffer.putInt(0);
+            return;
+        }
+        buffer.putLong(value.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(value.getNano());
+    }
+
+    private static LocalDateTime getDateTime(ByteBuffer buffer) {
+        long seconds = buffer.getLong();
+        int nanos = buffer.getInt();
+        return seconds == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    /**
+     * 恢復索引時只需要的兩個鍵
+     */
+    private static class RecordKeys {
+        private final String userId;
+        private final String accountNumber;
+
+        RecordKeys(String userId, String accountNumber) {
+            this.userId = userId;
+            this.accountNumber = accountNumber;
+        }
+    }
+
+    /**
+     * 單個內存映射段文件
+     */
+    private static class Segment {
+
+        private final int id;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        private volatile int writePosition;
+
+        private Segment(int id, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+            this.id = id;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        static Segment open(int id, Path file, int capacity) throws IOException {
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // READ_WRITE 映射會把文件擴展到段大小，未寫入部分為 0
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            return new Segment(id, channel, buffer, capacity);
+        }
+
+        void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException e) {
+                log.warn("⚠️ 關閉歸檔段 {} 失敗: {}", id, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,511 @@
+package com.multilevelcache.audit;
+
+import com.multilevelcache.cache.CacheFillVersions;
+import com.multilevelcache.cache.CacheNamespaces;
+import com.multilevelcache.cache.ColumnarTransactionList;
+import com.multilevelcache.cache.MultiLevelCacheService;
+import com.multilevelcache.entity.Blacklist;
+import com.multilevelcache.entity.Transaction;
+import com.multilevelcache.mapper.BlacklistMapper;
+import com.multilevelcache.mapper.TransactionMapper;
+import com.multilevelcache.service.BlacklistService;
+import com.multilevelcache.service.TransactionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * 緩存一致性審計
+ *
+ * 定期從 transactionCache / blacklistCache 的本地緩存中隨機抽取條目，按主鍵分批從主庫重讀，
+ * 逐行比較狀態、金額與過期時間，按鍵族統計不一致率與不一致持續時間（自數據庫行更新或黑名單過期起）。
+ * 在獨立的低優先級線程上運行，讀庫按每秒行數限速；可選擇直接清除發現的不一致條目。
+ *
+ * 比較只針對緩存中已有的行：列表緩存裡缺少的新插入行不在審計範圍內。
+ */
+@Slf4j
+@Component
+public class CacheConsistencyAuditor {
+
+    private static final long CONSISTENT = Long.MIN_VALUE;
+    private static final long UNKNOWN_AGE = -1;
+    private static final long[] AGE_BOUNDS_MS = {1_000, 10_000, 60_000, 600_000, 3_600_000};
+    private static final String[] AGE_BUCKETS = {"lt1s", "lt10s", "lt1m", "lt10m", "lt1h", "ge1h", "unknown"};
+
+    private final MultiLevelCacheService cacheService;
+    private final CacheFillVersions cacheFillVersions;
+    private final CacheNamespaces cacheNamespaces;
+    private final TransactionMapper transactionMapper;
+    private final BlacklistMapper blacklistMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${cache.audit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cache.audit.repair:false}")
+    private boolean repair;
+
+    @Value("${cache.audit.sample-size:200}")
+    private int sampleSize;
+
+    @Value("${cache.audit.max-rows-per-entry:50}")
+    private int maxRowsPerEntry;
+
+    @Value("${cache.audit.batch-size:100}")
+    private int batchSize;
+
+    @Value("${cache.audit.rows-per-second:500}")
+    private double rowsPerSecond;
+
+    /** 數據庫行在此時長內更新的視為失效正在進行，不計為不一致 */
+    @Value("${cache.audit.grace-ms:2000}")
+    private long graceMs;
+
+    private ExecutorService auditExecutor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Map<String, FamilyStats> families = new ConcurrentHashMap<>();
+    private final LongAdder rounds = new LongAdder();
+    private final LongAdder rowsRead = new LongAdder();
+    private volatile Map<String, Object> lastRound;
+
+    public CacheConsistencyAuditor(MultiLevelCacheService cacheService,
+                                   CacheFillVersions cacheFillVersions,
+                                   CacheNamespaces cacheNamespaces,
+                                   TransactionMapper transactionMapper,
+                                   BlacklistMapper blacklistMapper,
+                                   MeterRegistry meterRegistry) {
+        this.cacheService = cacheService;
+        this.cacheFillVersions = cacheFillVersions;
+        this.cacheNamespaces = cacheNamespaces;
+        this.transactionMapper = transactionMapper;
+        this.blacklistMapper = blacklistMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        auditExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-auditor");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        auditExecutor.shutdownNow();
+    }
+
+    /**
+     * 定期審計，在審計線程上執行，上一輪未結束時跳過
+     */
+    @Scheduled(initialDelayString = "${cache.audit.interval-ms:60000}",
+            fixedDelayString = "${cache.audit.interval-ms:60000}")
+    public void scheduledAudit() {
+        if (enabled && running.compareAndSet(false, true)) {
+            auditExecutor.execute(() -> {
+                try {
+                    audit(repair);
+                } catch (RuntimeException e) {
+                    log.warn("⚠️ 緩存一致性審計失敗", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * 執行一輪審計，返回本輪摘要
+     *
+     * @param repairStale 是否清除發現的不一致條目
+     */
+    public synchronized Map<String, Object> audit(boolean repairStale) {
+        long startTime = System.currentTimeMillis();
+        List<AuditEntry> entries = new ArrayList<>();
+        sample(TransactionService.CACHE_NAME, entries);
+        sample(BlacklistService.CACHE_NAME, entries);
+
+        Set<Long> transactionIds = new LinkedHashSet<>();
+        Set<Long> blacklistIds = new LinkedHashSet<>();
+        for (AuditEntry entry : entries) {
+            for (CachedRow row : entry.rows) {
+                (row.transaction ? transactionIds : blacklistIds).add(row.id);
+            }
+        }
+        Map<Long, Transaction> transactions = new HashMap<>();
+        for (Transaction transaction : loadInBatches(transactionIds, transactionMapper::selectBatchIds)) {
+            transactions.put(transaction.getId(), transaction);
+        }
+        Map<Long, Blacklist> blacklists = new HashMap<>();
+        for (Blacklist blacklist : loadInBatches(blacklistIds, blacklistMapper::selectBatchIds)) {
+            blacklists.put(blacklist.getId(), blacklist);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int stale = 0;
+        int repaired = 0;
+        for (AuditEntry entry : entries) {
+            FamilyStats stats = family(entry.family);
+            stats.sampled.increment();
+            stats.sampledCounter.increment();
+            stats.rowsChecked.add(entry.rows.size());
+
+            // 取不一致行中持續最久的；CONSISTENT 最小，UNKNOWN_AGE 小於任何已知時長
+            long age = CONSISTENT;
+            for (CachedRow row : entry.rows) {
+                age = Math.max(age, row.transaction
+                        ? compare(row, transactions.get(row.id), now)
+                        : compare(row, blacklists.get(row.id), entry.activeOnly, now));
+            }
+
+            if (age == CONSISTENT) {
+                stats.consistent.increment();
+            } else if (age != UNKNOWN_AGE && age < graceMs) {
+                stats.inFlight.increment();
+            } else if (!cacheFillVersions.isCurrent(entry.cacheName, entry.key, entry.version)) {
+                // 抽樣之後該鍵已被失效，不一致已經消除
+                stats.resolved.increment();
+            } else {
+                stale++;
+                stats.recordStale(age);
+                if (repairStale) {
+                    cacheService.evict(entry.cacheName, entry.key);
+                    stats.repaired.increment();
+                    repaired++;
+                }
+                log.debug("🔍 緩存不一致: {} - {}, 持續 {}ms", entry.cacheName, entry.key, age);
+            }
+        }
+
+        rounds.increment();
+        long elapsed = System.currentTimeMillis() - startTime;
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("timestamp", now);
+        summary.put("sampledEntries", entries.size());
+        summary.put("transactionRows", transactionIds.size());
+        summary.put("blacklistRows", blacklistIds.size());
+        summary.put("staleEntries", stale);
+        summary.put("repairedEntries", repaired);
+        summary.put("elapsedMs", elapsed);
+        lastRound = summary;
+        if (stale > 0) {
+            log.info("🔍 緩存一致性審計: 抽樣 {} 條, 不一致 {} 條, 清除 {} 條, 耗時 {}ms", entries.size(), stale, repaired, elapsed);
+        }
+        return summary;
+    }
+
+    /**
+     * 蓄水池抽樣本地緩存條目，遍歷 entrySet 不計入訪問；舊代際的條目已不可達，不參與抽樣
+     */
+    private void sample(String cacheName, List<AuditEntry> entries) {
+        // 遍歷之前取版本號，之後對抽中鍵的失效都能被 isCurrent 看到
+        long version = cacheService.beginFill(cacheName, cacheName);
+        List<Map.Entry<Object, Object>> reservoir = new ArrayList<>(sampleSize);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long seen = 0;
+        for (Map.Entry<Object, Object> entry : cacheService.localEntries(cacheName)) {
+            if (cacheNamespaces.currentLogicalKey(cacheName, entry.getKey()) == null) {
+                continue;
+            }
+            seen++;
+            if (reservoir.size() < sampleSize) {
+                reservoir.add(entry);
+            } else {
+                long slot = random.nextLong(seen);
+                if (slot < sampleSize) {
+                    reservoir.set((int) slot, entry);
+                }
+            }
+        }
+        for (Map.Entry<Object, Object> entry : reservoir) {
+            String key = CacheNamespaces.logicalKey(String.valueOf(entry.getKey()));
+            AuditEntry auditEntry = toAuditEntry(cacheName, key, entry.getValue(), version);
+            if (auditEntry != null) {
+                entries.add(auditEntry);
+            }
+        }
+    }
+
+    /**
+     * 按鍵族把緩存值拆成待比較的行，不認識的值返回 null
+     */
+    private AuditEntry toAuditEntry(String cacheName, String key, Object value, long version) {
+        int separator = key.indexOf(':');
+        String family = separator > 0 ? key.substring(0, separator) : key;
+        List<CachedRow> rows = new ArrayList<>();
+        if (value instanceof Transaction) {
+            rows.add(CachedRow.of((Transaction) value));
+        } else if (value instanceof ColumnarTransactionList) {
+            ColumnarTransactionList list = (ColumnarTransactionList) value;
+            // 列表按創建時間倒序，最近的行最可能發生狀態變化
+            for (int row = 0; row < list.size() && row < maxRowsPerEntry; row++) {
+                rows.add(new CachedRow(true, list.getId(row), list.getStatus(row), list.getAmount(row), null));
+            }
+        } else if (value instanceof Blacklist) {
+            rows.add(CachedRow.of((Blacklist) value));
+        } else if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                if (rows.size() >= maxRowsPerEntry) {
+                    break;
+                }
+                if (item instanceof Blacklist) {
+                    rows.add(CachedRow.of((Blacklist) item));
+                }
+            }
+        }
+        rows.removeIf(row -> row.id == null);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        // 單條黑名單檢查與有效黑名單列表只應包含當前有效的記錄
+        boolean activeOnly = value instanceof Blacklist || BlacklistService.ACTIVE_BLACKLISTS_KEY.equals(key);
+        return new AuditEntry(cacheName, key, family, version, activeOnly, rows);
+    }
+
+    private <T> List<T> loadInBatches(Collection<Long> ids, Function<Collection<Long>, List<T>> query) {
+        List<T> result = new ArrayList<>(ids.size());
+        List<Long> batch = new ArrayList<>(batchSize);
+        for (Long id : ids) {
+            batch.add(id);
+            if (batch.size() >= batchSize) {
+                result.addAll(loadBatch(batch, query));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            result.addAll(loadBatch(batch, query));
+        }
+        return result;
+    }
+
+    /**
+     * 讀一批並按每秒行數限速，直接讀主庫以免把複製延遲算作緩存不一致
+     */
+    private <T> List<T> loadBatch(List<Long> ids, Function<Collection<Long>, List<T>> query) {
+        long startNanos = System.nanoTime();
+        List<T> rows = query.apply(ids);
+        rowsRead.add(ids.size());
+        if (rowsPerSecond > 0) {
+            long budgetNanos = (long) (ids.size() * TimeUnit.SECONDS.toNanos(1) / rowsPerSecond);
+            long remaining = budgetNanos - (System.nanoTime() - startNanos);
+            if (remaining > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 比較交易行，返回不一致持續毫秒數，一致時返回 CONSISTENT
+     */
+    private long compare(CachedRow cached, Transaction current, LocalDateTime now) {
+        if (current == null) {
+            // 已刪除，無法得知刪除時間
+            return UNKNOWN_AGE;
+        }
+        if (Objects.equals(cached.status, current.getStatus()) && sameAmount(cached.amount, current.getAmount())) {
+            return CONSISTENT;
+        }
+        return since(current.getUpdatedAt(), now);
+    }
+
+    /**
+     * 比較黑名單行；activeOnly 的條目中已過期的記錄也算不一致
+     */
+    private long compare(CachedRow cached, Blacklist current, boolean activeOnly, LocalDateTime now) {
+        if (current == null) {
+            return UNKNOWN_AGE;
+        }
+        if (activeOnly && cached.expiresAt != null && cached.expiresAt.isBefore(now)) {
+            return since(cached.expiresAt, now);
+        }
+        if (Objects.equals(cached.status, current.getStatus()) && Objects.equals(cached.expiresAt, current.getExpiresAt())) {
+            return CONSISTENT;
+        }
+        return since(current.getUpdatedAt(), now);
+    }
+
+    private static boolean sameAmount(BigDecimal cached, BigDecimal current) {
+        return cached == null ? current == null : current != null && cached.compareTo(current) == 0;
+    }
+
+    private static long since(LocalDateTime time, LocalDateTime now) {
+        return time == null ? UNKNOWN_AGE : Math.max(0, Duration.between(time, now).toMillis());
+    }
+
+    private FamilyStats family(String family) {
+        return families.computeIfAbsent(family, FamilyStats::new);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 獲取審計統計信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("repair", repair);
+        stats.put("running", running.get());
+        stats.put("rounds", rounds.sum());
+        stats.put("rowsRead", rowsRead.sum());
+        stats.put("lastRound", lastRound);
+        Map<String, Object> byFamily = new LinkedHashMap<>();
+        families.values().stream()
+                .sorted((a, b) -> a.family.compareTo(b.family))
+                .forEach(family -> byFamily.put(family.family, family.toMap()));
+        stats.put("families", byFamily);
+        return stats;
+    }
+
+    /**
+     * 一個被抽中的緩存條目
+     */
+    private static final class AuditEntry {
+
+        private final String cacheName;
+        private final String key;
+        private final String family;
+        private final long version;
+        private final boolean activeOnly;
+        private final List<CachedRow> rows;
+
+        AuditEntry(String cacheName, String key, String family, long version, boolean activeOnly, List<CachedRow> rows) {
+            this.cacheName = cacheName;
+            this.key = key;
+            this.family = family;
+            this.version = version;
+            this.activeOnly = activeOnly;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * 緩存中一行的待比較字段
+     */
+    private static final class CachedRow {
+
+        private final boolean transaction;
+        private final Long id;
+        private final String status;
+        private final BigDecimal amount;
+        private final LocalDateTime expiresAt;
+
+        CachedRow(boolean transaction, Long id, String status, BigDecimal amount, LocalDateTime expiresAt) {
+            this.transaction = transaction;
+            this.id = id;
+            this.status = status;
+            this.amount = amount;
+            this.expiresAt = expiresAt;
+        }
+
+        static CachedRow of(Transaction transaction) {
+            return new CachedRow(true, transaction.getId(), transaction.getStatus(), transaction.getAmount(), null);
+        }
+
+        static CachedRow of(Blacklist blacklist) {
+            return new CachedRow(false, blacklist.getId(), blacklist.getStatus(), null, blacklist.getExpiresAt());
+        }
+    }
+
+    /**
+     * 單個鍵族的審計統計
+     */
+    private final class FamilyStats {
+
+        private final String family;
+        private final LongAdder sampled = new LongAdder();
+        private final LongAdder consistent = new LongAdder();
+        private final LongAdder stale = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+        private final LongAdder resolved = new LongAdder();
+        private final LongAdder repaired = new LongAdder();
+        private final LongAdder rowsChecked = new LongAdder();
+        private final AtomicLongArray ageBuckets = new AtomicLongArray(AGE_BUCKETS.length);
+        private final Counter staleCounter;
+        private final Counter sampledCounter;
+        private final DistributionSummary staleness;
+
+        FamilyStats(String family) {
+            this.family = family;
+            this.sampledCounter = Counter.builder("cache.audit.entries")
+                    .tag("family", family).tag("result", "sampled").register(meterRegistry);
+            this.staleCounter = Counter.builder("cache.audit.entries")
+                    .tag("family", family).tag("result", "stale").register(meterRegistry);
+            this.staleness = DistributionSummary.builder("cache.audit.staleness")
+                    .description("不一致條目自數據庫變更起已持續的時間")
+                    .baseUnit("milliseconds")
+                    .tag("family", family)
+                    .publishPercentiles(0.5, 0.9, 0.99)
+                    .register(meterRegistry);
+        }
+
+        void recordStale(long ageMs) {
+            stale.increment();
+            staleCounter.increment();
+            if (ageMs == UNKNOWN_AGE) {
+                ageBuckets.incrementAndGet(AGE_BUCKETS.length - 1);
+                return;
+            }
+            staleness.record(ageMs);
+            int bucket = 0;
+            while (bucket < AGE_BOUNDS_MS.length && ageMs >= AGE_BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            ageBuckets.incrementAndGet(bucket);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            long sampledCount = sampled.sum();
+            map.put("sampled", sampledCount);
+            map.put("rowsChecked", rowsChecked.sum());
+            map.put("consistent", consistent.sum());
+            map.put("stale", stale.sum());
+            map.put("staleRate", sampledCount > 0 ? Math.round(stale.sum() * 10000.0 / sampledCount) / 10000.0 : 0);
+            map.put("inFlight", inFlight.sum());
+            map.put("resolvedDuringAudit", resolved.sum());
+            map.put("repaired", repaired.sum());
+            Map<String, Object> ages = new LinkedHashMap<>();
+            for (int i = 0; i < AGE_BUCKETS.length; i++) {
+                ages.put(AGE_BUCKETS[i], ageBuckets.get(i));
+            }
+            map.put("stalenessAge", ages);
+            map.put("stalenessMeanMs", Math.round(staleness.mean()));
+            return map;
+        }
+    }
+}
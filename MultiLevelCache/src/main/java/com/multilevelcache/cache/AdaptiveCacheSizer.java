@@ -0,0 +1,522 @@
+package com.multilevelcache.cache;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 緩存容量自適應調整
+ *
+ * 對緩存訪問按鍵哈希做空間採樣，在每個候選容量上維護一個按採樣率縮小的影子 LRU，
+ * 由各影子的命中率得到在線的命中率曲線；影子只收錄實際回填過的鍵，未命中後沒有回填的鍵不佔容量。定期按曲線為每個緩存選擇達到目標命中率的最小容量，
+ * 總容量超出內存預算時按「每增加一個條目帶來的命中數」從高到低分配，再通過 Caffeine 的
+ * {@code Policy.eviction().setMaximum} 調整 L1 緩存上限。
+ */
+@Slf4j
+@Component
+public class AdaptiveCacheSizer implements CacheInvalidationListener {
+
+    private static final int HASH_RANGE = 1 << 16;
+    private static final int MAX_DECISIONS = 50;
+    private static final int SAMPLE_BUFFER_SIZE = 4096;
+    private static final int SAMPLE_DRAIN_BATCH = 64;
+
+    private final CacheManager caffeineCacheManager;
+
+    @Value("${cache.sizing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.sizing.auto-resize:false}")
+    private boolean autoResize;
+
+    @Value("${cache.sizing.sample-rate:0.1}")
+    private double sampleRate;
+
+    @Value("${cache.sizing.candidate-sizes:250,500,1000,2000,4000,8000,16000}")
+    private int[] candidateSizes;
+
+    @Value("${cache.sizing.target-hit-rate:0.9}")
+    private double targetHitRate;
+
+    @Value("${cache.sizing.min-size:100}")
+    private long minSize;
+
+    @Value("${cache.sizing.memory-budget-mb:64}")
+    private long memoryBudgetMb;
+
+    @Value("${cache.sizing.estimated-entry-bytes:4096}")
+    private long estimatedEntryBytes;
+
+    @Value("${cache.sizing.min-samples:200}")
+    private long minSamples;
+
+    @Value("${cache.sizing.resize-threshold:0.1}")
+    private double resizeThreshold;
+
+    private int sampleThreshold;
+    private final Map<String, MissRatioCurve> curves = new ConcurrentHashMap<>();
+    private final Deque<Map<String, Object>> decisions = new ArrayDeque<>();
+
+    public AdaptiveCacheSizer(@Qualifier("caffeineCacheManager") CacheManager caffeineCacheManager) {
+        this.caffeineCacheManager = caffeineCacheManager;
+    }
+
+    @PostConstruct
+    public void init() {
+        candidateSizes = Arrays.stream(candidateSizes).filter(size -> size > 0).sorted().distinct().toArray();
+        sampleThreshold = (int) Math.max(1, Math.min(HASH_RANGE, Math.round(sampleRate * HASH_RANGE)));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 記錄一次 L1 訪問
+     *
+     * @param hit 實際緩存是否命中
+     */
+    public void recordAccess(String cacheName, String key, boolean hit) {
+        if (!enabled || key == null) {
+            return;
+        }
+        MissRatioCurve curve = curves.computeIfAbsent(cacheName, name -> new MissRatioCurve());
+        curve.record(hit);
+        if (sampled(key)) {
+            curve.access(key);
+        }
+    }
+
+    /**
+     * 記錄一次 L1 回填（未命中後寫入）
+     */
+    public void recordFill(String cacheName, String key) {
+        if (!enabled || key == null || !sampled(key)) {
+            return;
+        }
+        curves.computeIfAbsent(cacheName, name -> new MissRatioCurve()).fill(key);
+    }
+
+    @Override
+    public void onEvict(String cacheName, String key) {
+        // 被主動刪除的鍵下次訪問必然未命中，影子緩存同步刪除
+        MissRatioCurve curve = curves.get(cacheName);
+        if (curve != null && sampled(key)) {
+            curve.remove(key);
+        }
+    }
+
+    @Override
+    public void onClear(String cacheName) {
+        MissRatioCurve curve = curves.get(cacheName);
+        if (curve != null) {
+            curve.clear();
+        }
+    }
+
+    /**
+     * 定期根據命中率曲線調整緩存容量
+     */
+    @Scheduled(initialDelayString = "${cache.sizing.interval-ms:60000}",
+            fixedDelayString = "${cache.sizing.interval-ms:60000}")
+    public void scheduledResize() {
+        if (enabled && autoResize) {
+            resize(true);
+        }
+    }
+
+    /**
+     * 計算各緩存的建議容量
+     *
+     * @param apply 是否把建議容量應用到 Caffeine 緩存
+     * @return 本輪決策
+     */
+    public synchronized Map<String, Object> resize(boolean apply) {
+        Map<String, double[]> hitRatios = new LinkedHashMap<>();
+        Map<String, Long> accesses = new LinkedHashMap<>();
+        for (Map.Entry<String, MissRatioCurve> entry : curves.entrySet()) {
+            MissRatioCurve curve = entry.getValue();
+            if (curve.sampledAccesses() >= minSamples && eviction(entry.getKey()).isPresent()) {
+                hitRatios.put(entry.getKey(), curve.hitRatios());
+                accesses.put(entry.getKey(), curve.totalAccesses());
+            }
+        }
+
+        Map<String, Integer> allocation = allocate(hitRatios, accesses);
+        Map<String, Object> decision = new LinkedHashMap<>();
+        decision.put("timestamp", LocalDateTime.now());
+        decision.put("applied", apply);
+        Map<String, Object> caches = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : allocation.entrySet()) {
+            String cacheName = entry.getKey();
+            long current = eviction(cacheName).map(Policy.Eviction::getMaximum).orElse(0L);
+            long target = Math.max(minSize, candidateSizes[entry.getValue()]);
+            boolean change = current == 0 || Math.abs(target - current) >= current * resizeThreshold;
+
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("currentMaximum", current);
+            info.put("targetMaximum", target);
+            info.put("predictedHitRate", round(hitRatios.get(cacheName)[entry.getValue()]));
+            info.put("changed", apply && change && target != current);
+            caches.put(cacheName, info);
+
+            if (apply && change && target != current) {
+                eviction(cacheName).ifPresent(eviction -> eviction.setMaximum(target));
+                log.info("📐 調整緩存容量: {} {} -> {} (預測命中率 {})",
+                        cacheName, current, target, info.get("predictedHitRate"));
+            }
+        }
+        decision.put("caches", caches);
+
+        // 計數衰減，使曲線跟隨訪問模式的變化
+        curves.values().forEach(MissRatioCurve::decay);
+
+        synchronized (decisions) {
+            decisions.addFirst(decision);
+            while (decisions.size() > MAX_DECISIONS) {
+                decisions.removeLast();
+            }
+        }
+        return decision;
+    }
+
+    /**
+     * 為每個緩存選擇候選容量下標
+     *
+     * 先取每個緩存的最小候選容量，然後反覆選擇「每增加一個條目帶來的命中數」最高的一次升級，
+     * 直到各緩存達到目標命中率或內存預算用盡。
+     */
+    private Map<String, Integer> allocate(Map<String, double[]> hitRatios, Map<String, Long> accesses) {
+        long budgetEntries = memoryBudgetMb * 1024 * 1024 / Math.max(1, estimatedEntryBytes);
+        Map<String, Integer> allocation = new LinkedHashMap<>();
+        Map<String, Integer> limits = new LinkedHashMap<>();
+        long used = 0;
+        for (Map.Entry<String, double[]> entry : hitRatios.entrySet()) {
+            allocation.put(entry.getKey(), 0);
+            limits.put(entry.getKey(), targetIndex(entry.getValue()));
+            used += candidateSizes[0];
+        }
+
+        while (true) {
+            String best = null;
+            double bestGain = 0;
+            for (Map.Entry<String, Integer> entry : allocation.entrySet()) {
+                int index = entry.getValue();
+                if (index >= limits.get(entry.getKey())) {
+                    continue;
+                }
+                double[] ratios = hitRatios.get(entry.getKey());
+                long extraEntries = candidateSizes[index + 1] - candidateSizes[index];
+                if (used + extraEntries > budgetEntries) {
+                    continue;
+                }
+                double gain = (ratios[index + 1] - ratios[index]) * accesses.get(entry.getKey()) / extraEntries;
+                if (best == null || gain > bestGain) {
+                    best = entry.getKey();
+                    bestGain = gain;
+                }
+            }
+            if (best == null) {
+                return allocation;
+            }
+            int index = allocation.get(best);
+            used += candidateSizes[index + 1] - candidateSizes[index];
+            allocation.put(best, index + 1);
+        }
+    }
+
+    /**
+     * 達到目標命中率的最小候選容量；都達不到時取曲線趨平前的容量
+     */
+    private int targetIndex(double[] ratios) {
+        for (int i = 0; i < ratios.length; i++) {
+            if (ratios[i] >= targetHitRate) {
+                return i;
+            }
+        }
+        double best = ratios[ratios.length - 1];
+        for (int i = 0; i < ratios.length; i++) {
+            if (best - ratios[i] < 0.01) {
+                return i;
+            }
+        }
+        return ratios.length - 1;
+    }
+
+    private Optional<Policy.Eviction<Object, Object>> eviction(String cacheName) {
+        org.springframework.cache.Cache cache = caffeineCacheManager.getCache(cacheName);
+        if (!(cache instanceof CaffeineCache)) {
+            return Optional.empty();
+        }
+        return ((CaffeineCache) cache).getNativeCache().policy().eviction();
+    }
+
+    private boolean sampled(String key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        hash ^= hash >>> 16;
+        return (hash & (HASH_RANGE - 1)) < sampleThreshold;
+    }
+
+    /**
+     * 獲取命中率曲線與最近的調整決策
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("autoResize", autoResize);
+        stats.put("sampleRate", (double) sampleThreshold / HASH_RANGE);
+        stats.put("targetHitRate", targetHitRate);
+        stats.put("memoryBudgetMb", memoryBudgetMb);
+        stats.put("estimatedEntryBytes", estimatedEntryBytes);
+
+        Map<String, Object> cacheStats = new LinkedHashMap<>();
+        for (Map.Entry<String, MissRatioCurve> entry : curves.entrySet()) {
+            MissRatioCurve curve = entry.getValue();
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("currentMaximum", eviction(entry.getKey()).map(Policy.Eviction::getMaximum).orElse(null));
+            info.put("observedHitRate", round(curve.observedHitRatio()));
+            info.put("accesses", curve.totalAccesses());
+            info.put("sampledAccesses", curve.sampledAccesses());
+            info.put("droppedSamples", curve.droppedSamples());
+            double[] ratios = curve.hitRatios();
+            List<Map<String, Object>> points = new ArrayList<>();
+            for (int i = 0; i < candidateSizes.length; i++) {
+                Map<String, Object> point = new LinkedHashMap<>();
+                point.put("size", candidateSizes[i]);
+                point.put("hitRate", round(ratios[i]));
+                point.put("missRate", round(1 - ratios[i]));
+                points.add(point);
+            }
+            info.put("curve", points);
+            cacheStats.put(entry.getKey(), info);
+        }
+        stats.put("caches", cacheStats);
+        synchronized (decisions) {
+            stats.put("decisions", new ArrayList<>(decisions));
+        }
+        return stats;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10000) / 10000.0;
+    }
+
+    /**
+     * 單個緩存的影子 LRU 組
+     *
+     * 採樣事件先寫入無鎖緩衝區，攢夠一批後由搶到鎖的線程一次性回放到各影子 LRU，
+     * 請求線程不會在影子更新上互相等待；緩衝區滿時丟棄新事件，只影響採樣精度。
+     */
+    private class MissRatioCurve {
+
+        private final ShadowLru[] shadows;
+        private final ConcurrentLinkedQueue<SampleEvent> buffer = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger buffered = new AtomicInteger();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder droppedSamples = new LongAdder();
+        /** 上一輪衰減後保留的訪問數，與影子計數按同樣的節奏減半 */
+        private volatile long decayedHits;
+        private volatile long decayedMisses;
+
+        MissRatioCurve() {
+            shadows = new ShadowLru[candidateSizes.length];
+            for (int i = 0; i < candidateSizes.length; i++) {
+                int capacity = (int) Math.max(1, Math.round(candidateSizes[i] * (double) sampleThreshold / HASH_RANGE));
+                shadows[i] = new ShadowLru(capacity);
+            }
+        }
+
+        void record(boolean hit) {
+            (hit ? hits : misses).increment();
+        }
+
+        void access(String key) {
+            submit(new SampleEvent(SampleEvent.ACCESS, key));
+        }
+
+        void fill(String key) {
+            submit(new SampleEvent(SampleEvent.FILL, key));
+        }
+
+        void remove(String key) {
+            submit(new SampleEvent(SampleEvent.REMOVE, key));
+        }
+
+        private void submit(SampleEvent event) {
+            if (buffered.incrementAndGet() > SAMPLE_BUFFER_SIZE) {
+                buffered.decrementAndGet();
+                droppedSamples.increment();
+                return;
+            }
+            buffer.offer(event);
+            if (buffered.get() >= SAMPLE_DRAIN_BATCH && lock.tryLock()) {
+                try {
+                    drain();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        /**
+         * 按提交順序回放緩衝的事件，調用方持有鎖
+         */
+        private void drain() {
+            SampleEvent event;
+            while ((event = buffer.poll()) != null) {
+                buffered.decrementAndGet();
+                for (ShadowLru shadow : shadows) {
+                    if (event.type == SampleEvent.ACCESS) {
+                        shadow.access(event.key);
+                    } else if (event.type == SampleEvent.FILL) {
+                        shadow.fill(event.key);
+                    } else {
+                        shadow.remove(event.key);
+                    }
+                }
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                drain();
+                for (ShadowLru shadow : shadows) {
+                    shadow.clear();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        double[] hitRatios() {
+            lock.lock();
+            try {
+                drain();
+                double[] ratios = new double[shadows.length];
+                for (int i = 0; i < shadows.length; i++) {
+                    ratios[i] = shadows[i].accesses == 0 ? 0 : (double) shadows[i].hits / shadows[i].accesses;
+                }
+                return ratios;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long sampledAccesses() {
+            lock.lock();
+            try {
+                drain();
+                return shadows.length == 0 ? 0 : shadows[0].accesses;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long droppedSamples() {
+            return droppedSamples.sum();
+        }
+
+        long totalAccesses() {
+            return totalHits() + decayedMisses + misses.sum();
+        }
+
+        double observedHitRatio() {
+            long total = totalAccesses();
+            return total == 0 ? 0 : (double) totalHits() / total;
+        }
+
+        private long totalHits() {
+            return decayedHits + hits.sum();
+        }
+
+        void decay() {
+            lock.lock();
+            try {
+                drain();
+                for (ShadowLru shadow : shadows) {
+                    shadow.hits /= 2;
+                    shadow.accesses /= 2;
+                }
+                decayedHits = (decayedHits + hits.sumThenReset()) / 2;
+                decayedMisses = (decayedMisses + misses.sumThenReset()) / 2;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 緩衝中的採樣事件
+     */
+    private static final class SampleEvent {
+
+        static final byte ACCESS = 0;
+        static final byte FILL = 1;
+        static final byte REMOVE = 2;
+
+        private final byte type;
+        private final String key;
+
+        SampleEvent(byte type, String key) {
+            this.type = type;
+            this.key = key;
+        }
+    }
+
+    /**
+     * 只記錄鍵的 LRU，只有實際觀察到回填的鍵才進入影子緩存
+     */
+    private static class ShadowLru extends LinkedHashMap<String, Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+        private long hits;
+        private long accesses;
+
+        ShadowLru(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        void access(String key) {
+            accesses++;
+            if (get(key) != null) {
+                hits++;
+            }
+        }
+
+        void fill(String key) {
+            put(key, Boolean.TRUE);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.multilevelcache.cache;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 緩存未命中合併加載器（DataLoader 風格）
+ *
+ * 在一個很短的時間窗口內收集不同的鍵，窗口結束或達到最大批量時
+ * 用一次批量查詢加載，並逐個完成等待中的調用方。同一窗口內相同的鍵共享一個結果。
+ * 批量查詢總在 executor 上執行，不佔用窗口計時的 scheduler 線程；無法提交時整批以異常完成。
+ *
+ * @param <K> 鍵類型
+ * @param <V> 值類型
+ */
+@Slf4j
+public class BatchLoader<K, V> {
+
+    private final String name;
+    private final Function<List<K>, Map<K, V>> batchFunction;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+
+    private final DistributionSummary batchSizeSummary;
+    private final Timer waitTimer;
+    private final Timer queryTimer;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedKeys = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    private Batch<K, V> current;
+
+    public BatchLoader(String name, Function<List<K>, Map<K, V>> batchFunction, long windowMicros, int maxBatchSize,
+                       ScheduledExecutorService scheduler, Executor executor, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.batchFunction = batchFunction;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.batchSizeSummary = DistributionSummary.builder("cache.coalescer.batch.size")
+                .tag("loader", name)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("cache.coalescer.wait")
+                .description("合併窗口為每個調用方增加的等待時間")
+                .tag("loader", name)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.queryTimer = Timer.builder("cache.coalescer.query")
+                .tag("loader", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 加載單個鍵，返回在批量查詢完成後完成的 Future（不存在時值為 null）
+     */
+    public CompletableFuture<V> load(K key) {
+        requests.increment();
+        long now = System.nanoTime();
+        Batch<K, V> full = null;
+        CompletableFuture<V> future;
+
+        synchronized (this) {
+            if (current == null) {
+                Batch<K, V> batch = new Batch<>();
+                current = batch;
+                scheduler.schedule(() -> dispatchIfCurrent(batch), windowNanos, TimeUnit.NANOSECONDS);
+            }
+            Entry<V> entry = current.entries.get(key);
+            if (entry == null) {
+                entry = new Entry<>(now);
+                current.entries.put(key, entry);
+            }
+            future = entry.future;
+            if (current.entries.size() >= maxBatchSize) {
+                full = current;
+                current = null;
+            }
+        }
+
+        if (full != null) {
+            dispatch(full, false);
+        }
+        return future;
+    }
+
+    private void dispatchIfCurrent(Batch<K, V> batch) {
+        synchronized (this) {
+            if (current != batch) {
+                // 已因達到最大批量而提前發出
+                return;
+            }
+            current = null;
+        }
+        dispatch(batch, true);
+    }
+
+    private void dispatch(Batch<K, V> batch, boolean onScheduler) {
+        long dispatchedAt = System.nanoTime();
+        for (Entry<V> entry : batch.entries.values()) {
+            long waited = dispatchedAt - entry.arrivedAt;
+            waitTimer.record(waited, TimeUnit.NANOSECONDS);
+            waitNanos.add(waited);
+        }
+        batches.increment();
+        batchedKeys.add(batch.entries.size());
+        batchSizeSummary.record(batch.entries.size());
+
+        Thread dispatcher = Thread.currentThread();
+        try {
+            executor.execute(() -> {
+                if (onScheduler && Thread.currentThread() == dispatcher) {
+                    // 拒絕策略在窗口計時線程上直接執行：不在唯一的 scheduler 線程上查詢數據庫
+                    fail(batch, new RejectedExecutionException("合併加載 " + name + " 的執行器已滿"));
+                    return;
+                }
+                execute(batch);
+            });
+        } catch (RejectedExecutionException e) {
+            fail(batch, e);
+        }
+    }
+
+    private void fail(Batch<K, V> batch, Throwable e) {
+        log.warn("⚠️ 合併加載 {} 無法提交: {}", name, e.getMessage());
+        for (Entry<V> entry : batch.entries.values()) {
+            entry.future.completeExceptionally(e);
+        }
+    }
+
+    private void execute(Batch<K, V> batch) {
+        List<K> keys = new ArrayList<>(batch.entries.keySet());
+        long startTime = System.nanoTime();
+        try {
+            Map<K, V> values = batchFunction.apply(keys);
+            queryTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+            for (Map.Entry<K, Entry<V>> entry : batch.entries.entrySet()) {
+                entry.getValue().future.complete(values.get(entry.getKey()));
+            }
+            log.debug("📦 合併加載 {}: {} 個鍵, 耗時 {}μs", name, keys.size(),
+                    TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+        } catch (Throwable e) {
+            log.warn("⚠️ 合併加載 {} 失敗: {}", name, e.getMessage());
+            for (Entry<V> entry : batch.entries.values()) {
+                entry.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 獲取加載器統計信息
+     */
+    public Map<String, Object> getStats() {
+        long batchCount = batches.sum();
+        long keyCount = batchedKeys.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("requests", requests.sum());
+        stats.put("batches", batchCount);
+        stats.put("distinctKeys", keyCount);
+        stats.put("averageBatchSize", batchCount > 0 ? String.format("%.2f", (double) keyCount / batchCount) : "0");
+        stats.put("averageWaitMicros", keyCount > 0 ? TimeUnit.NANOSECONDS.toMicros(waitNanos.sum() / keyCount) : 0);
+        stats.put("windowMicros", TimeUnit.NANOSECONDS.toMicros(windowNanos));
+        stats.put("maxBatchSize", maxBatchSize);
+        return stats;
+    }
+
+    /**
+     * 一個窗口內收集的鍵
+     */
+    private static class Batch<K, V> {
+        private final Map<K, Entry<V>> entries = new LinkedHashMap<>();
+    }
+
+    /**
+     * 同一個鍵的等待結果
+     */
+    private static class Entry<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private final long arrivedAt;
+
+        Entry(long arrivedAt) {
+            this.arrivedAt = arrivedAt;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.multilevelcache.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 緩存回填版本號
+ *
+ * 未命中時先取得當前時鐘值，再讀數據庫；每次失效從時鐘取一個新值記到鍵所在分段，
+ * 回填時分段記錄的值大於取得的時鐘值說明期間發生過失效，讀到的可能是失效前的舊行，放棄回填。
+ * 標籤失效同樣記到標籤所在分段，帶標籤的回填一併校驗。版本號按哈希分段保存，不隨鍵數增長，
+ * 分段衝突只會多拒絕一次回填。
+ */
+@Component
+public class CacheFillVersions implements CacheInvalidationListener {
+
+    private static final String TAG_PREFIX = "#tag:";
+    private static final String NAMESPACE_PREFIX = "#namespace:";
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLongArray versions;
+    private final int mask;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejectedBeforePut = new LongAdder();
+    private final LongAdder rejectedAfterPut = new LongAdder();
+
+    public CacheFillVersions(@Value("${cache.fill.version-stripes:4096}") int stripes, MeterRegistry meterRegistry) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.versions = new AtomicLongArray(size);
+        this.mask = size - 1;
+
+        FunctionCounter.builder("cache.fill", accepted, LongAdder::sum)
+                .tag("result", "accepted")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.fill", this, v -> v.rejectedBeforePut.sum() + v.rejectedAfterPut.sum())
+                .description("因期間發生失效而放棄的回填")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 未命中時、讀數據庫之前獲取版本號
+     */
+    public long begin(String cacheName, String key) {
+        return clock.get();
+    }
+
+    /**
+     * 取得版本號之後鍵未被失效
+     */
+    public boolean isCurrent(String cacheName, String key, long version) {
+        return versions.get(stripe(cacheName, key)) <= version;
+    }
+
+    /**
+     * 取得版本號之後標籤未被失效
+     */
+    public boolean isTagCurrent(String cacheName, String tag, long version) {
+        return versions.get(stripe(cacheName, TAG_PREFIX + tag)) <= version;
+    }
+
+    /**
+     * 取得版本號之後鍵所屬的命名空間未推進代際
+     */
+    public boolean isNamespaceCurrent(String cacheName, String namespace, long version) {
+        return versions.get(stripe(cacheName, NAMESPACE_PREFIX + namespace)) <= version;
+    }
+
+    /**
+     * 標籤失效，必須在摘下標籤對應的鍵之前調用
+     */
+    public void onTagInvalidated(String cacheName, String tag) {
+        advance(stripe(cacheName, TAG_PREFIX + tag));
+    }
+
+    void recordAccepted() {
+        accepted.increment();
+    }
+
+    void recordRejected(boolean afterPut) {
+        (afterPut ? rejectedAfterPut : rejectedBeforePut).increment();
+    }
+
+    @Override
+    public void onEvict(String cacheName, String key) {
+        advance(stripe(cacheName, key));
+    }
+
+    @Override
+    public void onNamespaceBumped(String cacheName, String namespace) {
+        advance(stripe(cacheName, NAMESPACE_PREFIX + namespace));
+    }
+
+    @Override
+    public void onClear(String cacheName) {
+        long now = clock.incrementAndGet();
+        for (int i = 0; i < versions.length(); i++) {
+            versions.accumulateAndGet(i, now, Math::max);
+        }
+    }
+
+    /**
+     * 並發失效取到的時鐘值先後不定，分段只前進不後退
+     */
+    private void advance(int stripe) {
+        versions.accumulateAndGet(stripe, clock.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * 獲取回填統計信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stripes", versions.length());
+        stats.put("accepted", accepted.sum());
+        stats.put("rejectedBeforePut", rejectedBeforePut.sum());
+        stats.put("rejectedAfterPut", rejectedAfterPut.sum());
+        return stats;
+    }
+
+    private int stripe(String cacheName, String key) {
+        int hash = cacheName.hashCode() * 31 + key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
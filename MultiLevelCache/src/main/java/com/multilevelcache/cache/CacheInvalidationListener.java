@@ -0,0 +1,27 @@
+package com.multilevelcache.cache;
+
+/**
+ * 緩存失效監聽器
+ *
+ * 由 {@link MultiLevelCacheService}（集群模式下由本地分區存儲）在刪除鍵或清空緩存之前回調，
+ * 讓依附於緩存鍵的衍生數據跟隨同一次失效一起清除；回填版本號先於刪除推進，
+ * 刪除之後不會再有舊版本的回填被接受。
+ */
+public interface CacheInvalidationListener {
+
+    /**
+     * 指定鍵即將被刪除
+     */
+    void onEvict(String cacheName, String key);
+
+    /**
+     * 指定緩存即將被清空
+     */
+    void onClear(String cacheName);
+
+    /**
+     * 指定命名空間推進了代際，舊代際的條目已不可達，見 {@link CacheNamespaces}
+     */
+    default void onNamespaceBumped(String cacheName, String namespace) {
+    }
+}
@@ -0,0 +1,202 @@
+package com.multilevelcache.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 緩存鍵命名空間代際
+ *
+ * 鍵的命名空間是第一個冒號之前的前綴（沒有冒號時為整個鍵），例如 transaction、user_transactions。
+ * 每個命名空間有一個代際號，實際存入緩存的物理鍵為「邏輯鍵#g代際」，第 0 代不加後綴；
+ * 邏輯鍵本身以「#g數字」結尾時第 0 代也加後綴，解析時只取最後一個後綴，不會與代際混淆。
+ * 推進代際只是一次原子自增，舊代際的條目從此不可達，等同於整族失效，之後由容量淘汰和過期自然清除。
+ * 標籤索引、回填版本號和失效監聽器使用邏輯鍵，只有讀寫緩存存儲時才換算成物理鍵。
+ */
+@Component
+public class CacheNamespaces {
+
+    public static final String GENERATION_SEPARATOR = "#g";
+
+    /** 後綴數字位數上限，更長的數字串不視為代際後綴，保證 parseLong 不會溢出 */
+    private static final int MAX_GENERATION_DIGITS = 18;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, Namespace>> namespaces = new ConcurrentHashMap<>();
+
+    /**
+     * 鍵所屬的命名空間
+     */
+    public static String namespaceOf(String key) {
+        int separator = key.indexOf(':');
+        return separator > 0 ? key.substring(0, separator) : key;
+    }
+
+    /**
+     * 去掉代際後綴的邏輯鍵
+     */
+    public static String logicalKey(String physicalKey) {
+        int separator = suffixStart(physicalKey);
+        return separator >= 0 ? physicalKey.substring(0, separator) : physicalKey;
+    }
+
+    private static long generationOf(String physicalKey) {
+        int separator = suffixStart(physicalKey);
+        return separator >= 0 ? Long.parseLong(physicalKey.substring(separator + GENERATION_SEPARATOR.length())) : 0L;
+    }
+
+    /**
+     * 代際後綴的起始位置，沒有後綴時返回 -1
+     */
+    private static int suffixStart(String key) {
+        int separator = key.lastIndexOf(GENERATION_SEPARATOR);
+        int digits = separator + GENERATION_SEPARATOR.length();
+        if (separator < 0 || digits == key.length() || key.length() - digits > MAX_GENERATION_DIGITS) {
+            return -1;
+        }
+        for (int i = digits; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        return separator;
+    }
+
+    /**
+     * 鍵所屬的命名空間，首次出現時創建
+     */
+    public Namespace of(String cacheName, String key) {
+        return get(cacheName, namespaceOf(key));
+    }
+
+    public Namespace get(String cacheName, String namespace) {
+        ConcurrentMap<String, Namespace> byName = namespaces.get(cacheName);
+        if (byName == null) {
+            byName = namespaces.computeIfAbsent(cacheName, name -> new ConcurrentHashMap<>());
+        }
+        Namespace current = byName.get(namespace);
+        return current != null ? current : byName.computeIfAbsent(namespace, Namespace::new);
+    }
+
+    /**
+     * 邏輯鍵在當前代際下的物理鍵
+     */
+    public String physicalKey(String cacheName, String key) {
+        return of(cacheName, key).physicalKey(key);
+    }
+
+    /**
+     * 物理鍵屬於當前代際時返回其邏輯鍵，舊代際的孤立條目返回 null
+     */
+    public String currentLogicalKey(String cacheName, Object physicalKey) {
+        String key = String.valueOf(physicalKey);
+        String logical = logicalKey(key);
+        return generationOf(key) == of(cacheName, logical).getGeneration() ? logical : null;
+    }
+
+    /**
+     * 推進代際，返回新的代際號
+     */
+    long bump(String cacheName, String namespace) {
+        return get(cacheName, namespace).bump();
+    }
+
+    /**
+     * 前進到指定代際（集群中其他節點推送），已不低於該代際時返回 false
+     */
+    boolean advanceTo(String cacheName, String namespace, long generation) {
+        return get(cacheName, namespace).advanceTo(generation);
+    }
+
+    /**
+     * 所有已推進過的代際：緩存名 → 命名空間 → 代際
+     */
+    public Map<String, Map<String, Long>> generations() {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        namespaces.forEach((cacheName, byName) -> byName.forEach((name, namespace) -> {
+            if (namespace.getGeneration() > 0) {
+                result.computeIfAbsent(cacheName, n -> new TreeMap<>()).put(name, namespace.getGeneration());
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * 指定緩存下已出現過的命名空間
+     */
+    public Map<String, Namespace> namespaces(String cacheName) {
+        ConcurrentMap<String, Namespace> byName = namespaces.get(cacheName);
+        return byName != null ? new TreeMap<>(byName) : new TreeMap<>();
+    }
+
+    /**
+     * 單個命名空間的代際與訪問計數
+     */
+    public static class Namespace {
+
+        private final String name;
+        private final AtomicLong generation = new AtomicLong();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private volatile long lastBumpedAt;
+
+        Namespace(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getGeneration() {
+            return generation.get();
+        }
+
+        String physicalKey(String key) {
+            long current = generation.get();
+            // 邏輯鍵看起來已帶後綴時必須顯式加上代際，否則解析時會把它的結尾當作代際
+            return current == 0 && suffixStart(key) < 0 ? key : key + GENERATION_SEPARATOR + current;
+        }
+
+        void recordAccess(boolean hit) {
+            (hit ? hits : misses).increment();
+        }
+
+        long bump() {
+            lastBumpedAt = System.currentTimeMillis();
+            return generation.incrementAndGet();
+        }
+
+        boolean advanceTo(long target) {
+            long previous = generation.getAndAccumulate(target, Math::max);
+            if (previous < target) {
+                lastBumpedAt = System.currentTimeMillis();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 統計信息，條目數由調用方按物理鍵掃描本地緩存得出
+         */
+        public Map<String, Object> toStats(long currentEntries, long orphanedEntries) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            long hitCount = hits.sum();
+            long total = hitCount + misses.sum();
+            stats.put("generation", generation.get());
+            stats.put("entries", currentEntries);
+            stats.put("orphanedEntries", orphanedEntries);
+            stats.put("hits", hitCount);
+            stats.put("misses", total - hitCount);
+            stats.put("hitRate", total > 0 ? Math.round(hitCount * 10000.0 / total) / 10000.0 : 0.0);
+            stats.put("lastBumpedAt", lastBumpedAt > 0 ? lastBumpedAt : null);
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.multilevelcache.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 標籤 → 緩存鍵索引
+ *
+ * 每個標籤只保存一個鍵集合，集合元素是緩存的邏輯鍵字符串本身，不複製值。
+ * 按標籤失效時整個集合一次摘下，沒有掃描；容量淘汰或過期留下的懸空鍵由定時任務清理，
+ * 懸空鍵在失效時只會多一次空刪除。
+ */
+@Slf4j
+@Component
+public class CacheTagIndex implements CacheInvalidationListener {
+
+    private final CacheManager caffeineCacheManager;
+    private final CacheFillVersions fillVersions;
+    private final CacheNamespaces cacheNamespaces;
+
+    /** 緩存名 → (標籤 → 鍵集合) */
+    private final Map<String, Map<String, Set<String>>> index = new ConcurrentHashMap<>();
+
+    private final LongAdder invalidatedTags = new LongAdder();
+    private final LongAdder invalidatedKeys = new LongAdder();
+    private final LongAdder prunedKeys = new LongAdder();
+
+    public CacheTagIndex(@Qualifier("caffeineCacheManager") CacheManager caffeineCacheManager,
+                         CacheFillVersions fillVersions, CacheNamespaces cacheNamespaces) {
+        this.caffeineCacheManager = caffeineCacheManager;
+        this.fillVersions = fillVersions;
+        this.cacheNamespaces = cacheNamespaces;
+    }
+
+    /**
+     * 登記鍵的標籤，必須在寫入緩存之前調用，保證並發的標籤失效能看到這個鍵
+     */
+    void tag(String cacheName, String key, String... tags) {
+        Map<String, Set<String>> tagsOfCache = index.computeIfAbsent(cacheName, name -> new ConcurrentHashMap<>());
+        for (String tag : tags) {
+            // 在 compute 內加入，與清理時移除空集合互斥，不會加進已被摘下的集合
+            tagsOfCache.compute(tag, (t, keys) -> {
+                Set<String> target = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                target.add(key);
+                return target;
+            });
+        }
+    }
+
+    /**
+     * 摘下標籤對應的鍵集合，由調用方逐個刪除
+     */
+    Set<String> remove(String cacheName, String tag) {
+        Map<String, Set<String>> tagsOfCache = index.get(cacheName);
+        Set<String> keys = tagsOfCache != null ? tagsOfCache.remove(tag) : null;
+        invalidatedTags.increment();
+        if (keys == null) {
+            return Collections.emptySet();
+        }
+        invalidatedKeys.add(keys.size());
+        return keys;
+    }
+
+    @Override
+    public void onEvict(String cacheName, String key) {
+        // 不維護鍵到標籤的反向索引，懸空鍵由定時清理
+    }
+
+    @Override
+    public void onClear(String cacheName) {
+        index.remove(cacheName);
+    }
+
+    /**
+     * 清理已不在本地緩存中的鍵，以及清理後為空的標籤
+     *
+     * 回填先登記標籤再寫入緩存，清理可能恰好落在兩者之間。因此對候選鍵先推進回填版本號、
+     * 再確認仍不存在後才移除：正在進行的回填要麼在寫入後校驗時看到新版本號而撤回，
+     * 要麼已在推進之前寫入、確認時會被看到而保留。
+     */
+    @Scheduled(fixedDelayString = "${cache.tag.prune-interval-ms:60000}")
+    public void prune() {
+        long pruned = 0;
+        for (Map.Entry<String, Map<String, Set<String>>> cacheEntry : index.entrySet()) {
+            String cacheName = cacheEntry.getKey();
+            Cache cache = caffeineCacheManager.getCache(cacheName);
+            if (!(cache instanceof CaffeineCache)) {
+                continue;
+            }
+            // 只查詢是否存在，不計入訪問，不影響過期與淘汰順序
+            Map<Object, Object> entries = ((CaffeineCache) cache).getNativeCache().asMap();
+            for (Map.Entry<String, Set<String>> tagEntry : cacheEntry.getValue().entrySet()) {
+                Set<String> keys = tagEntry.getValue();
+                for (String key : keys) {
+                    // 按當前代際的物理鍵確認，命名空間推進代際後舊鍵一併清理
+                    if (!entries.containsKey(cacheNamespaces.physicalKey(cacheName, key))) {
+                        fillVersions.onEvict(cacheName, key);
+                        if (!entries.containsKey(cacheNamespaces.physicalKey(cacheName, key)) && keys.remove(key)) {
+                            pruned++;
+                        }
+                    }
+                }
+                if (keys.isEmpty()) {
+                    cacheEntry.getValue().computeIfPresent(tagEntry.getKey(), (tag, current) -> current.isEmpty() ? null : current);
+                }
+            }
+        }
+        if (pruned > 0) {
+            prunedKeys.add(pruned);
+            log.debug("🧹 清理標籤索引懸空鍵: {}", pruned);
+        }
+    }
+
+    /**
+     * 獲取標籤索引統計信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        int tags = 0;
+        long keys = 0;
+        for (Map<String, Set<String>> tagsOfCache : index.values()) {
+            tags += tagsOfCache.size();
+            for (Set<String> keySet : tagsOfCache.values()) {
+                keys += keySet.size();
+            }
+        }
+        stats.put("tags", tags);
+        stats.put("indexedKeys", keys);
+        stats.put("invalidatedTags", invalidatedTags.sum());
+        stats.put("invalidatedKeys", invalidatedKeys.sum());
+        stats.put("prunedKeys", prunedKeys.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,32 @@
+package com.multilevelcache.cache;
+
+/**
+ * 緩存標籤
+ *
+ * 寫入緩存時為條目打上它依賴的實體標籤，實體變更時按標籤一次清除所有衍生條目，
+ * 不需要在寫路徑上逐個列出緩存鍵。標籤只在同一個緩存名下有效。
+ */
+public final class CacheTags {
+
+    /** 所有黑名單記錄，任何黑名單寫入都會影響 */
+    public static final String ALL_BLACKLISTS = "blacklist:*";
+
+    private CacheTags() {
+    }
+
+    public static String user(String userId) {
+        return "user:" + userId;
+    }
+
+    public static String account(String accountNumber) {
+        return "account:" + accountNumber;
+    }
+
+    public static String blacklistType(String blacklistType) {
+        return "blacklistType:" + blacklistType;
+    }
+
+    public static String transaction(String transactionId) {
+        return "transaction:" + transactionId;
+    }
+}
@@ -0,0 +1,355 @@
+package com.multilevelcache.cache;
+
+import com.multilevelcache.entity.Transaction;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式交易列表（transactionCache 中用戶/賬戶交易列表的緩存值）
+ *
+ * 每列一個數組：金額存為未縮放的 long 加小數位數，時間存為 UTC 紀元納秒，
+ * 用戶、賬戶、類型、貨幣、描述與狀態按列字典編碼，交易ID拼接為一個字符串加偏移量。
+ * 不可變，可在多個線程與集群節點間共享；讀取時按行號取列值，不需要還原實體。
+ */
+public final class ColumnarTransactionList implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final byte NULL_SCALE = Byte.MIN_VALUE;
+    private static final byte WIDE_SCALE = Byte.MIN_VALUE + 1;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final int size;
+    private final long[] ids;
+    /** 交易ID拼接後的字符串，第 i 行為 [offsets[i], offsets[i + 1]) */
+    private final String transactionIdData;
+    private final int[] transactionIdOffsets;
+    private final DictionaryColumn userIds;
+    private final DictionaryColumn accountNumbers;
+    private final DictionaryColumn transactionTypes;
+    private final DictionaryColumn currencies;
+    private final DictionaryColumn descriptions;
+    private final DictionaryColumn statuses;
+    private final long[] amountUnscaled;
+    private final byte[] amountScales;
+    /** 放不進 long 的金額，通常為 null */
+    private BigDecimal[] wideAmounts;
+    private final long[] createdAtNanos;
+    private final long[] updatedAtNanos;
+    private final byte[] deleted;
+
+    /** 編碼前按行對象估算的堆佔用 */
+    private final long rowObjectBytes;
+
+    private ColumnarTransactionList(List<Transaction> transactions) {
+        size = transactions.size();
+        ids = new long[size];
+        transactionIdOffsets = new int[size + 1];
+        amountUnscaled = new long[size];
+        amountScales = new byte[size];
+        createdAtNanos = new long[size];
+        updatedAtNanos = new long[size];
+        deleted = new byte[size];
+        DictionaryColumn.Builder userIdBuilder = new DictionaryColumn.Builder(size);
+        DictionaryColumn.Builder accountNumberBuilder = new DictionaryColumn.Builder(size);
+        DictionaryColumn.Builder typeBuilder = new DictionaryColumn.Builder(size);
+        DictionaryColumn.Builder currencyBuilder = new DictionaryColumn.Builder(size);
+        DictionaryColumn.Builder descriptionBuilder = new DictionaryColumn.Builder(size);
+        DictionaryColumn.Builder statusBuilder = new DictionaryColumn.Builder(size);
+
+        StringBuilder idData = new StringBuilder(size * 20);
+        long objectBytes = arrayListBytes(size);
+        for (int i = 0; i < size; i++) {
+            Transaction transaction = transactions.get(i);
+            ids[i] = transaction.getId() != null ? transaction.getId() : 0L;
+            if (transaction.getTransactionId() != null) {
+                idData.append(transaction.getTransactionId());
+            }
+            transactionIdOffsets[i + 1] = idData.length();
+            userIdBuilder.add(transaction.getUserId());
+            accountNumberBuilder.add(transaction.getAccountNumber());
+            typeBuilder.add(transaction.getTransactionType());
+            currencyBuilder.add(transaction.getCurrency());
+            descriptionBuilder.add(transaction.getDescription());
+            statusBuilder.add(transaction.getStatus());
+            encodeAmount(i, transaction.getAmount());
+            createdAtNanos[i] = toNanos(transaction.getCreatedAt());
+            updatedAtNanos[i] = toNanos(transaction.getUpdatedAt());
+            deleted[i] = transaction.getDeleted() != null ? transaction.getDeleted().byteValue() : -1;
+            objectBytes += rowObjectBytes(transaction);
+        }
+        transactionIdData = idData.toString();
+        userIds = userIdBuilder.build();
+        accountNumbers = accountNumberBuilder.build();
+        transactionTypes = typeBuilder.build();
+        currencies = currencyBuilder.build();
+        descriptions = descriptionBuilder.build();
+        statuses = statusBuilder.build();
+        rowObjectBytes = objectBytes;
+    }
+
+    /**
+     * 把查詢結果編碼為列式列表
+     */
+    public static ColumnarTransactionList of(List<Transaction> transactions) {
+        return new ColumnarTransactionList(transactions);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getId(int row) {
+        return ids[row];
+    }
+
+    public String getTransactionId(int row) {
+        int start = transactionIdOffsets[row];
+        int end = transactionIdOffsets[row + 1];
+        return start == end ? null : transactionIdData.substring(start, end);
+    }
+
+    public String getUserId(int row) {
+        return userIds.get(row);
+    }
+
+    public String getAccountNumber(int row) {
+        return accountNumbers.get(row);
+    }
+
+    public String getTransactionType(int row) {
+        return transactionTypes.get(row);
+    }
+
+    public String getCurrency(int row) {
+        return currencies.get(row);
+    }
+
+    public String getDescription(int row) {
+        return descriptions.get(row);
+    }
+
+    public String getStatus(int row) {
+        return statuses.get(row);
+    }
+
+    public BigDecimal getAmount(int row) {
+        byte scale = amountScales[row];
+        if (scale == NULL_SCALE) {
+            return null;
+        }
+        return scale == WIDE_SCALE ? wideAmounts[row] : BigDecimal.valueOf(amountUnscaled[row], scale);
+    }
+
+    public LocalDateTime getCreatedAt(int row) {
+        return fromNanos(createdAtNanos[row]);
+    }
+
+    public LocalDateTime getUpdatedAt(int row) {
+        return fromNanos(updatedAtNanos[row]);
+    }
+
+    /**
+     * 還原第 row 行的實體，只在需要實體的調用方使用
+     */
+    public Transaction toEntity(int row) {
+        Transaction transaction = new Transaction();
+        transaction.setId(ids[row] != 0 ? ids[row] : null);
+        transaction.setTransactionId(getTransactionId(row));
+        transaction.setUserId(getUserId(row));
+        transaction.setAccountNumber(getAccountNumber(row));
+        transaction.setTransactionType(getTransactionType(row));
+        transaction.setAmount(getAmount(row));
+        transaction.setCurrency(getCurrency(row));
+        transaction.setDescription(getDescription(row));
+        transaction.setStatus(getStatus(row));
+        transaction.setCreatedAt(getCreatedAt(row));
+        transaction.setUpdatedAt(getUpdatedAt(row));
+        transaction.setDeleted(deleted[row] >= 0 ? (int) deleted[row] : null);
+        return transaction;
+    }
+
+    /**
+     * 估算的列式堆佔用（字節）
+     */
+    public long estimatedBytes() {
+        long bytes = align(12 + 4 + 17 * 4 + 8);
+        bytes += primitiveArrayBytes(size, 8) * 4 + primitiveArrayBytes(size, 1) * 2;
+        bytes += primitiveArrayBytes(size + 1, 4) + stringBytes(transactionIdData);
+        if (wideAmounts != null) {
+            bytes += primitiveArrayBytes(size, 4);
+            for (BigDecimal amount : wideAmounts) {
+                bytes += amount != null ? 40 + 56 : 0;
+            }
+        }
+        bytes += userIds.estimatedBytes() + accountNumbers.estimatedBytes() + transactionTypes.estimatedBytes()
+                + currencies.estimatedBytes() + descriptions.estimatedBytes() + statuses.estimatedBytes();
+        return bytes;
+    }
+
+    /**
+     * 同樣內容以 List&lt;Transaction&gt; 保存時估算的堆佔用（字節）
+     */
+    public long rowObjectBytes() {
+        return rowObjectBytes;
+    }
+
+    private void encodeAmount(int row, BigDecimal amount) {
+        if (amount == null) {
+            amountScales[row] = NULL_SCALE;
+            return;
+        }
+        // DECIMAL(15,2) 總能放進 long，其他情況保留原值
+        if (amount.scale() > WIDE_SCALE && amount.scale() <= Byte.MAX_VALUE && amount.precision() <= 18) {
+            amountUnscaled[row] = amount.unscaledValue().longValue();
+            amountScales[row] = (byte) amount.scale();
+            return;
+        }
+        if (wideAmounts == null) {
+            wideAmounts = new BigDecimal[size];
+        }
+        wideAmounts[row] = amount;
+        amountScales[row] = WIDE_SCALE;
+    }
+
+    private static long toNanos(LocalDateTime time) {
+        if (time == null) {
+            return NULL_TIME;
+        }
+        return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), NANOS_PER_SECOND), time.getNano());
+    }
+
+    private static LocalDateTime fromNanos(long nanos) {
+        if (nanos == NULL_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(nanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+
+    /**
+     * 按壓縮指針的 64 位 JVM 估算單行實體的佔用：實體、Long、BigDecimal、兩個 LocalDateTime 與各字符串（小 Integer 有緩存，不計）
+     */
+    private static long rowObjectBytes(Transaction transaction) {
+        long bytes = align(12 + 12 * 4) + 4;
+        if (transaction.getId() != null) {
+            bytes += 16;
+        }
+        if (transaction.getAmount() != null) {
+            bytes += transaction.getAmount().precision() > 18 ? 40 + 56 : 40;
+        }
+        if (transaction.getCreatedAt() != null) {
+            bytes += 72;
+        }
+        if (transaction.getUpdatedAt() != null) {
+            bytes += 72;
+        }
+        bytes += stringBytes(transaction.getTransactionId()) + stringBytes(transaction.getUserId())
+                + stringBytes(transaction.getAccountNumber()) + stringBytes(transaction.getTransactionType())
+                + stringBytes(transaction.getCurrency()) + stringBytes(transaction.getDescription())
+                + stringBytes(transaction.getStatus());
+        return bytes;
+    }
+
+    private static long arrayListBytes(int size) {
+        return align(12 + 4 + 4 + 4) + primitiveArrayBytes(size, 4);
+    }
+
+    static long stringBytes(String value) {
+        if (value == null) {
+            return 0;
+        }
+        boolean latin1 = true;
+        for (int i = 0; i < value.length() && latin1; i++) {
+            latin1 = value.charAt(i) < 256;
+        }
+        return 24 + primitiveArrayBytes(value.length(), latin1 ? 1 : 2);
+    }
+
+    static long primitiveArrayBytes(int length, int elementBytes) {
+        return align(16 + (long) length * elementBytes);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * 字典編碼的字符串列，字典不超過 65536 項時用 char 編碼，否則用 int
+     */
+    private static final class DictionaryColumn implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] dictionary;
+        private final char[] smallCodes;
+        private final int[] codes;
+
+        private DictionaryColumn(String[] dictionary, char[] smallCodes, int[] codes) {
+            this.dictionary = dictionary;
+            this.smallCodes = smallCodes;
+            this.codes = codes;
+        }
+
+        String get(int row) {
+            return dictionary[smallCodes != null ? smallCodes[row] : codes[row]];
+        }
+
+        long estimatedBytes() {
+            long bytes = 32 + primitiveArrayBytes(dictionary.length, 4);
+            for (String value : dictionary) {
+                bytes += stringBytes(value);
+            }
+            return bytes + (smallCodes != null
+                    ? primitiveArrayBytes(smallCodes.length, 2)
+                    : primitiveArrayBytes(codes.length, 4));
+        }
+
+        static final class Builder {
+
+            private final Map<String, Integer> index = new HashMap<>();
+            private final List<String> values = new ArrayList<>();
+            private final int[] codes;
+            private int size;
+
+            Builder(int capacity) {
+                codes = new int[capacity];
+            }
+
+            void add(String value) {
+                Integer code = index.get(value);
+                if (code == null) {
+                    code = values.size();
+                    index.put(value, code);
+                    values.add(value);
+                }
+                codes[size++] = code;
+            }
+
+            DictionaryColumn build() {
+                String[] dictionary = values.toArray(new String[0]);
+                if (dictionary.length <= Character.MAX_VALUE + 1) {
+                    char[] smallCodes = new char[size];
+                    for (int i = 0; i < size; i++) {
+                        smallCodes[i] = (char) codes[i];
+                    }
+                    return new DictionaryColumn(dictionary, smallCodes, null);
+                }
+                return new DictionaryColumn(dictionary, null, codes);
+            }
+        }
+    }
+
+}
@@ -1,12 +1,28 @@
 package com.multilevelcache.cache;
 
+import com.multilevelcache.cluster.NamespaceGenerationSync;
+import com.multilevelcache.cluster.PartitionedCacheNode;
+import com.multilevelcache.timing.RequestTiming;
+import com.multilevelcache.trace.AccessTraceRecorder;
+import com.multilevelcache.trace.TraceFormat;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
 /**
  * 多級緩存服務類
  * 
@@ -21,6 +37,55 @@ public class MultiLevelCacheService {
     @Qualifier("caffeineCacheManager")
     private CacheManager caffeineCacheManager;
 
+    @Autowired(required = false)
+    private List<CacheInvalidationListener> invalidationListeners = Collections.emptyList();
+
+    /**
+     * 分區集群模式下的本節點（未啟用時為 null）
+     */
+    @Autowired(required = false)
+    private PartitionedCacheNode clusterNode;
+
+    /**
+     * 容量自適應調整（集群模式下本地緩存只保存歸屬鍵，不參與採樣）
+     */
+    @Autowired(required = false)
+    private AdaptiveCacheSizer cacheSizer;
+
+    @Autowired(required = false)
+    private AccessTraceRecorder traceRecorder;
+
+    @Autowired
+    private CacheFillVersions fillVersions;
+
+    @Autowired
+    private CacheTagIndex tagIndex;
+
+    @Autowired
+    private CacheNamespaces namespaces;
+
+    /**
+     * 集群模式下代際推進需要同步到所有節點，否則各節點算出的物理鍵不一致；
+     * 標籤索引只在寫入請求所在的節點登記，按標籤失效也要廣播給所有節點
+     */
+    @PostConstruct
+    public void init() {
+        if (clusterNode != null) {
+            clusterNode.setGenerationSync(new NamespaceGenerationSync() {
+                @Override
+                public void apply(String cacheName, String namespace, long generation) {
+                    applyGeneration(cacheName, namespace, generation);
+                }
+
+                @Override
+                public Map<String, Map<String, Long>> generations() {
+                    return namespaces.generations();
+                }
+            });
+            clusterNode.setTagInvalidationSync((cacheName, tags) -> invalidateLocalTags(cacheName, tags, null));
+        }
+    }
+
     /**
      * 從緩存中獲取值
      */
@@ -28,9 +93,28 @@ public class MultiLevelCacheService {
         long startTime = System.currentTimeMillis();
         
         try {
+            CacheNamespaces.Namespace namespace = namespaces.of(cacheName, key);
+            String storeKey = namespace.physicalKey(key);
+            if (clusterNode != null) {
+                long lookupStart = RequestTiming.start();
+                Object clusterValue = clusterNode.get(cacheName, storeKey);
+                RequestTiming.stop(RequestTiming.Phase.L2, lookupStart);
+                namespace.recordAccess(clusterValue != null);
+                trace(TraceFormat.OP_GET, cacheName, key, clusterValue != null, null);
+                log.debug(clusterValue != null ? "🎯 集群緩存命中: {} - {}" : "❌ 緩存未命中: {} - {}", cacheName, key);
+                return clazz.cast(clusterValue);
+            }
+
             Cache caffeineCache = caffeineCacheManager.getCache(cacheName);
             if (caffeineCache != null) {
-                Cache.ValueWrapper caffeineValue = caffeineCache.get(key);
+                long lookupStart = RequestTiming.start();
+                Cache.ValueWrapper caffeineValue = caffeineCache.get(storeKey);
+                RequestTiming.stop(RequestTiming.Phase.L1, lookupStart);
+                namespace.recordAccess(caffeineValue != null);
+                if (cacheSizer != null) {
+                    cacheSizer.recordAccess(cacheName, key, caffeineValue != null);
+                }
+                trace(TraceFormat.OP_GET, cacheName, key, caffeineValue != null, null);
                 if (caffeineValue != null) {
                     log.debug("🎯 從Caffeine緩存命中: {} - {}", cacheName, key);
                     return clazz.cast(caffeineValue.get());
@@ -47,14 +131,30 @@ public class MultiLevelCacheService {
 
     /**
      * 將值存入緩存
+     *
+     * @param tags 條目依賴的實體標籤，見 {@link CacheTags}
      */
-    public void put(String cacheName, String key, Object value) {
+    public void put(String cacheName, String key, Object value, String... tags) {
         long startTime = System.currentTimeMillis();
         
         try {
+            trace(TraceFormat.OP_PUT, cacheName, key, false, value);
+            if (tags.length > 0) {
+                // 先登記標籤再寫入，並發的標籤失效不會漏掉這個鍵
+                tagIndex.tag(cacheName, key, tags);
+            }
+            String storeKey = namespaces.physicalKey(cacheName, key);
+            if (clusterNode != null) {
+                clusterNode.put(cacheName, storeKey, value);
+                return;
+            }
+
             Cache caffeineCache = caffeineCacheManager.getCache(cacheName);
             if (caffeineCache != null) {
-                caffeineCache.put(key, value);
+                caffeineCache.put(storeKey, value);
+                if (cacheSizer != null) {
+                    cacheSizer.recordFill(cacheName, key);
+                }
                 log.debug("💾 存入Caffeine緩存: {} - {}", cacheName, key);
             }
         } finally {
@@ -63,6 +163,65 @@ public class MultiLevelCacheService {
         }
     }
 
+    /**
+     * 未命中時獲取回填版本號，必須在讀數據庫之前調用
+     */
+    public long beginFill(String cacheName, String key) {
+        return fillVersions.begin(cacheName, key);
+    }
+
+    /**
+     * 以未命中時取得的版本號回填緩存，期間鍵被失效過則放棄
+     *
+     * @return 是否已寫入
+     */
+    public boolean fill(String cacheName, String key, Object value, long fillVersion, String... tags) {
+        if (!isFillCurrent(cacheName, key, fillVersion, tags)) {
+            fillVersions.recordRejected(false);
+            log.debug("🚫 放棄回填，期間已失效: {} - {}", cacheName, key);
+            return false;
+        }
+        put(cacheName, key, value, tags);
+
+        // 寫入後再次校驗：失效若發生在校驗與寫入之間，刪除剛寫入的值
+        if (!isFillCurrent(cacheName, key, fillVersion, tags)) {
+            removeFilled(cacheName, key, value);
+            fillVersions.recordRejected(true);
+            log.debug("🚫 撤回回填，寫入時已失效: {} - {}", cacheName, key);
+            return false;
+        }
+        fillVersions.recordAccepted();
+        return true;
+    }
+
+    private boolean isFillCurrent(String cacheName, String key, long fillVersion, String[] tags) {
+        if (!fillVersions.isCurrent(cacheName, key, fillVersion)
+                || !fillVersions.isNamespaceCurrent(cacheName, CacheNamespaces.namespaceOf(key), fillVersion)) {
+            return false;
+        }
+        for (String tag : tags) {
+            if (!fillVersions.isTagCurrent(cacheName, tag, fillVersion)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removeFilled(String cacheName, String key, Object value) {
+        String storeKey = namespaces.physicalKey(cacheName, key);
+        if (clusterNode != null) {
+            clusterNode.evict(cacheName, storeKey);
+            return;
+        }
+        Cache caffeineCache = caffeineCacheManager.getCache(cacheName);
+        if (caffeineCache instanceof CaffeineCache) {
+            // 只移除本次寫入的值，不影響失效之後其他線程的新回填
+            ((CaffeineCache) caffeineCache).getNativeCache().asMap().remove(storeKey, value);
+        } else if (caffeineCache != null) {
+            caffeineCache.evict(storeKey);
+        }
+    }
+
     /**
      * 從緩存中刪除值
      */
@@ -70,9 +229,21 @@ public class MultiLevelCacheService {
         long startTime = System.currentTimeMillis();
         
         try {
+            trace(TraceFormat.OP_EVICT, cacheName, key, false, null);
+            String storeKey = namespaces.physicalKey(cacheName, key);
+            if (clusterNode != null) {
+                // 集群節點負責通知歸屬節點及本地失效監聽器
+                clusterNode.evict(cacheName, storeKey);
+                return;
+            }
+
+            // 先通知監聽器推進回填版本號再刪除，刪除之後不會再有舊版本的回填被接受
+            for (CacheInvalidationListener listener : invalidationListeners) {
+                listener.onEvict(cacheName, key);
+            }
             Cache caffeineCache = caffeineCacheManager.getCache(cacheName);
             if (caffeineCache != null) {
-                caffeineCache.evict(key);
+                caffeineCache.evict(storeKey);
                 log.debug("🗑️ 從Caffeine緩存刪除: {} - {}", cacheName, key);
             }
         } finally {
@@ -81,6 +252,48 @@ public class MultiLevelCacheService {
         }
     }
 
+    /**
+     * 按標籤失效：刪除寫入時帶有任一標籤的所有條目，集群模式下包括其他節點寫入的條目
+     *
+     * @param beforeEvict 本節點每個鍵刪除前的回調（例如標記讀主庫），可為 null
+     * @return 本節點刪除的鍵數量
+     */
+    public int invalidateTags(String cacheName, Collection<String> tags, Consumer<String> beforeEvict) {
+        int evicted = invalidateLocalTags(cacheName, tags, beforeEvict);
+        if (clusterNode != null) {
+            // 其他節點登記的鍵只有它們自己知道，同步等待它們刪除完畢
+            clusterNode.broadcastTagInvalidation(cacheName, tags);
+        }
+        return evicted;
+    }
+
+    /**
+     * 按本節點的標籤索引失效，返回本節點刪除的鍵數量
+     */
+    private int invalidateLocalTags(String cacheName, Collection<String> tags, Consumer<String> beforeEvict) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String tag : tags) {
+            // 先推進標籤版本號再摘下鍵集合，之後帶該標籤完成的回填都會被撤回
+            fillVersions.onTagInvalidated(cacheName, tag);
+            keys.addAll(tagIndex.remove(cacheName, tag));
+        }
+        for (String key : keys) {
+            if (beforeEvict != null) {
+                beforeEvict.accept(key);
+            }
+            evict(cacheName, key);
+        }
+        log.debug("🏷️ 按標籤失效: {} - {} -> {} 個鍵", cacheName, tags, keys.size());
+        return keys.size();
+    }
+
+    /**
+     * 按單個標籤失效
+     */
+    public int invalidateTag(String cacheName, String tag) {
+        return invalidateTags(cacheName, Collections.singletonList(tag), null);
+    }
+
     /**
      * 清空指定緩存
      */
@@ -88,6 +301,15 @@ public class MultiLevelCacheService {
         long startTime = System.currentTimeMillis();
         
         try {
+            trace(TraceFormat.OP_CLEAR, cacheName, null, false, null);
+            if (clusterNode != null) {
+                clusterNode.clear(cacheName);
+                return;
+            }
+
+            for (CacheInvalidationListener listener : invalidationListeners) {
+                listener.onClear(cacheName);
+            }
             Cache caffeineCache = caffeineCacheManager.getCache(cacheName);
             if (caffeineCache != null) {
                 caffeineCache.clear();
@@ -99,12 +321,108 @@ public class MultiLevelCacheService {
         }
     }
 
+    /**
+     * 推進命名空間代際：整族鍵一次失效，舊代際條目留待淘汰
+     *
+     * @return 新的代際號
+     */
+    public long bumpNamespace(String cacheName, String namespace) {
+        if (!caffeineCacheManager.getCacheNames().contains(cacheName)) {
+            throw new IllegalArgumentException("未知的緩存: " + cacheName);
+        }
+        if (namespace == null || namespace.isEmpty() || namespace.indexOf(':') >= 0
+                || namespace.contains(CacheNamespaces.GENERATION_SEPARATOR)) {
+            throw new IllegalArgumentException("無效的命名空間: " + namespace);
+        }
+        // 先通知監聽器推進回填版本號，再推進代際：進行中的回填要麼被拒絕，要麼寫入舊代際
+        notifyNamespaceBumped(cacheName, namespace);
+        long generation = namespaces.bump(cacheName, namespace);
+        if (clusterNode != null) {
+            clusterNode.broadcastGeneration(cacheName, namespace, generation);
+        }
+        log.info("🔢 命名空間推進代際: {} - {} -> {}", cacheName, namespace, generation);
+        return generation;
+    }
+
+    /**
+     * 應用其他節點推送的代際，只前進不後退
+     */
+    private void applyGeneration(String cacheName, String namespace, long generation) {
+        if (generation > namespaces.get(cacheName, namespace).getGeneration()) {
+            notifyNamespaceBumped(cacheName, namespace);
+            if (namespaces.advanceTo(cacheName, namespace, generation)) {
+                log.info("🔢 同步命名空間代際: {} - {} -> {}", cacheName, namespace, generation);
+            }
+        }
+    }
+
+    private void notifyNamespaceBumped(String cacheName, String namespace) {
+        for (CacheInvalidationListener listener : invalidationListeners) {
+            listener.onNamespaceBumped(cacheName, namespace);
+        }
+    }
+
+    /**
+     * 各命名空間的代際、本地條目數（當前代際 / 舊代際）與命中統計
+     */
+    public Map<String, Object> getNamespaceStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (String cacheName : caffeineCacheManager.getCacheNames()) {
+            Map<String, long[]> counts = new LinkedHashMap<>();
+            for (Map.Entry<Object, Object> entry : localEntries(cacheName)) {
+                String physicalKey = String.valueOf(entry.getKey());
+                String namespace = CacheNamespaces.namespaceOf(CacheNamespaces.logicalKey(physicalKey));
+                long[] count = counts.computeIfAbsent(namespace, n -> new long[2]);
+                count[namespaces.currentLogicalKey(cacheName, physicalKey) != null ? 0 : 1]++;
+            }
+            Map<String, Object> byNamespace = new LinkedHashMap<>();
+            for (Map.Entry<String, CacheNamespaces.Namespace> entry : namespaces.namespaces(cacheName).entrySet()) {
+                long[] count = counts.getOrDefault(entry.getKey(), new long[2]);
+                byNamespace.put(entry.getKey(), entry.getValue().toStats(count[0], count[1]));
+            }
+            stats.put(cacheName, byNamespace);
+        }
+        return stats;
+    }
+
+    private void trace(byte op, String cacheName, String key, boolean hit, Object value) {
+        if (traceRecorder != null) {
+            traceRecorder.record(op, cacheName, key, hit, value);
+        }
+    }
+
     /**
      * 檢查緩存是否存在
      */
     public boolean exists(String cacheName, String key) {
+        String storeKey = namespaces.physicalKey(cacheName, key);
+        if (clusterNode != null) {
+            return clusterNode.get(cacheName, storeKey) != null;
+        }
+        Cache caffeineCache = caffeineCacheManager.getCache(cacheName);
+        return caffeineCache != null && caffeineCache.get(storeKey) != null;
+    }
+
+    /**
+     * 本地緩存中的全部值（弱一致的視圖），不計入訪問，不影響過期與淘汰順序
+     */
+    public Collection<Object> localValues(String cacheName) {
         Cache caffeineCache = caffeineCacheManager.getCache(cacheName);
-        return caffeineCache != null && caffeineCache.get(key) != null;
+        if (!(caffeineCache instanceof CaffeineCache)) {
+            return Collections.emptyList();
+        }
+        return ((CaffeineCache) caffeineCache).getNativeCache().asMap().values();
+    }
+
+    /**
+     * 本地緩存的全部條目（弱一致的視圖），只用於遍歷：遍歷不計入訪問，不影響過期與淘汰順序
+     */
+    public Collection<Map.Entry<Object, Object>> localEntries(String cacheName) {
+        Cache caffeineCache = caffeineCacheManager.getCache(cacheName);
+        if (!(caffeineCache instanceof CaffeineCache)) {
+            return Collections.emptyList();
+        }
+        return ((CaffeineCache) caffeineCache).getNativeCache().asMap().entrySet();
     }
 
     /**
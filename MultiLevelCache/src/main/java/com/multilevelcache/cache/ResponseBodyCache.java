@@ -0,0 +1,234 @@
+package com.multilevelcache.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+/**
+ * 響應體緩存
+ *
+ * 以實體緩存鍵為索引保存已序列化的 data 字段 JSON 字節及其 ETag，響應外層（時間戳、耗時、緩存層級）
+ * 由寫出方按請求拼接。gzip 版本保存為以 SYNC_FLUSH 結尾的原始 deflate 塊，可直接拼進每次請求的 gzip 流。
+ * 實體鍵在 {@link MultiLevelCacheService} 中被刪除時，對應的響應體一併失效；
+ * 寫入時攜帶開始生成前取得的版本號，期間發生過失效的響應體不會被寫入。
+ * 響應體按實體鍵當前代際的物理鍵保存，命名空間推進代際後舊響應體隨之不可達。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ResponseBodyCache implements CacheInvalidationListener {
+
+    private static final int VERSION_STRIPES = 4096;
+
+    /**
+     * 從響應體緩存直接寫出時的緩存層級
+     */
+    public static final String RESPONSE_CACHE_LEVEL = "RESPONSE";
+
+    private final CacheNamespaces cacheNamespaces;
+
+    @Value("${cache.response-body.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.response-body.maximum-size:2000}")
+    private long maximumSize;
+
+    @Value("${cache.response-body.expire-after-write-seconds:600}")
+    private long expireAfterWriteSeconds;
+
+    @Value("${cache.response-body.gzip:true}")
+    private boolean gzipEnabled;
+
+    @Value("${cache.response-body.gzip-min-bytes:1024}")
+    private int gzipMinBytes;
+
+    private Cache<String, CachedBody> bodies;
+
+    /**
+     * 按鍵哈希分段的失效版本號，衝突只會導致多拒絕一次寫入
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejectedFills = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        bodies = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 獲取緩存的響應體
+     */
+    public CachedBody get(String cacheName, String key) {
+        CachedBody body = bodies.getIfPresent(bodyKey(cacheName, key));
+        if (body != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return body;
+    }
+
+    /**
+     * 在生成響應前獲取版本號
+     */
+    public long beginFill(String cacheName, String key) {
+        return versions.get(stripe(cacheName, key));
+    }
+
+    /**
+     * 寫入響應體，期間鍵被失效過則放棄寫入
+     *
+     * @param head 響應外層中位於 data 之前的固定部分（success、message）
+     * @param data data 字段的 JSON 字節
+     */
+    public CachedBody put(String cacheName, String key, long version, byte[] head, byte[] data) {
+        int stripe = stripe(cacheName, key);
+        if (versions.get(stripe) != version) {
+            rejectedFills.increment();
+            return null;
+        }
+
+        byte[] deflated = gzipEnabled && data.length >= gzipMinBytes ? deflateSegment(data) : null;
+        CachedBody body = new CachedBody(head, data, deflated, "W/\"" + DigestUtils.md5DigestAsHex(data) + "\"");
+        String bodyKey = bodyKey(cacheName, key);
+        bodies.put(bodyKey, body);
+
+        // 寫入後再次校驗，防止與失效並發時留下舊響應
+        if (versions.get(stripe) != version) {
+            bodies.invalidate(bodyKey);
+            rejectedFills.increment();
+            return null;
+        }
+        return body;
+    }
+
+    @Override
+    public void onEvict(String cacheName, String key) {
+        versions.incrementAndGet(stripe(cacheName, key));
+        bodies.invalidate(bodyKey(cacheName, key));
+    }
+
+    @Override
+    public void onClear(String cacheName) {
+        invalidateInFlight();
+        String prefix = cacheName + "|";
+        bodies.asMap().keySet().removeIf(bodyKey -> bodyKey.startsWith(prefix));
+    }
+
+    @Override
+    public void onNamespaceBumped(String cacheName, String namespace) {
+        // 已緩存的響應體按物理鍵保存，代際推進後自然不可達，只需撤回正在生成的響應
+        invalidateInFlight();
+    }
+
+    private void invalidateInFlight() {
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+    }
+
+    /**
+     * 獲取響應體緩存統計信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", bodies.estimatedSize());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("rejectedFills", rejectedFills.sum());
+        return stats;
+    }
+
+    private String bodyKey(String cacheName, String key) {
+        return cacheName + "|" + cacheNamespaces.physicalKey(cacheName, key);
+    }
+
+    private static int stripe(String cacheName, String key) {
+        int hash = cacheName.hashCode() * 31 + key.hashCode();
+        return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    /**
+     * 壓縮為不含結束塊的原始 deflate 段，以 SYNC_FLUSH 對齊字節邊界，前後可拼接其他 deflate 段
+     */
+    public static byte[] deflateSegment(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data);
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4 + 64);
+            byte[] chunk = new byte[8192];
+            int length;
+            do {
+                length = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+                buffer.write(chunk, 0, length);
+            } while (length == chunk.length);
+            return buffer.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 已序列化的響應體
+     */
+    public static class CachedBody {
+
+        private final byte[] head;
+        private final byte[] data;
+        private final byte[] deflatedData;
+        private final String etag;
+
+        CachedBody(byte[] head, byte[] data, byte[] deflatedData, String etag) {
+            this.head = head;
+            this.data = data;
+            this.deflatedData = deflatedData;
+            this.etag = etag;
+        }
+
+        public byte[] getHead() {
+            return head;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        /**
+         * data 的原始 deflate 段，未達壓縮閾值時為 null
+         */
+        public byte[] getDeflatedData() {
+            return deflatedData;
+        }
+
+        /**
+         * 弱 ETag：只由 data 計算，外層字段每次請求都會變化
+         */
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.multilevelcache.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 過期緩存寬限區
+ *
+ * L1 緩存因過期被移除的條目在此保留一段寬限期，數據庫不可用時作為過期數據返回。
+ * 被主動刪除（數據已變更）的鍵同時從寬限區移除，不會以過期數據的形式再次出現。
+ * 條目按物理鍵保存，舊代際的條目既不保留也不會被讀到。
+ */
+@Component
+@RequiredArgsConstructor
+public class StaleEntryStore implements CacheInvalidationListener {
+
+    @Value("${cache.stale.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.stale.maximum-size:5000}")
+    private long maximumSize;
+
+    @Value("${cache.stale.grace-seconds:600}")
+    private long graceSeconds;
+
+    private final CacheNamespaces cacheNamespaces;
+
+    private Cache<String, Object> entries;
+
+    private final LongAdder retained = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(graceSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * L1 條目過期時調用
+     */
+    public void onExpired(String cacheName, Object key, Object value) {
+        if (enabled && key != null && value != null
+                && cacheNamespaces.currentLogicalKey(cacheName, key) != null) {
+            entries.put(cacheName + "|" + key, value);
+            retained.increment();
+        }
+    }
+
+    /**
+     * 獲取寬限區中的過期值
+     */
+    public Object get(String cacheName, String key) {
+        if (!enabled) {
+            return null;
+        }
+        Object value = entries.getIfPresent(entryKey(cacheName, key));
+        if (value != null) {
+            staleHits.increment();
+        }
+        return value;
+    }
+
+    @Override
+    public void onEvict(String cacheName, String key) {
+        entries.invalidate(entryKey(cacheName, key));
+    }
+
+    @Override
+    public void onClear(String cacheName) {
+        String prefix = cacheName + "|";
+        entries.asMap().keySet().removeIf(entryKey -> entryKey.startsWith(prefix));
+    }
+
+    /**
+     * 獲取寬限區統計信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", entries.estimatedSize());
+        stats.put("retained", retained.sum());
+        stats.put("staleHits", staleHits.sum());
+        stats.put("graceSeconds", graceSeconds);
+        return stats;
+    }
+
+    private String entryKey(String cacheName, String key) {
+        return cacheName + "|" + cacheNamespaces.physicalKey(cacheName, key);
+    }
+}
@@ -0,0 +1,163 @@
+package com.multilevelcache.cluster;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 集群緩存 RPC 客戶端（單個遠端節點的長連接池）
+ *
+ * 連續多次連接失敗或超時後把節點標記為可疑，冷卻期內的調用直接失敗；
+ * 冷卻期過後的調用作為探測，成功即恢復。
+ */
+public class CacheRpcClient {
+
+    private final ClusterMember member;
+    private final int timeoutMillis;
+    private final RpcSecurity security;
+    private final RpcLimits limits;
+    private final BlockingQueue<Connection> idle;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long suspectUntilNanos;
+    private volatile boolean closed;
+
+    public CacheRpcClient(ClusterMember member, int timeoutMillis, int maxIdleConnections, RpcSecurity security,
+                          RpcLimits limits) {
+        this.member = member;
+        this.timeoutMillis = timeoutMillis;
+        this.security = security;
+        this.limits = limits;
+        this.idle = new ArrayBlockingQueue<>(maxIdleConnections);
+    }
+
+    public ClusterMember getMember() {
+        return member;
+    }
+
+    /**
+     * 節點是否處於可疑冷卻期
+     */
+    public boolean isSuspect() {
+        return consecutiveFailures.get() >= limits.getSuspectAfterFailures()
+                && System.nanoTime() - suspectUntilNanos < 0;
+    }
+
+    /**
+     * 發送請求並等待響應，鍵不存在時返回 null
+     */
+    public byte[] call(byte op, String cacheName, String key, byte[] payload) throws IOException {
+        if (isSuspect()) {
+            throw new IOException("節點 " + member.getId() + " 連續失敗，暫停調用");
+        }
+        try {
+            byte[] result = exchange(op, cacheName, key, payload);
+            consecutiveFailures.set(0);
+            return result;
+        } catch (RemoteErrorException e) {
+            // 節點有響應，只是處理失敗，不算不可達
+            consecutiveFailures.set(0);
+            throw e;
+        } catch (IOException e) {
+            if (consecutiveFailures.incrementAndGet() >= limits.getSuspectAfterFailures()) {
+                suspectUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(limits.getSuspectMillis());
+            }
+            throw e;
+        }
+    }
+
+    private byte[] exchange(byte op, String cacheName, String key, byte[] payload) throws IOException {
+        Connection pooled = idle.poll();
+        if (pooled != null) {
+            try {
+                return exchange(pooled, op, cacheName, key, payload);
+            } catch (SocketTimeoutException | RemoteErrorException e) {
+                throw e;
+            } catch (IOException e) {
+                // 池中的連接可能已被服務端按空閒超時斷開，換新連接重試一次（所有操作都是冪等的）
+            }
+        }
+        return exchange(new Connection(member, timeoutMillis, security), op, cacheName, key, payload);
+    }
+
+    private byte[] exchange(Connection connection, byte op, String cacheName, String key, byte[] payload)
+            throws IOException {
+        RpcChannel.Response response;
+        try {
+            connection.channel.writeRequest(op, cacheName, key, payload);
+            response = connection.channel.readResponse();
+        } catch (IOException e) {
+            // 連接狀態未知，不能放回池中
+            connection.close();
+            throw e;
+        }
+        release(connection);
+        if (response.status == CacheRpcProtocol.STATUS_NOT_FOUND) {
+            return null;
+        }
+        if (response.status != CacheRpcProtocol.STATUS_OK) {
+            throw new RemoteErrorException("節點 " + member.getId() + " 處理請求失敗");
+        }
+        return response.payload;
+    }
+
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    private void release(Connection connection) {
+        if (closed || !idle.offer(connection)) {
+            connection.close();
+        }
+    }
+
+    /**
+     * 對端返回了錯誤狀態
+     */
+    private static class RemoteErrorException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        RemoteErrorException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 單個 TCP 連接
+     */
+    private static class Connection {
+
+        private final Socket socket;
+        private final RpcChannel channel;
+
+        Connection(ClusterMember member, int timeoutMillis, RpcSecurity security) throws IOException {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(timeoutMillis);
+            socket.connect(new InetSocketAddress(member.getHost(), member.getPort()), timeoutMillis);
+            try {
+                channel = RpcChannel.connect(socket, security);
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 關閉失敗無需處理
+            }
+        }
+    }
+}
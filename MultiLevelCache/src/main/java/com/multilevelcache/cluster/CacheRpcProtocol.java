@@ -0,0 +1,76 @@
+package com.multilevelcache.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 集群緩存二進制 RPC 協議
+ *
+ * 請求幀: [op:1][cacheName:UTF][key:UTF][payloadLength:4][payload][hmac:32]
+ * 響應幀: [status:1][payloadLength:4][payload][hmac:32]
+ * 連接建立時服務端先發送 16 字節隨機數，幀的認證見 {@link RpcChannel}；緩存值由 {@link CacheValueCodec} 編碼。
+ */
+public final class CacheRpcProtocol {
+
+    public static final byte OP_GET = 1;
+    public static final byte OP_PUT = 2;
+    public static final byte OP_EVICT = 3;
+    public static final byte OP_CLEAR = 4;
+    public static final byte OP_JOIN = 5;
+    public static final byte OP_LEAVE = 6;
+    public static final byte OP_GENERATION = 7;
+    /** 分區遷移寫入，接收方已有值時不覆蓋 */
+    public static final byte OP_HAND_OFF = 8;
+    /** 按標籤失效，接收方按本地標籤索引刪除 */
+    public static final byte OP_INVALIDATE_TAGS = 9;
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_NOT_FOUND = 1;
+    public static final byte STATUS_ERROR = 2;
+
+    private CacheRpcProtocol() {
+    }
+
+    public static byte[] encodeLong(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+
+    public static long decodeLong(byte[] bytes) throws IOException {
+        if (bytes == null || bytes.length != Long.BYTES) {
+            throw new IOException("非法的 long 編碼");
+        }
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+
+    public static byte[] encodeStrings(Collection<String> values) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    public static List<String> decodeStrings(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int count = in.readInt();
+        // 每個字符串至少佔兩個字節的長度前綴
+        if (count < 0 || count > in.available() / 2) {
+            throw new IOException("非法的字符串個數: " + count);
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(in.readUTF());
+        }
+        return values;
+    }
+}
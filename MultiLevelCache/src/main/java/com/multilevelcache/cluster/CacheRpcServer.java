@@ -0,0 +1,167 @@
+package com.multilevelcache.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 集群緩存 RPC 服務端
+ *
+ * 每個連接由一個線程順序處理請求幀，客戶端以長連接池復用連接。
+ * 並發連接數有上限，超出時直接關閉新連接；空閒超過讀超時的連接由服務端斷開，客戶端重連。
+ * 幀認證失敗或負載超長時記錄告警並斷開連接，不返回任何數據。
+ */
+@Slf4j
+public class CacheRpcServer {
+
+    /**
+     * 請求處理器，返回 null 表示鍵不存在
+     */
+    public interface Handler {
+        byte[] handle(byte op, String cacheName, String key, byte[] payload) throws Exception;
+    }
+
+    private final String host;
+    private final int port;
+    private final Handler handler;
+    private final RpcSecurity security;
+    private final RpcLimits limits;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder rejectedConnections = new LongAdder();
+
+    private ServerSocket serverSocket;
+    private ThreadPoolExecutor workers;
+    private volatile boolean running;
+
+    public CacheRpcServer(String host, int port, Handler handler, RpcSecurity security, RpcLimits limits) {
+        this.host = host;
+        this.port = port;
+        this.handler = handler;
+        this.security = security;
+        this.limits = limits;
+    }
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(host, port));
+        AtomicInteger counter = new AtomicInteger();
+        // 不排隊：沒有空閒線程且已達上限時拒絕，由 acceptLoop 關閉連接
+        workers = new ThreadPoolExecutor(0, limits.getServerMaxConnections(), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "Cluster-Rpc-" + port + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "Cluster-Rpc-Accept-" + port);
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("🛰️ 集群緩存 RPC 服務已啟動: {}:{}, 連接上限 {}", host, port, limits.getServerMaxConnections());
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            log.debug("關閉 RPC 服務端失敗: {}", e.getMessage());
+        }
+        for (Socket socket : connections) {
+            closeQuietly(socket);
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getRejectedConnectionCount() {
+        return rejectedConnections.sum();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(limits.getServerIdleTimeoutMillis());
+                connections.add(socket);
+                try {
+                    workers.execute(() -> serve(socket));
+                } catch (RejectedExecutionException e) {
+                    connections.remove(socket);
+                    closeQuietly(socket);
+                    rejectedConnections.increment();
+                    log.warn("⚠️ RPC 連接數已達上限 {}，拒絕 {}", limits.getServerMaxConnections(),
+                            socket.getRemoteSocketAddress());
+                }
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("⚠️ RPC 接受連接失敗: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try {
+            RpcChannel channel = RpcChannel.accept(socket, security);
+            while (running) {
+                RpcChannel.Request request = channel.readRequest();
+                if (request == null) {
+                    return;
+                }
+                requests.increment();
+
+                try {
+                    byte[] result = handler.handle(request.op, request.cacheName, request.key, request.payload);
+                    if (result == null) {
+                        channel.writeResponse(CacheRpcProtocol.STATUS_NOT_FOUND, null);
+                    } else {
+                        channel.writeResponse(CacheRpcProtocol.STATUS_OK, result);
+                    }
+                } catch (Exception e) {
+                    log.warn("⚠️ RPC 請求處理失敗: op={}, key={}, {}", request.op, request.key, e.getMessage());
+                    channel.writeResponse(CacheRpcProtocol.STATUS_ERROR, null);
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            log.debug("RPC 連接空閒超時, 斷開 {}", socket.getRemoteSocketAddress());
+        } catch (SocketException e) {
+            log.debug("RPC 連接關閉: {}", e.getMessage());
+        } catch (IOException e) {
+            log.warn("⚠️ RPC 連接異常 {}: {}", socket.getRemoteSocketAddress(), e.getMessage());
+        } finally {
+            connections.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // 關閉失敗無需處理
+        }
+    }
+}
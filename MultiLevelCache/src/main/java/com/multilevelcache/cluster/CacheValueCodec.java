@@ -0,0 +1,277 @@
+package com.multilevelcache.cluster;
+
+import com.multilevelcache.cache.ColumnarTransactionList;
+import com.multilevelcache.entity.Blacklist;
+import com.multilevelcache.entity.Transaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 集群緩存值編解碼
+ *
+ * 只支持緩存中實際存放的類型：交易、黑名單、兩者的列表以及列式交易列表，其他類型拒絕編碼。
+ * 不使用 Java 序列化，解碼時每個長度字段都以剩餘字節數為上限，構造的對象大小不會超過幀本身。
+ */
+public final class CacheValueCodec {
+
+    private static final byte TYPE_TRANSACTION = 1;
+    private static final byte TYPE_BLACKLIST = 2;
+    private static final byte TYPE_LIST = 3;
+    private static final byte TYPE_COLUMNAR_TRANSACTIONS = 4;
+
+    private CacheValueCodec() {
+    }
+
+    public static byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(buffer);
+        if (value instanceof ColumnarTransactionList) {
+            // 按行傳輸，接收方重新編碼為列式
+            ColumnarTransactionList list = (ColumnarTransactionList) value;
+            out.writeByte(TYPE_COLUMNAR_TRANSACTIONS);
+            out.writeInt(list.size());
+            for (int row = 0; row < list.size(); row++) {
+                writeTransaction(out, list.toEntity(row));
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(TYPE_LIST);
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writeElement(out, element);
+            }
+        } else {
+            writeElement(out, value);
+        }
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    public static Object decode(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        byte type = in.readByte();
+        Object value;
+        switch (type) {
+            case TYPE_COLUMNAR_TRANSACTIONS: {
+                int size = readLength(in);
+                List<Transaction> rows = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    rows.add(readTransaction(in));
+                }
+                value = ColumnarTransactionList.of(rows);
+                break;
+            }
+            case TYPE_LIST: {
+                int size = readLength(in);
+                List<Object> elements = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    elements.add(readElement(in, in.readByte()));
+                }
+                value = elements;
+                break;
+            }
+            default:
+                value = readElement(in, type);
+        }
+        if (in.available() > 0) {
+            throw new IOException("緩存值末尾有多餘字節");
+        }
+        return value;
+    }
+
+    private static void writeElement(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof Transaction) {
+            out.writeByte(TYPE_TRANSACTION);
+            writeTransaction(out, (Transaction) value);
+        } else if (value instanceof Blacklist) {
+            out.writeByte(TYPE_BLACKLIST);
+            writeBlacklist(out, (Blacklist) value);
+        } else {
+            throw new IOException("集群緩存不支持此類型: " + (value != null ? value.getClass().getName() : "null"));
+        }
+    }
+
+    private static Object readElement(DataInputStream in, byte type) throws IOException {
+        switch (type) {
+            case TYPE_TRANSACTION:
+                return readTransaction(in);
+            case TYPE_BLACKLIST:
+                return readBlacklist(in);
+            default:
+                throw new IOException("未知的緩存值類型: " + type);
+        }
+    }
+
+    private static void writeTransaction(DataOutputStream out, Transaction transaction) throws IOException {
+        writeLong(out, transaction.getId());
+        writeString(out, transaction.getTransactionId());
+        writeString(out, transaction.getUserId());
+        writeString(out, transaction.getAccountNumber());
+        writeString(out, transaction.getTransactionType());
+        writeDecimal(out, transaction.getAmount());
+        writeString(out, transaction.getCurrency());
+        writeString(out, transaction.getDescription());
+        writeString(out, transaction.getStatus());
+        writeTime(out, transaction.getCreatedAt());
+        writeTime(out, transaction.getUpdatedAt());
+        writeInteger(out, transaction.getDeleted());
+    }
+
+    private static Transaction readTransaction(DataInputStream in) throws IOException {
+        Transaction transaction = new Transaction();
+        transaction.setId(readLong(in));
+        transaction.setTransactionId(readString(in));
+        transaction.setUserId(readString(in));
+        transaction.setAccountNumber(readString(in));
+        transaction.setTransactionType(readString(in));
+        transaction.setAmount(readDecimal(in));
+        transaction.setCurrency(readString(in));
+        transaction.setDescription(readString(in));
+        transaction.setStatus(readString(in));
+        transaction.setCreatedAt(readTime(in));
+        transaction.setUpdatedAt(readTime(in));
+        transaction.setDeleted(readInteger(in));
+        return transaction;
+    }
+
+    private static void writeBlacklist(DataOutputStream out, Blacklist blacklist) throws IOException {
+        writeLong(out, blacklist.getId());
+        writeString(out, blacklist.getUserId());
+        writeString(out, blacklist.getAccountNumber());
+        writeString(out, blacklist.getReason());
+        writeString(out, blacklist.getBlacklistType());
+        writeString(out, blacklist.getStatus());
+        writeTime(out, blacklist.getCreatedAt());
+        writeTime(out, blacklist.getUpdatedAt());
+        writeTime(out, blacklist.getExpiresAt());
+        writeInteger(out, blacklist.getDeleted());
+    }
+
+    private static Blacklist readBlacklist(DataInputStream in) throws IOException {
+        Blacklist blacklist = new Blacklist();
+        blacklist.setId(readLong(in));
+        blacklist.setUserId(readString(in));
+        blacklist.setAccountNumber(readString(in));
+        blacklist.setReason(readString(in));
+        blacklist.setBlacklistType(readString(in));
+        blacklist.setStatus(readString(in));
+        blacklist.setCreatedAt(readTime(in));
+        blacklist.setUpdatedAt(readTime(in));
+        blacklist.setExpiresAt(readTime(in));
+        blacklist.setDeleted(readInteger(in));
+        return blacklist;
+    }
+
+    /**
+     * 元素個數或字節數，每個元素至少佔一個字節，因此不能超過剩餘字節數
+     */
+    private static int readLength(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        checkLength(in, length);
+        return length;
+    }
+
+    private static void checkLength(DataInputStream in, int length) throws IOException {
+        if (length < 0 || length > in.available()) {
+            throw new IOException("非法的長度: " + length);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        checkLength(in, length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            byte[] unscaled = value.unscaledValue().toByteArray();
+            out.writeInt(value.scale());
+            out.writeInt(unscaled.length);
+            out.write(unscaled);
+        }
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int scale = in.readInt();
+        int length = readLength(in);
+        if (length == 0) {
+            throw new IOException("非法的金額編碼");
+        }
+        byte[] unscaled = new byte[length];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        } catch (DateTimeException e) {
+            throw new IOException("非法的時間編碼", e);
+        }
+    }
+}
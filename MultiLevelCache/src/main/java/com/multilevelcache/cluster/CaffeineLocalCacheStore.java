@@ -0,0 +1,116 @@
+package com.multilevelcache.cluster;
+
+import com.multilevelcache.cache.CacheInvalidationListener;
+import com.multilevelcache.cache.CacheNamespaces;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基於 Caffeine 緩存管理器的本地分區存儲
+ *
+ * 分區模式下本節點負責的鍵仍存放在原有的 Caffeine 緩存中，
+ * 因此集群總容量隨節點數線性增長。
+ */
+public class CaffeineLocalCacheStore implements LocalCacheStore {
+
+    private final CacheManager cacheManager;
+    private final List<CacheInvalidationListener> invalidationListeners;
+
+    public CaffeineLocalCacheStore(CacheManager cacheManager, List<CacheInvalidationListener> invalidationListeners) {
+        this.cacheManager = cacheManager;
+        this.invalidationListeners = invalidationListeners;
+    }
+
+    @Override
+    public Object get(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return null;
+        }
+        Cache.ValueWrapper value = cache.get(key);
+        return value != null ? value.get() : null;
+    }
+
+    @Override
+    public void put(String cacheName, String key, Object value) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.put(key, value);
+        }
+    }
+
+    @Override
+    public void putIfAbsent(String cacheName, String key, Object value) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.putIfAbsent(key, value);
+        }
+    }
+
+    @Override
+    public void evict(String cacheName, String key) {
+        // 先通知監聽器推進回填版本號再刪除，與單機模式順序一致；監聽器使用邏輯鍵
+        String logicalKey = CacheNamespaces.logicalKey(key);
+        for (CacheInvalidationListener listener : invalidationListeners) {
+            listener.onEvict(cacheName, logicalKey);
+        }
+        remove(cacheName, key);
+    }
+
+    @Override
+    public void remove(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        for (CacheInvalidationListener listener : invalidationListeners) {
+            listener.onClear(cacheName);
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return cacheManager.getCacheNames();
+    }
+
+    @Override
+    public Collection<String> keys(String cacheName) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = nativeCache(cacheName);
+        if (nativeCache == null) {
+            return Collections.emptyList();
+        }
+        List<String> keys = new ArrayList<>();
+        for (Object key : nativeCache.asMap().keySet()) {
+            keys.add(String.valueOf(key));
+        }
+        return keys;
+    }
+
+    @Override
+    public long size(String cacheName) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = nativeCache(cacheName);
+        return nativeCache != null ? nativeCache.estimatedSize() : 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null || !(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache)) {
+            return null;
+        }
+        return (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache.getNativeCache();
+    }
+}
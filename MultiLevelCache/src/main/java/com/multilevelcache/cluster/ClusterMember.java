@@ -0,0 +1,32 @@
+package com.multilevelcache.cluster;
+
+import lombok.Value;
+
+/**
+ * 集群節點描述（id@host:port）
+ */
+@Value
+public class ClusterMember {
+
+    String id;
+    String host;
+    int port;
+
+    /**
+     * 解析 id@host:port 格式的節點描述
+     */
+    public static ClusterMember parse(String spec) {
+        String value = spec.trim();
+        int at = value.indexOf('@');
+        int colon = value.lastIndexOf(':');
+        if (at <= 0 || colon <= at + 1 || colon == value.length() - 1) {
+            throw new IllegalArgumentException("節點格式應為 id@host:port: " + spec);
+        }
+        return new ClusterMember(value.substring(0, at), value.substring(at + 1, colon),
+                Integer.parseInt(value.substring(colon + 1)));
+    }
+
+    public String toSpec() {
+        return id + "@" + host + ":" + port;
+    }
+}
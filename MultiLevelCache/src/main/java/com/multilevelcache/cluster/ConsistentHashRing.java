@@ -0,0 +1,118 @@
+package com.multilevelcache.cluster;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * 一致性哈希環（不可變）
+ *
+ * 每個節點在環上放置若干虛擬節點，鍵歸屬於順時針方向的第一個虛擬節點。
+ * 成員變化時返回新的環，只有落在新增或移除節點區間內的鍵會改變歸屬。
+ */
+public final class ConsistentHashRing {
+
+    private static final double RING_SIZE = Math.pow(2, 64);
+
+    private final int virtualNodes;
+    private final Map<String, ClusterMember> members;
+    private final NavigableMap<Long, ClusterMember> ring;
+
+    private ConsistentHashRing(int virtualNodes, Map<String, ClusterMember> members) {
+        this.virtualNodes = virtualNodes;
+        this.members = Collections.unmodifiableMap(members);
+        TreeMap<Long, ClusterMember> points = new TreeMap<>();
+        for (ClusterMember member : members.values()) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(hash(member.getId() + "#" + i), member);
+            }
+        }
+        this.ring = points;
+    }
+
+    public static ConsistentHashRing of(Collection<ClusterMember> members, int virtualNodes) {
+        Map<String, ClusterMember> byId = new LinkedHashMap<>();
+        for (ClusterMember member : members) {
+            byId.put(member.getId(), member);
+        }
+        return new ConsistentHashRing(virtualNodes, byId);
+    }
+
+    /**
+     * 加入節點後的新環
+     */
+    public ConsistentHashRing withMember(ClusterMember member) {
+        Map<String, ClusterMember> next = new LinkedHashMap<>(members);
+        next.put(member.getId(), member);
+        return new ConsistentHashRing(virtualNodes, next);
+    }
+
+    /**
+     * 移除節點後的新環
+     */
+    public ConsistentHashRing withoutMember(String memberId) {
+        Map<String, ClusterMember> next = new LinkedHashMap<>(members);
+        next.remove(memberId);
+        return new ConsistentHashRing(virtualNodes, next);
+    }
+
+    /**
+     * 分區鍵的歸屬節點，環為空時返回 null
+     */
+    public ClusterMember ownerOf(String partitionKey) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, ClusterMember> entry = ring.ceilingEntry(hash(partitionKey));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public boolean contains(String memberId) {
+        return members.containsKey(memberId);
+    }
+
+    public Collection<ClusterMember> getMembers() {
+        return members.values();
+    }
+
+    /**
+     * 各節點佔哈希空間的比例
+     */
+    public Map<String, Double> ownershipShares() {
+        Map<String, Double> shares = new LinkedHashMap<>();
+        if (ring.isEmpty()) {
+            return shares;
+        }
+        long previous = ring.lastKey();
+        for (Map.Entry<Long, ClusterMember> entry : ring.entrySet()) {
+            // 與前一個虛擬節點的距離即為負責的區間長度（首個區間跨越環的起點）
+            double span = ((double) entry.getKey() - (double) previous) / RING_SIZE;
+            if (span <= 0) {
+                span += 1.0;
+            }
+            shares.merge(entry.getValue().getId(), span, Double::sum);
+            previous = entry.getKey();
+        }
+        return shares;
+    }
+
+    /**
+     * FNV-1a 64 位哈希，再經 MurmurHash3 的 fmix64 打散
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,36 @@
+package com.multilevelcache.cluster;
+
+import java.util.Collection;
+
+/**
+ * 本節點負責分區的本地存儲
+ */
+public interface LocalCacheStore {
+
+    Object get(String cacheName, String key);
+
+    void put(String cacheName, String key, Object value);
+
+    /**
+     * 分區遷移時寫入，已有值時保留已有值（遷移期間新的回填比遷移過來的副本更新）
+     */
+    void putIfAbsent(String cacheName, String key, Object value);
+
+    /**
+     * 數據失效，需要通知失效監聽器
+     */
+    void evict(String cacheName, String key);
+
+    /**
+     * 分區遷移時移除，數據本身仍然有效
+     */
+    void remove(String cacheName, String key);
+
+    void clear(String cacheName);
+
+    Collection<String> getCacheNames();
+
+    Collection<String> keys(String cacheName);
+
+    long size(String cacheName);
+}
@@ -0,0 +1,22 @@
+package com.multilevelcache.cluster;
+
+import java.util.Map;
+
+/**
+ * 命名空間代際同步
+ *
+ * 物理鍵帶有命名空間代際後綴，各節點的代際必須一致才能算出相同的鍵。
+ * 代際推進時廣播給所有節點，新節點加入時由現有節點推送全部已推進的代際。
+ */
+public interface NamespaceGenerationSync {
+
+    /**
+     * 應用其他節點推送的代際，只前進不後退
+     */
+    void apply(String cacheName, String namespace, long generation);
+
+    /**
+     * 本節點所有已推進的代際：緩存名 → 命名空間 → 代際
+     */
+    Map<String, Map<String, Long>> generations();
+}
@@ -0,0 +1,536 @@
+package com.multilevelcache.cluster;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.multilevelcache.cache.CacheNamespaces;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分區集群緩存節點
+ *
+ * 鍵按業務 ID（鍵中第一個冒號之後、代際後綴之前的部分）映射到一致性哈希環上的歸屬節點，
+ * 同一用戶 / 賬戶 / 交易的各類緩存落在同一節點。本節點負責的鍵存放在本地存儲，
+ * 其他鍵經 RPC 向歸屬節點讀寫，並在小容量、短過期的近端緩存中保留副本。
+ * 不依賴 Spring，同一 JVM 內可以在不同端口上啟動多個節點。
+ */
+@Slf4j
+public class PartitionedCacheNode {
+
+    private static final byte[] ACK = new byte[0];
+
+    private final ClusterMember self;
+    private final Collection<ClusterMember> seeds;
+    private final int virtualNodes;
+    private final LocalCacheStore store;
+    private final int rpcTimeoutMillis;
+    private final RpcSecurity rpcSecurity;
+    private final RpcLimits rpcLimits;
+    private final Cache<String, Object> nearCache;
+    private final Map<String, CacheRpcClient> clients = new ConcurrentHashMap<>();
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder nearHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteMisses = new LongAdder();
+    private final LongAdder remoteFailures = new LongAdder();
+    private final LongAdder movedKeys = new LongAdder();
+    private final LongAdder droppedHandOffs = new LongAdder();
+    private final LongAdder rebalances = new LongAdder();
+
+    private volatile ConsistentHashRing ring;
+    /** 遷移進行中時記錄被寫入或失效的鍵（nearKey 形式，整個緩存清空記為「緩存名|」），遷移結束後置空 */
+    private volatile Set<String> touchedDuringHandOff;
+    private volatile NamespaceGenerationSync generationSync;
+    private volatile TagInvalidationSync tagInvalidationSync;
+    private CacheRpcServer server;
+    private ExecutorService background;
+
+    public PartitionedCacheNode(ClusterMember self, Collection<ClusterMember> seeds, int virtualNodes,
+                                LocalCacheStore store, long nearCacheMaximumSize, long nearCacheExpireMillis,
+                                int rpcTimeoutMillis, RpcSecurity rpcSecurity) {
+        this(self, seeds, virtualNodes, store, nearCacheMaximumSize, nearCacheExpireMillis, rpcTimeoutMillis,
+                rpcSecurity, RpcLimits.defaults());
+    }
+
+    public PartitionedCacheNode(ClusterMember self, Collection<ClusterMember> seeds, int virtualNodes,
+                                LocalCacheStore store, long nearCacheMaximumSize, long nearCacheExpireMillis,
+                                int rpcTimeoutMillis, RpcSecurity rpcSecurity, RpcLimits rpcLimits) {
+        this.self = self;
+        this.seeds = seeds;
+        this.virtualNodes = virtualNodes;
+        this.store = store;
+        this.rpcTimeoutMillis = rpcTimeoutMillis;
+        this.rpcSecurity = rpcSecurity;
+        this.rpcLimits = rpcLimits;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(nearCacheMaximumSize)
+                .expireAfterWrite(nearCacheExpireMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 啟動 RPC 服務並通知種子節點本節點加入
+     */
+    public void start() throws IOException {
+        List<ClusterMember> members = new ArrayList<>(seeds);
+        members.add(self);
+        ring = ConsistentHashRing.of(members, virtualNodes);
+
+        // 單線程保證廣播與遷移按提交順序執行
+        background = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Cluster-Background-" + self.getId());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = new CacheRpcServer(self.getHost(), self.getPort(), this::handle, rpcSecurity, rpcLimits);
+        server.start();
+
+        broadcast(CacheRpcProtocol.OP_JOIN, "", self.toSpec(), null);
+        log.info("🧩 集群緩存節點 {} 已啟動, 成員: {}", self.getId(), ring.getMembers().size());
+    }
+
+    /**
+     * 把本地數據交給新的歸屬節點，再通知其他節點離開
+     *
+     * 遷移期間其他節點仍把本節點視為成員，失效廣播會繼續送達，遷移可以據此丟棄期間變化過的鍵。
+     */
+    public void stop() {
+        ConsistentHashRing remaining = ring.withoutMember(self.getId());
+        ring = remaining;
+        handOff(remaining);
+        for (ClusterMember member : remaining.getMembers()) {
+            callQuietly(member, CacheRpcProtocol.OP_LEAVE, "", self.getId(), null);
+        }
+
+        server.stop();
+        background.shutdownNow();
+        for (CacheRpcClient client : clients.values()) {
+            client.close();
+        }
+        log.info("👋 集群緩存節點 {} 已離開集群", self.getId());
+    }
+
+    /**
+     * 讀取緩存值，不存在或歸屬節點不可用時返回 null
+     */
+    public Object get(String cacheName, String key) {
+        ClusterMember owner = ownerOf(key);
+        if (isSelf(owner)) {
+            Object value = store.get(cacheName, key);
+            if (value != null) {
+                localHits.increment();
+            }
+            return value;
+        }
+
+        String nearKey = nearKey(cacheName, key);
+        Object near = nearCache.getIfPresent(nearKey);
+        if (near != null && !(near instanceof PendingRead)) {
+            nearHits.increment();
+            return near;
+        }
+
+        // 先佔位再遠程讀取，期間的失效會移除佔位，讀到的舊值不會寫回近端緩存
+        PendingRead pending = new PendingRead();
+        nearCache.asMap().putIfAbsent(nearKey, pending);
+        try {
+            byte[] bytes = client(owner).call(CacheRpcProtocol.OP_GET, cacheName, key, null);
+            if (bytes == null) {
+                remoteMisses.increment();
+                return null;
+            }
+            Object value = CacheValueCodec.decode(bytes);
+            nearCache.asMap().replace(nearKey, pending, value);
+            remoteHits.increment();
+            return value;
+        } catch (IOException e) {
+            remoteFailures.increment();
+            log.debug("從節點 {} 讀取 {} 失敗: {}", owner.getId(), key, e.getMessage());
+            return null;
+        } finally {
+            nearCache.asMap().remove(nearKey, pending);
+        }
+    }
+
+    /**
+     * 寫入緩存值
+     */
+    public void put(String cacheName, String key, Object value) {
+        ClusterMember owner = ownerOf(key);
+        touch(cacheName, key);
+        if (isSelf(owner)) {
+            store.put(cacheName, key, value);
+            return;
+        }
+
+        // 歸屬節點不可用時近端緩存仍保留一份，避免每次都回源
+        nearCache.put(nearKey(cacheName, key), value);
+        try {
+            client(owner).call(CacheRpcProtocol.OP_PUT, cacheName, key, CacheValueCodec.encode(value));
+        } catch (IOException e) {
+            remoteFailures.increment();
+            log.debug("寫入節點 {} 失敗 {}: {}", owner.getId(), key, e.getMessage());
+        }
+    }
+
+    /**
+     * 刪除緩存值：同步通知歸屬節點，異步清除其他節點的近端副本
+     */
+    public void evict(String cacheName, String key) {
+        ClusterMember owner = ownerOf(key);
+        touch(cacheName, key);
+        store.evict(cacheName, key);
+
+        if (!isSelf(owner)) {
+            callQuietly(owner, CacheRpcProtocol.OP_EVICT, cacheName, key, null);
+        }
+        // 歸屬節點刪除之後再清近端副本，刪除之前發起的遠程讀取不會把舊值寫回近端緩存
+        nearCache.invalidate(nearKey(cacheName, key));
+        for (ClusterMember member : ring.getMembers()) {
+            if (!isSelf(member) && !member.equals(owner)) {
+                background.execute(() -> callQuietly(member, CacheRpcProtocol.OP_EVICT, cacheName, key, null));
+            }
+        }
+    }
+
+    /**
+     * 清空整個集群中的指定緩存
+     */
+    public void clear(String cacheName) {
+        touch(cacheName, "");
+        store.clear(cacheName);
+        for (ClusterMember member : ring.getMembers()) {
+            if (!isSelf(member)) {
+                callQuietly(member, CacheRpcProtocol.OP_CLEAR, cacheName, "", null);
+            }
+        }
+        invalidateNear(cacheName);
+    }
+
+    /**
+     * 設置命名空間代際同步，收到其他節點推送的代際時回調
+     */
+    public void setGenerationSync(NamespaceGenerationSync generationSync) {
+        this.generationSync = generationSync;
+    }
+
+    /**
+     * 設置標籤失效同步，收到其他節點廣播的標籤失效時回調
+     */
+    public void setTagInvalidationSync(TagInvalidationSync tagInvalidationSync) {
+        this.tagInvalidationSync = tagInvalidationSync;
+    }
+
+    /**
+     * 同步通知其他節點按各自的標籤索引失效，返回時所有可達節點都已完成刪除
+     */
+    public void broadcastTagInvalidation(String cacheName, Collection<String> tags) {
+        byte[] payload;
+        try {
+            payload = CacheRpcProtocol.encodeStrings(tags);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("無法編碼標籤: " + tags, e);
+        }
+        broadcast(CacheRpcProtocol.OP_INVALIDATE_TAGS, cacheName, "", payload);
+    }
+
+    /**
+     * 通知其他節點命名空間已推進到指定代際
+     */
+    public void broadcastGeneration(String cacheName, String namespace, long generation) {
+        broadcast(CacheRpcProtocol.OP_GENERATION, cacheName, namespace, CacheRpcProtocol.encodeLong(generation));
+    }
+
+    /**
+     * 加入節點並通知其他成員
+     *
+     * 只供同一 JVM 內的調用方使用，不經 HTTP 暴露；正常情況下節點啟動時自行廣播加入。
+     */
+    public void addMember(ClusterMember member) {
+        applyJoin(member);
+        for (ClusterMember other : ring.getMembers()) {
+            if (!isSelf(other) && !other.getId().equals(member.getId())) {
+                callQuietly(other, CacheRpcProtocol.OP_JOIN, "", member.toSpec(), null);
+            }
+        }
+    }
+
+    /**
+     * 移除節點並通知其他成員，例如把已宕機的節點移出哈希環；同樣不經 HTTP 暴露
+     */
+    public void removeMember(String memberId) {
+        if (self.getId().equals(memberId)) {
+            throw new IllegalArgumentException("不能移除本節點，請直接停止服務");
+        }
+        applyLeave(memberId);
+        for (ClusterMember other : ring.getMembers()) {
+            if (!isSelf(other)) {
+                callQuietly(other, CacheRpcProtocol.OP_LEAVE, "", memberId, null);
+            }
+        }
+    }
+
+    public ClusterMember ownerOf(String key) {
+        return ring.ownerOf(partitionKey(key));
+    }
+
+    /**
+     * 分區鍵：緩存鍵中第一個冒號之後的業務 ID
+     */
+    public static String partitionKey(String key) {
+        String logicalKey = CacheNamespaces.logicalKey(key);
+        int separator = logicalKey.indexOf(':');
+        return separator >= 0 ? logicalKey.substring(separator + 1) : logicalKey;
+    }
+
+    /**
+     * 處理對端請求；寫操作只需確認，返回空負載而不是回顯請求
+     */
+    private byte[] handle(byte op, String cacheName, String key, byte[] payload) throws IOException {
+        switch (op) {
+            case CacheRpcProtocol.OP_GET:
+                Object value = store.get(cacheName, key);
+                return value != null ? CacheValueCodec.encode(value) : null;
+            case CacheRpcProtocol.OP_PUT:
+                touch(cacheName, key);
+                store.put(cacheName, key, CacheValueCodec.decode(payload));
+                return ACK;
+            case CacheRpcProtocol.OP_HAND_OFF:
+                store.putIfAbsent(cacheName, key, CacheValueCodec.decode(payload));
+                return ACK;
+            case CacheRpcProtocol.OP_EVICT:
+                touch(cacheName, key);
+                store.evict(cacheName, key);
+                nearCache.invalidate(nearKey(cacheName, key));
+                return ACK;
+            case CacheRpcProtocol.OP_CLEAR:
+                touch(cacheName, "");
+                store.clear(cacheName);
+                invalidateNear(cacheName);
+                return ACK;
+            case CacheRpcProtocol.OP_JOIN:
+                applyJoin(ClusterMember.parse(key));
+                return ACK;
+            case CacheRpcProtocol.OP_LEAVE:
+                applyLeave(key);
+                return ACK;
+            case CacheRpcProtocol.OP_GENERATION:
+                NamespaceGenerationSync sync = generationSync;
+                if (sync != null) {
+                    sync.apply(cacheName, key, CacheRpcProtocol.decodeLong(payload));
+                }
+                return ACK;
+            case CacheRpcProtocol.OP_INVALIDATE_TAGS:
+                TagInvalidationSync tagSync = tagInvalidationSync;
+                if (tagSync != null) {
+                    tagSync.invalidate(cacheName, CacheRpcProtocol.decodeStrings(payload));
+                }
+                return ACK;
+            default:
+                throw new IOException("未知操作: " + op);
+        }
+    }
+
+    private synchronized void applyJoin(ClusterMember member) {
+        if (isSelf(member) || ring.getMembers().contains(member)) {
+            return;
+        }
+        closeClient(member.getId());
+        ConsistentHashRing next = ring.withMember(member);
+        ring = next;
+        nearCache.invalidateAll();
+        rebalances.increment();
+        log.info("➕ 節點 {} 加入集群, 成員: {}", member.getId(), next.getMembers().size());
+
+        // 只遷移歸屬改變的鍵，即落在新節點區間內的部分
+        background.execute(() -> handOff(next));
+        background.execute(() -> pushGenerations(member));
+    }
+
+    private synchronized void applyLeave(String memberId) {
+        if (!ring.contains(memberId)) {
+            return;
+        }
+        ring = ring.withoutMember(memberId);
+        closeClient(memberId);
+        nearCache.invalidateAll();
+        rebalances.increment();
+        log.info("➖ 節點 {} 離開集群, 成員: {}", memberId, ring.getMembers().size());
+    }
+
+    /**
+     * 把歸屬不再是本節點的鍵交給新的歸屬節點
+     *
+     * 接收方只在沒有值時寫入，不會覆蓋新歸屬節點上更新的回填。遷移開始後被寫入或失效過的鍵不再遷移；
+     * 發送期間才變化的鍵在發送後補發一次失效，避免遷移過去的舊值在接收方先收到失效時復活。
+     */
+    private void handOff(ConsistentHashRing target) {
+        Set<String> touched = ConcurrentHashMap.newKeySet();
+        touchedDuringHandOff = touched;
+        long moved = 0;
+        long dropped = 0;
+        try {
+            for (String cacheName : store.getCacheNames()) {
+                for (String key : store.keys(cacheName)) {
+                    ClusterMember owner = target.ownerOf(partitionKey(key));
+                    if (owner == null || owner.getId().equals(self.getId())) {
+                        continue;
+                    }
+                    Object value = store.get(cacheName, key);
+                    store.remove(cacheName, key);
+                    if (value == null) {
+                        continue;
+                    }
+                    if (isTouched(touched, cacheName, key)) {
+                        dropped++;
+                        continue;
+                    }
+                    try {
+                        client(owner).call(CacheRpcProtocol.OP_HAND_OFF, cacheName, key, CacheValueCodec.encode(value));
+                        if (isTouched(touched, cacheName, key)) {
+                            client(owner).call(CacheRpcProtocol.OP_EVICT, cacheName, key, null);
+                            dropped++;
+                        } else {
+                            moved++;
+                        }
+                    } catch (IOException e) {
+                        remoteFailures.increment();
+                        log.debug("遷移 {} 到節點 {} 失敗: {}", key, owner.getId(), e.getMessage());
+                    }
+                }
+            }
+        } finally {
+            touchedDuringHandOff = null;
+        }
+        movedKeys.add(moved);
+        droppedHandOffs.add(dropped);
+        if (moved > 0 || dropped > 0) {
+            log.info("🚚 節點 {} 遷移 {} 個鍵到新的歸屬節點, 丟棄遷移期間變化的鍵 {} 個", self.getId(), moved, dropped);
+        }
+    }
+
+    private void touch(String cacheName, String key) {
+        Set<String> touched = touchedDuringHandOff;
+        if (touched != null) {
+            touched.add(nearKey(cacheName, key));
+        }
+    }
+
+    private static boolean isTouched(Set<String> touched, String cacheName, String key) {
+        return touched.contains(nearKey(cacheName, key)) || touched.contains(nearKey(cacheName, ""));
+    }
+
+    /**
+     * 把本節點已推進的代際推送給新加入的節點
+     */
+    private void pushGenerations(ClusterMember member) {
+        NamespaceGenerationSync sync = generationSync;
+        if (sync == null) {
+            return;
+        }
+        sync.generations().forEach((cacheName, generations) -> generations.forEach((namespace, generation) ->
+                callQuietly(member, CacheRpcProtocol.OP_GENERATION, cacheName, namespace,
+                        CacheRpcProtocol.encodeLong(generation))));
+    }
+
+    private void broadcast(byte op, String cacheName, String key, byte[] payload) {
+        for (ClusterMember member : ring.getMembers()) {
+            if (!isSelf(member)) {
+                callQuietly(member, op, cacheName, key, payload);
+            }
+        }
+    }
+
+    private void callQuietly(ClusterMember member, byte op, String cacheName, String key, byte[] payload) {
+        try {
+            client(member).call(op, cacheName, key, payload);
+        } catch (IOException e) {
+            remoteFailures.increment();
+            log.debug("通知節點 {} 失敗 (op={}): {}", member.getId(), op, e.getMessage());
+        }
+    }
+
+    private CacheRpcClient client(ClusterMember member) {
+        return clients.computeIfAbsent(member.getId(), id -> new CacheRpcClient(member, rpcTimeoutMillis, 16, rpcSecurity,
+                rpcLimits));
+    }
+
+    private void closeClient(String memberId) {
+        CacheRpcClient client = clients.remove(memberId);
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    private void invalidateNear(String cacheName) {
+        String prefix = cacheName + "|";
+        nearCache.asMap().keySet().removeIf(nearKey -> nearKey.startsWith(prefix));
+    }
+
+    private boolean isSelf(ClusterMember member) {
+        return member == null || member.getId().equals(self.getId());
+    }
+
+    private static String nearKey(String cacheName, String key) {
+        return cacheName + "|" + key;
+    }
+
+    /**
+     * 近端緩存中進行中的遠程讀取佔位，每次讀取一個實例
+     */
+    private static final class PendingRead {
+    }
+
+    /**
+     * 獲取集群緩存統計信息
+     */
+    public Map<String, Object> getStats() {
+        ConsistentHashRing current = ring;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("self", self.toSpec());
+        List<String> members = new ArrayList<>();
+        for (ClusterMember member : current.getMembers()) {
+            members.add(member.toSpec());
+        }
+        stats.put("members", members);
+        stats.put("ownershipShares", current.ownershipShares());
+
+        Map<String, Long> localEntries = new LinkedHashMap<>();
+        for (String cacheName : store.getCacheNames()) {
+            localEntries.put(cacheName, store.size(cacheName));
+        }
+        stats.put("localEntries", localEntries);
+        stats.put("nearCacheEntries", nearCache.estimatedSize());
+        stats.put("localHits", localHits.sum());
+        stats.put("nearHits", nearHits.sum());
+        stats.put("remoteHits", remoteHits.sum());
+        stats.put("remoteMisses", remoteMisses.sum());
+        stats.put("remoteFailures", remoteFailures.sum());
+        stats.put("rebalances", rebalances.sum());
+        stats.put("movedKeys", movedKeys.sum());
+        stats.put("droppedHandOffs", droppedHandOffs.sum());
+        stats.put("rpcRequestsServed", server != null ? server.getRequestCount() : 0);
+        stats.put("rpcConnectionsRejected", server != null ? server.getRejectedConnectionCount() : 0);
+        List<String> suspects = new ArrayList<>();
+        for (CacheRpcClient client : clients.values()) {
+            if (client.isSuspect()) {
+                suspects.add(client.getMember().getId());
+            }
+        }
+        stats.put("suspectMembers", suspects);
+        return stats;
+    }
+}
@@ -0,0 +1,201 @@
+package com.multilevelcache.cluster;
+
+import javax.crypto.Mac;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+/**
+ * 經認證的 RPC 連接
+ *
+ * 建立連接時服務端先發送一個隨機數，之後每個幀末尾附帶 HMAC，覆蓋隨機數、連接內請求序號、
+ * 幀方向與幀的全部字段。沒有共享密鑰的對端無法發起請求，截獲的幀也不能在其他連接上
+ * 或同一連接的其他位置重放，響應與所屬請求綁定。認證失敗或負載超長時拋出 IOException，調用方關閉連接。
+ */
+final class RpcChannel {
+
+    private static final int NONCE_BYTES = 16;
+    private static final byte DIRECTION_REQUEST = 0;
+    private static final byte DIRECTION_RESPONSE = 1;
+    private static final byte[] EMPTY = new byte[0];
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final Mac mac;
+    private final int maxFrameBytes;
+    private final byte[] nonce;
+    private long sequence;
+
+    private RpcChannel(Socket socket, RpcSecurity security, boolean server) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.mac = security.newMac();
+        this.maxFrameBytes = security.getMaxFrameBytes();
+        this.nonce = new byte[NONCE_BYTES];
+        if (server) {
+            RANDOM.nextBytes(nonce);
+            out.write(nonce);
+            out.flush();
+        } else {
+            in.readFully(nonce);
+        }
+    }
+
+    /**
+     * 服務端：發送本連接的隨機數
+     */
+    static RpcChannel accept(Socket socket, RpcSecurity security) throws IOException {
+        return new RpcChannel(socket, security, true);
+    }
+
+    /**
+     * 客戶端：讀取服務端發送的隨機數
+     */
+    static RpcChannel connect(Socket socket, RpcSecurity security) throws IOException {
+        return new RpcChannel(socket, security, false);
+    }
+
+    void writeRequest(byte op, String cacheName, String key, byte[] payload) throws IOException {
+        byte[] body = payload != null ? payload : EMPTY;
+        checkLength(body.length);
+        sequence++;
+        out.writeByte(op);
+        out.writeUTF(cacheName);
+        out.writeUTF(key);
+        out.writeInt(body.length);
+        out.write(body);
+        out.write(sign(DIRECTION_REQUEST, op, cacheName, key, body));
+        out.flush();
+    }
+
+    /**
+     * 讀取請求幀，對端正常關閉連接時返回 null
+     */
+    Request readRequest() throws IOException {
+        byte op;
+        try {
+            op = in.readByte();
+        } catch (EOFException e) {
+            return null;
+        }
+        String cacheName = in.readUTF();
+        String key = in.readUTF();
+        byte[] payload = readPayload();
+        sequence++;
+        verify(sign(DIRECTION_REQUEST, op, cacheName, key, payload));
+        return new Request(op, cacheName, key, payload);
+    }
+
+    void writeResponse(byte status, byte[] payload) throws IOException {
+        byte[] body = payload != null ? payload : EMPTY;
+        checkLength(body.length);
+        out.writeByte(status);
+        out.writeInt(body.length);
+        out.write(body);
+        out.write(sign(DIRECTION_RESPONSE, status, "", "", body));
+        out.flush();
+    }
+
+    /**
+     * 讀取響應幀
+     */
+    Response readResponse() throws IOException {
+        byte status = in.readByte();
+        byte[] payload = readPayload();
+        verify(sign(DIRECTION_RESPONSE, status, "", "", payload));
+        return new Response(status, payload);
+    }
+
+    private byte[] readPayload() throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("非法的負載長度: " + length);
+        }
+        checkLength(length);
+        if (length == 0) {
+            return EMPTY;
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return payload;
+    }
+
+    private void checkLength(int length) throws IOException {
+        if (length > maxFrameBytes) {
+            throw new IOException("負載長度 " + length + " 超過上限 " + maxFrameBytes);
+        }
+    }
+
+    private byte[] sign(byte direction, byte code, String cacheName, String key, byte[] payload) {
+        mac.update(nonce);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            mac.update((byte) (sequence >>> shift));
+        }
+        mac.update(direction);
+        mac.update(code);
+        updateField(cacheName.getBytes(StandardCharsets.UTF_8));
+        updateField(key.getBytes(StandardCharsets.UTF_8));
+        updateField(payload);
+        return mac.doFinal();
+    }
+
+    /**
+     * 字段前綴長度，避免相鄰字段的邊界移動後得到相同的 MAC
+     */
+    private void updateField(byte[] field) {
+        int length = field.length;
+        mac.update((byte) (length >>> 24));
+        mac.update((byte) (length >>> 16));
+        mac.update((byte) (length >>> 8));
+        mac.update((byte) length);
+        mac.update(field);
+    }
+
+    private void verify(byte[] expected) throws IOException {
+        byte[] actual = new byte[expected.length];
+        in.readFully(actual);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new IOException("RPC 幀認證失敗");
+        }
+    }
+
+    /**
+     * 請求幀
+     */
+    static final class Request {
+
+        final byte op;
+        final String cacheName;
+        final String key;
+        final byte[] payload;
+
+        Request(byte op, String cacheName, String key, byte[] payload) {
+            this.op = op;
+            this.cacheName = cacheName;
+            this.key = key;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * 響應幀
+     */
+    static final class Response {
+
+        final byte status;
+        final byte[] payload;
+
+        Response(byte status, byte[] payload) {
+            this.status = status;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.multilevelcache.cluster;
+
+/**
+ * 集群 RPC 資源上限
+ *
+ * 服務端並發連接數與空閒連接的讀超時限制對端能佔用的線程；客戶端對連續失敗的節點
+ * 標記為可疑，在冷卻期內直接失敗，不再讓每次調用都等滿 RPC 超時。
+ */
+public final class RpcLimits {
+
+    private final int serverMaxConnections;
+    private final int serverIdleTimeoutMillis;
+    private final int suspectAfterFailures;
+    private final long suspectMillis;
+
+    public RpcLimits(int serverMaxConnections, int serverIdleTimeoutMillis, int suspectAfterFailures,
+                     long suspectMillis) {
+        if (serverMaxConnections <= 0) {
+            throw new IllegalArgumentException("集群 RPC 服務端連接上限必須大於 0");
+        }
+        if (serverIdleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("集群 RPC 服務端空閒超時必須大於 0");
+        }
+        if (suspectAfterFailures <= 0 || suspectMillis < 0) {
+            throw new IllegalArgumentException("集群 RPC 可疑節點判定參數非法");
+        }
+        this.serverMaxConnections = serverMaxConnections;
+        this.serverIdleTimeoutMillis = serverIdleTimeoutMillis;
+        this.suspectAfterFailures = suspectAfterFailures;
+        this.suspectMillis = suspectMillis;
+    }
+
+    /**
+     * 默認上限：256 個連接，空閒 60 秒斷開，連續 3 次失敗後冷卻 5 秒
+     */
+    public static RpcLimits defaults() {
+        return new RpcLimits(256, 60_000, 3, 5_000);
+    }
+
+    public int getServerMaxConnections() {
+        return serverMaxConnections;
+    }
+
+    public int getServerIdleTimeoutMillis() {
+        return serverIdleTimeoutMillis;
+    }
+
+    public int getSuspectAfterFailures() {
+        return suspectAfterFailures;
+    }
+
+    public long getSuspectMillis() {
+        return suspectMillis;
+    }
+}
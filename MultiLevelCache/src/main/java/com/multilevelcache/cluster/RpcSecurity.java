@@ -0,0 +1,49 @@
+package com.multilevelcache.cluster;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * 集群 RPC 安全配置
+ *
+ * 所有節點共享同一個密鑰，用於計算每個幀的 HMAC；負載長度上限防止對端以超大長度字段耗盡內存。
+ */
+public final class RpcSecurity {
+
+    static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 16;
+
+    private final SecretKeySpec key;
+    private final int maxFrameBytes;
+
+    public RpcSecurity(String secret, int maxFrameBytes) {
+        byte[] secretBytes = secret != null ? secret.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (secretBytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalArgumentException("集群 RPC 密鑰至少需要 " + MIN_SECRET_BYTES + " 字節");
+        }
+        if (maxFrameBytes <= 0) {
+            throw new IllegalArgumentException("集群 RPC 負載上限必須大於 0");
+        }
+        this.key = new SecretKeySpec(secretBytes, MAC_ALGORITHM);
+        this.maxFrameBytes = maxFrameBytes;
+    }
+
+    public int getMaxFrameBytes() {
+        return maxFrameBytes;
+    }
+
+    /**
+     * 每個連接一個 Mac 實例，Mac 本身不是線程安全的
+     */
+    Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("無法初始化 " + MAC_ALGORITHM, e);
+        }
+    }
+}
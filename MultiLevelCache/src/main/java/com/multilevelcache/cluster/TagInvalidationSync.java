@@ -0,0 +1,17 @@
+package com.multilevelcache.cluster;
+
+import java.util.Collection;
+
+/**
+ * 標籤失效同步
+ *
+ * 標籤索引在處理寫入請求的節點上登記，而值存放在歸屬節點上，每個節點只知道自己登記過的鍵。
+ * 按標籤失效時廣播給所有節點，各節點按本地索引逐鍵失效，刪除經 RPC 送到歸屬節點。
+ */
+public interface TagInvalidationSync {
+
+    /**
+     * 按本節點的標籤索引失效，不再廣播
+     */
+    void invalidate(String cacheName, Collection<String> tags);
+}
@@ -1,48 +1,42 @@
 package com.multilevelcache.config;
 
+import com.multilevelcache.executor.BlockingExecutors;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.concurrent.Executor;
 
 /**
- * 異步配置類
+ * 異步與定時任務配置類
  */
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class AsyncConfig {
 
     /**
-     * 異步任務執行器
+     * 異步任務執行器（阻塞 I/O，虛擬線程或平台線程池，見 {@link BlockingExecutors}）
      */
-    @Bean("taskExecutor")
-    public Executor taskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(10);
-        executor.setMaxPoolSize(20);
-        executor.setQueueCapacity(500);
-        executor.setKeepAliveSeconds(60);
-        executor.setThreadNamePrefix("MultiLevelCache-");
-        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
-        executor.initialize();
-        return executor;
+    @Bean(name = "taskExecutor", destroyMethod = "")
+    public Executor taskExecutor(BlockingExecutors blockingExecutors) {
+        return blockingExecutors.get(BlockingExecutors.TASK);
     }
 
     /**
-     * 緩存異步執行器
+     * 緩存異步執行器（未命中合併後的批量加載）
      */
-    @Bean("cacheExecutor")
-    public Executor cacheExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);
-        executor.setMaxPoolSize(10);
-        executor.setQueueCapacity(200);
-        executor.setKeepAliveSeconds(30);
-        executor.setThreadNamePrefix("Cache-");
-        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
-        executor.initialize();
-        return executor;
+    @Bean(name = "cacheExecutor", destroyMethod = "")
+    public Executor cacheExecutor(BlockingExecutors blockingExecutors) {
+        return blockingExecutors.get(BlockingExecutors.CACHE);
     }
-} 
\ No newline at end of file
+
+    /**
+     * 交易狀態推送執行器，只負責排空訂閱者的待發隊列
+     */
+    @Bean(name = "streamExecutor", destroyMethod = "")
+    public Executor streamExecutor(BlockingExecutors blockingExecutors) {
+        return blockingExecutors.get(BlockingExecutors.STREAM);
+    }
+}
@@ -1,6 +1,8 @@
 package com.multilevelcache.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.multilevelcache.cache.StaleEntryStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
@@ -41,7 +43,7 @@ public class CacheConfig {
      */
     @Bean
     @Primary
-    public CacheManager caffeineCacheManager() {
+    public CacheManager caffeineCacheManager(StaleEntryStore staleEntryStore) {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
         
         // 交易記錄緩存
@@ -50,6 +52,12 @@ public class CacheConfig {
                 .maximumSize(transactionMaxSize)
                 .expireAfterWrite(parseDuration(transactionExpireAfterWrite), TimeUnit.MILLISECONDS)
                 .expireAfterAccess(parseDuration(transactionExpireAfterAccess), TimeUnit.MILLISECONDS)
+                .removalListener((key, value, cause) -> {
+                    // 過期條目轉入寬限區，數據庫不可用時作為過期數據返回
+                    if (cause == RemovalCause.EXPIRED) {
+                        staleEntryStore.onExpired("transactionCache", key, value);
+                    }
+                })
                 .build());
         
         // 黑名單緩存
@@ -58,6 +66,12 @@ public class CacheConfig {
                 .maximumSize(blacklistMaxSize)
                 .expireAfterWrite(parseDuration(blacklistExpireAfterWrite), TimeUnit.MILLISECONDS)
                 .expireAfterAccess(parseDuration(blacklistExpireAfterAccess), TimeUnit.MILLISECONDS)
+                .removalListener((key, value, cause) -> {
+                    // 過期條目轉入寬限區，數據庫不可用時作為過期數據返回
+                    if (cause == RemovalCause.EXPIRED) {
+                        staleEntryStore.onExpired("blacklistCache", key, value);
+                    }
+                })
                 .build());
         
         System.out.println("✅ CacheManager 配置成功！");
@@ -0,0 +1,103 @@
+package com.multilevelcache.config;
+
+import com.multilevelcache.cache.CacheInvalidationListener;
+import com.multilevelcache.cluster.CaffeineLocalCacheStore;
+import com.multilevelcache.cluster.ClusterMember;
+import com.multilevelcache.cluster.PartitionedCacheNode;
+import com.multilevelcache.cluster.RpcLimits;
+import com.multilevelcache.cluster.RpcSecurity;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 分區集群緩存配置
+ *
+ * 啟用後每個實例只保存一致性哈希環上歸屬本節點的鍵，
+ * cache.cluster.members 列出其他節點（id@host:port，逗號分隔）。
+ * 節點之間的 RPC 幀以 cache.cluster.secret 計算 HMAC 認證，所有節點必須配置相同的密鑰。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "cache.cluster", name = "enabled", havingValue = "true")
+public class ClusterCacheConfig {
+
+    @Value("${cache.cluster.node-id}")
+    private String nodeId;
+
+    @Value("${cache.cluster.host:127.0.0.1}")
+    private String host;
+
+    @Value("${cache.cluster.port:9100}")
+    private int port;
+
+    @Value("${cache.cluster.members:}")
+    private String members;
+
+    @Value("${cache.cluster.virtual-nodes:160}")
+    private int virtualNodes;
+
+    @Value("${cache.cluster.near-cache.maximum-size:1000}")
+    private long nearCacheMaximumSize;
+
+    @Value("${cache.cluster.near-cache.expire-after-write-ms:2000}")
+    private long nearCacheExpireMillis;
+
+    @Value("${cache.cluster.rpc-timeout-ms:200}")
+    private int rpcTimeoutMillis;
+
+    @Value("${cache.cluster.secret:}")
+    private String secret;
+
+    @Value("${cache.cluster.max-frame-bytes:16777216}")
+    private int maxFrameBytes;
+
+    @Value("${cache.cluster.server.max-connections:256}")
+    private int serverMaxConnections;
+
+    @Value("${cache.cluster.server.idle-timeout-ms:60000}")
+    private int serverIdleTimeoutMillis;
+
+    @Value("${cache.cluster.suspect.after-failures:3}")
+    private int suspectAfterFailures;
+
+    @Value("${cache.cluster.suspect.cooldown-ms:5000}")
+    private long suspectCooldownMillis;
+
+    /**
+     * 本實例的集群緩存節點
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public PartitionedCacheNode partitionedCacheNode(@Qualifier("caffeineCacheManager") CacheManager cacheManager,
+                                                     ObjectProvider<CacheInvalidationListener> listeners) {
+        if (!StringUtils.hasText(secret)) {
+            throw new IllegalStateException("啟用集群緩存時必須配置 cache.cluster.secret");
+        }
+        RpcSecurity rpcSecurity = new RpcSecurity(secret, maxFrameBytes);
+
+        List<ClusterMember> seeds = new ArrayList<>();
+        for (String spec : StringUtils.commaDelimitedListToStringArray(members)) {
+            if (StringUtils.hasText(spec)) {
+                ClusterMember member = ClusterMember.parse(spec);
+                if (!member.getId().equals(nodeId)) {
+                    seeds.add(member);
+                }
+            }
+        }
+
+        CaffeineLocalCacheStore store = new CaffeineLocalCacheStore(cacheManager,
+                listeners.orderedStream().collect(Collectors.toList()));
+        RpcLimits rpcLimits = new RpcLimits(serverMaxConnections, serverIdleTimeoutMillis, suspectAfterFailures,
+                suspectCooldownMillis);
+        return new PartitionedCacheNode(new ClusterMember(nodeId, host, port), seeds, virtualNodes, store,
+                nearCacheMaximumSize, nearCacheExpireMillis, rpcTimeoutMillis, rpcSecurity, rpcLimits);
+    }
+}
@@ -0,0 +1,114 @@
+package com.multilevelcache.config;
+
+import com.multilevelcache.datasource.DataSourceContextHolder;
+import com.multilevelcache.datasource.ReplicaDataSourceProperties;
+import com.multilevelcache.datasource.ReplicaRouter;
+import com.multilevelcache.datasource.RoutingDataSource;
+import com.multilevelcache.timing.PoolTimingMetricsTrackerFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 讀寫分離數據源配置
+ *
+ * 啟用後 spring.datasource 作為主庫，datasource.routing.replicas 作為從庫，
+ * 由 {@link ReplicaRouter} 決定每次讀查詢使用的數據源。
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+@ConditionalOnProperty(prefix = "datasource.routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    private final List<HikariDataSource> replicaDataSources = new ArrayList<>();
+
+    /**
+     * 主庫數據源（沿用 spring.datasource.hikari 連接池配置）
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * 路由數據源，MyBatis 與事務管理器都使用它
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 ReplicaDataSourceProperties replicaProperties,
+                                 ReplicaRouter replicaRouter) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(DataSourceContextHolder.PRIMARY, primaryDataSource);
+
+        int index = 0;
+        for (ReplicaDataSourceProperties.Replica replica : replicaProperties.getReplicas()) {
+            String name = StringUtils.hasText(replica.getName()) ? replica.getName() : "replica-" + index;
+            index++;
+
+            HikariDataSource replicaDataSource = new HikariDataSource();
+            replicaDataSource.setPoolName(name);
+            replicaDataSource.setJdbcUrl(replica.getUrl());
+            replicaDataSource.setUsername(replica.getUsername());
+            replicaDataSource.setPassword(replica.getPassword());
+            if (StringUtils.hasText(replica.getDriverClassName())) {
+                replicaDataSource.setDriverClassName(replica.getDriverClassName());
+            }
+            replicaDataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            replicaDataSource.setReadOnly(true);
+            replicaDataSource.setMetricsTrackerFactory(new PoolTimingMetricsTrackerFactory(null));
+
+            if (StringUtils.hasText(replica.getInitScript())) {
+                ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                        new DefaultResourceLoader().getResource(replica.getInitScript()));
+                populator.setContinueOnError(true);
+                DatabasePopulatorUtils.execute(populator, replicaDataSource);
+            }
+
+            replicaDataSources.add(replicaDataSource);
+            targets.put(name, replicaDataSource);
+            replicaRouter.registerReplica(name, replicaDataSource, replica.getLagQuery());
+        }
+
+        RoutingDataSource routingDataSource = new RoutingDataSource();
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+
+        log.info("🔀 讀寫分離已啟用: 1 個主庫, {} 個從庫", targets.size() - 1);
+        return routingDataSource;
+    }
+
+    /**
+     * 關閉從庫連接池
+     */
+    @PreDestroy
+    public void closeReplicas() {
+        for (HikariDataSource replicaDataSource : replicaDataSources) {
+            replicaDataSource.close();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.multilevelcache.config;
+
+import com.multilevelcache.id.IdGenerator;
+import com.multilevelcache.id.SnowflakeIdGenerator;
+import com.multilevelcache.id.UuidIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 交易ID生成器配置類
+ *
+ * id.transaction.strategy 為 snowflake（默認）時生成時間有序ID，為 uuid 時沿用隨機 UUID 截取。
+ */
+@Slf4j
+@Configuration
+public class IdGeneratorConfig {
+
+    private static final String TRANSACTION_PREFIX = "TXN";
+
+    /**
+     * 時間有序的交易ID生成器
+     */
+    @Bean("transactionIdGenerator")
+    @ConditionalOnProperty(prefix = "id.transaction", name = "strategy", havingValue = "snowflake", matchIfMissing = true)
+    public IdGenerator snowflakeTransactionIdGenerator(
+            @Value("${id.node-id:-1}") int nodeId,
+            @Value("${cache.cluster.enabled:false}") boolean clusterEnabled,
+            @Value("${cache.cluster.node-id:}") String clusterNodeId,
+            @Value("${id.snowflake.max-borrow-ms:1000}") long maxBorrowMs,
+            @Value("${id.snowflake.max-rollback-wait-ms:5000}") long maxRollbackWaitMs) {
+        if (nodeId < 0) {
+            String source = clusterEnabled && !clusterNodeId.isEmpty()
+                    ? clusterNodeId
+                    : ManagementFactory.getRuntimeMXBean().getName();
+            nodeId = (source.hashCode() & Integer.MAX_VALUE) % (SnowflakeIdGenerator.MAX_NODE_ID + 1);
+            log.warn("⚠️ 未配置 id.node-id，按 {} 推導節點號 {}，多實例部署時請顯式配置以免衝突", source, nodeId);
+        }
+        log.info("🆔 交易ID生成器: snowflake, 節點號 {}", nodeId);
+        return new SnowflakeIdGenerator(TRANSACTION_PREFIX, nodeId, maxBorrowMs, maxRollbackWaitMs);
+    }
+
+    /**
+     * 隨機 UUID 交易ID生成器
+     */
+    @Bean("transactionIdGenerator")
+    @ConditionalOnProperty(prefix = "id.transaction", name = "strategy", havingValue = "uuid")
+    public IdGenerator uuidTransactionIdGenerator() {
+        log.info("🆔 交易ID生成器: uuid");
+        return new UuidIdGenerator(TRANSACTION_PREFIX);
+    }
+}
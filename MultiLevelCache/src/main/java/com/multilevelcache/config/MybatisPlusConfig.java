@@ -4,11 +4,16 @@ import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.multilevelcache.sql.StatementMetricsInterceptor;
+import com.multilevelcache.sql.StatementMonitor;
+import org.apache.ibatis.mapping.DatabaseIdProvider;
+import org.apache.ibatis.mapping.VendorDatabaseIdProvider;
 import org.apache.ibatis.reflection.MetaObject;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.LocalDateTime;
+import java.util.Properties;
 
 /**
  * MyBatis Plus 配置類
@@ -27,6 +32,27 @@ public class MybatisPlusConfig {
         return interceptor;
     }
 
+    /**
+     * 語句級統計插件
+     */
+    @Bean
+    public StatementMetricsInterceptor statementMetricsInterceptor(StatementMonitor statementMonitor) {
+        return new StatementMetricsInterceptor(statementMonitor);
+    }
+
+    /**
+     * 數據庫廠商標識，供映射文件按 databaseId 選擇方言相關的語句
+     */
+    @Bean
+    public DatabaseIdProvider databaseIdProvider() {
+        Properties properties = new Properties();
+        properties.setProperty("MySQL", "mysql");
+        properties.setProperty("H2", "h2");
+        VendorDatabaseIdProvider provider = new VendorDatabaseIdProvider();
+        provider.setProperties(properties);
+        return provider;
+    }
+
     /**
      * 自動填充配置
      */
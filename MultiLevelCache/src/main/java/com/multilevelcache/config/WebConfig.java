@@ -0,0 +1,44 @@
+package com.multilevelcache.config;
+
+import com.multilevelcache.executor.BlockingExecutors;
+import com.multilevelcache.timing.ServerTimingJsonConverter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Web MVC 配置類
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final BlockingExecutors blockingExecutors;
+
+    /**
+     * 異步請求（流式導出）在導出執行器上運行，同時進行的導出數受其並發上限約束
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(blockingExecutors.get(BlockingExecutors.EXPORT)));
+    }
+
+    /**
+     * 用帶序列化計時的轉換器替換默認的 Jackson 轉換器（沿用同一個 ObjectMapper）
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (int i = 0; i < converters.size(); i++) {
+            HttpMessageConverter<?> converter = converters.get(i);
+            if (converter.getClass() == MappingJackson2HttpMessageConverter.class) {
+                converters.set(i, new ServerTimingJsonConverter(((MappingJackson2HttpMessageConverter) converter).getObjectMapper()));
+            }
+        }
+    }
+}
@@ -2,12 +2,24 @@ package com.multilevelcache.controller;
 
 import com.multilevelcache.dto.ApiResponse;
 import com.multilevelcache.dto.BlacklistDTO;
+import com.multilevelcache.dto.BlacklistImportResult;
+import com.multilevelcache.dto.VelocityDTO;
 import com.multilevelcache.entity.Blacklist;
+import com.multilevelcache.entity.BlacklistRule;
+import com.multilevelcache.service.BlacklistImportService;
+import com.multilevelcache.service.BlacklistRuleService;
 import com.multilevelcache.service.BlacklistService;
+import com.multilevelcache.velocity.VelocityCounterStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -21,93 +33,143 @@ import java.util.List;
 public class BlacklistController {
 
     private final BlacklistService blacklistService;
+    private final BlacklistImportService blacklistImportService;
+    private final BlacklistRuleService blacklistRuleService;
+    private final VelocityCounterStore velocityCounterStore;
+    private final CachedResponseWriter cachedResponseWriter;
 
     /**
      * 檢查用戶黑名單
      */
     @GetMapping("/check/user/{userId}")
-    public ApiResponse<BlacklistDTO> checkUserBlacklist(@PathVariable String userId) {
-        long startTime = System.currentTimeMillis();
-        BlacklistDTO blacklist = blacklistService.checkUserBlacklist(userId);
-        long responseTime = System.currentTimeMillis() - startTime;
-        
-        return ApiResponse.success(blacklist, responseTime, blacklist.getCacheLevel(), blacklist.getFromCache());
+    public ResponseEntity<byte[]> checkUserBlacklist(@PathVariable String userId, HttpServletRequest request) {
+        return cachedResponseWriter.write(request, BlacklistService.CACHE_NAME,
+                BlacklistService.userBlacklistKey(userId), () -> {
+            long startTime = System.currentTimeMillis();
+            BlacklistDTO blacklist = blacklistService.checkUserBlacklist(userId);
+            long responseTime = System.currentTimeMillis() - startTime;
+
+            return ApiResponse.success(blacklist, responseTime, blacklist.getCacheLevel(), blacklist.getFromCache());
+        });
     }
 
     /**
      * 檢查賬戶黑名單
      */
     @GetMapping("/check/account/{accountNumber}")
-    public ApiResponse<BlacklistDTO> checkAccountBlacklist(@PathVariable String accountNumber) {
-        long startTime = System.currentTimeMillis();
-        BlacklistDTO blacklist = blacklistService.checkAccountBlacklist(accountNumber);
-        long responseTime = System.currentTimeMillis() - startTime;
-        
-        return ApiResponse.success(blacklist, responseTime, blacklist.getCacheLevel(), blacklist.getFromCache());
+    public ResponseEntity<byte[]> checkAccountBlacklist(@PathVariable String accountNumber, HttpServletRequest request) {
+        return cachedResponseWriter.write(request, BlacklistService.CACHE_NAME,
+                BlacklistService.accountBlacklistKey(accountNumber), () -> {
+            long startTime = System.currentTimeMillis();
+            BlacklistDTO blacklist = blacklistService.checkAccountBlacklist(accountNumber);
+            long responseTime = System.currentTimeMillis() - startTime;
+
+            return ApiResponse.success(blacklist, responseTime, blacklist.getCacheLevel(), blacklist.getFromCache());
+        });
+    }
+
+    /**
+     * 查詢用戶最近 1 分鐘 / 1 小時 / 24 小時的交易速率
+     */
+    @GetMapping("/velocity/user/{userId}")
+    public ApiResponse<VelocityDTO> getUserVelocity(@PathVariable String userId) {
+        return velocity(VelocityCounterStore.KEY_TYPE_USER, userId);
+    }
+
+    /**
+     * 查詢賬戶最近 1 分鐘 / 1 小時 / 24 小時的交易速率
+     */
+    @GetMapping("/velocity/account/{accountNumber}")
+    public ApiResponse<VelocityDTO> getAccountVelocity(@PathVariable String accountNumber) {
+        return velocity(VelocityCounterStore.KEY_TYPE_ACCOUNT, accountNumber);
+    }
+
+    private ApiResponse<VelocityDTO> velocity(String keyType, String id) {
+        if (!velocityCounterStore.isEnabled()) {
+            return ApiResponse.error("交易速率計數器未啟用");
+        }
+        VelocityDTO velocity = velocityCounterStore.query(keyType, id);
+        return ApiResponse.success(velocity, velocity.getResponseTimeMs(), "MEMORY", false);
     }
 
     /**
      * 根據用戶ID查詢黑名單記錄
      */
     @GetMapping("/user/{userId}")
-    public ApiResponse<List<BlacklistDTO>> getBlacklistByUserId(@PathVariable String userId) {
-        long startTime = System.currentTimeMillis();
-        List<BlacklistDTO> blacklists = blacklistService.getBlacklistByUserId(userId);
-        long responseTime = System.currentTimeMillis() - startTime;
-        
-        if (!blacklists.isEmpty()) {
-            return ApiResponse.success(blacklists, responseTime, "L1", true);
-        } else {
-            return ApiResponse.success(blacklists, responseTime, "DB", false);
-        }
+    public ResponseEntity<byte[]> getBlacklistByUserId(@PathVariable String userId, HttpServletRequest request) {
+        return cachedResponseWriter.write(request, BlacklistService.CACHE_NAME,
+                BlacklistService.userBlacklistsKey(userId), () -> {
+            long startTime = System.currentTimeMillis();
+            List<BlacklistDTO> blacklists = blacklistService.getBlacklistByUserId(userId);
+            long responseTime = System.currentTimeMillis() - startTime;
+
+            if (!blacklists.isEmpty()) {
+                return ApiResponse.success(blacklists, responseTime,
+                        blacklists.get(0).getCacheLevel(), blacklists.get(0).getFromCache());
+            } else {
+                return ApiResponse.success(blacklists, responseTime, "DB", false);
+            }
+        });
     }
 
     /**
      * 根據賬戶號碼查詢黑名單記錄
      */
     @GetMapping("/account/{accountNumber}")
-    public ApiResponse<List<BlacklistDTO>> getBlacklistByAccountNumber(@PathVariable String accountNumber) {
-        long startTime = System.currentTimeMillis();
-        List<BlacklistDTO> blacklists = blacklistService.getBlacklistByAccountNumber(accountNumber);
-        long responseTime = System.currentTimeMillis() - startTime;
-        
-        if (!blacklists.isEmpty()) {
-            return ApiResponse.success(blacklists, responseTime, "L1", true);
-        } else {
-            return ApiResponse.success(blacklists, responseTime, "DB", false);
-        }
+    public ResponseEntity<byte[]> getBlacklistByAccountNumber(@PathVariable String accountNumber, HttpServletRequest request) {
+        return cachedResponseWriter.write(request, BlacklistService.CACHE_NAME,
+                BlacklistService.accountBlacklistsKey(accountNumber), () -> {
+            long startTime = System.currentTimeMillis();
+            List<BlacklistDTO> blacklists = blacklistService.getBlacklistByAccountNumber(accountNumber);
+            long responseTime = System.currentTimeMillis() - startTime;
+
+            if (!blacklists.isEmpty()) {
+                return ApiResponse.success(blacklists, responseTime,
+                        blacklists.get(0).getCacheLevel(), blacklists.get(0).getFromCache());
+            } else {
+                return ApiResponse.success(blacklists, responseTime, "DB", false);
+            }
+        });
     }
 
     /**
      * 根據黑名單類型查詢
      */
     @GetMapping("/type/{blacklistType}")
-    public ApiResponse<List<BlacklistDTO>> getBlacklistsByType(@PathVariable String blacklistType) {
-        long startTime = System.currentTimeMillis();
-        List<BlacklistDTO> blacklists = blacklistService.getBlacklistsByType(blacklistType);
-        long responseTime = System.currentTimeMillis() - startTime;
-        
-        if (!blacklists.isEmpty()) {
-            return ApiResponse.success(blacklists, responseTime, "L1", true);
-        } else {
-            return ApiResponse.success(blacklists, responseTime, "DB", false);
-        }
+    public ResponseEntity<byte[]> getBlacklistsByType(@PathVariable String blacklistType, HttpServletRequest request) {
+        return cachedResponseWriter.write(request, BlacklistService.CACHE_NAME,
+                BlacklistService.blacklistTypeKey(blacklistType), () -> {
+            long startTime = System.currentTimeMillis();
+            List<BlacklistDTO> blacklists = blacklistService.getBlacklistsByType(blacklistType);
+            long responseTime = System.currentTimeMillis() - startTime;
+
+            if (!blacklists.isEmpty()) {
+                return ApiResponse.success(blacklists, responseTime,
+                        blacklists.get(0).getCacheLevel(), blacklists.get(0).getFromCache());
+            } else {
+                return ApiResponse.success(blacklists, responseTime, "DB", false);
+            }
+        });
     }
 
     /**
      * 查詢有效的黑名單記錄
      */
     @GetMapping("/active")
-    public ApiResponse<List<BlacklistDTO>> getActiveBlacklists() {
-        long startTime = System.currentTimeMillis();
-        List<BlacklistDTO> blacklists = blacklistService.getActiveBlacklists();
-        long responseTime = System.currentTimeMillis() - startTime;
-        
-        if (!blacklists.isEmpty()) {
-            return ApiResponse.success(blacklists, responseTime, "L1", true);
-        } else {
-            return ApiResponse.success(blacklists, responseTime, "DB", false);
-        }
+    public ResponseEntity<byte[]> getActiveBlacklists(HttpServletRequest request) {
+        return cachedResponseWriter.write(request, BlacklistService.CACHE_NAME,
+                BlacklistService.ACTIVE_BLACKLISTS_KEY, () -> {
+            long startTime = System.currentTimeMillis();
+            List<BlacklistDTO> blacklists = blacklistService.getActiveBlacklists();
+            long responseTime = System.currentTimeMillis() - startTime;
+
+            if (!blacklists.isEmpty()) {
+                return ApiResponse.success(blacklists, responseTime,
+                        blacklists.get(0).getCacheLevel(), blacklists.get(0).getFromCache());
+            } else {
+                return ApiResponse.success(blacklists, responseTime, "DB", false);
+            }
+        });
     }
 
     /**
@@ -122,6 +184,51 @@ public class BlacklistController {
         return ApiResponse.success(createdBlacklist, responseTime, "DB", false);
     }
 
+    /**
+     * 批量導入黑名單（上傳 CSV / JSON 文件）
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ApiResponse<BlacklistImportResult> importBlacklistFile(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format) {
+        BlacklistImportService.Format importFormat =
+                BlacklistImportService.Format.detect(format, file.getOriginalFilename(), file.getContentType());
+        try (InputStream inputStream = file.getInputStream()) {
+            return importBlacklists(inputStream, importFormat);
+        } catch (IOException e) {
+            log.error("讀取黑名單導入文件失敗", e);
+            return ApiResponse.error("讀取導入文件失敗: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 批量導入黑名單（請求體直接為 CSV / JSON）
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE})
+    public ApiResponse<BlacklistImportResult> importBlacklistBody(HttpServletRequest request) {
+        BlacklistImportService.Format importFormat =
+                BlacklistImportService.Format.detect(null, null, request.getContentType());
+        try (InputStream inputStream = request.getInputStream()) {
+            return importBlacklists(inputStream, importFormat);
+        } catch (IOException e) {
+            log.error("讀取黑名單導入請求失敗", e);
+            return ApiResponse.error("讀取導入請求失敗: " + e.getMessage());
+        }
+    }
+
+    private ApiResponse<BlacklistImportResult> importBlacklists(InputStream inputStream, BlacklistImportService.Format format)
+            throws IOException {
+        if (format == null) {
+            return ApiResponse.error("無法識別導入格式，僅支持 CSV 或 JSON");
+        }
+        try {
+            BlacklistImportResult result = blacklistImportService.importBlacklists(inputStream, format);
+            return ApiResponse.success(result, result.getResponseTimeMs(), "DB", false);
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
     /**
      * 更新黑名單狀態
      */
@@ -140,6 +247,55 @@ public class BlacklistController {
         }
     }
 
+    /**
+     * 查詢前綴/號段規則
+     */
+    @GetMapping("/rules")
+    public ApiResponse<List<BlacklistRule>> getRules() {
+        long startTime = System.currentTimeMillis();
+        List<BlacklistRule> rules = blacklistRuleService.getRules();
+        return ApiResponse.success(rules, System.currentTimeMillis() - startTime, "DB", false);
+    }
+
+    /**
+     * 創建前綴/號段規則
+     */
+    @PostMapping("/rules")
+    public ApiResponse<BlacklistRule> createRule(@RequestBody BlacklistRule rule) {
+        long startTime = System.currentTimeMillis();
+        try {
+            BlacklistRule createdRule = blacklistRuleService.createRule(rule);
+            return ApiResponse.success(createdRule, System.currentTimeMillis() - startTime, "DB", false);
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 更新規則狀態
+     */
+    @PutMapping("/rules/{id}/status")
+    public ApiResponse<BlacklistRule> updateRuleStatus(@PathVariable Long id, @RequestParam String status) {
+        long startTime = System.currentTimeMillis();
+        BlacklistRule updatedRule = blacklistRuleService.updateRuleStatus(id, status);
+        if (updatedRule == null) {
+            return ApiResponse.error("黑名單規則不存在");
+        }
+        return ApiResponse.success(updatedRule, System.currentTimeMillis() - startTime, "DB", false);
+    }
+
+    /**
+     * 刪除規則
+     */
+    @DeleteMapping("/rules/{id}")
+    public ApiResponse<String> deleteRule(@PathVariable Long id) {
+        long startTime = System.currentTimeMillis();
+        if (!blacklistRuleService.deleteRule(id)) {
+            return ApiResponse.error("黑名單規則不存在");
+        }
+        return ApiResponse.success("規則已刪除", System.currentTimeMillis() - startTime, "DB", false);
+    }
+
     /**
      * 創建測試數據
      */
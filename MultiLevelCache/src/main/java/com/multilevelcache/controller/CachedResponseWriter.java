@@ -0,0 +1,266 @@
+package com.multilevelcache.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.multilevelcache.cache.ResponseBodyCache;
+import com.multilevelcache.dto.ApiResponse;
+import com.multilevelcache.resilience.DbGuard;
+import com.multilevelcache.timing.RequestTiming;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 熱點 GET 接口的響應體緩存寫出器
+ *
+ * 緩存只保存 data 字段的序列化字節，每次寫出時按請求拼上外層字段（耗時、緩存層級、時間戳），
+ * 命中時支持弱 ETag / 304 與預壓縮的 gzip 段；數據來自實體緩存時才保存序列化結果。
+ * 同一 URL 會按 Accept-Encoding 返回不同編碼，所有響應都帶 Vary: Accept-Encoding。
+ */
+@Component
+@RequiredArgsConstructor
+public class CachedResponseWriter {
+
+    private static final MediaType JSON_UTF8 = new MediaType(MediaType.APPLICATION_JSON, StandardCharsets.UTF_8);
+
+    /**
+     * gzip 頭：deflate、無文件名、無修改時間、未知操作系統
+     */
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final ResponseBodyCache responseBodyCache;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 以實體緩存鍵為索引寫出響應
+     */
+    public ResponseEntity<byte[]> write(HttpServletRequest request, String cacheName, String cacheKey,
+                                        Supplier<ApiResponse<?>> responseSupplier) {
+        if (!responseBodyCache.isEnabled()) {
+            return ok(serialize(responseSupplier.get()), null, null);
+        }
+
+        long startTime = System.currentTimeMillis();
+        ResponseBodyCache.CachedBody cached = responseBodyCache.get(cacheName, cacheKey);
+        if (cached != null) {
+            return fromCache(request, cached, startTime);
+        }
+
+        long version = responseBodyCache.beginFill(cacheName, cacheKey);
+        ApiResponse<?> response = responseSupplier.get();
+
+        // 只緩存由實體緩存命中產生的成功響應，與實體緩存的生命週期保持一致；降級返回的過期數據不緩存
+        if (!Boolean.TRUE.equals(response.getSuccess()) || !Boolean.TRUE.equals(response.getFromCache())
+                || DbGuard.STALE_CACHE_LEVEL.equals(response.getCacheLevel())) {
+            return ok(serialize(response), null, null);
+        }
+
+        long serializeStart = RequestTiming.start();
+        byte[] head;
+        byte[] data;
+        byte[] tail;
+        try {
+            head = head(response);
+            data = objectMapper.writeValueAsBytes(response.getData());
+            tail = tail(response.getResponseTimeMs(), response.getCacheLevel(), response.getFromCache(),
+                    response.getTimestamp());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.SERIALIZE, serializeStart);
+        }
+
+        byte[] body = concat(head, data, tail);
+        ResponseBodyCache.CachedBody stored = responseBodyCache.put(cacheName, cacheKey, version, head, data);
+        if (stored != null) {
+            return ok(body, stored.getEtag(), "MISS");
+        }
+        return ok(body, null, null);
+    }
+
+    private ResponseEntity<byte[]> fromCache(HttpServletRequest request, ResponseBodyCache.CachedBody cached,
+                                             long startTime) {
+        if (matchesEtag(request.getHeader(HttpHeaders.IF_NONE_MATCH), cached.getEtag())) {
+            return withTiming(ResponseEntity.status(HttpStatus.NOT_MODIFIED))
+                    .eTag(cached.getEtag())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .header("X-Response-Cache", "HIT")
+                    .build();
+        }
+
+        byte[] tail;
+        try {
+            tail = tail(System.currentTimeMillis() - startTime, ResponseBodyCache.RESPONSE_CACHE_LEVEL, true,
+                    LocalDateTime.now());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (cached.getDeflatedData() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return withTiming(ResponseEntity.ok())
+                    .contentType(JSON_UTF8)
+                    .eTag(cached.getEtag())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .header("X-Response-Cache", "HIT")
+                    .body(gzip(cached, tail));
+        }
+        return ok(concat(cached.getHead(), cached.getData(), tail), cached.getEtag(), "HIT");
+    }
+
+    private static ResponseEntity<byte[]> ok(byte[] json, String etag, String cacheStatus) {
+        ResponseEntity.BodyBuilder builder = withTiming(ResponseEntity.ok())
+                .contentType(JSON_UTF8)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (etag != null) {
+            builder.eTag(etag);
+        }
+        if (cacheStatus != null) {
+            builder.header("X-Response-Cache", cacheStatus);
+        }
+        return builder.body(json);
+    }
+
+    /**
+     * 響應體已在這裡序列化，直接把當前請求的 Server-Timing 頭加到響應上
+     */
+    private static ResponseEntity.BodyBuilder withTiming(ResponseEntity.BodyBuilder builder) {
+        String serverTiming = RequestTiming.currentHeader();
+        return serverTiming != null ? builder.header(RequestTiming.SERVER_TIMING_HEADER, serverTiming) : builder;
+    }
+
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = opaqueTag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = opaqueTag(candidate.trim());
+            if (value.equals(opaque) || value.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If-None-Match 使用弱比較，忽略 W/ 前綴
+     */
+    private static String opaqueTag(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    /**
+     * 外層中位於 data 之前的部分，字段順序與 ApiResponse 的序列化順序一致
+     */
+    private byte[] head(ApiResponse<?> response) throws JsonProcessingException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+        field(buffer, "{\"success\":", response.getSuccess());
+        field(buffer, ",\"message\":", response.getMessage());
+        write(buffer, ",\"data\":".getBytes(StandardCharsets.UTF_8));
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 外層中位於 data 之後的部分
+     */
+    private byte[] tail(Long responseTimeMs, String cacheLevel, Boolean fromCache, LocalDateTime timestamp)
+            throws JsonProcessingException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        field(buffer, ",\"responseTimeMs\":", responseTimeMs);
+        field(buffer, ",\"cacheLevel\":", cacheLevel);
+        field(buffer, ",\"fromCache\":", fromCache);
+        field(buffer, ",\"timestamp\":", timestamp);
+        buffer.write('}');
+        return buffer.toByteArray();
+    }
+
+    private void field(ByteArrayOutputStream buffer, String name, Object value) throws JsonProcessingException {
+        write(buffer, name.getBytes(StandardCharsets.UTF_8));
+        write(buffer, objectMapper.writeValueAsBytes(value));
+    }
+
+    private static void write(ByteArrayOutputStream buffer, byte[] bytes) {
+        buffer.write(bytes, 0, bytes.length);
+    }
+
+    private static byte[] concat(byte[] head, byte[] data, byte[] tail) {
+        byte[] body = new byte[head.length + data.length + tail.length];
+        System.arraycopy(head, 0, body, 0, head.length);
+        System.arraycopy(data, 0, body, head.length, data.length);
+        System.arraycopy(tail, 0, body, head.length + data.length, tail.length);
+        return body;
+    }
+
+    /**
+     * 拼接 gzip 流：頭尾外層按請求壓縮，中間直接使用緩存的 deflate 段，CRC32 按完整明文計算
+     */
+    private static byte[] gzip(ResponseBodyCache.CachedBody cached, byte[] tail) {
+        byte[] headSegment = ResponseBodyCache.deflateSegment(cached.getHead());
+        byte[] tailSegment = deflateFinal(tail);
+        byte[] deflated = cached.getDeflatedData();
+
+        CRC32 crc = new CRC32();
+        crc.update(cached.getHead());
+        crc.update(cached.getData());
+        crc.update(tail);
+        long size = (long) cached.getHead().length + cached.getData().length + tail.length;
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(GZIP_HEADER.length + headSegment.length
+                + deflated.length + tailSegment.length + 8);
+        write(buffer, GZIP_HEADER);
+        write(buffer, headSegment);
+        write(buffer, deflated);
+        write(buffer, tailSegment);
+        writeIntLe(buffer, crc.getValue());
+        writeIntLe(buffer, size);
+        return buffer.toByteArray();
+    }
+
+    private static byte[] deflateFinal(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length + 16);
+            byte[] chunk = new byte[256];
+            while (!deflater.finished()) {
+                buffer.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return buffer.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeIntLe(ByteArrayOutputStream buffer, long value) {
+        buffer.write((int) value);
+        buffer.write((int) (value >>> 8));
+        buffer.write((int) (value >>> 16));
+        buffer.write((int) (value >>> 24));
+    }
+
+    private byte[] serialize(ApiResponse<?> response) {
+        long startTime = RequestTiming.start();
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.SERIALIZE, startTime);
+        }
+    }
+}
@@ -1,10 +1,35 @@
 package com.multilevelcache.controller;
 
+import com.multilevelcache.admission.AdmissionController;
 import com.multilevelcache.aspect.PerformanceMonitorAspect;
+import com.multilevelcache.audit.CacheConsistencyAuditor;
+import com.multilevelcache.cache.AdaptiveCacheSizer;
+import com.multilevelcache.cache.CacheFillVersions;
+import com.multilevelcache.cache.CacheTagIndex;
+import com.multilevelcache.cache.MultiLevelCacheService;
+import com.multilevelcache.cache.ResponseBodyCache;
+import com.multilevelcache.cluster.PartitionedCacheNode;
+import com.multilevelcache.datasource.ReplicaRouter;
+import com.multilevelcache.executor.BlockingExecutors;
+import com.multilevelcache.id.IdGenerator;
+import com.multilevelcache.resilience.DbGuard;
+import com.multilevelcache.rule.BlacklistRuleIndex;
+import com.multilevelcache.service.CacheMissLoader;
+import com.multilevelcache.service.TransactionArchiveService;
+import com.multilevelcache.service.TransactionService;
+import com.multilevelcache.sql.StatementMonitor;
+import com.multilevelcache.stream.TransactionStatusHub;
+import com.multilevelcache.timing.SlowRequestTracer;
+import com.multilevelcache.trace.AccessTraceRecorder;
+import com.multilevelcache.velocity.VelocityCounterStore;
 import com.multilevelcache.dto.ApiResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -12,6 +37,8 @@ import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
 import java.lang.management.ThreadMXBean;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -26,6 +53,27 @@ import java.util.concurrent.atomic.AtomicLong;
 public class MonitorController {
 
     private final PerformanceMonitorAspect performanceMonitorAspect;
+    private final ReplicaRouter replicaRouter;
+    private final CacheMissLoader cacheMissLoader;
+    private final ResponseBodyCache responseBodyCache;
+    private final ObjectProvider<PartitionedCacheNode> clusterNode;
+    private final TransactionArchiveService transactionArchiveService;
+    private final DbGuard dbGuard;
+    private final AdaptiveCacheSizer adaptiveCacheSizer;
+    private final AccessTraceRecorder accessTraceRecorder;
+    private final BlacklistRuleIndex blacklistRuleIndex;
+    private final VelocityCounterStore velocityCounterStore;
+    private final CacheFillVersions cacheFillVersions;
+    private final CacheTagIndex cacheTagIndex;
+    private final SlowRequestTracer slowRequestTracer;
+    private final StatementMonitor statementMonitor;
+    private final TransactionStatusHub transactionStatusHub;
+    private final AdmissionController admissionController;
+    private final IdGenerator transactionIdGenerator;
+    private final TransactionService transactionService;
+    private final CacheConsistencyAuditor cacheConsistencyAuditor;
+    private final MultiLevelCacheService cacheService;
+    private final BlockingExecutors blockingExecutors;
 
     /**
      * 獲取系統性能統計
@@ -79,11 +127,233 @@ public class MonitorController {
         // 這裡可以添加更詳細的緩存統計信息
         // 例如：緩存命中率、緩存大小、緩存失效次數等
         
-        cacheStats.put("message", "緩存統計功能待實現");
+        // 未命中回填：期間發生失效而被放棄的回填次數
+        cacheStats.put("fill", cacheFillVersions.getStats());
+        // 標籤索引：登記的標籤數、按標籤清除的鍵數
+        cacheStats.put("tags", cacheTagIndex.getStats());
+        // 列式交易列表：本地緩存中的條目數與相對行對象列表節省的堆空間（估算）
+        cacheStats.put("columnarTransactionLists", transactionService.getColumnarListStats());
         
         return ApiResponse.success(cacheStats, 0L, "NONE", false);
     }
 
+    /**
+     * 獲取讀寫分離路由統計
+     */
+    @GetMapping("/datasource")
+    public ApiResponse<Map<String, Object>> getDataSourceStats() {
+        return ApiResponse.success(replicaRouter.getStats(), 0L, "NONE", false);
+    }
+
+    /**
+     * 獲取緩存未命中合併統計
+     */
+    @GetMapping("/coalescer")
+    public ApiResponse<List<Map<String, Object>>> getCoalescerStats() {
+        return ApiResponse.success(cacheMissLoader.getStats(), 0L, "NONE", false);
+    }
+
+    /**
+     * 獲取響應體緩存統計
+     */
+    @GetMapping("/response-cache")
+    public ApiResponse<Map<String, Object>> getResponseCacheStats() {
+        return ApiResponse.success(responseBodyCache.getStats(), 0L, "NONE", false);
+    }
+
+    /**
+     * 獲取分區集群緩存狀態
+     */
+    @GetMapping("/cluster")
+    public ApiResponse<Map<String, Object>> getClusterStats() {
+        PartitionedCacheNode node = clusterNode.getIfAvailable();
+        if (node == null) {
+            return ApiResponse.error("分區集群緩存未啟用");
+        }
+        return ApiResponse.success(node.getStats(), 0L, "NONE", false);
+    }
+
+    /**
+     * 獲取交易歸檔統計
+     */
+    @GetMapping("/archive")
+    public ApiResponse<Map<String, Object>> getArchiveStats() {
+        return ApiResponse.success(transactionArchiveService.getStats(), 0L, "NONE", false);
+    }
+
+    /**
+     * 立即執行一次交易歸檔
+     */
+    @PostMapping("/archive/run")
+    public ApiResponse<Map<String, Object>> runArchive() {
+        if (!transactionArchiveService.isEnabled()) {
+            return ApiResponse.error("交易歸檔未啟用");
+        }
+        long startTime = System.currentTimeMillis();
+        Map<String, Object> result = transactionArchiveService.archiveSettled();
+        return ApiResponse.success(result, System.currentTimeMillis() - startTime, "NONE", false);
+    }
+
+    /**
+     * 獲取數據庫讀取保護狀態（熔斷器、超時估算、過期數據寬限區）
+     */
+    @GetMapping("/resilience")
+    public ApiResponse<Map<String, Object>> getResilienceStats() {
+        return ApiResponse.success(dbGuard.getStats(), 0L, "NONE", false);
+    }
+
+    /**
+     * 獲取緩存命中率曲線與容量調整決策
+     */
+    @GetMapping("/cache-sizing")
+    public ApiResponse<Map<String, Object>> getCacheSizing() {
+        return ApiResponse.success(adaptiveCacheSizer.getStats(), 0L, "NONE", false);
+    }
+
+    /**
+     * 立即按命中率曲線計算建議容量（apply=true 時同時應用）
+     */
+    @PostMapping("/cache-sizing/resize")
+    public ApiResponse<Map<String, Object>> resizeCaches(@RequestParam(defaultValue = "false") boolean apply) {
+        if (!adaptiveCacheSizer.isEnabled()) {
+            return ApiResponse.error("緩存容量自適應調整未啟用");
+        }
+        long startTime = System.currentTimeMillis();
+        Map<String, Object> decision = adaptiveCacheSizer.resize(apply);
+        return ApiResponse.success(decision, System.currentTimeMillis() - startTime, "NONE", false);
+    }
+
+    /**
+     * 獲取緩存訪問軌跡記錄狀態
+     */
+    @GetMapping("/trace")
+    public ApiResponse<Map<String, Object>> getTraceStats() {
+        return ApiResponse.success(accessTraceRecorder.getStats(), 0L, "NONE", false);
+    }
+
+    /**
+     * 獲取黑名單前綴/號段規則索引狀態
+     */
+    @GetMapping("/blacklist-rules")
+    public ApiResponse<Map<String, Object>> getBlacklistRuleStats() {
+        return ApiResponse.success(blacklistRuleIndex.getStats(), 0L, "NONE", false);
+    }
+
+    /**
+     * 獲取交易速率計數器狀態
+     */
+    @GetMapping("/velocity")
+    public ApiResponse<Map<String, Object>> getVelocityStats() {
+        return ApiResponse.success(velocityCounterStore.getStats(), 0L, "NONE", false);
+    }
+
+    /**
+     * 獲取最近的慢請求及其分段耗時（需開啟 request-timing.slow-trace.enabled）
+     */
+    @GetMapping("/slow-requests")
+    public ApiResponse<Map<String, Object>> getSlowRequests(@RequestParam(defaultValue = "20") int limit) {
+        Map<String, Object> result = slowRequestTracer.getStats();
+        result.put("traces", slowRequestTracer.recent(limit));
+        return ApiResponse.success(result, 0L, "NONE", false);
+    }
+
+    /**
+     * 獲取 SQL 語句級統計
+     */
+    @GetMapping("/sql")
+    public ApiResponse<Map<String, Object>> getSqlStats() {
+        Map<String, Object> result = statementMonitor.getStats();
+        result.put("statements", statementMonitor.getStatementStats());
+        return ApiResponse.success(result, 0L, "NONE", false);
+    }
+
+    /**
+     * 獲取最近的慢查詢，explain=true 時對 SELECT 實時執行 EXPLAIN
+     */
+    @GetMapping("/sql/slow")
+    public ApiResponse<Map<String, Object>> getSlowQueries(@RequestParam(defaultValue = "20") int limit,
+                                                           @RequestParam(defaultValue = "false") boolean explain) {
+        Map<String, Object> result = statementMonitor.getStats();
+        result.put("queries", statementMonitor.getSlowQueries(limit, explain));
+        return ApiResponse.success(result, 0L, "NONE", false);
+    }
+
+    /**
+     * 獲取交易狀態推送統計
+     */
+    @GetMapping("/transaction-stream")
+    public ApiResponse<Map<String, Object>> getTransactionStreamStats() {
+        return ApiResponse.success(transactionStatusHub.getStats(), 0L, "NONE", false);
+    }
+
+    /**
+     * 獲取准入控制統計
+     */
+    @GetMapping("/admission")
+    public ApiResponse<Map<String, Object>> getAdmissionStats() {
+        return ApiResponse.success(admissionController.getStats(), 0L, "NONE", false);
+    }
+
+    /**
+     * 獲取交易ID生成器統計
+     */
+    @GetMapping("/id-generator")
+    public ApiResponse<Map<String, Object>> getIdGeneratorStats() {
+        return ApiResponse.success(transactionIdGenerator.getStats(), 0L, "NONE", false);
+    }
+
+    /**
+     * 獲取緩存一致性審計統計（按鍵族的不一致率與持續時間分佈）
+     */
+    @GetMapping("/cache-audit")
+    public ApiResponse<Map<String, Object>> getCacheAuditStats() {
+        return ApiResponse.success(cacheConsistencyAuditor.getStats(), 0L, "NONE", false);
+    }
+
+    /**
+     * 立即執行一輪緩存一致性審計
+     */
+    @PostMapping("/cache-audit/run")
+    public ApiResponse<Map<String, Object>> runCacheAudit(@RequestParam(defaultValue = "false") boolean repair) {
+        long startTime = System.currentTimeMillis();
+        Map<String, Object> result = cacheConsistencyAuditor.audit(repair);
+        return ApiResponse.success(result, System.currentTimeMillis() - startTime, "DB", false);
+    }
+
+    /**
+     * 獲取各緩存鍵命名空間的代際、條目數與命中統計
+     */
+    @GetMapping("/cache-namespaces")
+    public ApiResponse<Map<String, Object>> getCacheNamespaces() {
+        return ApiResponse.success(cacheService.getNamespaceStats(), 0L, "NONE", false);
+    }
+
+    /**
+     * 推進命名空間代際，整族鍵一次失效
+     */
+    @PostMapping("/cache-namespaces/{cacheName}/{namespace}/bump")
+    public ApiResponse<Map<String, Object>> bumpCacheNamespace(@PathVariable String cacheName,
+                                                               @PathVariable String namespace) {
+        long startTime = System.currentTimeMillis();
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            result.put("cacheName", cacheName);
+            result.put("namespace", namespace);
+            result.put("generation", cacheService.bumpNamespace(cacheName, namespace));
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(e.getMessage());
+        }
+        return ApiResponse.success(result, System.currentTimeMillis() - startTime, "NONE", false);
+    }
+
+    /**
+     * 獲取阻塞 I/O 執行器的線程模式、排隊數、執行數與等待時間
+     */
+    @GetMapping("/executors")
+    public ApiResponse<Map<String, Object>> getExecutorStats() {
+        return ApiResponse.success(blockingExecutors.getStats(), 0L, "NONE", false);
+    }
+
     /**
      * 獲取系統健康狀態
      */
@@ -1,18 +1,31 @@
 package com.multilevelcache.controller;
 
 import com.multilevelcache.dto.ApiResponse;
+import com.multilevelcache.executor.BlockingExecutors;
+import com.multilevelcache.id.IdGenerator;
+import com.multilevelcache.id.SnowflakeIdGenerator;
+import com.multilevelcache.id.UuidIdGenerator;
 import com.multilevelcache.service.BlacklistService;
 import com.multilevelcache.service.TransactionService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 性能測試控制器
@@ -25,12 +38,22 @@ import java.util.concurrent.Executors;
 @Slf4j
 public class PerformanceTestController {
 
+    /** ID 生成器基準測試的參數上限：ID 全部保存在內存中，線程為每次測試新建 */
+    private static final int MAX_ID_BENCHMARK_COUNT = 1_000_000;
+    private static final int MAX_ID_BENCHMARK_THREADS = 32;
+
+    /** 同一時間只允許一個 ID 生成器基準測試 */
+    private final AtomicBoolean idBenchmarkRunning = new AtomicBoolean();
+
     @Autowired
     private TransactionService transactionService;
 
     @Autowired
     private BlacklistService blacklistService;
 
+    @Autowired
+    private BlockingExecutors blockingExecutors;
+
     /**
      * 交易記錄查詢性能測試
      */
@@ -47,7 +70,8 @@ public class PerformanceTestController {
         result.setConcurrentThreads(concurrentThreads);
         
         List<Long> responseTimes = new ArrayList<>();
-        ExecutorService executor = Executors.newFixedThreadPool(concurrentThreads);
+        // 共用壓測執行器，並發數由本次測試的許可數控制，不再每次新建線程池
+        Executor executor = blockingExecutors.get(BlockingExecutors.TEST_LOAD).limitedTo(concurrentThreads);
         
         try {
             // 生成測試數據
@@ -79,8 +103,6 @@ public class PerformanceTestController {
         } catch (Exception e) {
             log.error("❌ 交易記錄查詢性能測試失敗", e);
             return ApiResponse.error("性能測試失敗: " + e.getMessage());
-        } finally {
-            executor.shutdown();
         }
         
         return ApiResponse.success(result);
@@ -102,7 +124,8 @@ public class PerformanceTestController {
         result.setConcurrentThreads(concurrentThreads);
         
         List<Long> responseTimes = new ArrayList<>();
-        ExecutorService executor = Executors.newFixedThreadPool(concurrentThreads);
+        // 共用壓測執行器，並發數由本次測試的許可數控制，不再每次新建線程池
+        Executor executor = blockingExecutors.get(BlockingExecutors.TEST_LOAD).limitedTo(concurrentThreads);
         
         try {
             // 生成測試數據
@@ -134,8 +157,6 @@ public class PerformanceTestController {
         } catch (Exception e) {
             log.error("❌ 黑名單檢查性能測試失敗", e);
             return ApiResponse.error("性能測試失敗: " + e.getMessage());
-        } finally {
-            executor.shutdown();
         }
         
         return ApiResponse.success(result);
@@ -182,6 +203,117 @@ public class PerformanceTestController {
         return ApiResponse.success(result);
     }
 
+    /**
+     * 交易ID生成器基準測試
+     *
+     * 多線程分別用 UUID 截取與 Snowflake 生成同樣數量的ID（先各預熱一輪），比較吞吐、每個ID的分配字節、
+     * 重複數與有序度。有序度為每個線程內後一個ID大於前一個的比例，越接近 1 插入越集中在唯一索引右端。
+     * ID 數與線程數按上限截斷，同一時間只運行一個測試。
+     */
+    @GetMapping("/test/id-generator")
+    public ApiResponse<Map<String, Object>> testIdGenerator(
+            @RequestParam(defaultValue = "200000") int count,
+            @RequestParam(defaultValue = "8") int threads) {
+
+        count = Math.max(1, Math.min(count, MAX_ID_BENCHMARK_COUNT));
+        threads = Math.max(1, Math.min(threads, MAX_ID_BENCHMARK_THREADS));
+        if (!idBenchmarkRunning.compareAndSet(false, true)) {
+            return ApiResponse.error("已有交易ID生成器基準測試在運行，請稍後重試");
+        }
+        log.info("🚀 開始交易ID生成器基準測試: {} 個ID, {} 線程", count, threads);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", count);
+        result.put("threads", threads);
+        try {
+            for (int round = 0; round < 2; round++) {
+                boolean warmup = round == 0;
+                Map<String, Object> uuid = benchmarkIdGenerator(new UuidIdGenerator("TXN"), count, threads);
+                Map<String, Object> snowflake = benchmarkIdGenerator(
+                        new SnowflakeIdGenerator("TXN", 0, 1000, 5000), count, threads);
+                if (!warmup) {
+                    result.put("uuid", uuid);
+                    result.put("snowflake", snowflake);
+                    result.put("speedup", Math.round((double) uuid.get("nanosPerId") / (double) snowflake.get("nanosPerId") * 100) / 100.0);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ApiResponse.error("測試被中斷");
+        } finally {
+            idBenchmarkRunning.set(false);
+        }
+        log.info("✅ 交易ID生成器基準測試完成: 加速比 {}", result.get("speedup"));
+        return ApiResponse.success(result);
+    }
+
+    private Map<String, Object> benchmarkIdGenerator(IdGenerator generator, int count, int threads) throws InterruptedException {
+        int perThread = Math.max(1, count / threads);
+        String[][] ids = new String[threads][perThread];
+        long[] allocated = new long[threads];
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocationBean = threadBean instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threadBean : null;
+
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                int index = t;
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        long threadId = Thread.currentThread().getId();
+                        long bytesBefore = allocationBean != null ? allocationBean.getThreadAllocatedBytes(threadId) : 0;
+                        String[] own = ids[index];
+                        for (int i = 0; i < perThread; i++) {
+                            own[i] = generator.nextId();
+                        }
+                        if (allocationBean != null) {
+                            allocated[index] = allocationBean.getThreadAllocatedBytes(threadId) - bytesBefore;
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            long startTime = System.nanoTime();
+            start.countDown();
+            done.await();
+            long elapsed = System.nanoTime() - startTime;
+
+            long total = (long) perThread * threads;
+            Set<String> unique = new HashSet<>((int) (total * 4 / 3) + 1);
+            long ordered = 0;
+            long allocatedBytes = 0;
+            for (int t = 0; t < threads; t++) {
+                allocatedBytes += allocated[t];
+                for (int i = 0; i < perThread; i++) {
+                    unique.add(ids[t][i]);
+                    if (i > 0 && ids[t][i].compareTo(ids[t][i - 1]) > 0) {
+                        ordered++;
+                    }
+                }
+            }
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("sample", ids[0][perThread - 1]);
+            stats.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(elapsed));
+            stats.put("idsPerSecond", Math.round(total * 1_000_000_000.0 / elapsed));
+            stats.put("nanosPerId", Math.round(elapsed * 100.0 * threads / total) / 100.0);
+            stats.put("bytesPerId", allocationBean != null ? allocatedBytes / total : -1);
+            stats.put("duplicates", total - unique.size());
+            stats.put("orderedRatio", Math.round(ordered * 10000.0 / (total - threads)) / 10000.0);
+            stats.put("generator", generator.getStats());
+            return stats;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * 生成測試交易ID
      */
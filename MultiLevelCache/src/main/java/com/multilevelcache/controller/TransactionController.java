@@ -3,13 +3,27 @@ package com.multilevelcache.controller;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.multilevelcache.dto.ApiResponse;
 import com.multilevelcache.dto.TransactionDTO;
+import com.multilevelcache.dto.TransactionStatusUpdateRequest;
+import com.multilevelcache.dto.TransactionStatusUpdateResult;
 import com.multilevelcache.entity.Transaction;
+import com.multilevelcache.service.TransactionExportService;
 import com.multilevelcache.service.TransactionService;
+import com.multilevelcache.stream.TransactionStatusHub;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -22,53 +36,118 @@ import java.util.List;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final TransactionExportService transactionExportService;
+    private final CachedResponseWriter cachedResponseWriter;
+    private final TransactionStatusHub transactionStatusHub;
 
     /**
      * 根據交易ID查詢交易記錄
      */
     @GetMapping("/{transactionId}")
-    public ApiResponse<TransactionDTO> getTransactionById(@PathVariable String transactionId) {
-        long startTime = System.currentTimeMillis();
+    public ResponseEntity<byte[]> getTransactionById(@PathVariable String transactionId, HttpServletRequest request) {
+        return cachedResponseWriter.write(request, TransactionService.CACHE_NAME,
+                TransactionService.transactionKey(transactionId), () -> {
+            long startTime = System.currentTimeMillis();
+            TransactionDTO transaction = transactionService.getTransactionById(transactionId);
+            long responseTime = System.currentTimeMillis() - startTime;
+
+            if (transaction != null && transaction.getTransactionId() != null) {
+                return ApiResponse.success(transaction, responseTime, transaction.getCacheLevel(), transaction.getFromCache());
+            } else {
+                return ApiResponse.error("交易記錄不存在");
+            }
+        });
+    }
+
+    /**
+     * 訂閱交易狀態變更（Server-Sent Events），取代輪詢
+     *
+     * 首個事件為當前狀態，之後每次狀態變更推送一次，到達終態後服務端結束連接；
+     * 斷線重連時帶上 Last-Event-ID 補發期間的變更；重連時已是終態返回 204，客戶端停止重連。
+     */
+    @GetMapping(value = "/{transactionId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTransactionStatus(
+            @PathVariable String transactionId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        // 先取序號再讀快照，讀取期間的變更由推送端補發
+        long snapshotSequence = transactionStatusHub.lastSequence();
         TransactionDTO transaction = transactionService.getTransactionById(transactionId);
-        long responseTime = System.currentTimeMillis() - startTime;
-        
-        if (transaction != null && transaction.getTransactionId() != null) {
-            return ApiResponse.success(transaction, responseTime, transaction.getCacheLevel(), transaction.getFromCache());
-        } else {
-            return ApiResponse.error("交易記錄不存在");
+        if (transaction == null || transaction.getTransactionId() == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "交易記錄不存在");
+        }
+        if (lastEventId != null && transactionStatusHub.isTerminal(transaction)) {
+            // 重連時已是終態：204 讓 EventSource 停止重連，不再重發終態事件
+            return ResponseEntity.noContent().build();
+        }
+        SseEmitter emitter = transactionStatusHub.subscribe(transactionId, lastEventId, transaction,
+                snapshotSequence);
+        if (emitter == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "訂閱數已達上限，請稍後重試");
         }
+        return ResponseEntity.ok(emitter);
     }
 
     /**
      * 根據用戶ID查詢交易記錄
      */
     @GetMapping("/user/{userId}")
-    public ApiResponse<List<TransactionDTO>> getTransactionsByUserId(@PathVariable String userId) {
-        long startTime = System.currentTimeMillis();
-        List<TransactionDTO> transactions = transactionService.getTransactionsByUserId(userId);
-        long responseTime = System.currentTimeMillis() - startTime;
-        
-        if (!transactions.isEmpty()) {
-            return ApiResponse.success(transactions, responseTime, "L1", true);
-        } else {
-            return ApiResponse.success(transactions, responseTime, "DB", false);
+    public ResponseEntity<byte[]> getTransactionsByUserId(@PathVariable String userId, HttpServletRequest request) {
+        return cachedResponseWriter.write(request, TransactionService.CACHE_NAME,
+                TransactionService.userTransactionsKey(userId), () -> {
+            long startTime = System.currentTimeMillis();
+            List<TransactionDTO> transactions = transactionService.getTransactionsByUserId(userId);
+            long responseTime = System.currentTimeMillis() - startTime;
+
+            if (!transactions.isEmpty()) {
+                return ApiResponse.success(transactions, responseTime,
+                        transactions.get(0).getCacheLevel(), transactions.get(0).getFromCache());
+            } else {
+                return ApiResponse.success(transactions, responseTime, "DB", false);
+            }
+        });
+    }
+
+    /**
+     * 流式導出用戶交易記錄（format: ndjson / csv）
+     */
+    @GetMapping("/user/{userId}/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactionsByUserId(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        TransactionExportService.Format exportFormat = TransactionExportService.Format.parse(format);
+        if (exportFormat == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "不支持的導出格式: " + format);
         }
+
+        StreamingResponseBody body = outputStream ->
+                transactionExportService.exportByUserId(userId, exportFormat, outputStream);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.builder("attachment")
+                        .filename("transactions-" + userId + "." + exportFormat.getExtension(), StandardCharsets.UTF_8)
+                        .build().toString())
+                .body(body);
     }
 
     /**
      * 根據賬戶號碼查詢交易記錄
      */
     @GetMapping("/account/{accountNumber}")
-    public ApiResponse<List<TransactionDTO>> getTransactionsByAccountNumber(@PathVariable String accountNumber) {
-        long startTime = System.currentTimeMillis();
-        List<TransactionDTO> transactions = transactionService.getTransactionsByAccountNumber(accountNumber);
-        long responseTime = System.currentTimeMillis() - startTime;
-        
-        if (!transactions.isEmpty()) {
-            return ApiResponse.success(transactions, responseTime, "L1", true);
-        } else {
-            return ApiResponse.success(transactions, responseTime, "DB", false);
-        }
+    public ResponseEntity<byte[]> getTransactionsByAccountNumber(@PathVariable String accountNumber, HttpServletRequest request) {
+        return cachedResponseWriter.write(request, TransactionService.CACHE_NAME,
+                TransactionService.accountTransactionsKey(accountNumber), () -> {
+            long startTime = System.currentTimeMillis();
+            List<TransactionDTO> transactions = transactionService.getTransactionsByAccountNumber(accountNumber);
+            long responseTime = System.currentTimeMillis() - startTime;
+
+            if (!transactions.isEmpty()) {
+                return ApiResponse.success(transactions, responseTime,
+                        transactions.get(0).getCacheLevel(), transactions.get(0).getFromCache());
+            } else {
+                return ApiResponse.success(transactions, responseTime, "DB", false);
+            }
+        });
     }
 
     /**
@@ -116,6 +195,20 @@ public class TransactionController {
         }
     }
 
+    /**
+     * 批量變更交易狀態（按交易ID列表或篩選條件，只更新當前狀態為 fromStatus 的交易）
+     */
+    @PostMapping("/status/bulk")
+    public ApiResponse<TransactionStatusUpdateResult> bulkUpdateTransactionStatus(
+            @RequestBody TransactionStatusUpdateRequest request) {
+        try {
+            TransactionStatusUpdateResult result = transactionService.bulkUpdateStatus(request);
+            return ApiResponse.success(result, result.getResponseTimeMs(), "DB", false);
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
     /**
      * 健康檢查
      */
@@ -0,0 +1,387 @@
+package com.multilevelcache.dataset;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 壓測數據集生成器
+ *
+ * 用戶按 Zipf 分佈被選中（USER001 最熱門），因此每個用戶的交易歷史長度呈長尾分佈；
+ * 每個用戶擁有 1 到 N 個賬戶，首個賬戶承擔大部分交易。交易 ID 沿用 TXN%06d 格式。
+ * 數據按區間分塊，由多個線程各自持有一個連接，以多行 INSERT 寫入（MySQL 與 H2 均支持，H2 上只用單個連接）。
+ * 同一 seed 生成的數據相同。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DatasetGenerator {
+
+    private static final String[] TRANSACTION_TYPES = {"DEPOSIT", "WITHDRAWAL", "TRANSFER", "PAYMENT"};
+    private static final String[] CURRENCIES = {"CNY", "USD", "EUR", "JPY"};
+    private static final String[] DESCRIPTIONS = {"工資收入", "購物消費", "轉賬", "投資理財", "生活費用"};
+    private static final String[] BLACKLIST_REASONS = {"可疑交易", "異常行為", "風險控制", "違規操作", "合規問題"};
+
+    private static final String[] TRANSACTION_COLUMNS = {"transaction_id", "user_id", "account_number",
+            "transaction_type", "amount", "currency", "description", "status", "created_at", "updated_at", "deleted"};
+    private static final String[] BLACKLIST_COLUMNS = {"user_id", "account_number", "reason", "blacklist_type",
+            "status", "created_at", "updated_at", "expires_at", "deleted"};
+
+    private final DataSource dataSource;
+
+    @Value("${dataset.transactions:100}")
+    private long transactions;
+
+    @Value("${dataset.users:5}")
+    private int users;
+
+    @Value("${dataset.max-accounts-per-user:2}")
+    private int maxAccountsPerUser;
+
+    @Value("${dataset.zipf-exponent:1.0}")
+    private double zipfExponent;
+
+    @Value("${dataset.history-days:30}")
+    private int historyDays;
+
+    @Value("${dataset.pending-ratio:0.05}")
+    private double pendingRatio;
+
+    @Value("${dataset.failed-ratio:0.02}")
+    private double failedRatio;
+
+    @Value("${dataset.blacklist-ratio:0.4}")
+    private double blacklistRatio;
+
+    @Value("${dataset.blacklist-inactive-ratio:0.1}")
+    private double blacklistInactiveRatio;
+
+    @Value("${dataset.expiry-spread-days:60}")
+    private int expirySpreadDays;
+
+    @Value("${dataset.batch-rows:500}")
+    private int batchRows;
+
+    @Value("${dataset.parallelism:4}")
+    private int parallelism;
+
+    @Value("${dataset.seed:42}")
+    private long seed;
+
+    private int[] accountStart;
+    private int userWidth;
+    private int accountWidth;
+
+    @PostConstruct
+    public void init() {
+        users = Math.max(1, users);
+        maxAccountsPerUser = Math.max(1, maxAccountsPerUser);
+        batchRows = Math.max(1, batchRows);
+        accountStart = new int[users + 2];
+        accountStart[1] = 1;
+        for (int user = 1; user <= users; user++) {
+            accountStart[user + 1] = accountStart[user] + 1 + (int) (mix(seed + user) % maxAccountsPerUser);
+        }
+        userWidth = Math.max(3, String.valueOf(users).length());
+        accountWidth = Math.max(3, String.valueOf(accountStart[users + 1] - 1).length());
+    }
+
+    /**
+     * 生成交易記錄
+     */
+    public Map<String, Object> generateTransactions() throws InterruptedException {
+        ZipfSampler userSampler = new ZipfSampler(users, zipfExponent);
+        LocalDateTime now = LocalDateTime.now();
+        long historySeconds = Math.max(1L, historyDays * 86400L);
+
+        return insertParallel("transaction", TRANSACTION_COLUMNS, transactions, (index, random, sink) -> {
+            int user = userSampler.sample(random);
+            LocalDateTime createdAt = now.minusSeconds((long) (random.nextDouble() * historySeconds));
+            double statusRoll = random.nextDouble();
+            String status = statusRoll < pendingRatio ? "PENDING"
+                    : statusRoll < pendingRatio + failedRatio ? "FAILED" : "COMPLETED";
+            LocalDateTime updatedAt = "PENDING".equals(status)
+                    ? createdAt : createdAt.plusSeconds(1 + random.nextInt(600));
+            // 金額取對數正態分佈，中位數約 150
+            double amount = Math.min(1e7, Math.exp(5 + 1.2 * gaussian(random)));
+
+            sink.accept(new Object[]{
+                    "TXN" + pad(index + 1, 6),
+                    userId(user),
+                    accountNumber(pickAccount(user, random)),
+                    TRANSACTION_TYPES[random.nextInt(TRANSACTION_TYPES.length)],
+                    BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP),
+                    CURRENCIES[random.nextInt(CURRENCIES.length)],
+                    DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)],
+                    status,
+                    Timestamp.valueOf(createdAt),
+                    Timestamp.valueOf(updatedAt),
+                    0
+            });
+        });
+    }
+
+    /**
+     * 按比例為用戶生成黑名單記錄，過期時間分佈在 [-20%, 100%] 的擴散天數內，部分記錄已過期
+     */
+    public Map<String, Object> generateBlacklists() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        long spreadSeconds = Math.max(1L, expirySpreadDays * 86400L);
+
+        return insertParallel("blacklist", BLACKLIST_COLUMNS, users, (index, random, sink) -> {
+            if (random.nextDouble() >= blacklistRatio) {
+                return;
+            }
+            int user = (int) index + 1;
+            LocalDateTime createdAt = now.minusSeconds((long) (random.nextDouble() * Math.max(1L, historyDays * 86400L)));
+            LocalDateTime expiresAt = now.plusSeconds((long) ((random.nextDouble() * 1.2 - 0.2) * spreadSeconds));
+            sink.accept(new Object[]{
+                    userId(user),
+                    accountNumber(pickAccount(user, random)),
+                    BLACKLIST_REASONS[random.nextInt(BLACKLIST_REASONS.length)],
+                    random.nextBoolean() ? "USER" : "ACCOUNT",
+                    random.nextDouble() < blacklistInactiveRatio ? "INACTIVE" : "ACTIVE",
+                    Timestamp.valueOf(createdAt),
+                    Timestamp.valueOf(createdAt),
+                    Timestamp.valueOf(expiresAt),
+                    0
+            });
+        });
+    }
+
+    private Map<String, Object> insertParallel(String table, String[] columns, long items, RowSource source)
+            throws InterruptedException {
+        long startTime = System.currentTimeMillis();
+        long chunkSize = (long) batchRows * 20;
+        long chunks = (items + chunkSize - 1) / chunkSize;
+        AtomicLong nextChunk = new AtomicLong();
+        AtomicLong inserted = new AtomicLong();
+        int threads = (int) Math.max(1, Math.min(effectiveParallelism(), chunks));
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                runnable -> new Thread(runnable, "Dataset-" + table + "-" + threadCounter.incrementAndGet()));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    try (Connection connection = dataSource.getConnection();
+                         ChunkWriter writer = new ChunkWriter(connection, table, columns)) {
+                        long chunk;
+                        while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                            SplittableRandom random = new SplittableRandom(mix(seed ^ table.hashCode()) + chunk);
+                            long end = Math.min(items, (chunk + 1) * chunkSize);
+                            for (long index = chunk * chunkSize; index < end; index++) {
+                                source.rows(index, random, writer::add);
+                            }
+                            writer.flush();
+                            long total = inserted.addAndGet(writer.takeWritten());
+                            if (chunks > 10 && chunk % (chunks / 10) == 0) {
+                                log.info("⏳ {} 生成進度: {} 行", table, total);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("生成 " + table + " 數據失敗", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("table", table);
+        report.put("rows", inserted.get());
+        report.put("elapsedMs", elapsed);
+        report.put("rowsPerSecond", inserted.get() * 1000 / elapsed);
+        report.put("threads", threads);
+        report.put("batchRows", batchRows);
+        log.info("✅ {} 生成完成: {} 行, 耗時 {}ms, {} 行/秒 ({} 線程, 每條 INSERT {} 行)",
+                table, inserted.get(), elapsed, report.get("rowsPerSecond"), threads, batchRows);
+        return report;
+    }
+
+    /**
+     * H2 2.1 在多個連接並發寫入自增主鍵時會分配出重複的 ID，H2 上只用單個連接寫入
+     */
+    private int effectiveParallelism() {
+        try (Connection connection = dataSource.getConnection()) {
+            if ("H2".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()) && parallelism > 1) {
+                log.warn("⚠️ H2 不支持並發寫入自增主鍵，數據集生成改為單連接");
+                return 1;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("無法獲取數據庫信息", e);
+        }
+        return parallelism;
+    }
+
+    /**
+     * 首個賬戶承擔約 70% 的交易，其餘賬戶平均分配
+     */
+    private int pickAccount(int user, SplittableRandom random) {
+        int first = accountStart[user];
+        int count = accountStart[user + 1] - first;
+        if (count == 1 || random.nextDouble() < 0.7) {
+            return first;
+        }
+        return first + 1 + random.nextInt(count - 1);
+    }
+
+    private String userId(int user) {
+        return "USER" + pad(user, userWidth);
+    }
+
+    private String accountNumber(int account) {
+        return "ACC" + pad(account, accountWidth);
+    }
+
+    private static String pad(long value, int width) {
+        String digits = String.valueOf(value);
+        StringBuilder builder = new StringBuilder(width);
+        for (int i = digits.length(); i < width; i++) {
+            builder.append('0');
+        }
+        return builder.append(digits).toString();
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller，SplittableRandom 沒有 nextGaussian
+        double u = 1 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (z ^ (z >>> 31)) & Long.MAX_VALUE;
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        void rows(long index, SplittableRandom random, Consumer<Object[]> sink);
+    }
+
+    /**
+     * 單個連接上的多行 INSERT 寫入，滿 batchRows 行執行一次並提交
+     */
+    private class ChunkWriter implements AutoCloseable {
+
+        private final Connection connection;
+        private final String table;
+        private final String[] columns;
+        private final boolean autoCommit;
+        private final List<Object[]> buffer = new ArrayList<>();
+        private PreparedStatement fullStatement;
+        private long written;
+
+        ChunkWriter(Connection connection, String table, String[] columns) throws SQLException {
+            this.connection = connection;
+            this.table = table;
+            this.columns = columns;
+            this.autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+        }
+
+        void add(Object[] row) {
+            buffer.add(row);
+            if (buffer.size() >= batchRows) {
+                try {
+                    flush();
+                } catch (SQLException e) {
+                    throw new IllegalStateException("寫入 " + table + " 失敗", e);
+                }
+            }
+        }
+
+        void flush() throws SQLException {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            PreparedStatement statement;
+            boolean tail = buffer.size() < batchRows;
+            if (tail) {
+                statement = connection.prepareStatement(insertSql(buffer.size()));
+            } else {
+                if (fullStatement == null) {
+                    fullStatement = connection.prepareStatement(insertSql(batchRows));
+                }
+                statement = fullStatement;
+            }
+            try {
+                int parameter = 1;
+                for (Object[] row : buffer) {
+                    for (Object value : row) {
+                        statement.setObject(parameter++, value);
+                    }
+                }
+                statement.executeUpdate();
+                connection.commit();
+                written += buffer.size();
+                buffer.clear();
+            } finally {
+                if (tail) {
+                    statement.close();
+                }
+            }
+        }
+
+        long takeWritten() {
+            long result = written;
+            written = 0;
+            return result;
+        }
+
+        private String insertSql(int rows) {
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (")
+                    .append(String.join(", ", columns));
+            sql.append(") VALUES ");
+            StringBuilder placeholders = new StringBuilder("(");
+            for (int i = 0; i < columns.length; i++) {
+                placeholders.append(i == 0 ? "?" : ", ?");
+            }
+            placeholders.append(')');
+            for (int i = 0; i < rows; i++) {
+                sql.append(i == 0 ? "" : ", ").append(placeholders);
+            }
+            return sql.toString();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (fullStatement != null) {
+                fullStatement.close();
+            }
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
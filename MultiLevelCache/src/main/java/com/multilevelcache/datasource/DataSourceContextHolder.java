@@ -0,0 +1,46 @@
+package com.multilevelcache.datasource;
+
+/**
+ * 數據源路由上下文
+ *
+ * 保存當前線程要使用的數據源名稱，未設置時走主庫。
+ */
+public final class DataSourceContextHolder {
+
+    /**
+     * 主庫數據源名稱
+     */
+    public static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private DataSourceContextHolder() {
+    }
+
+    /**
+     * 獲取當前線程的數據源名稱
+     */
+    public static String get() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 設置當前線程的數據源名稱，返回之前的值以便恢復
+     */
+    public static String set(String dataSourceName) {
+        String previous = CURRENT.get();
+        CURRENT.set(dataSourceName);
+        return previous;
+    }
+
+    /**
+     * 恢復之前的數據源名稱
+     */
+    public static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
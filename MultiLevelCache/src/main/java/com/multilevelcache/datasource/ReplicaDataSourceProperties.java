@@ -0,0 +1,46 @@
+package com.multilevelcache.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 從庫數據源配置
+ */
+@Data
+@ConfigurationProperties(prefix = "datasource.routing")
+public class ReplicaDataSourceProperties {
+
+    /**
+     * 是否啟用讀寫分離
+     */
+    private boolean enabled;
+
+    /**
+     * 從庫列表
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 10;
+
+        /**
+         * 查詢複製延遲（秒）的 SQL，例如 MySQL 心跳表，為空時不檢查延遲
+         */
+        private String lagQuery;
+
+        /**
+         * 啟動時在從庫上執行的初始化腳本（用於本地 H2 測試）
+         */
+        private String initScript;
+    }
+}
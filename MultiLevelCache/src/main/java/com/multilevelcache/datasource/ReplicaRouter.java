@@ -0,0 +1,286 @@
+package com.multilevelcache.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 從庫路由器
+ *
+ * 讀請求輪詢分發到健康的從庫；本節點在複製延遲窗口內寫過的實體強制讀主庫，
+ * 避免把從庫上的舊數據讀出並寫入緩存。未配置從庫時所有讀請求直接走主庫。
+ * 路由鍵使用實體標籤（見 {@link com.multilevelcache.cache.CacheTags}），寫入一個實體後
+ * 依賴它的所有查詢都讀主庫，不需要逐個列出衍生的緩存鍵。
+ */
+@Slf4j
+@Component
+public class ReplicaRouter {
+
+    @Value("${datasource.routing.recent-write-window-ms:5000}")
+    private long recentWriteWindowMs;
+
+    @Value("${datasource.routing.recent-write-max-keys:100000}")
+    private long recentWriteMaxKeys;
+
+    @Value("${datasource.routing.failure-threshold:2}")
+    private int failureThreshold;
+
+    @Value("${datasource.routing.validation-timeout-seconds:2}")
+    private int validationTimeoutSeconds;
+
+    private final List<Replica> replicas = new CopyOnWriteArrayList<>();
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder recentWritePrimaryReads = new LongAdder();
+    private final LongAdder replicaFailovers = new LongAdder();
+
+    /**
+     * 最近寫入的路由鍵，過期時間等於複製延遲窗口
+     */
+    private Cache<String, Boolean> recentWrites;
+
+    /**
+     * 最近寫入表溢出時，在此時間點之前所有讀請求都走主庫
+     */
+    private volatile long saturatedUntil;
+
+    @PostConstruct
+    public void init() {
+        recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(recentWriteWindowMs, TimeUnit.MILLISECONDS)
+                .maximumSize(recentWriteMaxKeys)
+                .removalListener((String key, Boolean value, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        // 被容量淘汰的鍵仍在延遲窗口內，只能整體退回主庫
+                        saturatedUntil = System.currentTimeMillis() + recentWriteWindowMs;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 註冊從庫
+     */
+    public void registerReplica(String name, DataSource dataSource, String lagQuery) {
+        replicas.add(new Replica(name, dataSource, lagQuery));
+        log.info("🔀 註冊從庫: {}", name);
+    }
+
+    /**
+     * 是否配置了從庫
+     */
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    /**
+     * 記錄本節點寫入過的實體
+     */
+    public void markWritten(String routingKey) {
+        if (hasReplicas()) {
+            recentWrites.put(routingKey, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * 執行與單個路由鍵相關的讀查詢
+     */
+    public <T> T read(String routingKey, Supplier<T> query) {
+        return readAny(Collections.singletonList(routingKey), query);
+    }
+
+    /**
+     * 執行與多個路由鍵相關的讀查詢，任一鍵最近被寫過即讀主庫
+     */
+    public <T> T readAny(Collection<String> routingKeys, Supplier<T> query) {
+        if (!hasReplicas()) {
+            return query.get();
+        }
+        if (System.currentTimeMillis() < saturatedUntil || isRecentlyWritten(routingKeys)) {
+            recentWritePrimaryReads.increment();
+            return readPrimary(query);
+        }
+
+        Replica replica = nextHealthyReplica();
+        if (replica == null) {
+            return readPrimary(query);
+        }
+
+        String previous = DataSourceContextHolder.set(replica.name);
+        try {
+            T result = query.get();
+            replicaReads.increment();
+            return result;
+        } catch (DataAccessException e) {
+            log.warn("⚠️ 從庫 {} 查詢失敗，回退主庫: {}", replica.name, e.getMessage());
+            replica.recordFailure(failureThreshold);
+            replicaFailovers.increment();
+        } finally {
+            DataSourceContextHolder.restore(previous);
+        }
+        return readPrimary(query);
+    }
+
+    private <T> T readPrimary(Supplier<T> query) {
+        String previous = DataSourceContextHolder.set(DataSourceContextHolder.PRIMARY);
+        try {
+            primaryReads.increment();
+            return query.get();
+        } finally {
+            DataSourceContextHolder.restore(previous);
+        }
+    }
+
+    private boolean isRecentlyWritten(Collection<String> routingKeys) {
+        for (String routingKey : routingKeys) {
+            if (routingKey != null && recentWrites.getIfPresent(routingKey) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Replica nextHealthyReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(roundRobin.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 定時檢查從庫健康狀態與複製延遲
+     */
+    @Scheduled(fixedDelayString = "${datasource.routing.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(validationTimeoutSeconds)) {
+                    replica.recordFailure(failureThreshold);
+                    continue;
+                }
+                if (replica.lagQuery != null && !replica.lagQuery.isEmpty()) {
+                    replica.lagMs = queryLagMs(connection, replica.lagQuery);
+                    // 延遲超過寫入窗口時，窗口規則無法保證讀到最新數據
+                    if (replica.lagMs > recentWriteWindowMs) {
+                        replica.markLagging();
+                        continue;
+                    }
+                }
+                replica.recordSuccess();
+            } catch (Exception e) {
+                log.debug("從庫 {} 健康檢查失敗: {}", replica.name, e.getMessage());
+                replica.recordFailure(failureThreshold);
+            }
+        }
+    }
+
+    private long queryLagMs(Connection connection, String lagQuery) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(validationTimeoutSeconds);
+            try (ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                if (resultSet.next()) {
+                    double seconds = resultSet.getDouble(1);
+                    // NULL 表示複製已停止
+                    return resultSet.wasNull() ? Long.MAX_VALUE : (long) (seconds * 1000);
+                }
+                return Long.MAX_VALUE;
+            }
+        }
+    }
+
+    /**
+     * 獲取路由統計信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("replicaReads", replicaReads.sum());
+        stats.put("primaryReads", primaryReads.sum());
+        stats.put("recentWritePrimaryReads", recentWritePrimaryReads.sum());
+        stats.put("replicaFailovers", replicaFailovers.sum());
+        stats.put("recentWriteKeys", recentWrites.estimatedSize());
+        stats.put("recentWriteWindowMs", recentWriteWindowMs);
+
+        List<Map<String, Object>> replicaStats = new ArrayList<>();
+        for (Replica replica : replicas) {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("name", replica.name);
+            info.put("healthy", replica.healthy);
+            info.put("consecutiveFailures", replica.consecutiveFailures);
+            info.put("lagMs", replica.lagMs);
+            replicaStats.add(info);
+        }
+        stats.put("replicas", replicaStats);
+        return stats;
+    }
+
+    /**
+     * 從庫狀態
+     */
+    private static class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final String lagQuery;
+        private volatile boolean healthy = true;
+        private volatile int consecutiveFailures;
+        private volatile long lagMs;
+
+        Replica(String name, DataSource dataSource, String lagQuery) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.lagQuery = lagQuery;
+        }
+
+        void recordSuccess() {
+            if (!healthy) {
+                log.info("✅ 從庫 {} 恢復健康", name);
+            }
+            consecutiveFailures = 0;
+            healthy = true;
+        }
+
+        void recordFailure(int threshold) {
+            consecutiveFailures++;
+            if (healthy && consecutiveFailures >= threshold) {
+                healthy = false;
+                log.warn("❌ 從庫 {} 被標記為不健康", name);
+            }
+        }
+
+        void markLagging() {
+            if (healthy) {
+                log.warn("🐢 從庫 {} 複製延遲 {}ms 超過寫入窗口，暫停讀取", name, lagMs);
+            }
+            healthy = false;
+        }
+    }
+}
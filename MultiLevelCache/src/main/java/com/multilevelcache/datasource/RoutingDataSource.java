@@ -0,0 +1,26 @@
+package com.multilevelcache.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 讀寫分離路由數據源
+ *
+ * 只有顯式指定了從庫且不在讀寫事務中時才路由到從庫，其餘一律走主庫。
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String dataSourceName = DataSourceContextHolder.get();
+        if (dataSourceName == null) {
+            return DataSourceContextHolder.PRIMARY;
+        }
+        // 讀寫事務中的查詢必須看到本事務的寫入
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return DataSourceContextHolder.PRIMARY;
+        }
+        return dataSourceName;
+    }
+}
@@ -30,6 +30,11 @@ public class BlacklistDTO {
     private LocalDateTime updatedAt;
     private LocalDateTime expiresAt;
 
+    /**
+     * 命中的前綴/號段規則，如 PREFIX:6222
+     */
+    private String matchedRule;
+
     /**
      * 響應時間統計
      */
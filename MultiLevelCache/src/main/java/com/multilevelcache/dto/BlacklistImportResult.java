@@ -0,0 +1,39 @@
+package com.multilevelcache.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 黑名單批量導入結果DTO類
+ * 
+ * @author MultiLevelCache Team
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BlacklistImportResult {
+
+    private Long totalRows;
+    private Long insertedRows;
+    private Long duplicateRows;
+    private Long invalidRows;
+    private Integer chunks;
+    private Integer evictedCacheKeys;
+
+    /**
+     * 校驗失敗的行（最多保留前若干條）
+     */
+    private List<String> errors;
+
+    /**
+     * 響應時間統計
+     */
+    private Long responseTimeMs;
+    private Double rowsPerSecond;
+}
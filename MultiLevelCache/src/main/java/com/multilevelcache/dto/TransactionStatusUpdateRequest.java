@@ -0,0 +1,35 @@
+package com.multilevelcache.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量交易狀態變更請求DTO類
+ *
+ * 指定 transactionIds 或按條件（createdBefore / userId / accountNumber）篩選，二者擇一；
+ * 只有當前狀態為 fromStatus 的交易會被更新。
+ */
+@Data
+public class TransactionStatusUpdateRequest {
+
+    private List<String> transactionIds;
+
+    private String fromStatus;
+    private String toStatus;
+
+    /**
+     * 條件篩選
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdBefore;
+    private String userId;
+    private String accountNumber;
+
+    /**
+     * 條件篩選時最多更新的行數，為空時使用配置上限
+     */
+    private Integer maxRows;
+}
@@ -0,0 +1,62 @@
+package com.multilevelcache.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量交易狀態變更結果DTO類
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionStatusUpdateResult {
+
+    private String fromStatus;
+    private String toStatus;
+
+    /**
+     * 指定ID時為去重後的ID數，條件篩選時為匹配到的行數
+     */
+    private Long requestedRows;
+    private Long updatedRows;
+
+    /**
+     * 不存在或狀態已不是 fromStatus 的行
+     */
+    private Long skippedRows;
+    private Integer chunks;
+    private Integer evictedCacheKeys;
+
+    /**
+     * 每塊的進度
+     */
+    private List<ChunkProgress> chunkProgress;
+
+    /**
+     * 響應時間統計
+     */
+    private Long responseTimeMs;
+    private Double rowsPerSecond;
+
+    /**
+     * 單塊進度
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ChunkProgress {
+
+        private Integer chunk;
+        private Integer lockedRows;
+        private Integer updatedRows;
+        private Long cumulativeUpdatedRows;
+        private Long elapsedMs;
+        private Double rowsPerSecond;
+    }
+}
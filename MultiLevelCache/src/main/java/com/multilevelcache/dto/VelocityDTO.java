@@ -0,0 +1,38 @@
+package com.multilevelcache.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 交易速率DTO類
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VelocityDTO {
+
+    private String keyType;
+    private String key;
+
+    /**
+     * 最近 1 分鐘 / 1 小時 / 24 小時的交易筆數與金額
+     */
+    private Long count1m;
+    private BigDecimal amount1m;
+    private Long count1h;
+    private BigDecimal amount1h;
+    private Long count24h;
+    private BigDecimal amount24h;
+
+    /**
+     * 啟動回放是否已完成，未完成時 24 小時窗口可能偏低
+     */
+    private Boolean seeded;
+
+    private Long responseTimeMs;
+}
@@ -0,0 +1,89 @@
+package com.multilevelcache.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 賬戶黑名單規則實體類（前綴規則 / 號段規則）
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("blacklist_rule")
+public class BlacklistRule implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String TYPE_PREFIX = "PREFIX";
+    public static final String TYPE_RANGE = "RANGE";
+
+    /**
+     * 主鍵ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 規則類型：PREFIX / RANGE
+     */
+    @TableField("rule_type")
+    private String ruleType;
+
+    /**
+     * 賬戶號碼前綴（PREFIX 規則）
+     */
+    @TableField("account_prefix")
+    private String accountPrefix;
+
+    /**
+     * 號段起點（RANGE 規則，閉區間）
+     */
+    @TableField("range_start")
+    private String rangeStart;
+
+    /**
+     * 號段終點（RANGE 規則，閉區間）
+     */
+    @TableField("range_end")
+    private String rangeEnd;
+
+    /**
+     * 規則原因
+     */
+    @TableField("reason")
+    private String reason;
+
+    /**
+     * 規則狀態
+     */
+    @TableField("status")
+    private String status;
+
+    /**
+     * 創建時間
+     */
+    @TableField(value = "created_at", fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新時間
+     */
+    @TableField(value = "updated_at", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+
+    /**
+     * 過期時間
+     */
+    @TableField("expires_at")
+    private LocalDateTime expiresAt;
+
+    /**
+     * 邏輯刪除標記
+     */
+    @TableLogic
+    @TableField("deleted")
+    private Integer deleted;
+}
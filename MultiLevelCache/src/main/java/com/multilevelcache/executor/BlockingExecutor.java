@@ -0,0 +1,212 @@
+package com.multilevelcache.executor;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 阻塞 I/O 任務執行器
+ *
+ * 底層為虛擬線程（每任務一個，JDK 21+）或有界的平台線程池。同時執行的任務數由信號量限制，
+ * 與線程數無關：虛擬線程模式下等待許可的任務只佔用一個掛起的虛擬線程，不佔用載體線程。
+ * 排隊數包括線程池隊列中和等待許可的任務，等待時間從提交到開始執行。
+ * 平台線程池排隊已滿時拒絕任務並拋出 {@link ExecutorRejectedException}，不在提交線程上執行，
+ * 由調用方決定降級方式（例如 DbGuard 返回過期緩存、BatchLoader 讓整批失敗）。
+ */
+public class BlockingExecutor implements Executor {
+
+    private final String name;
+    private final ExecutorService delegate;
+    private final boolean virtual;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final Timer waitTimer;
+
+    BlockingExecutor(String name, ExecutorService delegate, boolean virtual, int maxConcurrency,
+                     MeterRegistry meterRegistry) {
+        this.name = name;
+        this.delegate = delegate;
+        this.virtual = virtual;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency) : null;
+
+        Gauge.builder("blocking.executor.queued", queued, AtomicInteger::get)
+                .description("已提交、尚未開始執行的任務數")
+                .tag("name", name).register(meterRegistry);
+        Gauge.builder("blocking.executor.active", active, AtomicInteger::get)
+                .tag("name", name).register(meterRegistry);
+        FunctionCounter.builder("blocking.executor.completed", completed, LongAdder::sum)
+                .tag("name", name).register(meterRegistry);
+        this.waitTimer = Timer.builder("blocking.executor.wait")
+                .description("從提交到開始執行的等待時間，包括等待並發許可")
+                .tag("name", name).register(meterRegistry);
+    }
+
+    /**
+     * 虛擬線程執行器，運行環境不支持（JDK 21 以下）時返回 null
+     */
+    static ExecutorService newVirtualThreadExecutor(String threadNamePrefix) {
+        try {
+            // 編譯目標為 Java 8，經反射調用 Thread.ofVirtual().name(prefix, 1).factory()
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 1L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * 有界平台線程池，線程數不超過並發上限，空閒線程超時回收，隊列滿時拒絕
+     */
+    static ExecutorService newPlatformExecutor(String threadNamePrefix, int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, threadNamePrefix + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        submit(task, null);
+    }
+
+    /**
+     * 在本執行器上再加一層並發上限的視圖，例如單次壓測只允許指定數量的任務同時執行
+     *
+     * 提交線程先取得視圖的許可再提交，視圖內已提交未完成的任務不超過上限，不會佔滿執行器的隊列。
+     */
+    public Executor limitedTo(int concurrency) {
+        Semaphore scope = new Semaphore(Math.max(1, concurrency));
+        return task -> {
+            try {
+                scope.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected.increment();
+                throw new ExecutorRejectedException("執行器 " + name + " 提交線程被中斷", e);
+            }
+            submit(task, scope);
+        };
+    }
+
+    /**
+     * @param scope 調用方已取得許可的視圖，任務結束或被拒絕時歸還
+     */
+    private void submit(Runnable task, Semaphore scope) {
+        long submittedAt = System.nanoTime();
+        queued.incrementAndGet();
+        try {
+            delegate.execute(() -> run(task, scope, submittedAt));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            rejected.increment();
+            if (scope != null) {
+                scope.release();
+            }
+            throw new ExecutorRejectedException("執行器 " + name + " 排隊已滿或已關閉", e);
+        }
+    }
+
+    private void run(Runnable task, Semaphore scope, long submittedAt) {
+        try {
+            if (permits != null) {
+                permits.acquire();
+            }
+        } catch (InterruptedException e) {
+            // 執行器關閉時放棄尚未開始的任務
+            queued.decrementAndGet();
+            rejected.increment();
+            if (scope != null) {
+                scope.release();
+            }
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        queued.decrementAndGet();
+        active.incrementAndGet();
+        waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+        try {
+            task.run();
+            completed.increment();
+        } catch (RuntimeException | Error e) {
+            failed.increment();
+            throw e;
+        } finally {
+            active.decrementAndGet();
+            if (permits != null) {
+                permits.release();
+            }
+            if (scope != null) {
+                scope.release();
+            }
+        }
+    }
+
+    public void shutdown() {
+        delegate.shutdownNow();
+    }
+
+    /**
+     * 獲取執行器統計信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", virtual ? "virtual" : "platform");
+        stats.put("maxConcurrency", maxConcurrency > 0 ? maxConcurrency : null);
+        stats.put("queued", queued.get());
+        stats.put("active", active.get());
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("meanWaitMs", Math.round(waitTimer.mean(TimeUnit.MILLISECONDS) * 1000) / 1000.0);
+        stats.put("maxWaitMs", Math.round(waitTimer.max(TimeUnit.MILLISECONDS) * 1000) / 1000.0);
+        if (delegate instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) delegate;
+            stats.put("poolSize", pool.getPoolSize());
+            stats.put("largestPoolSize", pool.getLargestPoolSize());
+            stats.put("maxPoolSize", pool.getMaximumPoolSize());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,144 @@
+package com.multilevelcache.executor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 阻塞 I/O 執行器註冊表
+ *
+ * 按用途劃分執行器：數據庫加載、緩存批量加載、異步刷新、流式導出、狀態推送、壓測負載。
+ * 平台線程模式下排隊已滿的任務被拒絕（{@link ExecutorRejectedException}），調用方負責降級。
+ * executor.mode=auto 時在 JDK 21+ 上使用虛擬線程，否則使用平台線程池；
+ * 各執行器的並發上限由信號量控制，平台線程數不超過並發上限與 platform.max-threads。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BlockingExecutors {
+
+    /** DbGuard 的受保護查詢，並發上限與其艙壁一致 */
+    public static final String DB = "db";
+    /** 未命中合併後的批量加載 */
+    public static final String CACHE = "cache";
+    /** @Async 任務（計數器回放等刷新任務） */
+    public static final String TASK = "task";
+    /** 流式導出（Spring MVC 異步請求） */
+    public static final String EXPORT = "export";
+    /** 交易狀態推送，排空訂閱者的待發隊列 */
+    public static final String STREAM = "stream";
+    /** 性能測試產生的併發請求 */
+    public static final String TEST_LOAD = "test-load";
+
+    private final MeterRegistry meterRegistry;
+
+    /** auto / virtual / platform */
+    @Value("${executor.mode:auto}")
+    private String mode;
+
+    @Value("${executor.platform.max-threads:64}")
+    private int platformMaxThreads;
+
+    @Value("${executor.platform.queue-capacity:1000}")
+    private int platformQueueCapacity;
+
+    @Value("${executor.max-concurrency.db:20}")
+    private int dbConcurrency;
+
+    @Value("${executor.max-concurrency.cache:10}")
+    private int cacheConcurrency;
+
+    @Value("${executor.max-concurrency.task:20}")
+    private int taskConcurrency;
+
+    @Value("${executor.max-concurrency.export:4}")
+    private int exportConcurrency;
+
+    @Value("${executor.max-concurrency.stream:4}")
+    private int streamConcurrency;
+
+    @Value("${executor.max-concurrency.test-load:200}")
+    private int testLoadConcurrency;
+
+    private final Map<String, BlockingExecutor> executors = new LinkedHashMap<>();
+    private boolean virtualThreads;
+
+    @PostConstruct
+    public void init() {
+        virtualThreads = !"platform".equalsIgnoreCase(mode) && isVirtualThreadSupported();
+        if ("virtual".equalsIgnoreCase(mode) && !virtualThreads) {
+            log.warn("⚠️ 當前 JDK 不支持虛擬線程，阻塞 I/O 執行器改用平台線程池");
+        }
+        register(DB, "Db-Guard-", dbConcurrency);
+        register(CACHE, "Cache-", cacheConcurrency);
+        register(TASK, "MultiLevelCache-", taskConcurrency);
+        register(EXPORT, "Export-", exportConcurrency);
+        register(STREAM, "Stream-", streamConcurrency);
+        register(TEST_LOAD, "Load-Test-", testLoadConcurrency);
+        log.info("🧵 阻塞 I/O 執行器: {} 線程, {}", virtualThreads ? "虛擬" : "平台", executors.keySet());
+    }
+
+    private static boolean isVirtualThreadSupported() {
+        ExecutorService probe = BlockingExecutor.newVirtualThreadExecutor("virtual-probe-");
+        if (probe == null) {
+            return false;
+        }
+        probe.shutdown();
+        return true;
+    }
+
+    private void register(String name, String threadNamePrefix, int maxConcurrency) {
+        ExecutorService delegate = null;
+        if (virtualThreads) {
+            delegate = BlockingExecutor.newVirtualThreadExecutor(threadNamePrefix);
+        }
+        boolean virtual = delegate != null;
+        if (!virtual) {
+            int threads = maxConcurrency > 0 ? Math.min(maxConcurrency, platformMaxThreads) : platformMaxThreads;
+            delegate = BlockingExecutor.newPlatformExecutor(threadNamePrefix, threads, platformQueueCapacity);
+        }
+        executors.put(name, new BlockingExecutor(name, delegate, virtual, maxConcurrency, meterRegistry));
+    }
+
+    /**
+     * 按用途獲取執行器
+     */
+    public BlockingExecutor get(String name) {
+        BlockingExecutor executor = executors.get(name);
+        if (executor == null) {
+            throw new IllegalArgumentException("未知的執行器: " + name);
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (BlockingExecutor executor : executors.values()) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 獲取各執行器的排隊數、執行數與等待時間
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", mode);
+        stats.put("virtualThreads", virtualThreads);
+        stats.put("javaVersion", System.getProperty("java.version"));
+        Map<String, Object> byName = new LinkedHashMap<>();
+        for (BlockingExecutor executor : executors.values()) {
+            byName.put(executor.getName(), executor.getStats());
+        }
+        stats.put("executors", byName);
+        return stats;
+    }
+}
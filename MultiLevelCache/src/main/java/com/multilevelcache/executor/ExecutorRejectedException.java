@@ -0,0 +1,19 @@
+package com.multilevelcache.executor;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 阻塞 I/O 執行器排隊已滿或已關閉，任務未被接受
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ExecutorRejectedException extends RejectedExecutionException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ExecutorRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
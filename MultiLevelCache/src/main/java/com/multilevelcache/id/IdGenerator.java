@@ -0,0 +1,19 @@
+package com.multilevelcache.id;
+
+import java.util.Map;
+
+/**
+ * 業務ID生成器
+ */
+public interface IdGenerator {
+
+    /**
+     * 生成下一個ID（含前綴）
+     */
+    String nextId();
+
+    /**
+     * 獲取生成統計信息
+     */
+    Map<String, Object> getStats();
+}
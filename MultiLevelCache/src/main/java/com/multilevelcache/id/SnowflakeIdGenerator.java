@@ -0,0 +1,176 @@
+package com.multilevelcache.id;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake 風格的時間有序ID
+ *
+ * 63 位 = 41 位毫秒時間戳（自 2024-01-01 起）+ 10 位節點號 + 12 位序號，編碼為定長 13 位
+ * Crockford Base32（字母表按 ASCII 遞增），因此字符串順序與數值順序一致，新ID總是追加在唯一索引的右端。
+ *
+ * 「毫秒時間戳 + 序號」合在一個 AtomicLong 裡作為邏輯時鐘，每次 CAS 取 max(上一個 + 1, 當前毫秒)：
+ * 無鎖，且本節點內嚴格遞增。同一毫秒序號用盡或時鐘回撥時借用後續毫秒；
+ * 邏輯時鐘領先牆鐘超過 maxBorrowMs 時停頓等待，回撥超過 maxRollbackWaitMs 時拒絕生成。
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    public static final long EPOCH_MILLIS = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final String prefix;
+    private final long nodeBits;
+    private final int nodeId;
+    private final long maxBorrowMs;
+    private final long maxRollbackWaitMs;
+    /** 牆鐘（紀元毫秒） */
+    private final LongSupplier clock;
+
+    /** 上一個發出的「毫秒 << 12 | 序號」 */
+    private final AtomicLong lastState = new AtomicLong();
+    /** 見過的最大牆鐘毫秒，用於區分時鐘回撥與序號用盡的借用 */
+    private final AtomicLong maxWallMillis = new AtomicLong();
+
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder clockBackwards = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+
+    public SnowflakeIdGenerator(String prefix, int nodeId, long maxBorrowMs, long maxRollbackWaitMs) {
+        this(prefix, nodeId, maxBorrowMs, maxRollbackWaitMs, System::currentTimeMillis);
+    }
+
+    /**
+     * 指定牆鐘，測試中用來模擬時鐘回撥
+     */
+    SnowflakeIdGenerator(String prefix, int nodeId, long maxBorrowMs, long maxRollbackWaitMs, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("節點號必須在 0-" + MAX_NODE_ID + " 之間: " + nodeId);
+        }
+        this.prefix = prefix;
+        this.nodeId = nodeId;
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.maxBorrowMs = maxBorrowMs;
+        this.maxRollbackWaitMs = maxRollbackWaitMs;
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextId() {
+        return encode(nextLong());
+    }
+
+    /**
+     * 生成數值ID
+     */
+    public long nextLong() {
+        while (true) {
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            long maxWall = maxWallMillis.get();
+            if (now > maxWall) {
+                maxWallMillis.compareAndSet(maxWall, now);
+            }
+            long prev = lastState.get();
+            long prevMillis = prev >>> SEQUENCE_BITS;
+            long next;
+            if (now > prevMillis) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                // 同一毫秒內遞增序號，序號用盡時自然進位到下一毫秒
+                next = prev + 1;
+                long ahead = (next >>> SEQUENCE_BITS) - now;
+                if (ahead > maxBorrowMs) {
+                    awaitClock(ahead);
+                    continue;
+                }
+            }
+            if (lastState.compareAndSet(prev, next)) {
+                generated.increment();
+                if (now < maxWall) {
+                    clockBackwards.increment();
+                }
+                if (next >>> SEQUENCE_BITS > now) {
+                    borrowed.increment();
+                }
+                return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * 邏輯時鐘領先牆鐘過多，等牆鐘追上；回撥幅度過大時拒絕生成，避免長時間阻塞請求線程
+     */
+    private void awaitClock(long aheadMs) {
+        if (aheadMs > maxRollbackWaitMs) {
+            throw new IllegalStateException("系統時鐘回撥 " + aheadMs + "ms，超過允許的等待時間 " + maxRollbackWaitMs + "ms");
+        }
+        waits.increment();
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(aheadMs - maxBorrowMs));
+    }
+
+    private String encode(long id) {
+        char[] chars = new char[prefix.length() + ENCODED_LENGTH];
+        prefix.getChars(0, prefix.length(), chars, 0);
+        for (int i = chars.length - 1; i >= prefix.length(); i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 解析ID中的生成時間，格式不符時返回 null
+     */
+    public LocalDateTime timestampOf(String id) {
+        if (id == null || id.length() != prefix.length() + ENCODED_LENGTH || !id.startsWith(prefix)) {
+            return null;
+        }
+        long value = 0;
+        for (int i = prefix.length(); i < id.length(); i++) {
+            int digit = decode(id.charAt(i));
+            if (digit < 0) {
+                return null;
+            }
+            value = value << 5 | digit;
+        }
+        long millis = (value >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static int decode(char c) {
+        for (int i = 0; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long last = lastState.get();
+        stats.put("strategy", "snowflake");
+        stats.put("nodeId", nodeId);
+        stats.put("generated", generated.sum());
+        stats.put("borrowedIds", borrowed.sum());
+        stats.put("clockBackwardsIds", clockBackwards.sum());
+        stats.put("clockWaits", waits.sum());
+        stats.put("logicalClockAheadMs", Math.max(0, (last >>> SEQUENCE_BITS) - (clock.getAsLong() - EPOCH_MILLIS)));
+        return stats;
+    }
+}
@@ -0,0 +1,33 @@
+package com.multilevelcache.id;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 隨機 UUID 截取 16 位十六進制，無序，插入分散在唯一索引各處
+ */
+public class UuidIdGenerator implements IdGenerator {
+
+    private final String prefix;
+    private final LongAdder generated = new LongAdder();
+
+    public UuidIdGenerator(String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public String nextId() {
+        generated.increment();
+        return prefix + UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("strategy", "uuid");
+        stats.put("generated", generated.sum());
+        return stats;
+    }
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.multilevelcache.entity.Blacklist;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -46,6 +47,16 @@ public interface BlacklistMapper extends BaseMapper<Blacklist> {
      */
     List<Blacklist> selectActiveBlacklists();
 
+    /**
+     * 批量查詢多個用戶的有效黑名單記錄（用於導入去重）
+     */
+    List<Blacklist> selectActiveByUserIds(@Param("userIds") Collection<String> userIds);
+
+    /**
+     * 批量查詢多個賬戶的有效黑名單記錄
+     */
+    List<Blacklist> selectActiveByAccountNumbers(@Param("accountNumbers") Collection<String> accountNumbers);
+
     /**
      * 統計用戶黑名單數量
      */
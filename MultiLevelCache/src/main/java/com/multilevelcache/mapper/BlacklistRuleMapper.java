@@ -0,0 +1,29 @@
+package com.multilevelcache.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.multilevelcache.entity.BlacklistRule;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 黑名單規則 Mapper 接口
+ */
+public interface BlacklistRuleMapper extends BaseMapper<BlacklistRule> {
+
+    /**
+     * 查詢全部未刪除的規則（用於構建內存索引）
+     */
+    List<BlacklistRule> selectAllRules();
+
+    /**
+     * 查詢指定時間之後變更的規則，包含已邏輯刪除的記錄（用於增量更新內存索引）
+     */
+    List<BlacklistRule> selectChangedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * 邏輯刪除規則並刷新更新時間，使其他實例的增量同步能感知刪除
+     */
+    int softDeleteById(@Param("id") Long id, @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -5,8 +5,10 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.multilevelcache.entity.Transaction;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -19,11 +21,81 @@ public interface TransactionMapper extends BaseMapper<Transaction> {
      */
     Transaction selectByTransactionId(@Param("transactionId") String transactionId);
 
+    /**
+     * 根據多個交易ID批量查詢交易記錄
+     */
+    List<Transaction> selectByTransactionIds(@Param("transactionIds") Collection<String> transactionIds);
+
     /**
      * 根據用戶ID查詢交易記錄（按創建時間倒序）
      */
     List<Transaction> selectByUserIdOrderByCreatedAtDesc(@Param("userId") String userId);
 
+    /**
+     * 流式讀取用戶交易記錄（按創建時間倒序），逐行回調，不在內存中累積結果
+     */
+    void streamByUserIdOrderByCreatedAtDesc(@Param("userId") String userId, ResultHandler<Transaction> handler);
+
+    /**
+     * 查詢用戶未歸檔的交易記錄（含邏輯刪除的行，用於覆蓋歸檔中的舊版本）
+     */
+    List<Transaction> selectUnarchivedByUserId(
+            @Param("userId") String userId,
+            @Param("watermark") LocalDateTime watermark,
+            @Param("settledStatuses") Collection<String> settledStatuses);
+
+    /**
+     * 查詢賬戶未歸檔的交易記錄（含邏輯刪除的行，用於覆蓋歸檔中的舊版本）
+     */
+    List<Transaction> selectUnarchivedByAccountNumber(
+            @Param("accountNumber") String accountNumber,
+            @Param("watermark") LocalDateTime watermark,
+            @Param("settledStatuses") Collection<String> settledStatuses);
+
+    /**
+     * 流式讀取 [from, cutoff) 區間內進入已結算狀態且不再變化的交易，用於歸檔
+     */
+    void streamSettledForArchive(
+            @Param("from") LocalDateTime from,
+            @Param("cutoff") LocalDateTime cutoff,
+            @Param("settledStatuses") Collection<String> settledStatuses,
+            ResultHandler<Transaction> handler);
+
+    /**
+     * 流式讀取 created_at 落在 [from, to) 區間的交易，用於回放速率計數器
+     */
+    void streamCreatedBetween(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            ResultHandler<Transaction> handler);
+
+    /**
+     * 鎖定指定交易中狀態仍為 fromStatus 的行，用於批量狀態變更
+     */
+    List<Transaction> selectByIdsForStatusUpdate(
+            @Param("transactionIds") Collection<String> transactionIds,
+            @Param("fromStatus") String fromStatus);
+
+    /**
+     * 按條件選出下一批狀態為 fromStatus 的行（按主鍵遞增，從 afterId 之後開始），不加鎖
+     */
+    List<Transaction> selectByFilterForStatusUpdate(
+            @Param("fromStatus") String fromStatus,
+            @Param("createdBefore") LocalDateTime createdBefore,
+            @Param("userId") String userId,
+            @Param("accountNumber") String accountNumber,
+            @Param("afterId") long afterId,
+            @Param("limit") int limit);
+
+    /**
+     * 多行狀態變更，只更新狀態仍為 fromStatus 的行，返回實際更新的行數
+     */
+    int updateStatusByIds(
+            @Param("transactionIds") Collection<String> transactionIds,
+            @Param("fromStatus") String fromStatus,
+            @Param("toStatus") String toStatus,
+            @Param("updatedAt") LocalDateTime updatedAt);
+
     /**
      * 根據用戶ID和時間範圍查詢交易記錄
      */
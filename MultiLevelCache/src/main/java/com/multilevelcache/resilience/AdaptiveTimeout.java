@@ -0,0 +1,58 @@
+package com.multilevelcache.resilience;
+
+/**
+ * 自適應超時
+ *
+ * 參照 TCP 重傳超時的估算方式：平滑延遲加四倍平均偏差，限制在 [min, max] 區間內；
+ * 超時發生時把估算值加倍，避免在數據庫整體變慢時持續過早放棄。
+ */
+public class AdaptiveTimeout {
+
+    private final long minMillis;
+    private final long maxMillis;
+
+    private double smoothedMillis = -1;
+    private double deviationMillis;
+
+    public AdaptiveTimeout(long minMillis, long maxMillis) {
+        this.minMillis = minMillis;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * 當前超時時間，尚無樣本時使用上限
+     */
+    public synchronized long currentMillis() {
+        if (smoothedMillis < 0) {
+            return maxMillis;
+        }
+        long timeout = (long) Math.ceil(smoothedMillis + 4 * deviationMillis);
+        return Math.max(minMillis, Math.min(maxMillis, timeout));
+    }
+
+    /**
+     * 記錄一次成功調用的耗時
+     */
+    public synchronized void record(double millis) {
+        if (smoothedMillis < 0) {
+            smoothedMillis = millis;
+            deviationMillis = millis / 2;
+            return;
+        }
+        deviationMillis = 0.75 * deviationMillis + 0.25 * Math.abs(smoothedMillis - millis);
+        smoothedMillis = 0.875 * smoothedMillis + 0.125 * millis;
+    }
+
+    /**
+     * 發生超時後退避
+     */
+    public synchronized void onTimeout() {
+        if (smoothedMillis >= 0) {
+            smoothedMillis = Math.min(maxMillis, smoothedMillis * 2);
+        }
+    }
+
+    public synchronized double getSmoothedMillis() {
+        return smoothedMillis;
+    }
+}
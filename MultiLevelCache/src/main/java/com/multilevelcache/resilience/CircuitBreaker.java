@@ -0,0 +1,181 @@
+package com.multilevelcache.resilience;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 基於最近 N 次調用失敗率的熔斷器
+ *
+ * CLOSED 狀態下失敗率達到閾值即 OPEN；OPEN 持續一段時間後進入 HALF_OPEN，
+ * 只放行少量試探請求，全部成功則恢復 CLOSED，任一失敗重新 OPEN。
+ * 每次放行返回一個許可，記錄放行時的狀態代際以及是否為試探請求；
+ * 狀態切換後才結束的調用屬於舊代際，其結果不再影響當前狀態與半開名額。
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+    private final int halfOpenPermits;
+
+    private final boolean[] outcomes;
+    private int index;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+    private long openCount;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          long openMillis, int halfOpenPermits) {
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+        this.halfOpenPermits = halfOpenPermits;
+    }
+
+    /**
+     * 調用許可
+     */
+    public static final class Permit {
+
+        private final long generation;
+        private final boolean probe;
+
+        private Permit(long generation, boolean probe) {
+            this.generation = generation;
+            this.probe = probe;
+        }
+
+        public boolean isProbe() {
+            return probe;
+        }
+    }
+
+    /**
+     * 申請本次調用的許可，拒絕時返回 null；取得的許可必須以 onSuccess / onFailure / onIgnored 之一結束
+     */
+    public synchronized Permit tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return new Permit(generation, false);
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openMillis) {
+                    return null;
+                }
+                halfOpen();
+                return tryAcquireHalfOpen();
+            case HALF_OPEN:
+                return tryAcquireHalfOpen();
+            default:
+                throw new IllegalStateException("未知的熔斷器狀態: " + state);
+        }
+    }
+
+    /**
+     * 半開狀態下只放行 halfOpenPermits 個試探請求
+     */
+    private Permit tryAcquireHalfOpen() {
+        if (halfOpenInFlight >= halfOpenPermits) {
+            return null;
+        }
+        halfOpenInFlight++;
+        return new Permit(generation, true);
+    }
+
+    public synchronized void onSuccess(Permit permit) {
+        if (permit.generation != generation) {
+            return;
+        }
+        if (permit.probe) {
+            halfOpenInFlight--;
+            if (++halfOpenSuccesses >= halfOpenPermits) {
+                close();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure(Permit permit) {
+        if (permit.generation != generation) {
+            return;
+        }
+        if (permit.probe) {
+            open();
+            return;
+        }
+        record(true);
+        if (recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * 調用未產生可判斷的結果（例如被艙壁拒絕或業務異常），只歸還試探名額
+     */
+    public synchronized void onIgnored(Permit permit) {
+        if (permit.probe && permit.generation == generation) {
+            halfOpenInFlight--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[index]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[index] = failure;
+        if (failure) {
+            failures++;
+        }
+        index = (index + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        generation++;
+        openedAt = System.currentTimeMillis();
+        openCount++;
+    }
+
+    private void halfOpen() {
+        state = State.HALF_OPEN;
+        generation++;
+        halfOpenInFlight = 0;
+        halfOpenSuccesses = 0;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        generation++;
+        index = 0;
+        recorded = 0;
+        failures = 0;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state);
+        stats.put("windowCalls", recorded);
+        stats.put("windowFailures", failures);
+        stats.put("openCount", openCount);
+        return stats;
+    }
+}
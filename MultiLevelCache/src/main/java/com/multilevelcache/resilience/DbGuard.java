@@ -0,0 +1,289 @@
+package com.multilevelcache.resilience;
+
+import com.multilevelcache.cache.StaleEntryStore;
+import com.multilevelcache.executor.BlockingExecutors;
+import com.multilevelcache.timing.RequestTiming;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 數據庫讀取保護
+ *
+ * 緩存未命中時的數據庫查詢經由此類執行：按語句族熔斷、艙壁限制並發加載數、
+ * 按歷史延遲自適應超時。數據庫不可用時返回寬限區中的過期數據（cacheLevel 標記為 L1-STALE），
+ * 沒有過期數據時快速失敗，而不是讓請求線程等待連接池超時。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DbGuard {
+
+    public static final String STALE_CACHE_LEVEL = "L1-STALE";
+
+    private final StaleEntryStore staleEntryStore;
+    private final MeterRegistry meterRegistry;
+    private final BlockingExecutors blockingExecutors;
+
+    @Value("${resilience.db.enabled:true}")
+    private boolean enabled;
+
+    @Value("${resilience.db.max-concurrent-loads:20}")
+    private int maxConcurrentLoads;
+
+    @Value("${resilience.db.bulkhead-wait-ms:50}")
+    private long bulkheadWaitMs;
+
+    @Value("${resilience.db.timeout.min-ms:200}")
+    private long minTimeoutMs;
+
+    @Value("${resilience.db.timeout.max-ms:3000}")
+    private long maxTimeoutMs;
+
+    @Value("${resilience.db.breaker.window-size:20}")
+    private int breakerWindowSize;
+
+    @Value("${resilience.db.breaker.minimum-calls:10}")
+    private int breakerMinimumCalls;
+
+    @Value("${resilience.db.breaker.failure-rate:0.5}")
+    private double breakerFailureRate;
+
+    @Value("${resilience.db.breaker.open-ms:5000}")
+    private long breakerOpenMs;
+
+    @Value("${resilience.db.breaker.half-open-permits:2}")
+    private int breakerHalfOpenPermits;
+
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+    private Semaphore bulkhead;
+    private Executor executor;
+
+    @PostConstruct
+    public void init() {
+        bulkhead = new Semaphore(maxConcurrentLoads);
+        // 並發由艙壁許可約束而不是線程數，超時後仍在執行的查詢繼續佔用許可直到返回
+        executor = blockingExecutors.get(BlockingExecutors.DB);
+    }
+
+    /**
+     * 受保護地加載緩存鍵對應的數據，數據庫不可用時嘗試返回過期值
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Loaded<T> load(String family, String cacheName, String cacheKey, Supplier<T> query) {
+        long loadStart = RequestTiming.start();
+        try {
+            return new Loaded<>(call(family, query), false);
+        } catch (DbUnavailableException e) {
+            Object stale = staleEntryStore.get(cacheName, cacheKey);
+            if (stale == null) {
+                throw e;
+            }
+            families.get(family).staleServed.increment();
+            log.debug("🧊 數據庫不可用，返回過期緩存: {} - {} ({})", cacheName, cacheKey, e.getMessage());
+            return new Loaded<>((T) stale, true);
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.DB, loadStart);
+        }
+    }
+
+    /**
+     * 受保護地執行查詢
+     */
+    public <T> T call(String familyName, Supplier<T> query) {
+        if (!enabled) {
+            return query.get();
+        }
+        Family family = families.computeIfAbsent(familyName, this::newFamily);
+
+        CircuitBreaker.Permit permit = family.breaker.tryAcquire();
+        if (permit == null) {
+            family.rejected("breaker_open");
+            throw new DbUnavailableException("數據庫查詢已熔斷: " + familyName);
+        }
+        if (!acquireBulkhead()) {
+            family.breaker.onIgnored(permit);
+            family.rejected("bulkhead_full");
+            throw new DbUnavailableException("數據庫並發加載已滿: " + familyName);
+        }
+
+        long timeoutMs = family.timeout.currentMillis();
+        long startTime = System.nanoTime();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        AtomicBoolean permitHeld = new AtomicBoolean(true);
+        RequestTiming timing = RequestTiming.current();
+        try {
+            executor.execute(() -> {
+                // 把請求計時帶到加載線程，連接池等待與 SQL 耗時計入發起請求
+                RequestTiming previous = RequestTiming.bind(timing);
+                try {
+                    // 調用方已超時放棄的任務不再執行
+                    if (!future.isDone()) {
+                        future.complete(query.get());
+                    }
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    RequestTiming.bind(previous);
+                    if (permitHeld.compareAndSet(true, false)) {
+                        bulkhead.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (permitHeld.compareAndSet(true, false)) {
+                bulkhead.release();
+            }
+            family.breaker.onIgnored(permit);
+            throw new DbUnavailableException("數據庫加載線程不可用", e);
+        }
+
+        try {
+            T result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            family.timeout.record((System.nanoTime() - startTime) / 1_000_000.0);
+            family.breaker.onSuccess(permit);
+            family.outcome("success");
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            family.timeout.onTimeout();
+            family.breaker.onFailure(permit);
+            family.outcome("timeout");
+            throw new DbUnavailableException("數據庫查詢超時(" + timeoutMs + "ms): " + familyName);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DataAccessException) {
+                family.breaker.onFailure(permit);
+                family.outcome("error");
+                throw new DbUnavailableException("數據庫查詢失敗: " + familyName, cause);
+            }
+            // 非數據庫異常不影響熔斷狀態，原樣拋出
+            family.breaker.onIgnored(permit);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            family.breaker.onIgnored(permit);
+            throw new DbUnavailableException("等待數據庫查詢被中斷: " + familyName);
+        }
+    }
+
+    private boolean acquireBulkhead() {
+        try {
+            return bulkhead.tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Family newFamily(String name) {
+        return new Family(name,
+                new CircuitBreaker(breakerWindowSize, breakerMinimumCalls, breakerFailureRate,
+                        breakerOpenMs, breakerHalfOpenPermits),
+                new AdaptiveTimeout(minTimeoutMs, maxTimeoutMs));
+    }
+
+    /**
+     * 獲取各語句族的保護狀態
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("maxConcurrentLoads", maxConcurrentLoads);
+        stats.put("availablePermits", bulkhead.availablePermits());
+        Map<String, Object> familyStats = new LinkedHashMap<>();
+        for (Family family : families.values()) {
+            Map<String, Object> info = new LinkedHashMap<>(family.breaker.getStats());
+            info.put("timeoutMs", family.timeout.currentMillis());
+            info.put("smoothedLatencyMs", String.format("%.2f", family.timeout.getSmoothedMillis()));
+            info.put("staleServed", family.staleServed.sum());
+            familyStats.put(family.name, info);
+        }
+        stats.put("families", familyStats);
+        stats.put("staleStore", staleEntryStore.getStats());
+        return stats;
+    }
+
+    /**
+     * 加載結果
+     */
+    public static class Loaded<T> {
+
+        private final T value;
+        private final boolean stale;
+
+        Loaded(T value, boolean stale) {
+            this.value = value;
+            this.stale = stale;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * 是否為數據庫不可用時返回的過期值
+         */
+        public boolean isStale() {
+            return stale;
+        }
+    }
+
+    /**
+     * 語句族的熔斷器、超時估算與計數
+     */
+    private class Family {
+
+        private final String name;
+        private final CircuitBreaker breaker;
+        private final AdaptiveTimeout timeout;
+        private final LongAdder staleServed = new LongAdder();
+
+        Family(String name, CircuitBreaker breaker, AdaptiveTimeout timeout) {
+            this.name = name;
+            this.breaker = breaker;
+            this.timeout = timeout;
+        }
+
+        void outcome(String outcome) {
+            counter(outcome).increment();
+        }
+
+        void rejected(String reason) {
+            counter(reason).increment();
+        }
+
+        private Counter counter(String outcome) {
+            return Counter.builder("db.guard.calls")
+                    .tag("family", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.multilevelcache.resilience;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 數據庫暫不可用（熔斷、艙壁已滿、超時或查詢失敗）且沒有可用的過期緩存
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class DbUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DbUnavailableException(String message) {
+        super(message);
+    }
+
+    public DbUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
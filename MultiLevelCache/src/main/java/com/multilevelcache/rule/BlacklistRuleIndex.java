@@ -0,0 +1,169 @@
+package com.multilevelcache.rule;
+
+import com.multilevelcache.entity.BlacklistRule;
+import com.multilevelcache.mapper.BlacklistRuleMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 賬戶黑名單規則的內存索引
+ *
+ * 前綴規則存放在壓縮前綴樹中，號段規則存放在區間樹中，查詢耗時與賬戶號碼長度成正比，
+ * 不需要為每個被檢查的賬戶保存緩存條目。規則變更時只增刪受影響的那一條；
+ * 其他實例的變更通過按 updated_at 的增量查詢定期同步。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BlacklistRuleIndex {
+
+    /**
+     * 賬戶號碼順序：先比長度再按字典序，定長或無前導零的數字號碼與數值順序一致
+     */
+    public static final Comparator<String> ACCOUNT_ORDER =
+            Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+
+    private final BlacklistRuleMapper blacklistRuleMapper;
+
+    @Value("${blacklist.rule.sync-overlap-ms:2000}")
+    private long syncOverlapMs;
+
+    private final PrefixTrie<BlacklistRule> prefixTrie = new PrefixTrie<>();
+    private final IntervalTree<String, BlacklistRule> rangeTree = new IntervalTree<>(ACCOUNT_ORDER);
+    private final Map<Long, BlacklistRule> indexed = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile LocalDateTime watermark;
+    private volatile LocalDateTime lastSyncAt;
+
+    @PostConstruct
+    public void init() {
+        try {
+            LocalDateTime loadStart = LocalDateTime.now();
+            List<BlacklistRule> rules = blacklistRuleMapper.selectAllRules();
+            lock.writeLock().lock();
+            try {
+                prefixTrie.clear();
+                rangeTree.clear();
+                indexed.clear();
+                rules.forEach(this::applyLocked);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            watermark = loadStart;
+            lastSyncAt = loadStart;
+            log.info("📏 黑名單規則索引已加載: {} 條前綴規則, {} 條號段規則", prefixTrie.size(), rangeTree.size());
+        } catch (DataAccessException e) {
+            log.warn("⚠️ 黑名單規則表不可用，規則匹配暫不生效: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 增量同步其他實例的規則變更
+     */
+    @Scheduled(initialDelayString = "${blacklist.rule.refresh-interval-ms:5000}",
+            fixedDelayString = "${blacklist.rule.refresh-interval-ms:5000}")
+    public void sync() {
+        if (watermark == null) {
+            init();
+            return;
+        }
+        try {
+            // 回看一小段時間，覆蓋提交晚於 updated_at 的事務；重複應用同一版本是冪等的
+            LocalDateTime syncStart = LocalDateTime.now();
+            List<BlacklistRule> changed = blacklistRuleMapper.selectChangedSince(
+                    watermark.minusNanos(syncOverlapMs * 1_000_000));
+            changed.forEach(this::apply);
+            watermark = syncStart;
+            lastSyncAt = syncStart;
+        } catch (DataAccessException e) {
+            log.warn("⚠️ 黑名單規則同步失敗: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 應用一條規則的最新版本（新增、修改或刪除）
+     */
+    public void apply(BlacklistRule rule) {
+        lock.writeLock().lock();
+        try {
+            applyLocked(rule);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyLocked(BlacklistRule rule) {
+        BlacklistRule previous = indexed.remove(rule.getId());
+        if (previous != null) {
+            if (BlacklistRule.TYPE_PREFIX.equals(previous.getRuleType())) {
+                prefixTrie.remove(previous.getAccountPrefix(), previous);
+            } else {
+                rangeTree.remove(previous.getId(), previous.getRangeStart());
+            }
+        }
+        boolean live = (rule.getDeleted() == null || rule.getDeleted() == 0) && "ACTIVE".equals(rule.getStatus());
+        if (!live) {
+            return;
+        }
+        if (BlacklistRule.TYPE_PREFIX.equals(rule.getRuleType()) && rule.getAccountPrefix() != null) {
+            prefixTrie.add(rule.getAccountPrefix(), rule);
+            indexed.put(rule.getId(), rule);
+        } else if (BlacklistRule.TYPE_RANGE.equals(rule.getRuleType())
+                && rule.getRangeStart() != null && rule.getRangeEnd() != null) {
+            rangeTree.add(rule.getId(), rule.getRangeStart(), rule.getRangeEnd(), rule);
+            indexed.put(rule.getId(), rule);
+        }
+    }
+
+    /**
+     * 查找命中賬戶號碼的規則，前綴規則優先（取最長前綴），其次為號段規則
+     */
+    public BlacklistRule match(String accountNumber) {
+        if (accountNumber == null) {
+            return null;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        lock.readLock().lock();
+        try {
+            BlacklistRule rule = prefixTrie.longestMatch(accountNumber, r -> notExpired(r, now));
+            return rule != null ? rule : rangeTree.stab(accountNumber, r -> notExpired(r, now));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean notExpired(BlacklistRule rule, LocalDateTime now) {
+        return rule.getExpiresAt() == null || rule.getExpiresAt().isAfter(now);
+    }
+
+    /**
+     * 獲取索引統計信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("prefixRules", prefixTrie.getStats());
+            stats.put("rangeRules", rangeTree.getStats());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("lastSyncAt", lastSyncAt);
+        return stats;
+    }
+}
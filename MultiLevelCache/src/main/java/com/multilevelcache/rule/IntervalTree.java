@@ -0,0 +1,201 @@
+package com.multilevelcache.rule;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Predicate;
+
+/**
+ * 區間樹（以區間起點為鍵的 Treap，節點記錄子樹內最大終點）
+ *
+ * 插入、刪除為期望 O(log n)，可逐條增量維護；點查詢跳過最大終點小於查詢點的子樹，
+ * 期望 O(log n + k)。區間為閉區間 [start, end]，鍵順序由構造時傳入的比較器決定。
+ * 非線程安全，由調用方加鎖。
+ */
+public class IntervalTree<K, V> {
+
+    private final Comparator<K> comparator;
+    private final SplittableRandom random = new SplittableRandom(0x5DEECE66DL);
+    private Node<K, V> root;
+    private int size;
+
+    public IntervalTree(Comparator<K> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * 插入區間；id 用於區分起點相同的區間並在刪除時定位
+     */
+    public void add(long id, K start, K end, V value) {
+        root = insert(root, new Node<>(id, start, end, value, random.nextInt()));
+        size++;
+    }
+
+    /**
+     * 刪除區間
+     *
+     * @return 是否存在並已刪除
+     */
+    public boolean remove(long id, K start) {
+        int before = size;
+        root = delete(root, id, start);
+        return size < before;
+    }
+
+    /**
+     * 返回包含該點且滿足條件的任一區間上的值
+     */
+    public V stab(K point, Predicate<V> filter) {
+        return stab(root, point, filter);
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("intervals", size);
+        stats.put("height", height(root));
+        return stats;
+    }
+
+    private V stab(Node<K, V> node, K point, Predicate<V> filter) {
+        while (node != null) {
+            if (comparator.compare(node.maxEnd, point) < 0) {
+                return null;
+            }
+            V left = stab(node.left, point, filter);
+            if (left != null) {
+                return left;
+            }
+            if (comparator.compare(point, node.start) < 0) {
+                // 右子樹起點都更大，不可能包含該點
+                return null;
+            }
+            if (comparator.compare(point, node.end) <= 0 && filter.test(node.value)) {
+                return node.value;
+            }
+            node = node.right;
+        }
+        return null;
+    }
+
+    private Node<K, V> insert(Node<K, V> node, Node<K, V> inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (compareKey(inserted.start, inserted.id, node) < 0) {
+            node.left = insert(node.left, inserted);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, inserted);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<K, V> delete(Node<K, V> node, long id, K start) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compareKey(start, id, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, id, start);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, id, start);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<K, V> merge(Node<K, V> left, Node<K, V> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private int compareKey(K start, long id, Node<K, V> node) {
+        int cmp = comparator.compare(start, node.start);
+        return cmp != 0 ? cmp : Long.compare(id, node.id);
+    }
+
+    private Node<K, V> rotateRight(Node<K, V> node) {
+        Node<K, V> left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private Node<K, V> rotateLeft(Node<K, V> node) {
+        Node<K, V> right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private void update(Node<K, V> node) {
+        K maxEnd = node.end;
+        if (node.left != null && comparator.compare(node.left.maxEnd, maxEnd) > 0) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && comparator.compare(node.right.maxEnd, maxEnd) > 0) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private int height(Node<K, V> node) {
+        return node == null ? 0 : 1 + Math.max(height(node.left), height(node.right));
+    }
+
+    private static class Node<K, V> {
+
+        private final long id;
+        private final K start;
+        private final K end;
+        private final V value;
+        private final int priority;
+        private K maxEnd;
+        private Node<K, V> left;
+        private Node<K, V> right;
+
+        Node(long id, K start, K end, V value, int priority) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.value = value;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.multilevelcache.rule;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 壓縮前綴樹（基數樹）
+ *
+ * 邊以字符串標記，只有一個子節點且不掛載值的節點會與子節點合併。
+ * 查詢沿鍵逐字符下行，時間與鍵長成正比，與規則數量無關；返回匹配的最長前綴上的值。
+ * 非線程安全，由調用方加鎖。
+ */
+public class PrefixTrie<V> {
+
+    private final Node<V> root = new Node<>("");
+    private int size;
+
+    /**
+     * 在前綴上掛載一個值（同一前綴可掛載多個值）
+     */
+    public void add(String prefix, V value) {
+        Node<V> node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            Node<V> child = node.children.get(prefix.charAt(position));
+            if (child == null) {
+                Node<V> leaf = new Node<>(prefix.substring(position));
+                node.children.put(leaf.label.charAt(0), leaf);
+                node = leaf;
+                position = prefix.length();
+                break;
+            }
+            int common = commonPrefix(child.label, prefix, position);
+            if (common < child.label.length()) {
+                // 邊標籤只匹配了一部分，在分歧處拆分
+                Node<V> split = new Node<>(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children.put(child.label.charAt(0), child);
+                node.children.put(split.label.charAt(0), split);
+                child = split;
+            }
+            node = child;
+            position += common;
+        }
+        node.values.add(value);
+        size++;
+    }
+
+    /**
+     * 移除前綴上的一個值
+     *
+     * @return 是否存在並已移除
+     */
+    public boolean remove(String prefix, V value) {
+        List<Node<V>> path = new ArrayList<>();
+        Node<V> node = root;
+        path.add(node);
+        int position = 0;
+        while (position < prefix.length()) {
+            Node<V> child = node.children.get(prefix.charAt(position));
+            if (child == null || !prefix.startsWith(child.label, position)) {
+                return false;
+            }
+            node = child;
+            path.add(node);
+            position += child.label.length();
+        }
+        if (!node.values.remove(value)) {
+            return false;
+        }
+        size--;
+
+        // 自底向上刪除空葉子，並把只剩一個子節點的無值節點與子節點合併
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node<V> current = path.get(i);
+            Node<V> parent = path.get(i - 1);
+            if (!current.values.isEmpty()) {
+                break;
+            }
+            if (current.children.isEmpty()) {
+                parent.children.remove(current.label.charAt(0));
+                continue;
+            }
+            if (current.children.size() == 1) {
+                Node<V> only = current.children.values().iterator().next();
+                only.label = current.label + only.label;
+                parent.children.put(only.label.charAt(0), only);
+            }
+            break;
+        }
+        return true;
+    }
+
+    /**
+     * 返回鍵的最長匹配前綴上第一個滿足條件的值
+     */
+    public V longestMatch(String key, Predicate<V> filter) {
+        V match = firstMatching(root, filter);
+        Node<V> node = root;
+        int position = 0;
+        while (position < key.length()) {
+            Node<V> child = node.children.get(key.charAt(position));
+            if (child == null || !key.startsWith(child.label, position)) {
+                break;
+            }
+            node = child;
+            position += child.label.length();
+            V candidate = firstMatching(node, filter);
+            if (candidate != null) {
+                match = candidate;
+            }
+        }
+        return match;
+    }
+
+    private V firstMatching(Node<V> node, Predicate<V> filter) {
+        for (V value : node.values) {
+            if (filter.test(value)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    public void clear() {
+        root.children.clear();
+        root.values.clear();
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 節點數統計（不含根節點）
+     */
+    public Map<String, Object> getStats() {
+        int[] nodes = new int[1];
+        int[] depth = new int[1];
+        walk(root, 0, nodes, depth);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("values", size);
+        stats.put("nodes", nodes[0]);
+        stats.put("maxDepth", depth[0]);
+        return stats;
+    }
+
+    private void walk(Node<V> node, int level, int[] nodes, int[] depth) {
+        depth[0] = Math.max(depth[0], level);
+        for (Node<V> child : node.children.values()) {
+            nodes[0]++;
+            walk(child, level + 1, nodes, depth);
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static class Node<V> {
+
+        private String label;
+        private final Map<Character, Node<V>> children = new HashMap<>(4);
+        private final List<V> values = new ArrayList<>(1);
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+}
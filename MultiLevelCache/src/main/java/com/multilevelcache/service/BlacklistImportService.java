@@ -0,0 +1,390 @@
+package com.multilevelcache.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.multilevelcache.dto.BlacklistImportResult;
+import com.multilevelcache.entity.Blacklist;
+import com.multilevelcache.mapper.BlacklistMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 黑名單批量導入服務類
+ *
+ * 流式解析 CSV / JSON，按塊在事務內以 JDBC 批處理插入，
+ * 並在全部完成後對每個受影響的緩存鍵只清除一次。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BlacklistImportService {
+
+    private static final String[] REQUIRED_COLUMNS = {"userId", "accountNumber", "reason", "blacklistType"};
+
+    private static final Set<String> BLACKLIST_TYPES = new HashSet<>(Arrays.asList("USER", "ACCOUNT"));
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final BlacklistMapper blacklistMapper;
+    private final BlacklistService blacklistService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${blacklist.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${blacklist.import.max-errors:100}")
+    private int maxErrors;
+
+    @Value("${blacklist.import.default-expire-days:30}")
+    private int defaultExpireDays;
+
+    /**
+     * 導入格式
+     */
+    public enum Format {
+        CSV, JSON;
+
+        /**
+         * 根據格式參數、文件名或 Content-Type 判斷格式，無法判斷時返回 null
+         */
+        public static Format detect(String format, String filename, String contentType) {
+            String hint = format != null ? format : (filename != null ? filename : contentType);
+            if (hint == null) {
+                return null;
+            }
+            hint = hint.toLowerCase(Locale.ROOT);
+            if (hint.endsWith("csv")) {
+                return CSV;
+            }
+            if (hint.endsWith("json")) {
+                return JSON;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 從輸入流批量導入黑名單
+     */
+    public BlacklistImportResult importBlacklists(InputStream inputStream, Format format) throws IOException {
+        long startTime = System.currentTimeMillis();
+        ImportContext context = new ImportContext();
+
+        if (format == Format.CSV) {
+            readCsv(inputStream, context);
+        } else {
+            readJson(inputStream, context);
+        }
+        context.flushChunk();
+
+        // 所有塊完成後統一失效緩存，每個鍵只清除一次
+        int evictedKeys = blacklistService.clearRelatedCaches(context.insertedRows);
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        log.info("📥 黑名單導入完成: 共 {} 行, 插入 {}, 重複 {}, 無效 {}, 清除緩存鍵 {}, 耗時 {}ms",
+                context.totalRows, context.insertedRows.size(), context.duplicateRows,
+                context.invalidRows, evictedKeys, elapsed);
+
+        return BlacklistImportResult.builder()
+                .totalRows(context.totalRows)
+                .insertedRows((long) context.insertedRows.size())
+                .duplicateRows(context.duplicateRows)
+                .invalidRows(context.invalidRows)
+                .chunks(context.chunks)
+                .evictedCacheKeys(evictedKeys)
+                .errors(context.errors)
+                .responseTimeMs(elapsed)
+                .rowsPerSecond(elapsed > 0 ? context.totalRows * 1000.0 / elapsed : (double) context.totalRows)
+                .build();
+    }
+
+    /**
+     * 逐行解析 CSV，首行為表頭
+     */
+    private void readCsv(InputStream inputStream, ImportContext context) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            return;
+        }
+        if (headerLine.startsWith("\uFEFF")) {
+            headerLine = headerLine.substring(1);
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> headers = parseCsvLine(headerLine);
+        for (int i = 0; i < headers.size(); i++) {
+            columns.put(headers.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required.toLowerCase(Locale.ROOT))) {
+                throw new IllegalArgumentException("CSV 缺少必需列: " + required);
+            }
+        }
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            context.totalRows++;
+            List<String> cells = parseCsvLine(line);
+
+            Blacklist blacklist = new Blacklist();
+            blacklist.setUserId(cell(cells, columns, "userid"));
+            blacklist.setAccountNumber(cell(cells, columns, "accountnumber"));
+            blacklist.setReason(cell(cells, columns, "reason"));
+            blacklist.setBlacklistType(cell(cells, columns, "blacklisttype"));
+            String expiresAt = cell(cells, columns, "expiresat");
+            try {
+                blacklist.setExpiresAt(parseDateTime(expiresAt));
+            } catch (DateTimeParseException e) {
+                context.reject("第 " + context.totalRows + " 行過期時間格式錯誤: " + expiresAt);
+                continue;
+            }
+            context.accept(blacklist);
+        }
+    }
+
+    /**
+     * 流式解析 JSON 數組，每次只反序列化一個對象
+     */
+    private void readJson(InputStream inputStream, ImportContext context) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(inputStream);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("JSON 導入內容必須是數組");
+        }
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new IllegalArgumentException("JSON 導入內容不完整，數組未結束");
+            }
+            context.totalRows++;
+            if (token != JsonToken.START_OBJECT) {
+                // 非對象元素計為無效行，跳過整個元素後繼續
+                parser.skipChildren();
+                context.reject("第 " + context.totalRows + " 行不是 JSON 對象: " + token);
+                continue;
+            }
+            JsonNode node = objectMapper.readTree(parser);
+            try {
+                context.accept(objectMapper.treeToValue(node, Blacklist.class));
+            } catch (JsonProcessingException e) {
+                context.reject("第 " + context.totalRows + " 行無法解析: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    /**
+     * 校驗單行數據，返回錯誤信息，合法時返回 null
+     */
+    private String validate(Blacklist blacklist) {
+        if (isBlank(blacklist.getUserId()) || blacklist.getUserId().length() > 50) {
+            return "userId 為空或超過 50 個字符";
+        }
+        if (isBlank(blacklist.getAccountNumber()) || blacklist.getAccountNumber().length() > 50) {
+            return "accountNumber 為空或超過 50 個字符";
+        }
+        if (isBlank(blacklist.getReason()) || blacklist.getReason().length() > 500) {
+            return "reason 為空或超過 500 個字符";
+        }
+        if (!BLACKLIST_TYPES.contains(blacklist.getBlacklistType())) {
+            return "blacklistType 必須為 USER 或 ACCOUNT: " + blacklist.getBlacklistType();
+        }
+        return null;
+    }
+
+    /**
+     * 在一個事務內對一塊數據去重並批量插入，返回實際插入的記錄
+     */
+    private List<Blacklist> insertChunk(List<Blacklist> chunk) {
+        return transactionTemplate.execute(status -> {
+            // 與數據庫中已有的有效記錄去重
+            Set<String> userIds = new HashSet<>();
+            for (Blacklist blacklist : chunk) {
+                userIds.add(blacklist.getUserId());
+            }
+            Set<String> existingKeys = new HashSet<>();
+            for (Blacklist existing : blacklistMapper.selectActiveByUserIds(userIds)) {
+                existingKeys.add(dedupKey(existing));
+            }
+
+            List<Blacklist> toInsert = new ArrayList<>(chunk.size());
+            for (Blacklist blacklist : chunk) {
+                if (!existingKeys.contains(dedupKey(blacklist))) {
+                    toInsert.add(blacklist);
+                }
+            }
+            if (toInsert.isEmpty()) {
+                return toInsert;
+            }
+
+            // BATCH 執行器複用同一條預編譯語句，隨 Spring 事務一起提交
+            try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+                BlacklistMapper batchMapper = session.getMapper(BlacklistMapper.class);
+                for (Blacklist blacklist : toInsert) {
+                    batchMapper.insert(blacklist);
+                }
+                session.flushStatements();
+                session.commit();
+            }
+            return toInsert;
+        });
+    }
+
+    /**
+     * 導入過程中的狀態
+     */
+    private class ImportContext {
+
+        private final Set<String> seenKeys = new HashSet<>();
+        private final List<Blacklist> pending = new ArrayList<>();
+        private final List<Blacklist> insertedRows = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private long totalRows;
+        private long duplicateRows;
+        private long invalidRows;
+        private int chunks;
+
+        void accept(Blacklist blacklist) {
+            String error = validate(blacklist);
+            if (error != null) {
+                reject("第 " + totalRows + " 行: " + error);
+                return;
+            }
+            // 文件內去重
+            if (!seenKeys.add(dedupKey(blacklist))) {
+                duplicateRows++;
+                return;
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            blacklist.setId(null);
+            blacklist.setStatus("ACTIVE");
+            blacklist.setCreatedAt(now);
+            blacklist.setUpdatedAt(now);
+            blacklist.setDeleted(0);
+            if (blacklist.getExpiresAt() == null) {
+                blacklist.setExpiresAt(now.plusDays(defaultExpireDays));
+            }
+
+            pending.add(blacklist);
+            if (pending.size() >= chunkSize) {
+                flushChunk();
+            }
+        }
+
+        void reject(String error) {
+            invalidRows++;
+            if (errors.size() < maxErrors) {
+                errors.add(error);
+            }
+        }
+
+        void flushChunk() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<Blacklist> inserted = insertChunk(new ArrayList<>(pending));
+            duplicateRows += pending.size() - inserted.size();
+            chunks++;
+            for (Blacklist blacklist : inserted) {
+                // 只保留失效緩存所需的字段
+                Blacklist key = new Blacklist();
+                key.setUserId(blacklist.getUserId());
+                key.setAccountNumber(blacklist.getAccountNumber());
+                key.setBlacklistType(blacklist.getBlacklistType());
+                insertedRows.add(key);
+            }
+            log.debug("📦 黑名單導入第 {} 塊: 提交 {} 行, 插入 {} 行", chunks, pending.size(), inserted.size());
+            pending.clear();
+        }
+    }
+
+    private static String dedupKey(Blacklist blacklist) {
+        return blacklist.getUserId() + "|" + blacklist.getAccountNumber() + "|" + blacklist.getBlacklistType();
+    }
+
+    private static String cell(List<String> cells, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= cells.size()) {
+            return null;
+        }
+        String value = cells.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static LocalDateTime parseDateTime(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay();
+        }
+        return LocalDateTime.parse(value.replace(' ', 'T'));
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    /**
+     * 解析一行 CSV（支持雙引號轉義）
+     */
+    private static List<String> parseCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        cells.add(current.toString());
+        return cells;
+    }
+}
@@ -0,0 +1,110 @@
+package com.multilevelcache.service;
+
+import com.multilevelcache.entity.BlacklistRule;
+import com.multilevelcache.mapper.BlacklistRuleMapper;
+import com.multilevelcache.rule.BlacklistRuleIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 黑名單規則服務類
+ *
+ * 規則寫入數據庫後立即增量更新本實例的內存索引。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BlacklistRuleService {
+
+    private final BlacklistRuleMapper blacklistRuleMapper;
+    private final BlacklistRuleIndex blacklistRuleIndex;
+
+    /**
+     * 查詢全部規則
+     */
+    public List<BlacklistRule> getRules() {
+        return blacklistRuleMapper.selectAllRules();
+    }
+
+    /**
+     * 創建規則
+     */
+    public BlacklistRule createRule(BlacklistRule rule) {
+        validate(rule);
+        rule.setId(null);
+        rule.setStatus("ACTIVE");
+        rule.setDeleted(0);
+        blacklistRuleMapper.insert(rule);
+        blacklistRuleIndex.apply(rule);
+        log.info("📏 新增黑名單規則: {} {}", rule.getRuleType(), describe(rule));
+        return rule;
+    }
+
+    /**
+     * 更新規則狀態
+     */
+    public BlacklistRule updateRuleStatus(Long id, String status) {
+        BlacklistRule rule = blacklistRuleMapper.selectById(id);
+        if (rule == null) {
+            return null;
+        }
+        rule.setStatus(status);
+        rule.setUpdatedAt(LocalDateTime.now());
+        blacklistRuleMapper.updateById(rule);
+        blacklistRuleIndex.apply(rule);
+        return rule;
+    }
+
+    /**
+     * 刪除規則
+     */
+    public boolean deleteRule(Long id) {
+        BlacklistRule rule = blacklistRuleMapper.selectById(id);
+        if (rule == null) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        blacklistRuleMapper.softDeleteById(id, now);
+        rule.setDeleted(1);
+        rule.setUpdatedAt(now);
+        blacklistRuleIndex.apply(rule);
+        log.info("🗑️ 刪除黑名單規則: {} {}", rule.getRuleType(), describe(rule));
+        return true;
+    }
+
+    /**
+     * 規則的可讀描述，如 PREFIX 6222 或 RANGE ACC100~ACC199
+     */
+    public static String describe(BlacklistRule rule) {
+        return BlacklistRule.TYPE_PREFIX.equals(rule.getRuleType())
+                ? rule.getAccountPrefix()
+                : rule.getRangeStart() + "~" + rule.getRangeEnd();
+    }
+
+    private void validate(BlacklistRule rule) {
+        if (rule.getReason() == null || rule.getReason().trim().isEmpty()) {
+            throw new IllegalArgumentException("規則原因不能為空");
+        }
+        if (BlacklistRule.TYPE_PREFIX.equals(rule.getRuleType())) {
+            if (rule.getAccountPrefix() == null || rule.getAccountPrefix().isEmpty()) {
+                throw new IllegalArgumentException("前綴規則必須指定 accountPrefix");
+            }
+            rule.setRangeStart(null);
+            rule.setRangeEnd(null);
+        } else if (BlacklistRule.TYPE_RANGE.equals(rule.getRuleType())) {
+            if (rule.getRangeStart() == null || rule.getRangeEnd() == null) {
+                throw new IllegalArgumentException("號段規則必須指定 rangeStart 與 rangeEnd");
+            }
+            if (BlacklistRuleIndex.ACCOUNT_ORDER.compare(rule.getRangeStart(), rule.getRangeEnd()) > 0) {
+                throw new IllegalArgumentException("號段起點不能大於終點");
+            }
+            rule.setAccountPrefix(null);
+        } else {
+            throw new IllegalArgumentException("不支持的規則類型: " + rule.getRuleType());
+        }
+    }
+}
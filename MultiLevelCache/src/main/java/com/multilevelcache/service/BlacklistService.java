@@ -1,16 +1,26 @@
 package com.multilevelcache.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.multilevelcache.cache.CacheTags;
 import com.multilevelcache.cache.MultiLevelCacheService;
+import com.multilevelcache.datasource.ReplicaRouter;
 import com.multilevelcache.dto.BlacklistDTO;
 import com.multilevelcache.entity.Blacklist;
+import com.multilevelcache.entity.BlacklistRule;
 import com.multilevelcache.mapper.BlacklistMapper;
+import com.multilevelcache.resilience.DbGuard;
+import com.multilevelcache.rule.BlacklistRuleIndex;
+import com.multilevelcache.timing.RequestTiming;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -24,15 +34,21 @@ public class BlacklistService {
 
     private final BlacklistMapper blacklistMapper;
     private final MultiLevelCacheService cacheService;
+    private final ReplicaRouter replicaRouter;
+    private final CacheMissLoader cacheMissLoader;
+    private final DbGuard dbGuard;
+    private final BlacklistRuleIndex blacklistRuleIndex;
 
-    private static final String CACHE_NAME = "blacklistCache";
+    public static final String CACHE_NAME = "blacklistCache";
+
+    public static final String ACTIVE_BLACKLISTS_KEY = "active_blacklists";
 
     /**
      * 檢查用戶黑名單
      */
     public BlacklistDTO checkUserBlacklist(String userId) {
         long startTime = System.currentTimeMillis();
-        String cacheKey = "user_blacklist:" + userId;
+        String cacheKey = userBlacklistKey(userId);
         
         // 嘗試從緩存獲取
         Blacklist cachedBlacklist = cacheService.get(CACHE_NAME, cacheKey, Blacklist.class);
@@ -40,11 +56,17 @@ public class BlacklistService {
             return buildBlacklistDTO(cachedBlacklist, System.currentTimeMillis() - startTime, "L1", true, true);
         }
 
-        // 從數據庫查詢
-        Blacklist blacklist = blacklistMapper.isUserBlacklisted(userId);
+        // 從數據庫查詢，讀取前先取回填版本號
+        long fillVersion = cacheService.beginFill(CACHE_NAME, cacheKey);
+        DbGuard.Loaded<Blacklist> loaded = dbGuard.load("blacklist.user", CACHE_NAME, cacheKey,
+                () -> cacheMissLoader.loadUserBlacklist(userId));
+        Blacklist blacklist = loaded.getValue();
+        if (loaded.isStale()) {
+            return buildBlacklistDTO(blacklist, System.currentTimeMillis() - startTime, DbGuard.STALE_CACHE_LEVEL, true, true);
+        }
         if (blacklist != null) {
             // 寫入緩存
-            cacheService.put(CACHE_NAME, cacheKey, blacklist);
+            cacheService.fill(CACHE_NAME, cacheKey, blacklist, fillVersion, CacheTags.user(userId));
             return buildBlacklistDTO(blacklist, System.currentTimeMillis() - startTime, "DB", false, true);
         }
 
@@ -56,7 +78,7 @@ public class BlacklistService {
      */
     public BlacklistDTO checkAccountBlacklist(String accountNumber) {
         long startTime = System.currentTimeMillis();
-        String cacheKey = "account_blacklist:" + accountNumber;
+        String cacheKey = accountBlacklistKey(accountNumber);
         
         // 嘗試從緩存獲取
         Blacklist cachedBlacklist = cacheService.get(CACHE_NAME, cacheKey, Blacklist.class);
@@ -64,11 +86,23 @@ public class BlacklistService {
             return buildBlacklistDTO(cachedBlacklist, System.currentTimeMillis() - startTime, "L1", true, true);
         }
 
-        // 從數據庫查詢
-        Blacklist blacklist = blacklistMapper.isAccountBlacklisted(accountNumber);
+        // 前綴/號段規則命中時直接返回，不為單個賬戶寫入緩存
+        BlacklistRule rule = blacklistRuleIndex.match(accountNumber);
+        if (rule != null) {
+            return buildRuleDTO(accountNumber, rule, System.currentTimeMillis() - startTime);
+        }
+
+        // 從數據庫查詢，讀取前先取回填版本號
+        long fillVersion = cacheService.beginFill(CACHE_NAME, cacheKey);
+        DbGuard.Loaded<Blacklist> loaded = dbGuard.load("blacklist.account", CACHE_NAME, cacheKey,
+                () -> cacheMissLoader.loadAccountBlacklist(accountNumber));
+        Blacklist blacklist = loaded.getValue();
+        if (loaded.isStale()) {
+            return buildBlacklistDTO(blacklist, System.currentTimeMillis() - startTime, DbGuard.STALE_CACHE_LEVEL, true, true);
+        }
         if (blacklist != null) {
             // 寫入緩存
-            cacheService.put(CACHE_NAME, cacheKey, blacklist);
+            cacheService.fill(CACHE_NAME, cacheKey, blacklist, fillVersion, CacheTags.account(accountNumber));
             return buildBlacklistDTO(blacklist, System.currentTimeMillis() - startTime, "DB", false, true);
         }
 
@@ -80,7 +114,7 @@ public class BlacklistService {
      */
     public List<BlacklistDTO> getBlacklistByUserId(String userId) {
         long startTime = System.currentTimeMillis();
-        String cacheKey = "user_blacklists:" + userId;
+        String cacheKey = userBlacklistsKey(userId);
         
         // 嘗試從緩存獲取
         List<Blacklist> cachedBlacklists = cacheService.get(CACHE_NAME, cacheKey, List.class);
@@ -90,12 +124,20 @@ public class BlacklistService {
                     .collect(Collectors.toList());
         }
 
-        // 從數據庫查詢
-        List<Blacklist> blacklists = blacklistMapper.selectByUserId(userId);
+        // 從數據庫查詢，讀取前先取回填版本號
+        long fillVersion = cacheService.beginFill(CACHE_NAME, cacheKey);
+        DbGuard.Loaded<List<Blacklist>> loaded = dbGuard.load("blacklist.byUser", CACHE_NAME, cacheKey,
+                () -> replicaRouter.read(CacheTags.user(userId), () -> blacklistMapper.selectByUserId(userId)));
+        List<Blacklist> blacklists = loaded.getValue();
+        if (loaded.isStale()) {
+            return blacklists.stream()
+                    .map(b -> buildBlacklistDTO(b, System.currentTimeMillis() - startTime, DbGuard.STALE_CACHE_LEVEL, true, true))
+                    .collect(Collectors.toList());
+        }
         
         if (!blacklists.isEmpty()) {
             // 寫入緩存
-            cacheService.put(CACHE_NAME, cacheKey, blacklists);
+            cacheService.fill(CACHE_NAME, cacheKey, blacklists, fillVersion, CacheTags.user(userId));
         }
 
         return blacklists.stream()
@@ -108,7 +150,7 @@ public class BlacklistService {
      */
     public List<BlacklistDTO> getBlacklistByAccountNumber(String accountNumber) {
         long startTime = System.currentTimeMillis();
-        String cacheKey = "account_blacklists:" + accountNumber;
+        String cacheKey = accountBlacklistsKey(accountNumber);
         
         // 嘗試從緩存獲取
         List<Blacklist> cachedBlacklists = cacheService.get(CACHE_NAME, cacheKey, List.class);
@@ -118,12 +160,20 @@ public class BlacklistService {
                     .collect(Collectors.toList());
         }
 
-        // 從數據庫查詢
-        List<Blacklist> blacklists = blacklistMapper.selectByAccountNumber(accountNumber);
+        // 從數據庫查詢，讀取前先取回填版本號
+        long fillVersion = cacheService.beginFill(CACHE_NAME, cacheKey);
+        DbGuard.Loaded<List<Blacklist>> loaded = dbGuard.load("blacklist.byAccount", CACHE_NAME, cacheKey,
+                () -> replicaRouter.read(CacheTags.account(accountNumber), () -> blacklistMapper.selectByAccountNumber(accountNumber)));
+        List<Blacklist> blacklists = loaded.getValue();
+        if (loaded.isStale()) {
+            return blacklists.stream()
+                    .map(b -> buildBlacklistDTO(b, System.currentTimeMillis() - startTime, DbGuard.STALE_CACHE_LEVEL, true, true))
+                    .collect(Collectors.toList());
+        }
         
         if (!blacklists.isEmpty()) {
             // 寫入緩存
-            cacheService.put(CACHE_NAME, cacheKey, blacklists);
+            cacheService.fill(CACHE_NAME, cacheKey, blacklists, fillVersion, CacheTags.account(accountNumber));
         }
 
         return blacklists.stream()
@@ -175,7 +225,7 @@ public class BlacklistService {
      */
     public List<BlacklistDTO> getBlacklistsByType(String blacklistType) {
         long startTime = System.currentTimeMillis();
-        String cacheKey = "blacklist_type:" + blacklistType;
+        String cacheKey = blacklistTypeKey(blacklistType);
         
         // 嘗試從緩存獲取
         List<Blacklist> cachedBlacklists = cacheService.get(CACHE_NAME, cacheKey, List.class);
@@ -185,12 +235,20 @@ public class BlacklistService {
                     .collect(Collectors.toList());
         }
 
-        // 從數據庫查詢
-        List<Blacklist> blacklists = blacklistMapper.selectByBlacklistType(blacklistType);
+        // 從數據庫查詢，讀取前先取回填版本號
+        long fillVersion = cacheService.beginFill(CACHE_NAME, cacheKey);
+        DbGuard.Loaded<List<Blacklist>> loaded = dbGuard.load("blacklist.byType", CACHE_NAME, cacheKey,
+                () -> replicaRouter.read(CacheTags.blacklistType(blacklistType), () -> blacklistMapper.selectByBlacklistType(blacklistType)));
+        List<Blacklist> blacklists = loaded.getValue();
+        if (loaded.isStale()) {
+            return blacklists.stream()
+                    .map(b -> buildBlacklistDTO(b, System.currentTimeMillis() - startTime, DbGuard.STALE_CACHE_LEVEL, true, true))
+                    .collect(Collectors.toList());
+        }
         
         if (!blacklists.isEmpty()) {
             // 寫入緩存
-            cacheService.put(CACHE_NAME, cacheKey, blacklists);
+            cacheService.fill(CACHE_NAME, cacheKey, blacklists, fillVersion, CacheTags.blacklistType(blacklistType));
         }
 
         return blacklists.stream()
@@ -203,7 +261,7 @@ public class BlacklistService {
      */
     public List<BlacklistDTO> getActiveBlacklists() {
         long startTime = System.currentTimeMillis();
-        String cacheKey = "active_blacklists";
+        String cacheKey = ACTIVE_BLACKLISTS_KEY;
         
         // 嘗試從緩存獲取
         List<Blacklist> cachedBlacklists = cacheService.get(CACHE_NAME, cacheKey, List.class);
@@ -213,12 +271,20 @@ public class BlacklistService {
                     .collect(Collectors.toList());
         }
 
-        // 從數據庫查詢
-        List<Blacklist> blacklists = blacklistMapper.selectActiveBlacklists();
+        // 從數據庫查詢，讀取前先取回填版本號
+        long fillVersion = cacheService.beginFill(CACHE_NAME, cacheKey);
+        DbGuard.Loaded<List<Blacklist>> loaded = dbGuard.load("blacklist.active", CACHE_NAME, cacheKey,
+                () -> replicaRouter.read(CacheTags.ALL_BLACKLISTS, blacklistMapper::selectActiveBlacklists));
+        List<Blacklist> blacklists = loaded.getValue();
+        if (loaded.isStale()) {
+            return blacklists.stream()
+                    .map(b -> buildBlacklistDTO(b, System.currentTimeMillis() - startTime, DbGuard.STALE_CACHE_LEVEL, true, true))
+                    .collect(Collectors.toList());
+        }
         
         if (!blacklists.isEmpty()) {
             // 寫入緩存
-            cacheService.put(CACHE_NAME, cacheKey, blacklists);
+            cacheService.fill(CACHE_NAME, cacheKey, blacklists, fillVersion, CacheTags.ALL_BLACKLISTS);
         }
 
         return blacklists.stream()
@@ -230,41 +296,123 @@ public class BlacklistService {
      * 清除相關緩存
      */
     private void clearRelatedCaches(Blacklist blacklist) {
-        cacheService.evict(CACHE_NAME, "user_blacklist:" + blacklist.getUserId());
-        cacheService.evict(CACHE_NAME, "account_blacklist:" + blacklist.getAccountNumber());
-        cacheService.evict(CACHE_NAME, "user_blacklists:" + blacklist.getUserId());
-        cacheService.evict(CACHE_NAME, "blacklist_type:" + blacklist.getBlacklistType());
-        cacheService.evict(CACHE_NAME, "active_blacklists");
+        clearRelatedCaches(Collections.singletonList(blacklist));
+    }
+
+    /**
+     * 按用戶、賬戶、類型標籤批量清除相關緩存，每個受影響的鍵只清除一次
+     *
+     * @return 清除的緩存鍵數量
+     */
+    public int clearRelatedCaches(Collection<Blacklist> blacklists) {
+        if (blacklists.isEmpty()) {
+            return 0;
+        }
+        Set<String> tags = new LinkedHashSet<>();
+        for (Blacklist blacklist : blacklists) {
+            tags.add(CacheTags.user(blacklist.getUserId()));
+            tags.add(CacheTags.account(blacklist.getAccountNumber()));
+            tags.add(CacheTags.blacklistType(blacklist.getBlacklistType()));
+        }
+        tags.add(CacheTags.ALL_BLACKLISTS);
+
+        for (String tag : tags) {
+            // 在複製延遲窗口內這些實體只從主庫讀取
+            replicaRouter.markWritten(tag);
+        }
+        return cacheService.invalidateTags(CACHE_NAME, tags, null);
+    }
+
+    /**
+     * 用戶黑名單檢查緩存鍵
+     */
+    public static String userBlacklistKey(String userId) {
+        return "user_blacklist:" + userId;
+    }
+
+    /**
+     * 賬戶黑名單檢查緩存鍵
+     */
+    public static String accountBlacklistKey(String accountNumber) {
+        return "account_blacklist:" + accountNumber;
+    }
+
+    /**
+     * 用戶黑名單列表緩存鍵
+     */
+    public static String userBlacklistsKey(String userId) {
+        return "user_blacklists:" + userId;
+    }
+
+    /**
+     * 賬戶黑名單列表緩存鍵
+     */
+    public static String accountBlacklistsKey(String accountNumber) {
+        return "account_blacklists:" + accountNumber;
+    }
+
+    /**
+     * 黑名單類型列表緩存鍵
+     */
+    public static String blacklistTypeKey(String blacklistType) {
+        return "blacklist_type:" + blacklistType;
     }
 
     /**
      * 構建黑名單DTO
      */
     private BlacklistDTO buildBlacklistDTO(Blacklist blacklist, long responseTime, String cacheLevel, boolean fromCache, boolean isBlacklisted) {
-        if (blacklist == null) {
+        long mappingStart = RequestTiming.start();
+        try {
+            if (blacklist == null) {
+                return BlacklistDTO.builder()
+                        .responseTimeMs(responseTime)
+                        .cacheLevel(cacheLevel)
+                        .fromCache(fromCache)
+                        .isBlacklisted(isBlacklisted)
+                        .build();
+            }
+
             return BlacklistDTO.builder()
+                    .userId(blacklist.getUserId())
+                    .accountNumber(blacklist.getAccountNumber())
+                    .reason(blacklist.getReason())
+                    .blacklistType(blacklist.getBlacklistType())
+                    .blacklistTypeDescription(blacklist.getBlacklistType())
+                    .status(blacklist.getStatus())
+                    .statusDescription(blacklist.getStatus())
+                    .createdAt(blacklist.getCreatedAt())
+                    .updatedAt(blacklist.getUpdatedAt())
+                    .expiresAt(blacklist.getExpiresAt())
                     .responseTimeMs(responseTime)
                     .cacheLevel(cacheLevel)
                     .fromCache(fromCache)
                     .isBlacklisted(isBlacklisted)
                     .build();
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.MAPPING, mappingStart);
         }
+    }
 
+    /**
+     * 構建規則命中的黑名單DTO
+     */
+    private BlacklistDTO buildRuleDTO(String accountNumber, BlacklistRule rule, long responseTime) {
         return BlacklistDTO.builder()
-                .userId(blacklist.getUserId())
-                .accountNumber(blacklist.getAccountNumber())
-                .reason(blacklist.getReason())
-                .blacklistType(blacklist.getBlacklistType())
-                .blacklistTypeDescription(blacklist.getBlacklistType())
-                .status(blacklist.getStatus())
-                .statusDescription(blacklist.getStatus())
-                .createdAt(blacklist.getCreatedAt())
-                .updatedAt(blacklist.getUpdatedAt())
-                .expiresAt(blacklist.getExpiresAt())
+                .accountNumber(accountNumber)
+                .reason(rule.getReason())
+                .blacklistType(rule.getRuleType())
+                .blacklistTypeDescription(rule.getRuleType())
+                .status(rule.getStatus())
+                .statusDescription(rule.getStatus())
+                .createdAt(rule.getCreatedAt())
+                .updatedAt(rule.getUpdatedAt())
+                .expiresAt(rule.getExpiresAt())
+                .matchedRule(rule.getRuleType() + ":" + BlacklistRuleService.describe(rule))
                 .responseTimeMs(responseTime)
-                .cacheLevel(cacheLevel)
-                .fromCache(fromCache)
-                .isBlacklisted(isBlacklisted)
+                .cacheLevel("RULE")
+                .fromCache(false)
+                .isBlacklisted(true)
                 .build();
     }
-} 
\ No newline at end of file
+}
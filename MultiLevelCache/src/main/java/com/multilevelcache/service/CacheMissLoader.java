@@ -0,0 +1,199 @@
+package com.multilevelcache.service;
+
+import com.multilevelcache.cache.BatchLoader;
+import com.multilevelcache.cache.CacheTags;
+import com.multilevelcache.datasource.ReplicaRouter;
+import com.multilevelcache.entity.Blacklist;
+import com.multilevelcache.entity.Transaction;
+import com.multilevelcache.mapper.BlacklistMapper;
+import com.multilevelcache.mapper.TransactionMapper;
+import com.multilevelcache.resilience.DbUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * 緩存未命中加載服務類
+ *
+ * 單鍵未命中經由 {@link BatchLoader} 合併成 IN (...) 批量查詢，
+ * 關閉合併時直接執行單條查詢。等待批量結果有超時，超時或批量無法提交時拋出 {@link DbUnavailableException}。
+ */
+@Slf4j
+@Service
+public class CacheMissLoader {
+
+    private final TransactionMapper transactionMapper;
+    private final BlacklistMapper blacklistMapper;
+    private final ReplicaRouter replicaRouter;
+    private final Executor cacheExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${cache.coalescer.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.coalescer.window-micros:1000}")
+    private long windowMicros;
+
+    @Value("${cache.coalescer.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${cache.coalescer.load-timeout-ms:3000}")
+    private long loadTimeoutMs;
+
+    private ScheduledExecutorService scheduler;
+    private BatchLoader<String, Transaction> transactionLoader;
+    private BatchLoader<String, Blacklist> userBlacklistLoader;
+    private BatchLoader<String, Blacklist> accountBlacklistLoader;
+
+    public CacheMissLoader(TransactionMapper transactionMapper,
+                           BlacklistMapper blacklistMapper,
+                           ReplicaRouter replicaRouter,
+                           @Qualifier("cacheExecutor") Executor cacheExecutor,
+                           MeterRegistry meterRegistry) {
+        this.transactionMapper = transactionMapper;
+        this.blacklistMapper = blacklistMapper;
+        this.replicaRouter = replicaRouter;
+        this.cacheExecutor = cacheExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Cache-Coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        transactionLoader = newLoader("transaction", transactionIds -> index(
+                replicaRouter.readAny(routingKeys(transactionIds, CacheTags::transaction),
+                        () -> transactionMapper.selectByTransactionIds(transactionIds)),
+                Transaction::getTransactionId));
+        userBlacklistLoader = newLoader("userBlacklist", userIds -> index(
+                replicaRouter.readAny(routingKeys(userIds, CacheTags::user),
+                        () -> blacklistMapper.selectActiveByUserIds(userIds)),
+                Blacklist::getUserId));
+        accountBlacklistLoader = newLoader("accountBlacklist", accountNumbers -> index(
+                replicaRouter.readAny(routingKeys(accountNumbers, CacheTags::account),
+                        () -> blacklistMapper.selectActiveByAccountNumbers(accountNumbers)),
+                Blacklist::getAccountNumber));
+
+        log.info("🧺 緩存未命中合併已啟用: 窗口 {}μs, 最大批量 {}", windowMicros, maxBatchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 加載交易記錄
+     */
+    public Transaction loadTransaction(String transactionId) {
+        if (!enabled) {
+            return replicaRouter.read(CacheTags.transaction(transactionId),
+                    () -> transactionMapper.selectByTransactionId(transactionId));
+        }
+        return join(transactionLoader, transactionId);
+    }
+
+    /**
+     * 加載用戶的有效黑名單記錄
+     */
+    public Blacklist loadUserBlacklist(String userId) {
+        if (!enabled) {
+            return replicaRouter.read(CacheTags.user(userId), () -> blacklistMapper.isUserBlacklisted(userId));
+        }
+        return join(userBlacklistLoader, userId);
+    }
+
+    /**
+     * 加載賬戶的有效黑名單記錄
+     */
+    public Blacklist loadAccountBlacklist(String accountNumber) {
+        if (!enabled) {
+            return replicaRouter.read(CacheTags.account(accountNumber),
+                    () -> blacklistMapper.isAccountBlacklisted(accountNumber));
+        }
+        return join(accountBlacklistLoader, accountNumber);
+    }
+
+    /**
+     * 獲取各加載器的批量統計
+     */
+    public List<Map<String, Object>> getStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        if (enabled) {
+            stats.add(transactionLoader.getStats());
+            stats.add(userBlacklistLoader.getStats());
+            stats.add(accountBlacklistLoader.getStats());
+        }
+        return stats;
+    }
+
+    private <V> BatchLoader<String, V> newLoader(String name, Function<List<String>, Map<String, V>> batchFunction) {
+        return new BatchLoader<>(name, batchFunction, windowMicros, maxBatchSize, scheduler, cacheExecutor, meterRegistry);
+    }
+
+    private <V> V join(BatchLoader<String, V> loader, String key) {
+        try {
+            return loader.load(key).get(loadTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DbUnavailableException("合併加載超時(" + loadTimeoutMs + "ms): " + key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DbUnavailableException("等待合併加載被中斷: " + key);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RejectedExecutionException) {
+                throw new DbUnavailableException("合併加載線程不可用", cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static <V> Map<String, V> index(List<V> rows, Function<V, String> keyFunction) {
+        Map<String, V> result = new HashMap<>();
+        for (V row : rows) {
+            // 批量查詢按鍵與主鍵排序，保留每個鍵主鍵最小的一條，與單條查詢的 ORDER BY id LIMIT 1 一致
+            result.putIfAbsent(keyFunction.apply(row), row);
+        }
+        return result;
+    }
+
+    private static List<String> routingKeys(List<String> keys, Function<String, String> keyFunction) {
+        List<String> routingKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            routingKeys.add(keyFunction.apply(key));
+        }
+        return routingKeys;
+    }
+}
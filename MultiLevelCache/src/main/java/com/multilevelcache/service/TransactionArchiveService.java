@@ -0,0 +1,207 @@
+package com.multilevelcache.service;
+
+import com.multilevelcache.archive.TransactionSegmentStore;
+import com.multilevelcache.datasource.ReplicaRouter;
+import com.multilevelcache.entity.Transaction;
+import com.multilevelcache.mapper.TransactionMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 交易歸檔服務類
+ *
+ * 後台任務把 updated_at 早於結算期限的已結算交易追加到內存映射段文件，
+ * 歷史查詢只從數據庫讀取水位線之後變化過或未結算的行，再與歸檔合併。
+ * 同一交易以數據庫中的行為準，歸檔中以最後追加的版本為準。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionArchiveService {
+
+    private final TransactionMapper transactionMapper;
+    private final ReplicaRouter replicaRouter;
+
+    @Value("${archive.transaction.enabled:false}")
+    private boolean enabled;
+
+    @Value("${archive.transaction.directory:./data/archive/transactions}")
+    private String directory;
+
+    @Value("${archive.transaction.settle-after-hours:72}")
+    private long settleAfterHours;
+
+    @Value("${archive.transaction.settled-statuses:COMPLETED}")
+    private List<String> settledStatuses;
+
+    @Value("${archive.transaction.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    private TransactionSegmentStore store;
+
+    private volatile long lastRunArchived;
+    private volatile long lastRunMillis;
+    private volatile LocalDateTime lastRunAt;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        store = new TransactionSegmentStore(Paths.get(directory), segmentSizeMb * 1024 * 1024);
+        store.open();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 查詢用戶完整交易歷史（按創建時間倒序）
+     */
+    public List<Transaction> getUserHistory(String userId, String routingKey) {
+        // 先讀水位線再讀索引，保證兩者之間不會漏掉剛歸檔的行
+        LocalDateTime watermark = store.getWatermark();
+        if (watermark == null) {
+            return replicaRouter.read(routingKey, () -> transactionMapper.selectByUserIdOrderByCreatedAtDesc(userId));
+        }
+        List<Transaction> recent = replicaRouter.read(routingKey,
+                () -> transactionMapper.selectUnarchivedByUserId(userId, watermark, settledStatuses));
+        return merge(recent, store.readByUser(userId));
+    }
+
+    /**
+     * 查詢賬戶完整交易歷史（按創建時間倒序）
+     */
+    public List<Transaction> getAccountHistory(String accountNumber, String routingKey) {
+        LocalDateTime watermark = store.getWatermark();
+        if (watermark == null) {
+            return replicaRouter.read(routingKey, () -> transactionMapper.selectByAccountNumber(accountNumber));
+        }
+        List<Transaction> recent = replicaRouter.read(routingKey,
+                () -> transactionMapper.selectUnarchivedByAccountNumber(accountNumber, watermark, settledStatuses));
+        return merge(recent, store.readByAccount(accountNumber));
+    }
+
+    private static List<Transaction> merge(List<Transaction> recent, List<Transaction> archived) {
+        Map<String, Transaction> byId = new LinkedHashMap<>(archived.size() + recent.size());
+        // 歸檔按追加順序排列，後寫入的版本覆蓋先前版本
+        for (Transaction transaction : archived) {
+            byId.put(transaction.getTransactionId(), transaction);
+        }
+        for (Transaction transaction : recent) {
+            byId.put(transaction.getTransactionId(), transaction);
+        }
+
+        List<Transaction> merged = new ArrayList<>(byId.size());
+        for (Transaction transaction : byId.values()) {
+            if (transaction.getDeleted() == null || transaction.getDeleted() == 0) {
+                merged.add(transaction);
+            }
+        }
+        merged.sort(Comparator.comparing(Transaction::getCreatedAt,
+                Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder())));
+        return merged;
+    }
+
+    /**
+     * 定時歸檔已結算交易
+     */
+    @Scheduled(initialDelayString = "${archive.transaction.initial-delay-ms:60000}",
+            fixedDelayString = "${archive.transaction.interval-ms:300000}")
+    public void scheduledArchive() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            archiveSettled();
+        } catch (RuntimeException e) {
+            log.error("❌ 交易歸檔失敗", e);
+        }
+    }
+
+    /**
+     * 把上次水位線到新截止時間之間的已結算交易追加到歸檔
+     */
+    public synchronized Map<String, Object> archiveSettled() {
+        if (!enabled) {
+            throw new IllegalStateException("交易歸檔未啟用");
+        }
+        long startTime = System.currentTimeMillis();
+        LocalDateTime from = store.getWatermark();
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(settleAfterHours);
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (from != null && !cutoff.isAfter(from)) {
+            result.put("archived", 0);
+            result.put("watermark", from);
+            return result;
+        }
+
+        long[] archived = {0};
+        try {
+            // 歸檔讀取必須看到最新數據，固定走主庫
+            transactionMapper.streamSettledForArchive(from, cutoff, settledStatuses, context -> {
+                try {
+                    store.append(context.getResultObject());
+                    archived[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            store.commit(cutoff);
+        } catch (IOException | RuntimeException e) {
+            store.discardPending();
+            throw e instanceof IOException ? new UncheckedIOException((IOException) e) : (RuntimeException) e;
+        }
+
+        lastRunArchived = archived[0];
+        lastRunMillis = System.currentTimeMillis() - startTime;
+        lastRunAt = LocalDateTime.now();
+        log.info("🗄️ 交易歸檔完成: {} 條, 水位線 {} -> {}, 耗時 {}ms", archived[0], from, cutoff, lastRunMillis);
+
+        result.put("archived", archived[0]);
+        result.put("watermark", cutoff);
+        result.put("elapsedMs", lastRunMillis);
+        return result;
+    }
+
+    /**
+     * 獲取歸檔統計信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        if (!enabled) {
+            return stats;
+        }
+        stats.putAll(store.getStats());
+        stats.put("settleAfterHours", settleAfterHours);
+        stats.put("settledStatuses", settledStatuses);
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastRunArchived", lastRunArchived);
+        stats.put("lastRunMillis", lastRunMillis);
+        return stats;
+    }
+}
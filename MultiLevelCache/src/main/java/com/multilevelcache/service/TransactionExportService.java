@@ -0,0 +1,253 @@
+package com.multilevelcache.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.multilevelcache.cache.CacheTags;
+import com.multilevelcache.datasource.ReplicaRouter;
+import com.multilevelcache.entity.Transaction;
+import com.multilevelcache.mapper.TransactionMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 交易記錄流式導出服務類
+ *
+ * 逐行從數據庫游標讀取並直接寫入響應流，內存佔用與歷史記錄長度無關，
+ * 客戶端斷開或線程被中斷時立即停止讀取。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionExportService {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String CSV_HEADER = "transactionId,userId,accountNumber,transactionType,amount,currency,description,status,createdAt,updatedAt";
+
+    private final TransactionMapper transactionMapper;
+    private final ReplicaRouter replicaRouter;
+
+    @Value("${export.transaction.flush-every-rows:500}")
+    private int flushEveryRows;
+
+    @PostConstruct
+    public void init() {
+        if (flushEveryRows < 1) {
+            throw new IllegalStateException("export.transaction.flush-every-rows 必須不小於 1: " + flushEveryRows);
+        }
+    }
+
+    /**
+     * 導出格式
+     */
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * 解析格式參數，不支持的格式返回 null
+         */
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 將用戶的完整交易歷史寫入輸出流，返回已寫出的行數
+     */
+    public long exportByUserId(String userId, Format format, OutputStream outputStream) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 8192);
+        RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+
+        StreamingHandler handler = new StreamingHandler(rowWriter, writer);
+        rowWriter.begin();
+        replicaRouter.read(CacheTags.user(userId), () -> {
+            transactionMapper.streamByUserIdOrderByCreatedAtDesc(userId, handler);
+            return null;
+        });
+
+        if (handler.failure != null) {
+            log.info("⛔ 交易導出已中止: {} - 已寫出 {} 行, 原因: {}", userId, handler.rows, handler.failure.getMessage());
+            throw handler.failure;
+        }
+
+        writer.flush();
+        log.info("📤 交易導出完成: {} - {} 行, 格式 {}, 耗時 {}ms",
+                userId, handler.rows, format, System.currentTimeMillis() - startTime);
+        return handler.rows;
+    }
+
+    /**
+     * 游標回調：寫出一行並按批次刷新，寫入失敗或被中斷時停止游標
+     */
+    private class StreamingHandler implements ResultHandler<Transaction> {
+
+        private final RowWriter rowWriter;
+        private final Writer writer;
+        private long rows;
+        private IOException failure;
+
+        StreamingHandler(RowWriter rowWriter, Writer writer) {
+            this.rowWriter = rowWriter;
+            this.writer = writer;
+        }
+
+        @Override
+        public void handleResult(ResultContext<? extends Transaction> context) {
+            try {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IOException("導出線程已被中斷");
+                }
+                rowWriter.write(context.getResultObject());
+                rows++;
+                if (rows % flushEveryRows == 0) {
+                    // 刷新到容器，觸發分塊傳輸並及早發現客戶端斷開
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                failure = e;
+                context.stop();
+            }
+        }
+    }
+
+    /**
+     * 行寫出器
+     */
+    private interface RowWriter {
+
+        void begin() throws IOException;
+
+        void write(Transaction transaction) throws IOException;
+    }
+
+    /**
+     * NDJSON 行寫出器，每行一個 JSON 對象
+     */
+    private static class NdjsonRowWriter implements RowWriter {
+
+        private final Writer writer;
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            this.generator = JSON_FACTORY.createGenerator(writer);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // 行之間以換行分隔，不使用默認的空格分隔符
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public void write(Transaction transaction) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("transactionId", transaction.getTransactionId());
+            generator.writeStringField("userId", transaction.getUserId());
+            generator.writeStringField("accountNumber", transaction.getAccountNumber());
+            generator.writeStringField("transactionType", transaction.getTransactionType());
+            if (transaction.getAmount() != null) {
+                generator.writeNumberField("amount", transaction.getAmount());
+            } else {
+                generator.writeNullField("amount");
+            }
+            generator.writeStringField("currency", transaction.getCurrency());
+            generator.writeStringField("description", transaction.getDescription());
+            generator.writeStringField("status", transaction.getStatus());
+            generator.writeStringField("createdAt", toText(transaction.getCreatedAt()));
+            generator.writeStringField("updatedAt", toText(transaction.getUpdatedAt()));
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * CSV 行寫出器（RFC 4180 轉義）
+     */
+    private static class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void begin() throws IOException {
+            writer.write(CSV_HEADER);
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(Transaction transaction) throws IOException {
+            writeCell(transaction.getTransactionId(), false);
+            writeCell(transaction.getUserId(), true);
+            writeCell(transaction.getAccountNumber(), true);
+            writeCell(transaction.getTransactionType(), true);
+            writeCell(transaction.getAmount() != null ? transaction.getAmount().toPlainString() : null, true);
+            writeCell(transaction.getCurrency(), true);
+            writeCell(transaction.getDescription(), true);
+            writeCell(transaction.getStatus(), true);
+            writeCell(toText(transaction.getCreatedAt()), true);
+            writeCell(toText(transaction.getUpdatedAt()), true);
+            writer.write("\r\n");
+        }
+
+        private void writeCell(String value, boolean separator) throws IOException {
+            if (separator) {
+                writer.write(',');
+            }
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+    }
+
+    private static String toText(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
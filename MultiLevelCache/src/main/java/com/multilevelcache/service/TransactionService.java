@@ -3,18 +3,38 @@ package com.multilevelcache.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.multilevelcache.cache.CacheTags;
+import com.multilevelcache.cache.ColumnarTransactionList;
 import com.multilevelcache.cache.MultiLevelCacheService;
+import com.multilevelcache.datasource.ReplicaRouter;
 import com.multilevelcache.dto.TransactionDTO;
+import com.multilevelcache.dto.TransactionStatusUpdateRequest;
+import com.multilevelcache.dto.TransactionStatusUpdateResult;
 import com.multilevelcache.entity.Transaction;
+import com.multilevelcache.id.IdGenerator;
 import com.multilevelcache.mapper.TransactionMapper;
+import com.multilevelcache.resilience.DbGuard;
+import com.multilevelcache.stream.TransactionStatusHub;
+import com.multilevelcache.timing.RequestTiming;
+import com.multilevelcache.velocity.VelocityCounterStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -27,15 +47,29 @@ public class TransactionService {
 
     private final TransactionMapper transactionMapper;
     private final MultiLevelCacheService cacheService;
+    private final ReplicaRouter replicaRouter;
+    private final CacheMissLoader cacheMissLoader;
+    private final TransactionArchiveService transactionArchiveService;
+    private final DbGuard dbGuard;
+    private final VelocityCounterStore velocityCounterStore;
+    private final TransactionStatusHub transactionStatusHub;
+    private final TransactionTemplate transactionTemplate;
+    private final IdGenerator transactionIdGenerator;
 
-    private static final String CACHE_NAME = "transactionCache";
+    public static final String CACHE_NAME = "transactionCache";
+
+    @Value("${transaction.bulk-status.chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Value("${transaction.bulk-status.max-rows:100000}")
+    private int bulkMaxRows;
 
     /**
      * 根據交易ID查詢交易記錄
      */
     public TransactionDTO getTransactionById(String transactionId) {
         long startTime = System.currentTimeMillis();
-        String cacheKey = "transaction:" + transactionId;
+        String cacheKey = transactionKey(transactionId);
         
         // 嘗試從緩存獲取
         Transaction cachedTransaction = cacheService.get(CACHE_NAME, cacheKey, Transaction.class);
@@ -43,11 +77,17 @@ public class TransactionService {
             return buildTransactionDTO(cachedTransaction, System.currentTimeMillis() - startTime, "L1", true);
         }
 
-        // 從數據庫查詢
-        Transaction transaction = transactionMapper.selectByTransactionId(transactionId);
+        // 從數據庫查詢，讀取前先取回填版本號
+        long fillVersion = cacheService.beginFill(CACHE_NAME, cacheKey);
+        DbGuard.Loaded<Transaction> loaded = dbGuard.load("transaction.byId", CACHE_NAME, cacheKey,
+                () -> cacheMissLoader.loadTransaction(transactionId));
+        Transaction transaction = loaded.getValue();
+        if (loaded.isStale()) {
+            return buildTransactionDTO(transaction, System.currentTimeMillis() - startTime, DbGuard.STALE_CACHE_LEVEL, true);
+        }
         if (transaction != null) {
             // 寫入緩存
-            cacheService.put(CACHE_NAME, cacheKey, transaction);
+            cacheService.fill(CACHE_NAME, cacheKey, transaction, fillVersion, CacheTags.transaction(transactionId));
             return buildTransactionDTO(transaction, System.currentTimeMillis() - startTime, "DB", false);
         }
 
@@ -59,27 +99,31 @@ public class TransactionService {
      */
     public List<TransactionDTO> getTransactionsByUserId(String userId) {
         long startTime = System.currentTimeMillis();
-        String cacheKey = "user_transactions:" + userId;
+        String cacheKey = userTransactionsKey(userId);
         
         // 嘗試從緩存獲取
-        List<Transaction> cachedTransactions = cacheService.get(CACHE_NAME, cacheKey, List.class);
+        ColumnarTransactionList cachedTransactions = cacheService.get(CACHE_NAME, cacheKey, ColumnarTransactionList.class);
         if (cachedTransactions != null) {
-            return cachedTransactions.stream()
-                    .map(t -> buildTransactionDTO(t, System.currentTimeMillis() - startTime, "L1", true))
-                    .collect(Collectors.toList());
+            return buildTransactionDTOs(cachedTransactions, startTime, "L1", true);
         }
 
-        // 從數據庫查詢
-        List<Transaction> transactions = transactionMapper.selectByUserIdOrderByCreatedAtDesc(userId);
+        // 從數據庫查詢，讀取前先取回填版本號；在加載線程上編碼為列式列表，過期副本也是同一類型
+        long fillVersion = cacheService.beginFill(CACHE_NAME, cacheKey);
+        DbGuard.Loaded<ColumnarTransactionList> loaded = dbGuard.load("transaction.byUser", CACHE_NAME, cacheKey,
+                () -> ColumnarTransactionList.of(transactionArchiveService.isEnabled()
+                        ? transactionArchiveService.getUserHistory(userId, CacheTags.user(userId))
+                        : replicaRouter.read(CacheTags.user(userId), () -> transactionMapper.selectByUserIdOrderByCreatedAtDesc(userId))));
+        ColumnarTransactionList transactions = loaded.getValue();
+        if (loaded.isStale()) {
+            return buildTransactionDTOs(transactions, startTime, DbGuard.STALE_CACHE_LEVEL, true);
+        }
         
         if (!transactions.isEmpty()) {
             // 寫入緩存
-            cacheService.put(CACHE_NAME, cacheKey, transactions);
+            cacheService.fill(CACHE_NAME, cacheKey, transactions, fillVersion, CacheTags.user(userId));
         }
 
-        return transactions.stream()
-                .map(t -> buildTransactionDTO(t, System.currentTimeMillis() - startTime, "DB", false))
-                .collect(Collectors.toList());
+        return buildTransactionDTOs(transactions, startTime, "DB", false);
     }
 
     /**
@@ -87,27 +131,31 @@ public class TransactionService {
      */
     public List<TransactionDTO> getTransactionsByAccountNumber(String accountNumber) {
         long startTime = System.currentTimeMillis();
-        String cacheKey = "account_transactions:" + accountNumber;
+        String cacheKey = accountTransactionsKey(accountNumber);
         
         // 嘗試從緩存獲取
-        List<Transaction> cachedTransactions = cacheService.get(CACHE_NAME, cacheKey, List.class);
+        ColumnarTransactionList cachedTransactions = cacheService.get(CACHE_NAME, cacheKey, ColumnarTransactionList.class);
         if (cachedTransactions != null) {
-            return cachedTransactions.stream()
-                    .map(t -> buildTransactionDTO(t, System.currentTimeMillis() - startTime, "L1", true))
-                    .collect(Collectors.toList());
+            return buildTransactionDTOs(cachedTransactions, startTime, "L1", true);
         }
 
-        // 從數據庫查詢
-        List<Transaction> transactions = transactionMapper.selectByAccountNumber(accountNumber);
+        // 從數據庫查詢，讀取前先取回填版本號；在加載線程上編碼為列式列表，過期副本也是同一類型
+        long fillVersion = cacheService.beginFill(CACHE_NAME, cacheKey);
+        DbGuard.Loaded<ColumnarTransactionList> loaded = dbGuard.load("transaction.byAccount", CACHE_NAME, cacheKey,
+                () -> ColumnarTransactionList.of(transactionArchiveService.isEnabled()
+                        ? transactionArchiveService.getAccountHistory(accountNumber, CacheTags.account(accountNumber))
+                        : replicaRouter.read(CacheTags.account(accountNumber), () -> transactionMapper.selectByAccountNumber(accountNumber))));
+        ColumnarTransactionList transactions = loaded.getValue();
+        if (loaded.isStale()) {
+            return buildTransactionDTOs(transactions, startTime, DbGuard.STALE_CACHE_LEVEL, true);
+        }
         
         if (!transactions.isEmpty()) {
             // 寫入緩存
-            cacheService.put(CACHE_NAME, cacheKey, transactions);
+            cacheService.fill(CACHE_NAME, cacheKey, transactions, fillVersion, CacheTags.account(accountNumber));
         }
 
-        return transactions.stream()
-                .map(t -> buildTransactionDTO(t, System.currentTimeMillis() - startTime, "DB", false))
-                .collect(Collectors.toList());
+        return buildTransactionDTOs(transactions, startTime, "DB", false);
     }
 
     /**
@@ -117,11 +165,14 @@ public class TransactionService {
         long startTime = System.currentTimeMillis();
         
         // 生成交易ID
-        transaction.setTransactionId("TXN" + UUID.randomUUID().toString().replace("-", "").substring(0, 16));
+        transaction.setTransactionId(transactionIdGenerator.nextId());
         transaction.setStatus("PENDING");
         
         // 保存到數據庫
         transactionMapper.insert(transaction);
+
+        // 累加用戶與賬戶的交易速率
+        velocityCounterStore.record(transaction);
         
         // 清除相關緩存
         clearRelatedCaches(transaction);
@@ -141,17 +192,120 @@ public class TransactionService {
         Transaction transaction = transactionMapper.selectOne(wrapper);
         if (transaction != null) {
             transaction.setStatus(status);
+            // 查詢出的 updatedAt 非空時自動填充不會覆蓋，歸檔依賴 updated_at 判斷行是否變化過
+            transaction.setUpdatedAt(LocalDateTime.now());
             transactionMapper.updateById(transaction);
             
             // 清除相關緩存
             clearRelatedCaches(transaction);
             
-            return buildTransactionDTO(transaction, System.currentTimeMillis() - startTime, "DB", false);
+            TransactionDTO updated = buildTransactionDTO(transaction, System.currentTimeMillis() - startTime, "DB", false);
+            // 推送給訂閱了該交易狀態的客戶端
+            transactionStatusHub.publish(updated);
+            return updated;
         }
         
         return buildTransactionDTO(null, System.currentTimeMillis() - startTime, "DB", false);
     }
 
+    /**
+     * 批量變更交易狀態（結算批次等）
+     *
+     * 按塊在事務內鎖定狀態仍為 fromStatus 的行，再以多行 UPDATE 帶狀態前置條件更新；
+     * 每塊提交後失效該塊的單筆交易緩存並推送狀態，用戶與賬戶列表緩存在全部完成後按標籤只清除一次。
+     */
+    public TransactionStatusUpdateResult bulkUpdateStatus(TransactionStatusUpdateRequest request) {
+        long startTime = System.currentTimeMillis();
+        String fromStatus = request.getFromStatus();
+        String toStatus = request.getToStatus();
+        if (isBlank(fromStatus) || isBlank(toStatus)) {
+            throw new IllegalArgumentException("fromStatus 與 toStatus 不能為空");
+        }
+        if (fromStatus.equals(toStatus)) {
+            throw new IllegalArgumentException("fromStatus 與 toStatus 相同");
+        }
+
+        BulkStatusContext context = new BulkStatusContext(fromStatus, toStatus);
+        try {
+            applyChunks(request, context);
+        } finally {
+            // 結束時按用戶與賬戶標籤統一失效列表緩存，每個鍵只清除一次；中途失敗時已提交的塊同樣需要失效
+            for (String tag : context.listTags) {
+                replicaRouter.markWritten(tag);
+            }
+            context.evictedKeys += cacheService.invalidateTags(CACHE_NAME, context.listTags, null);
+        }
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        log.info("🧾 批量狀態變更完成: {} -> {}, 請求 {} 行, 更新 {}, 跳過 {}, {} 塊, 清除緩存鍵 {}, 耗時 {}ms",
+                fromStatus, toStatus, context.requestedRows, context.updatedRows,
+                context.requestedRows - context.updatedRows, context.progress.size(), context.evictedKeys, elapsed);
+
+        return TransactionStatusUpdateResult.builder()
+                .fromStatus(fromStatus)
+                .toStatus(toStatus)
+                .requestedRows(context.requestedRows)
+                .updatedRows(context.updatedRows)
+                .skippedRows(context.requestedRows - context.updatedRows)
+                .chunks(context.progress.size())
+                .evictedCacheKeys(context.evictedKeys)
+                .chunkProgress(context.progress)
+                .responseTimeMs(elapsed)
+                .rowsPerSecond(elapsed > 0 ? context.updatedRows * 1000.0 / elapsed : (double) context.updatedRows)
+                .build();
+    }
+
+    /**
+     * 按交易ID或篩選條件逐塊執行狀態變更
+     */
+    private void applyChunks(TransactionStatusUpdateRequest request, BulkStatusContext context) {
+        String fromStatus = context.fromStatus;
+        List<String> transactionIds = request.getTransactionIds();
+        if (transactionIds != null && !transactionIds.isEmpty()) {
+            Set<String> distinctIds = new LinkedHashSet<>(transactionIds);
+            distinctIds.remove(null);
+            if (distinctIds.size() > bulkMaxRows) {
+                throw new IllegalArgumentException("單次最多更新 " + bulkMaxRows + " 筆交易");
+            }
+            context.requestedRows = distinctIds.size();
+            List<String> chunk = new ArrayList<>(bulkChunkSize);
+            for (String transactionId : distinctIds) {
+                chunk.add(transactionId);
+                if (chunk.size() >= bulkChunkSize) {
+                    List<String> ids = chunk;
+                    context.applyChunk(() -> transactionMapper.selectByIdsForStatusUpdate(ids, fromStatus));
+                    chunk = new ArrayList<>(bulkChunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                List<String> ids = chunk;
+                context.applyChunk(() -> transactionMapper.selectByIdsForStatusUpdate(ids, fromStatus));
+            }
+        } else {
+            if (request.getCreatedBefore() == null && isBlank(request.getUserId()) && isBlank(request.getAccountNumber())) {
+                throw new IllegalArgumentException("需要指定 transactionIds 或至少一個篩選條件（createdBefore / userId / accountNumber）");
+            }
+            int maxRows = request.getMaxRows() != null ? Math.min(request.getMaxRows(), bulkMaxRows) : bulkMaxRows;
+            String userId = isBlank(request.getUserId()) ? null : request.getUserId();
+            String accountNumber = isBlank(request.getAccountNumber()) ? null : request.getAccountNumber();
+            long afterId = 0;
+            while (context.requestedRows < maxRows) {
+                int limit = (int) Math.min(bulkChunkSize, maxRows - context.requestedRows);
+                long lastId = afterId;
+                List<Transaction> selected = context.applyChunk(() -> transactionMapper.selectByFilterForStatusUpdate(
+                        fromStatus, request.getCreatedBefore(), userId, accountNumber, lastId, limit));
+                if (selected.isEmpty()) {
+                    break;
+                }
+                context.requestedRows += selected.size();
+                afterId = selected.get(selected.size() - 1).getId();
+                if (selected.size() < limit) {
+                    break;
+                }
+            }
+        }
+    }
+
     /**
      * 分頁查詢交易記錄
      */
@@ -159,8 +313,8 @@ public class TransactionService {
         long startTime = System.currentTimeMillis();
         
         Page<Transaction> pageParam = new Page<>(page, size);
-        IPage<Transaction> transactionPage = transactionMapper.selectPage(pageParam, 
-                new QueryWrapper<Transaction>().eq("user_id", userId));
+        IPage<Transaction> transactionPage = replicaRouter.read(CacheTags.user(userId),
+                () -> transactionMapper.selectPage(pageParam, new QueryWrapper<Transaction>().eq("user_id", userId)));
         
         IPage<TransactionDTO> result = transactionPage.convert(transaction -> 
                 buildTransactionDTO(transaction, System.currentTimeMillis() - startTime, "DB", false));
@@ -169,42 +323,230 @@ public class TransactionService {
     }
 
     /**
-     * 清除相關緩存
+     * 按交易、用戶與賬戶標籤清除相關緩存
      */
     private void clearRelatedCaches(Transaction transaction) {
-        cacheService.evict(CACHE_NAME, "transaction:" + transaction.getTransactionId());
-        cacheService.evict(CACHE_NAME, "user_transactions:" + transaction.getUserId());
-        cacheService.evict(CACHE_NAME, "account_transactions:" + transaction.getAccountNumber());
+        List<String> tags = Arrays.asList(
+                CacheTags.transaction(transaction.getTransactionId()),
+                CacheTags.user(transaction.getUserId()),
+                CacheTags.account(transaction.getAccountNumber()));
+        for (String tag : tags) {
+            // 在複製延遲窗口內這些實體只從主庫讀取
+            replicaRouter.markWritten(tag);
+        }
+        cacheService.invalidateTags(CACHE_NAME, tags, null);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    /**
+     * 一次批量狀態變更的進度
+     */
+    private final class BulkStatusContext {
+
+        private final String fromStatus;
+        private final String toStatus;
+        private final long startNanos = System.nanoTime();
+        /** 受影響的用戶與賬戶標籤，結束時統一失效 */
+        private final Set<String> listTags = new LinkedHashSet<>();
+        private final List<TransactionStatusUpdateResult.ChunkProgress> progress = new ArrayList<>();
+        private long requestedRows;
+        private long updatedRows;
+        private int evictedKeys;
+
+        BulkStatusContext(String fromStatus, String toStatus) {
+            this.fromStatus = fromStatus;
+            this.toStatus = toStatus;
+        }
+
+        /**
+         * 在一個事務內選出並更新一塊，提交後失效單筆緩存並推送，返回選出的行
+         */
+        List<Transaction> applyChunk(Supplier<List<Transaction>> selectQuery) {
+            long chunkStart = System.nanoTime();
+            LocalDateTime updatedAt = LocalDateTime.now();
+            int[] updated = new int[1];
+            List<Transaction> locked = transactionTemplate.execute(status -> {
+                List<Transaction> rows = selectQuery.get();
+                if (!rows.isEmpty()) {
+                    List<String> ids = rows.stream().map(Transaction::getTransactionId).collect(Collectors.toList());
+                    updated[0] = transactionMapper.updateStatusByIds(ids, fromStatus, toStatus, updatedAt);
+                }
+                return rows;
+            });
+            if (locked == null || locked.isEmpty()) {
+                return locked == null ? new ArrayList<>() : locked;
+            }
+
+            List<String> transactionTags = new ArrayList<>(locked.size());
+            for (Transaction transaction : locked) {
+                String tag = CacheTags.transaction(transaction.getTransactionId());
+                replicaRouter.markWritten(tag);
+                transactionTags.add(tag);
+                listTags.add(CacheTags.user(transaction.getUserId()));
+                listTags.add(CacheTags.account(transaction.getAccountNumber()));
+            }
+            evictedKeys += cacheService.invalidateTags(CACHE_NAME, transactionTags, null);
+            publishChunk(locked, updated[0], updatedAt);
+
+            updatedRows += updated[0];
+            long now = System.nanoTime();
+            long chunkMs = TimeUnit.NANOSECONDS.toMillis(now - chunkStart);
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(now - startNanos);
+            progress.add(TransactionStatusUpdateResult.ChunkProgress.builder()
+                    .chunk(progress.size() + 1)
+                    .lockedRows(locked.size())
+                    .updatedRows(updated[0])
+                    .cumulativeUpdatedRows(updatedRows)
+                    .elapsedMs(chunkMs)
+                    .rowsPerSecond(chunkMs > 0 ? updated[0] * 1000.0 / chunkMs : (double) updated[0])
+                    .build());
+            log.info("🧾 批量狀態變更第 {} 塊: {} -> {}, 更新 {} 行, 累計 {}, 已耗時 {}ms",
+                    progress.size(), fromStatus, toStatus, updated[0], updatedRows, elapsedMs);
+            return locked;
+        }
+
+        /**
+         * 推送一塊的最新狀態
+         *
+         * 全部行都更新成功時直接以 toStatus 推送；篩選出的行未加鎖，部分行被並發修改而未通過前置條件時，
+         * 改為按提交後數據庫中的當前狀態推送。
+         */
+        private void publishChunk(List<Transaction> rows, int updatedCount, LocalDateTime updatedAt) {
+            if (updatedCount < rows.size()) {
+                List<String> ids = rows.stream().map(Transaction::getTransactionId).collect(Collectors.toList());
+                rows = transactionMapper.selectList(new QueryWrapper<Transaction>().in("transaction_id", ids));
+            } else {
+                for (Transaction transaction : rows) {
+                    transaction.setStatus(toStatus);
+                    transaction.setUpdatedAt(updatedAt);
+                }
+            }
+            for (Transaction transaction : rows) {
+                transactionStatusHub.publish(buildTransactionDTO(transaction, 0L, "DB", false));
+            }
+        }
+    }
+
+    /**
+     * 單筆交易緩存鍵
+     */
+    public static String transactionKey(String transactionId) {
+        return "transaction:" + transactionId;
+    }
+
+    /**
+     * 用戶交易列表緩存鍵
+     */
+    public static String userTransactionsKey(String userId) {
+        return "user_transactions:" + userId;
+    }
+
+    /**
+     * 賬戶交易列表緩存鍵
+     */
+    public static String accountTransactionsKey(String accountNumber) {
+        return "account_transactions:" + accountNumber;
+    }
+
+    /**
+     * 直接從列式列表逐行構建交易DTO，不還原實體
+     */
+    private List<TransactionDTO> buildTransactionDTOs(ColumnarTransactionList transactions, long startTime,
+                                                      String cacheLevel, boolean fromCache) {
+        long mappingStart = RequestTiming.start();
+        try {
+            List<TransactionDTO> result = new ArrayList<>(transactions.size());
+            for (int row = 0; row < transactions.size(); row++) {
+                result.add(TransactionDTO.builder()
+                        .transactionId(transactions.getTransactionId(row))
+                        .userId(transactions.getUserId(row))
+                        .accountNumber(transactions.getAccountNumber(row))
+                        .transactionType(transactions.getTransactionType(row))
+                        .transactionTypeDescription(transactions.getTransactionType(row))
+                        .amount(transactions.getAmount(row))
+                        .currency(transactions.getCurrency(row))
+                        .description(transactions.getDescription(row))
+                        .status(transactions.getStatus(row))
+                        .statusDescription(transactions.getStatus(row))
+                        .createdAt(transactions.getCreatedAt(row))
+                        .updatedAt(transactions.getUpdatedAt(row))
+                        .responseTimeMs(System.currentTimeMillis() - startTime)
+                        .cacheLevel(cacheLevel)
+                        .fromCache(fromCache)
+                        .build());
+            }
+            return result;
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.MAPPING, mappingStart);
+        }
+    }
+
+    /**
+     * 本地緩存中列式交易列表的堆佔用估算
+     */
+    public Map<String, Object> getColumnarListStats() {
+        long entries = 0;
+        long rows = 0;
+        long columnarBytes = 0;
+        long rowObjectBytes = 0;
+        for (Object value : cacheService.localValues(CACHE_NAME)) {
+            if (value instanceof ColumnarTransactionList) {
+                ColumnarTransactionList list = (ColumnarTransactionList) value;
+                entries++;
+                rows += list.size();
+                columnarBytes += list.estimatedBytes();
+                rowObjectBytes += list.rowObjectBytes();
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries);
+        stats.put("rows", rows);
+        stats.put("columnarBytes", columnarBytes);
+        stats.put("rowObjectBytes", rowObjectBytes);
+        stats.put("savedBytes", rowObjectBytes - columnarBytes);
+        stats.put("savedBytesPerEntry", entries > 0 ? (rowObjectBytes - columnarBytes) / entries : 0);
+        stats.put("bytesPerRowColumnar", rows > 0 ? Math.round(columnarBytes * 10.0 / rows) / 10.0 : 0);
+        stats.put("bytesPerRowObjects", rows > 0 ? Math.round(rowObjectBytes * 10.0 / rows) / 10.0 : 0);
+        stats.put("compressionRatio", columnarBytes > 0 ? Math.round(rowObjectBytes * 100.0 / columnarBytes) / 100.0 : 0);
+        return stats;
     }
 
     /**
      * 構建交易DTO
      */
     private TransactionDTO buildTransactionDTO(Transaction transaction, long responseTime, String cacheLevel, boolean fromCache) {
-        if (transaction == null) {
+        long mappingStart = RequestTiming.start();
+        try {
+            if (transaction == null) {
+                return TransactionDTO.builder()
+                        .responseTimeMs(responseTime)
+                        .cacheLevel(cacheLevel)
+                        .fromCache(fromCache)
+                        .build();
+            }
+
             return TransactionDTO.builder()
+                    .transactionId(transaction.getTransactionId())
+                    .userId(transaction.getUserId())
+                    .accountNumber(transaction.getAccountNumber())
+                    .transactionType(transaction.getTransactionType())
+                    .transactionTypeDescription(transaction.getTransactionType())
+                    .amount(transaction.getAmount())
+                    .currency(transaction.getCurrency())
+                    .description(transaction.getDescription())
+                    .status(transaction.getStatus())
+                    .statusDescription(transaction.getStatus())
+                    .createdAt(transaction.getCreatedAt())
+                    .updatedAt(transaction.getUpdatedAt())
                     .responseTimeMs(responseTime)
                     .cacheLevel(cacheLevel)
                     .fromCache(fromCache)
                     .build();
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.MAPPING, mappingStart);
         }
-
-        return TransactionDTO.builder()
-                .transactionId(transaction.getTransactionId())
-                .userId(transaction.getUserId())
-                .accountNumber(transaction.getAccountNumber())
-                .transactionType(transaction.getTransactionType())
-                .transactionTypeDescription(transaction.getTransactionType())
-                .amount(transaction.getAmount())
-                .currency(transaction.getCurrency())
-                .description(transaction.getDescription())
-                .status(transaction.getStatus())
-                .statusDescription(transaction.getStatus())
-                .createdAt(transaction.getCreatedAt())
-                .updatedAt(transaction.getUpdatedAt())
-                .responseTimeMs(responseTime)
-                .cacheLevel(cacheLevel)
-                .fromCache(fromCache)
-                .build();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.multilevelcache.simulator;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * 自適應替換緩存（ARC，Megiddo &amp; Modha）
+ *
+ * T1 保存只訪問過一次的鍵，T2 保存訪問過多次的鍵；B1、B2 分別記錄從 T1、T2 淘汰的鍵（只保留鍵）。
+ * 幽靈列表命中時調整 T1 的目標大小 p，使緩存在近期性與頻率之間自適應。
+ */
+public class ArcCache implements SimulatedCache {
+
+    private final int capacity;
+    private double p;
+
+    private final LinkedHashMap<Long, Boolean> t1 = new LinkedHashMap<>();
+    private final LinkedHashMap<Long, Boolean> t2 = new LinkedHashMap<>();
+    private final LinkedHashMap<Long, Boolean> b1 = new LinkedHashMap<>();
+    private final LinkedHashMap<Long, Boolean> b2 = new LinkedHashMap<>();
+
+    public ArcCache(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    @Override
+    public boolean get(long key) {
+        if (t1.remove(key) != null || t2.remove(key) != null) {
+            t2.put(key, Boolean.TRUE);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void put(long key) {
+        if (t1.containsKey(key) || t2.containsKey(key)) {
+            return;
+        }
+        if (b1.containsKey(key)) {
+            p = Math.min(capacity, p + Math.max((double) b2.size() / b1.size(), 1));
+            replace(false);
+            b1.remove(key);
+            t2.put(key, Boolean.TRUE);
+            return;
+        }
+        if (b2.containsKey(key)) {
+            p = Math.max(0, p - Math.max((double) b1.size() / b2.size(), 1));
+            replace(true);
+            b2.remove(key);
+            t2.put(key, Boolean.TRUE);
+            return;
+        }
+
+        int l1 = t1.size() + b1.size();
+        int total = l1 + t2.size() + b2.size();
+        if (l1 >= capacity) {
+            if (t1.size() < capacity) {
+                removeEldest(b1);
+                replace(false);
+            } else {
+                removeEldest(t1);
+            }
+        } else if (total >= capacity) {
+            if (total >= 2 * capacity) {
+                removeEldest(b2);
+            }
+            replace(false);
+        }
+        t1.put(key, Boolean.TRUE);
+    }
+
+    /**
+     * 按目標大小 p 從 T1 或 T2 淘汰一個鍵到對應的幽靈列表
+     */
+    private void replace(boolean hitInB2) {
+        if (t1.size() + t2.size() < capacity) {
+            return;
+        }
+        if (!t1.isEmpty() && (t1.size() > p || (hitInB2 && t1.size() == (int) p) || t2.isEmpty())) {
+            b1.put(removeEldest(t1), Boolean.TRUE);
+        } else if (!t2.isEmpty()) {
+            b2.put(removeEldest(t2), Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void remove(long key) {
+        t1.remove(key);
+        t2.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        t1.clear();
+        t2.clear();
+        b1.clear();
+        b2.clear();
+        p = 0;
+    }
+
+    private static long removeEldest(LinkedHashMap<Long, Boolean> list) {
+        Iterator<Long> eldest = list.keySet().iterator();
+        long key = eldest.next();
+        eldest.remove();
+        return key;
+    }
+}
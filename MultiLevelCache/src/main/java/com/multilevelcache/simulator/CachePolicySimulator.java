@@ -0,0 +1,262 @@
+package com.multilevelcache.simulator;
+
+import com.multilevelcache.trace.AccessTrace;
+import com.multilevelcache.trace.TraceFormat;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * 緩存策略離線模擬器
+ *
+ * 讀取 {@code AccessTraceRecorder} 記錄的軌跡，對每個（緩存、策略、容量、TTL）組合回放 GET / EVICT / CLEAR，
+ * GET 未命中時按讀穿緩存的行為立即回填，並把未命中計為一次數據庫查詢；
+ * 軌跡中既未寫入也未命中過的鍵（例如查無記錄、服務不緩存空結果）視為不可緩存，每次訪問都未命中。
+ * 每個組合的回放是順序的，不同組合在線程池中並行執行，共享只讀的軌跡數組。
+ *
+ * <pre>
+ * java -cp target/classes com.multilevelcache.simulator.CachePolicySimulator data/trace/access.trace \
+ *     --policies=lru,wtinylfu,arc --sizes=500,1000,2000 --ttls=0,10m,30m --threads=8
+ * </pre>
+ * TTL 按寫入後過期模擬，0 表示不過期。
+ */
+public class CachePolicySimulator {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("用法: CachePolicySimulator <trace-file> [--policies=lru,wtinylfu,arc] "
+                    + "[--sizes=250,500,1000,2000] [--ttls=0,10m] [--cache=name] [--threads=N]");
+            System.exit(1);
+        }
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("無法識別的參數: " + arg);
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        String[] policies = options.getOrDefault("policies", "lru,wtinylfu,arc").split(",");
+        int[] sizes = Arrays.stream(options.getOrDefault("sizes", "250,500,1000,2000").split(","))
+                .mapToInt(size -> Integer.parseInt(size.trim())).toArray();
+        long[] ttls = Arrays.stream(options.getOrDefault("ttls", "0").split(","))
+                .mapToLong(ttl -> parseDuration(ttl.trim())).toArray();
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        long loadStart = System.currentTimeMillis();
+        AccessTrace trace = AccessTrace.read(Paths.get(args[0]));
+        System.out.printf("📂 已讀取軌跡: %d 條記錄, 耗時 %dms%n", trace.size(), System.currentTimeMillis() - loadStart);
+
+        List<String> cacheNames = trace.getCacheNames();
+        if (options.containsKey("cache")) {
+            cacheNames = cacheNames.stream().filter(options.get("cache")::equals).collect(Collectors.toList());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            for (String cacheName : cacheNames) {
+                CacheTrace cacheTrace = CacheTrace.of(trace, (short) trace.getCacheNames().indexOf(cacheName));
+                if (cacheTrace.gets == 0) {
+                    continue;
+                }
+                long replayStart = System.currentTimeMillis();
+                List<Future<Result>> futures = new ArrayList<>();
+                for (String policy : policies) {
+                    for (int size : sizes) {
+                        for (long ttl : ttls) {
+                            futures.add(executor.submit(() -> replay(cacheTrace, policy.trim(), size, ttl)));
+                        }
+                    }
+                }
+                List<Result> results = new ArrayList<>();
+                for (Future<Result> future : futures) {
+                    results.add(future.get());
+                }
+                results.sort(Comparator.comparingDouble((Result r) -> r.hitRate()).reversed());
+                print(cacheName, cacheTrace, results, System.currentTimeMillis() - replayStart);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    static Result replay(CacheTrace cacheTrace, String policy, int size, long ttlMillis) {
+        AccessTrace trace = cacheTrace.trace;
+        SimulatedCache cache = SimulatedCache.create(policy, size);
+        Map<Long, Long> writeTimes = ttlMillis > 0 ? new HashMap<>() : null;
+        Result result = new Result(policy, size, ttlMillis);
+
+        for (int index : cacheTrace.indexes) {
+            long key = trace.keyHash(index);
+            switch (trace.op(index)) {
+                case TraceFormat.OP_GET:
+                    long now = trace.timestamp(index);
+                    boolean hit = cache.get(key);
+                    if (hit && writeTimes != null && now - writeTimes.getOrDefault(key, now) >= ttlMillis) {
+                        cache.remove(key);
+                        hit = false;
+                    }
+                    result.gets++;
+                    if (hit) {
+                        result.hits++;
+                    } else if (cacheTrace.valueSizes.containsKey(key)) {
+                        result.missBytes += cacheTrace.valueSizes.get(key);
+                        cache.put(key);
+                        if (writeTimes != null) {
+                            writeTimes.put(key, now);
+                        }
+                    }
+                    break;
+                case TraceFormat.OP_EVICT:
+                    cache.remove(key);
+                    break;
+                case TraceFormat.OP_CLEAR:
+                    cache.clear();
+                    break;
+                default:
+                    // 寫入由 GET 未命中的回填模擬，記錄中的 PUT 只用於估算值大小
+                    break;
+            }
+        }
+        return result;
+    }
+
+    private static void print(String cacheName, CacheTrace cacheTrace, List<Result> results, long elapsedMillis) {
+        double seconds = Math.max(1, cacheTrace.durationMillis) / 1000.0;
+        System.out.printf("%n📦 %s: %d 次 GET, 軌跡時長 %.1fs, 記錄命中率 %.2f%%, 回放 %d 組耗時 %dms%n",
+                cacheName, cacheTrace.gets, seconds, cacheTrace.recordedHitRate() * 100, results.size(), elapsedMillis);
+        System.out.printf("%-10s %8s %8s %9s %12s %10s %12s%n",
+                "policy", "size", "ttl", "hitRate", "dbQueries", "dbQ/s", "dbKB/s");
+        for (Result result : results) {
+            long misses = result.gets - result.hits;
+            System.out.printf("%-10s %8d %8s %8.2f%% %12d %10.2f %12.2f%n",
+                    result.policy, result.size, result.ttlMillis == 0 ? "-" : (result.ttlMillis / 1000) + "s",
+                    result.hitRate() * 100, misses, misses / seconds, result.missBytes / 1024.0 / seconds);
+        }
+    }
+
+    /**
+     * 解析時間字符串為毫秒（與 CacheConfig 的格式一致）
+     */
+    static long parseDuration(String duration) {
+        if (duration.endsWith("ms")) {
+            return Long.parseLong(duration.substring(0, duration.length() - 2));
+        } else if (duration.endsWith("s")) {
+            return Long.parseLong(duration.substring(0, duration.length() - 1)) * 1000;
+        } else if (duration.endsWith("m")) {
+            return Long.parseLong(duration.substring(0, duration.length() - 1)) * 60 * 1000;
+        } else if (duration.endsWith("h")) {
+            return Long.parseLong(duration.substring(0, duration.length() - 1)) * 60 * 60 * 1000;
+        } else {
+            return Long.parseLong(duration);
+        }
+    }
+
+    /**
+     * 單個緩存的記錄下標及預先統計的值大小
+     */
+    static class CacheTrace {
+
+        private final AccessTrace trace;
+        private final int[] indexes;
+        private final Map<Long, Integer> valueSizes;
+        private final long gets;
+        private final long recordedHits;
+        private final long durationMillis;
+
+        private CacheTrace(AccessTrace trace, int[] indexes, Map<Long, Integer> valueSizes,
+                           long gets, long recordedHits, long durationMillis) {
+            this.trace = trace;
+            this.indexes = indexes;
+            this.valueSizes = valueSizes;
+            this.gets = gets;
+            this.recordedHits = recordedHits;
+            this.durationMillis = durationMillis;
+        }
+
+        static CacheTrace of(AccessTrace trace, short cacheId) {
+            int count = 0;
+            for (int i = 0; i < trace.size(); i++) {
+                if (trace.cacheId(i) == cacheId) {
+                    count++;
+                }
+            }
+            int[] indexes = new int[count];
+            Map<Long, Integer> valueSizes = new LinkedHashMap<>();
+            long gets = 0;
+            long hits = 0;
+            long first = Long.MAX_VALUE;
+            long last = Long.MIN_VALUE;
+            long putBytes = 0;
+            long puts = 0;
+            int next = 0;
+            for (int i = 0; i < trace.size(); i++) {
+                if (trace.cacheId(i) != cacheId) {
+                    continue;
+                }
+                indexes[next++] = i;
+                first = Math.min(first, trace.timestamp(i));
+                last = Math.max(last, trace.timestamp(i));
+                if (trace.op(i) == TraceFormat.OP_GET) {
+                    gets++;
+                    if (trace.hit(i)) {
+                        hits++;
+                        // 寫入記錄可能已被環形文件覆蓋，實際命中過的鍵同樣可緩存，大小稍後按平均值補齊
+                        valueSizes.putIfAbsent(trace.keyHash(i), -1);
+                    }
+                } else if (trace.op(i) == TraceFormat.OP_PUT) {
+                    valueSizes.put(trace.keyHash(i), trace.valueSize(i));
+                    putBytes += trace.valueSize(i);
+                    puts++;
+                }
+            }
+            int averageSize = puts == 0 ? 0 : (int) (putBytes / puts);
+            valueSizes.replaceAll((key, size) -> size < 0 ? averageSize : size);
+            return new CacheTrace(trace, indexes, valueSizes, gets, hits, count == 0 ? 0 : last - first);
+        }
+
+        double recordedHitRate() {
+            return gets == 0 ? 0 : (double) recordedHits / gets;
+        }
+    }
+
+    static class Result {
+
+        private final String policy;
+        private final int size;
+        private final long ttlMillis;
+        private long gets;
+        private long hits;
+        private long missBytes;
+
+        Result(String policy, int size, long ttlMillis) {
+            this.policy = policy;
+            this.size = size;
+            this.ttlMillis = ttlMillis;
+        }
+
+        long gets() {
+            return gets;
+        }
+
+        long hits() {
+            return hits;
+        }
+
+        double hitRate() {
+            return gets == 0 ? 0 : (double) hits / gets;
+        }
+    }
+}
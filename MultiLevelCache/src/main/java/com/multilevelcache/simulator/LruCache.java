@@ -0,0 +1,42 @@
+package com.multilevelcache.simulator;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * 最近最少使用淘汰
+ */
+public class LruCache implements SimulatedCache {
+
+    private final int capacity;
+    private final LinkedHashMap<Long, Boolean> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public LruCache(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    @Override
+    public boolean get(long key) {
+        return entries.get(key) != null;
+    }
+
+    @Override
+    public void put(long key) {
+        entries.put(key, Boolean.TRUE);
+        if (entries.size() > capacity) {
+            Iterator<Long> eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    @Override
+    public void remove(long key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+}
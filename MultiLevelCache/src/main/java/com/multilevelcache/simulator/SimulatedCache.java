@@ -0,0 +1,35 @@
+package com.multilevelcache.simulator;
+
+/**
+ * 回放用的緩存淘汰策略，只跟蹤鍵哈希
+ */
+public interface SimulatedCache {
+
+    /**
+     * 訪問一個鍵，命中時更新策略狀態
+     */
+    boolean get(long key);
+
+    /**
+     * 未命中回填
+     */
+    void put(long key);
+
+    void remove(long key);
+
+    void clear();
+
+    static SimulatedCache create(String policy, int capacity) {
+        switch (policy.toLowerCase()) {
+            case "lru":
+                return new LruCache(capacity);
+            case "wtinylfu":
+            case "w-tinylfu":
+                return new WindowTinyLfuCache(capacity);
+            case "arc":
+                return new ArcCache(capacity);
+            default:
+                throw new IllegalArgumentException("未知的緩存策略: " + policy);
+        }
+    }
+}
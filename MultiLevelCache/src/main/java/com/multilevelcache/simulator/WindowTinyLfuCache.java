@@ -0,0 +1,149 @@
+package com.multilevelcache.simulator;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * W-TinyLFU（與 Caffeine 的結構一致：1% 窗口 LRU + 分段 LRU 主區 + 頻率草圖准入）
+ *
+ * 新鍵先進入窗口，被擠出窗口時與主區試用段的淘汰候選比較估算頻率，較高者留下。
+ * 主區分為試用段（20%）與保護段（80%），試用段中再次命中的鍵晉升到保護段。
+ */
+public class WindowTinyLfuCache implements SimulatedCache {
+
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final int mainCapacity;
+
+    private final LinkedHashMap<Long, Boolean> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Long, Boolean> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Long, Boolean> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+
+    public WindowTinyLfuCache(int capacity) {
+        int total = Math.max(2, capacity);
+        this.windowCapacity = Math.max(1, total / 100);
+        this.mainCapacity = total - windowCapacity;
+        this.protectedCapacity = (int) (mainCapacity * 0.8);
+        this.sketch = new FrequencySketch(total);
+    }
+
+    @Override
+    public boolean get(long key) {
+        sketch.increment(key);
+        if (window.get(key) != null) {
+            return true;
+        }
+        if (protectedSegment.get(key) != null) {
+            return true;
+        }
+        if (probation.remove(key) != null) {
+            protectedSegment.put(key, Boolean.TRUE);
+            if (protectedSegment.size() > protectedCapacity) {
+                // 保護段溢出的鍵降級回試用段
+                probation.put(removeEldest(protectedSegment), Boolean.TRUE);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void put(long key) {
+        if (window.containsKey(key) || probation.containsKey(key) || protectedSegment.containsKey(key)) {
+            return;
+        }
+        window.put(key, Boolean.TRUE);
+        if (window.size() <= windowCapacity) {
+            return;
+        }
+        long candidate = removeEldest(window);
+        if (probation.size() + protectedSegment.size() < mainCapacity) {
+            probation.put(candidate, Boolean.TRUE);
+            return;
+        }
+        LinkedHashMap<Long, Boolean> victimSegment = probation.isEmpty() ? protectedSegment : probation;
+        long victim = victimSegment.keySet().iterator().next();
+        if (sketch.frequency(candidate) > sketch.frequency(victim)) {
+            victimSegment.remove(victim);
+            probation.put(candidate, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void remove(long key) {
+        if (window.remove(key) == null && probation.remove(key) == null) {
+            protectedSegment.remove(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    private static long removeEldest(LinkedHashMap<Long, Boolean> segment) {
+        Iterator<Long> eldest = segment.keySet().iterator();
+        long key = eldest.next();
+        eldest.remove();
+        return key;
+    }
+
+    /**
+     * 4 行 Count-Min 草圖，計數上限 15，累計增量達到樣本數後全部減半
+     */
+    static class FrequencySketch {
+
+        private static final long[] SEEDS = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+        private final byte[] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int width = Integer.highestOneBit(Math.max(16, capacity) * 2 - 1);
+            this.counters = new byte[width * 4];
+            this.mask = width - 1;
+            this.sampleSize = Math.max(10, capacity * 10);
+        }
+
+        void increment(long key) {
+            boolean added = false;
+            for (int row = 0; row < 4; row++) {
+                int index = index(key, row);
+                if (counters[index] < 15) {
+                    counters[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(long key) {
+            int frequency = Integer.MAX_VALUE;
+            for (int row = 0; row < 4; row++) {
+                frequency = Math.min(frequency, counters[index(key, row)]);
+            }
+            return frequency;
+        }
+
+        private int index(long key, int row) {
+            long hash = (key + SEEDS[row]) * SEEDS[row];
+            hash ^= hash >>> 32;
+            return row * (mask + 1) + ((int) hash & mask);
+        }
+
+        private void reset() {
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] >>= 1;
+            }
+            additions /= 2;
+        }
+    }
+}
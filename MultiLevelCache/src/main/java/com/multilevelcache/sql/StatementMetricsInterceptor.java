@@ -0,0 +1,145 @@
+package com.multilevelcache.sql;
+
+import com.multilevelcache.timing.PoolTimingMetricsTrackerFactory;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 語句級統計（MyBatis 插件）
+ *
+ * 攔截 Executor 的查詢與更新，按 MappedStatement ID 記錄耗時、行數與其間取連接的耗時；
+ * 超過慢查詢閾值時才解析綁定參數，正常路徑只多兩次 nanoTime 與一次 ThreadLocal 讀取。
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+public class StatementMetricsInterceptor implements Interceptor {
+
+    /**
+     * 分頁等插件會在 4 參數 query 內再調用 6 參數 query，只統計最外層
+     */
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final StatementMonitor statementMonitor;
+
+    public StatementMetricsInterceptor(StatementMonitor statementMonitor) {
+        this.statementMonitor = statementMonitor;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        int[] depth = DEPTH.get();
+        if (!statementMonitor.isEnabled() || depth[0] > 0) {
+            return invocation.proceed();
+        }
+
+        depth[0]++;
+        long poolBefore = PoolTimingMetricsTrackerFactory.acquiredNanosOnThread();
+        long startTime = System.nanoTime();
+        Object result = null;
+        boolean failed = true;
+        try {
+            result = invocation.proceed();
+            failed = false;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - startTime;
+            long poolWait = PoolTimingMetricsTrackerFactory.acquiredNanosOnThread() - poolBefore;
+            depth[0]--;
+
+            Object[] args = invocation.getArgs();
+            MappedStatement ms = (MappedStatement) args[0];
+            long rows = streamed(args) ? -1 : rows(result);
+            statementMonitor.record(ms.getId(), ms.getSqlCommandType().name(), elapsed, poolWait, rows, failed);
+            if (statementMonitor.isSlow(elapsed)) {
+                BoundSql boundSql = args.length == 6 ? (BoundSql) args[5] : ms.getBoundSql(args[1]);
+                statementMonitor.captureSlow(ms.getId(), normalize(boundSql.getSql()),
+                        parameters(ms.getConfiguration(), boundSql), elapsed, poolWait, rows);
+            }
+        }
+    }
+
+    /**
+     * 帶 ResultHandler 的流式查詢返回空列表，行數未知
+     */
+    private static boolean streamed(Object[] args) {
+        return args.length >= 4 && args[3] != Executor.NO_RESULT_HANDLER;
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof List) {
+            return ((List<?>) result).size();
+        }
+        if (result instanceof Integer) {
+            return (Integer) result;
+        }
+        return -1;
+    }
+
+    private static String normalize(String sql) {
+        return sql.replaceAll("\\s+", " ").trim();
+    }
+
+    /**
+     * 按 DefaultParameterHandler 的規則取出綁定參數值
+     */
+    private List<Object> parameters(Configuration configuration, BoundSql boundSql) {
+        List<ParameterMapping> mappings = boundSql.getParameterMappings();
+        if (mappings == null || mappings.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Object parameterObject = boundSql.getParameterObject();
+        MetaObject metaObject = null;
+        List<Object> values = new ArrayList<>(mappings.size());
+        for (ParameterMapping mapping : mappings) {
+            if (mapping.getMode() == ParameterMode.OUT) {
+                continue;
+            }
+            String property = mapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(property)) {
+                value = boundSql.getAdditionalParameter(property);
+            } else if (parameterObject == null) {
+                value = null;
+            } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+                value = parameterObject;
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameterObject);
+                }
+                value = metaObject.hasGetter(property) ? metaObject.getValue(property) : null;
+            }
+            values.add(truncate(value));
+        }
+        return values;
+    }
+
+    private Object truncate(Object value) {
+        if (value == null || value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+        String text = String.valueOf(value);
+        int max = statementMonitor.getMaxParamLength();
+        return text.length() > max ? text.substring(0, max) + "...(" + text.length() + ")" : text;
+    }
+}
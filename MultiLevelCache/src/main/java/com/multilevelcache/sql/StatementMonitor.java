@@ -0,0 +1,288 @@
+package com.multilevelcache.sql;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL 語句級統計
+ *
+ * 按 MyBatis 語句 ID 記錄耗時分佈、返回/影響行數與取連接耗時，導出為 mybatis.statement.* 指標；
+ * 超過閾值的執行連同綁定參數與執行計劃提示寫入固定大小的環形緩衝區。
+ */
+@Slf4j
+@Component
+public class StatementMonitor {
+
+    private static final int MAX_IN_LIST = 100;
+    private static final long MANY_ROWS = 1000;
+
+    private final MeterRegistry meterRegistry;
+    private final DataSource dataSource;
+
+    @Value("${sql-monitor.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sql-monitor.slow-threshold-ms:100}")
+    private long slowThresholdMs;
+
+    @Value("${sql-monitor.slow-buffer-size:128}")
+    private int slowBufferSize;
+
+    @Value("${sql-monitor.max-param-length:200}")
+    private int maxParamLength;
+
+    private final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+    private AtomicReferenceArray<SlowQuery> slowQueries;
+    private final AtomicLong slowSequence = new AtomicLong();
+    private long slowThresholdNanos;
+
+    public StatementMonitor(MeterRegistry meterRegistry, DataSource dataSource) {
+        this.meterRegistry = meterRegistry;
+        this.dataSource = dataSource;
+    }
+
+    @PostConstruct
+    public void init() {
+        slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        slowQueries = new AtomicReferenceArray<>(Math.max(1, slowBufferSize));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    boolean isSlow(long elapsedNanos) {
+        return elapsedNanos >= slowThresholdNanos;
+    }
+
+    int getMaxParamLength() {
+        return maxParamLength;
+    }
+
+    /**
+     * 記錄一次語句執行
+     *
+     * @param rows 返回或影響的行數，流式查詢未知時為 -1
+     */
+    void record(String statementId, String commandType, long elapsedNanos, long poolWaitNanos, long rows, boolean failed) {
+        StatementStats stats = statements.computeIfAbsent(statementId, id -> new StatementStats(id, commandType));
+        stats.latency.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        stats.poolWait.record(poolWaitNanos, TimeUnit.NANOSECONDS);
+        if (rows >= 0) {
+            stats.rows.record(rows);
+        }
+        if (failed) {
+            stats.errors.increment();
+        }
+    }
+
+    /**
+     * 寫入慢查詢環形緩衝區
+     */
+    void captureSlow(String statementId, String sql, List<Object> parameters, long elapsedNanos, long poolWaitNanos, long rows) {
+        SlowQuery slowQuery = new SlowQuery(statementId, sql, parameters, elapsedNanos, poolWaitNanos, rows,
+                planHints(sql, parameters, elapsedNanos, poolWaitNanos, rows));
+        long seq = slowSequence.getAndIncrement();
+        slowQueries.set((int) (seq % slowQueries.length()), slowQuery);
+        log.debug("🐢 慢查詢 {}: {}ms, {} 行", statementId, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), rows);
+    }
+
+    /**
+     * 根據語句文本、參數與執行結果給出的靜態提示，不訪問數據庫
+     */
+    private List<String> planHints(String sql, List<Object> parameters, long elapsedNanos, long poolWaitNanos, long rows) {
+        List<String> hints = new ArrayList<>();
+        String upper = sql.toUpperCase();
+        boolean select = upper.startsWith("SELECT");
+        if ((select || upper.startsWith("UPDATE") || upper.startsWith("DELETE")) && !upper.contains(" WHERE ")) {
+            hints.add("無 WHERE 條件，可能全表掃描");
+        }
+        if (upper.contains(" LIKE ")) {
+            for (Object parameter : parameters) {
+                if (parameter instanceof String && ((String) parameter).startsWith("%")) {
+                    hints.add("LIKE 參數以 % 開頭，無法使用索引");
+                    break;
+                }
+            }
+        }
+        if (parameters.size() > MAX_IN_LIST && upper.contains(" IN ")) {
+            hints.add("綁定參數 " + parameters.size() + " 個，IN 列表過長時考慮分批");
+        }
+        if (select && upper.contains(" ORDER BY ") && !upper.contains(" LIMIT ") && rows > MANY_ROWS) {
+            hints.add("對 " + rows + " 行排序且無 LIMIT，考慮分頁或覆蓋索引");
+        } else if (rows > MANY_ROWS) {
+            hints.add("返回 " + rows + " 行，考慮分頁");
+        }
+        if (poolWaitNanos * 2 > elapsedNanos) {
+            hints.add("超過一半耗時在等待連接池，檢查連接池大小或長事務");
+        }
+        return hints;
+    }
+
+    /**
+     * 按總耗時排序的語句統計
+     */
+    public List<Map<String, Object>> getStatementStats() {
+        List<StatementStats> sorted = new ArrayList<>(statements.values());
+        sorted.sort(Comparator.comparingDouble((StatementStats s) -> s.latency.totalTime(TimeUnit.NANOSECONDS)).reversed());
+        List<Map<String, Object>> result = new ArrayList<>(sorted.size());
+        for (StatementStats stats : sorted) {
+            HistogramSnapshot snapshot = stats.latency.takeSnapshot();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("statement", stats.statementId);
+            entry.put("type", stats.commandType);
+            entry.put("count", snapshot.count());
+            entry.put("totalMs", round(snapshot.total(TimeUnit.MILLISECONDS)));
+            entry.put("meanMs", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+            entry.put("maxMs", round(snapshot.max(TimeUnit.MILLISECONDS)));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                entry.put("p" + Math.round(percentile.percentile() * 100) + "Ms", round(percentile.value(TimeUnit.MILLISECONDS)));
+            }
+            entry.put("poolWaitTotalMs", round(stats.poolWait.totalTime(TimeUnit.MILLISECONDS)));
+            entry.put("rowsTotal", (long) stats.rows.totalAmount());
+            entry.put("rowsMax", (long) stats.rows.max());
+            entry.put("errors", stats.errors.sum());
+            result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * 最近的慢查詢，按時間倒序；explain 為 true 時對 SELECT 語句實時執行 EXPLAIN
+     */
+    public List<Map<String, Object>> getSlowQueries(int limit, boolean explain) {
+        long last = slowSequence.get();
+        int count = (int) Math.min(Math.min(limit, slowQueries.length()), last);
+        List<Map<String, Object>> result = new ArrayList<>(count);
+        JdbcTemplate jdbcTemplate = explain ? new JdbcTemplate(dataSource) : null;
+        for (long seq = last - 1; seq >= last - count; seq--) {
+            SlowQuery slowQuery = slowQueries.get((int) (seq % slowQueries.length()));
+            if (slowQuery == null) {
+                continue;
+            }
+            Map<String, Object> entry = slowQuery.toMap();
+            if (jdbcTemplate != null && slowQuery.sql.toUpperCase().startsWith("SELECT")) {
+                entry.put("explain", explain(jdbcTemplate, slowQuery));
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    private Object explain(JdbcTemplate jdbcTemplate, SlowQuery slowQuery) {
+        try {
+            return jdbcTemplate.queryForList("EXPLAIN " + slowQuery.sql, slowQuery.parameters.toArray());
+        } catch (DataAccessException e) {
+            return "EXPLAIN 失敗: " + e.getMostSpecificCause().getMessage();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("statements", statements.size());
+        stats.put("slowThresholdMs", slowThresholdMs);
+        stats.put("slowCaptured", slowSequence.get());
+        return stats;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    /**
+     * 單條語句的指標
+     */
+    private final class StatementStats {
+
+        private final String statementId;
+        private final String commandType;
+        private final Timer latency;
+        private final Timer poolWait;
+        private final DistributionSummary rows;
+        private final LongAdder errors = new LongAdder();
+
+        StatementStats(String statementId, String commandType) {
+            this.statementId = statementId;
+            this.commandType = commandType;
+            this.latency = Timer.builder("mybatis.statement")
+                    .description("MyBatis 語句執行耗時（含取連接）")
+                    .tag("statement", statementId)
+                    .tag("type", commandType)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+            this.poolWait = Timer.builder("mybatis.statement.pool.wait")
+                    .tag("statement", statementId)
+                    .register(meterRegistry);
+            this.rows = DistributionSummary.builder("mybatis.statement.rows")
+                    .description("返回或影響的行數")
+                    .tag("statement", statementId)
+                    .register(meterRegistry);
+            FunctionCounter.builder("mybatis.statement.errors", errors, LongAdder::sum)
+                    .tag("statement", statementId)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 慢查詢記錄
+     */
+    private static final class SlowQuery {
+
+        private final LocalDateTime timestamp = LocalDateTime.now();
+        private final String statementId;
+        private final String sql;
+        private final List<Object> parameters;
+        private final long elapsedNanos;
+        private final long poolWaitNanos;
+        private final long rows;
+        private final List<String> hints;
+
+        SlowQuery(String statementId, String sql, List<Object> parameters, long elapsedNanos, long poolWaitNanos,
+                  long rows, List<String> hints) {
+            this.statementId = statementId;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.elapsedNanos = elapsedNanos;
+            this.poolWaitNanos = poolWaitNanos;
+            this.rows = rows;
+            this.hints = hints;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("timestamp", timestamp);
+            map.put("statement", statementId);
+            map.put("sql", sql);
+            map.put("parameters", parameters);
+            map.put("elapsedMs", round(elapsedNanos / 1_000_000.0));
+            map.put("poolWaitMs", round(poolWaitNanos / 1_000_000.0));
+            map.put("rows", rows);
+            map.put("hints", hints);
+            return map;
+        }
+    }
+}
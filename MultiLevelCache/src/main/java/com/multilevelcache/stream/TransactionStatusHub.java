@@ -0,0 +1,362 @@
+package com.multilevelcache.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.multilevelcache.dto.TransactionDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 交易狀態推送
+ *
+ * 狀態變更只序列化一次，再按交易ID扇出到本節點的訂閱者。每個訂閱者有固定大小的待發隊列，
+ * 由 streamExecutor 按需排空，不為每個連接佔用線程；隊列滿時丟棄最舊的事件，
+ * 每個事件都帶完整狀態，客戶端只需要最新的一條。心跳只在隊列為空時入隊，不會擠掉狀態事件。
+ * 寫出是阻塞的，一個慢客戶端最多佔用一個推送線程，時長受容器的寫超時
+ * （server.tomcat.connection-timeout）限制，超時後連接按斷開處理。
+ *
+ * 事件ID為「啟動標識-序號」，最近的事件保存在環形緩衝區裡，客戶端帶 Last-Event-ID
+ * 重連時從緩衝區補發；緩衝區已覆蓋或換了節點時改發當前快照。
+ */
+@Slf4j
+@Component
+public class TransactionStatusHub {
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final ObjectMapper objectMapper;
+    private final Executor streamExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${transaction-stream.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${transaction-stream.subscriber-buffer-size:16}")
+    private int subscriberBufferSize;
+
+    @Value("${transaction-stream.replay-buffer-size:4096}")
+    private int replayBufferSize;
+
+    @Value("${transaction-stream.timeout-ms:300000}")
+    private long timeoutMs;
+
+    @Value("${transaction-stream.retry-ms:3000}")
+    private long retryMs;
+
+    /** 到達這些狀態後不會再變更，推送後結束連接 */
+    @Value("${transaction-stream.terminal-statuses:COMPLETED,FAILED,CANCELLED}")
+    private Set<String> terminalStatuses;
+
+    /** 區分節點與重啟，事件ID不同前綴時不能從緩衝區補發 */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private AtomicReferenceArray<StatusEvent> replayBuffer;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder drainRejected = new LongAdder();
+
+    public TransactionStatusHub(ObjectMapper objectMapper,
+                                @Qualifier("streamExecutor") Executor streamExecutor,
+                                MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.streamExecutor = streamExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        replayBuffer = new AtomicReferenceArray<>(Math.max(1, replayBufferSize));
+        Gauge.builder("transaction.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("本節點交易狀態訂閱數")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 發布狀態變更，在寫庫與清緩存之後調用
+     */
+    public void publish(TransactionDTO transaction) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(transaction);
+        } catch (JsonProcessingException e) {
+            log.warn("⚠️ 交易狀態序列化失敗: {}", transaction.getTransactionId(), e);
+            return;
+        }
+        long id = sequence.incrementAndGet();
+        StatusEvent event = new StatusEvent(id, transaction.getTransactionId(), payload, isTerminal(transaction));
+        replayBuffer.set((int) (id % replayBuffer.length()), event);
+        published.increment();
+
+        Set<Subscriber> targets = subscribers.get(event.transactionId);
+        if (targets != null) {
+            for (Subscriber subscriber : targets) {
+                subscriber.enqueue(event);
+            }
+        }
+    }
+
+    /**
+     * 最近發布的事件序號，讀取快照之前調用，作為 {@link #subscribe} 的 snapshotSequence
+     */
+    public long lastSequence() {
+        return sequence.get();
+    }
+
+    /**
+     * 訂閱交易狀態，超過訂閱上限時返回 null
+     *
+     * @param lastEventId      客戶端最後收到的事件ID，可為空
+     * @param snapshot         當前狀態，無法補發時作為首個事件
+     * @param snapshotSequence 讀取快照之前的 {@link #lastSequence()}，快照之後、登記之前發布的變更從緩衝區補發
+     */
+    public SseEmitter subscribe(String transactionId, String lastEventId, TransactionDTO snapshot,
+                                long snapshotSequence) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            rejected.increment();
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(transactionId, emitter);
+        // 先登記再取補發終點，兩者之間發布的事件兩邊都能拿到，按序號去重
+        subscribers.computeIfAbsent(transactionId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        long resumeFrom = parseEventId(lastEventId);
+        long current = sequence.get();
+        boolean resumable = resumeFrom >= 0 && resumeFrom <= current && current - resumeFrom < replayBuffer.length();
+        if (!resumable) {
+            // 快照反映的是序號 snapshotSequence 之前的全部變更
+            try {
+                subscriber.enqueue(new StatusEvent(snapshotSequence, transactionId,
+                        objectMapper.writeValueAsString(snapshot), isTerminal(snapshot)));
+            } catch (JsonProcessingException e) {
+                log.warn("⚠️ 交易狀態序列化失敗: {}", transactionId, e);
+            }
+        }
+        // 斷線重連從客戶端的最後事件補發，否則補發讀取快照期間的變更；先入隊的快照序號更小，不會被跳過
+        long replayFrom = resumable ? resumeFrom : snapshotSequence;
+        if (current - replayFrom < replayBuffer.length()) {
+            for (long id = replayFrom + 1; id <= current; id++) {
+                StatusEvent event = replayBuffer.get((int) (id % replayBuffer.length()));
+                if (event != null && event.id == id && event.transactionId.equals(transactionId)) {
+                    subscriber.enqueue(event);
+                    replayed.increment();
+                }
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * 定時心跳，保持連接不被代理關閉並及早發現斷開的客戶端
+     */
+    @Scheduled(fixedDelayString = "${transaction-stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Set<Subscriber> targets : subscribers.values()) {
+            for (Subscriber subscriber : targets) {
+                subscriber.heartbeat();
+            }
+        }
+    }
+
+    /**
+     * 交易是否已到達終態，終態之後不會再有狀態事件
+     */
+    public boolean isTerminal(TransactionDTO transaction) {
+        return transaction.getStatus() != null && terminalStatuses.contains(transaction.getStatus());
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        subscribers.computeIfPresent(subscriber.transactionId, (id, targets) -> {
+            targets.remove(subscriber);
+            return targets.isEmpty() ? null : targets;
+        });
+    }
+
+    private String formatEventId(long id) {
+        return epoch + "-" + id;
+    }
+
+    /**
+     * 解析本節點本次啟動發出的事件ID，其他情況返回 -1
+     */
+    private long parseEventId(String lastEventId) {
+        if (lastEventId == null || !lastEventId.startsWith(epoch + "-")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 獲取推送統計信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribers", subscriberCount.get());
+        stats.put("transactions", subscribers.size());
+        stats.put("maxSubscribers", maxSubscribers);
+        stats.put("lastEventId", formatEventId(sequence.get()));
+        stats.put("published", published.sum());
+        stats.put("delivered", delivered.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("replayed", replayed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("drainRejected", drainRejected.sum());
+        return stats;
+    }
+
+    /**
+     * 狀態事件，payload 為序列化後的 TransactionDTO
+     */
+    private static final class StatusEvent {
+
+        private final long id;
+        private final String transactionId;
+        private final String payload;
+        private final boolean terminal;
+
+        StatusEvent(long id, String transactionId, String payload, boolean terminal) {
+            this.id = id;
+            this.transactionId = transactionId;
+            this.payload = payload;
+            this.terminal = terminal;
+        }
+    }
+
+    /**
+     * 單個訂閱連接
+     */
+    private final class Subscriber {
+
+        private final String transactionId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Object> queue = new ArrayBlockingQueue<>(Math.max(1, subscriberBufferSize));
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        /** 只在排空線程上讀寫 */
+        private long lastSentId = -1;
+
+        Subscriber(String transactionId, SseEmitter emitter) {
+            this.transactionId = transactionId;
+            this.emitter = emitter;
+        }
+
+        void enqueue(StatusEvent event) {
+            if (closed.get()) {
+                return;
+            }
+            while (!queue.offer(event)) {
+                if (queue.poll() != null) {
+                    dropped.increment();
+                }
+            }
+            scheduleDrain();
+        }
+
+        /**
+         * 隊列中已有待發事件時不需要心跳，也不為心跳騰出位置；此前排空被拒絕時借心跳重新調度
+         */
+        void heartbeat() {
+            if (closed.get()) {
+                return;
+            }
+            if (queue.isEmpty()) {
+                queue.offer(HEARTBEAT);
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    streamExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // 推送執行器已滿：事件留在隊列中，下一個事件或心跳再調度
+                    draining.set(false);
+                    drainRejected.increment();
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                try {
+                    Object item;
+                    while (!closed.get() && (item = queue.poll()) != null) {
+                        send(item);
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // 客戶端已斷開或連接已結束
+                    remove(this);
+                    queue.clear();
+                } finally {
+                    draining.set(false);
+                }
+            } while (!queue.isEmpty() && !closed.get() && draining.compareAndSet(false, true));
+        }
+
+        private void send(Object item) throws IOException {
+            if (item == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+                return;
+            }
+            StatusEvent event = (StatusEvent) item;
+            if (event.id <= lastSentId) {
+                return;
+            }
+            emitter.send(SseEmitter.event()
+                    .id(formatEventId(event.id))
+                    .name("status")
+                    .reconnectTime(retryMs)
+                    .data(event.payload, MediaType.APPLICATION_JSON));
+            lastSentId = event.id;
+            delivered.increment();
+            if (event.terminal) {
+                // 終態之後不會再有變更，結束連接讓客戶端停止重連
+                remove(this);
+                emitter.complete();
+            }
+        }
+    }
+}
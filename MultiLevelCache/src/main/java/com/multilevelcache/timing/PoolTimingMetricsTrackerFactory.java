@@ -0,0 +1,69 @@
+package com.multilevelcache.timing;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * 連接池等待計時
+ *
+ * HikariCP 在借出連接的線程上回調 {@code recordConnectionAcquiredNanos}，
+ * 這裡把它計入當前請求的 pool 分段並累加到線程級計數，其餘回調原樣轉給原有的指標實現（可為空）。
+ */
+public class PoolTimingMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    /**
+     * 當前線程累計的取連接耗時，供語句級統計取差值
+     */
+    private static final ThreadLocal<long[]> ACQUIRED_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final MetricsTrackerFactory delegate;
+
+    public PoolTimingMetricsTrackerFactory(MetricsTrackerFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * 當前線程至今取連接的累計耗時（納秒）
+     */
+    public static long acquiredNanosOnThread() {
+        return ACQUIRED_NANOS.get()[0];
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        IMetricsTracker tracker = delegate != null ? delegate.create(poolName, poolStats) : new IMetricsTracker() {
+        };
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                tracker.recordConnectionCreatedMillis(connectionCreatedMillis);
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                tracker.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+                ACQUIRED_NANOS.get()[0] += elapsedAcquiredNanos;
+                RequestTiming timing = RequestTiming.current();
+                if (timing != null) {
+                    timing.add(RequestTiming.Phase.POOL, elapsedAcquiredNanos);
+                }
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                tracker.recordConnectionUsageMillis(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                tracker.recordConnectionTimeout();
+            }
+
+            @Override
+            public void close() {
+                tracker.close();
+            }
+        };
+    }
+}
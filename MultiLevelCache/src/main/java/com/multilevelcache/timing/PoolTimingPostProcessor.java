@@ -0,0 +1,30 @@
+package com.multilevelcache.timing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 為 Hikari 連接池掛上連接等待計時
+ *
+ * 在連接池啟動前設置 {@link PoolTimingMetricsTrackerFactory}。工廠一旦設置，Spring Boot 就不再綁定連接池指標，
+ * 因此轉發給全局 Micrometer 註冊表（Spring Boot 默認把應用的註冊表加入其中）以保留 hikaricp.* 指標；
+ * 這裡不能直接依賴 MeterRegistry Bean，它本身依賴數據源會形成循環。
+ */
+@Component
+public class PoolTimingPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource) {
+            HikariDataSource dataSource = (HikariDataSource) bean;
+            if (dataSource.getMetricsTrackerFactory() == null && dataSource.getMetricRegistry() == null) {
+                dataSource.setMetricsTrackerFactory(new PoolTimingMetricsTrackerFactory(
+                        new MicrometerMetricsTrackerFactory(Metrics.globalRegistry)));
+            }
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,170 @@
+package com.multilevelcache.timing;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 請求級分段計時
+ *
+ * 由 {@link RequestTimingFilter} 在請求線程上綁定，各層在關鍵路徑上調用 {@link #start()} / {@link #stop}
+ * 以納秒累加到對應分段；沒有綁定時 {@link #start()} 只做一次 ThreadLocal 讀取並返回 0，不取時間。
+ * 數據庫加載在其他線程執行時需用 {@link #bind} 把同一個實例帶過去，因此分段累加使用原子數組。
+ */
+public final class RequestTiming {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    /**
+     * 計時分段，metric 為 Server-Timing 中的指標名
+     */
+    public enum Phase {
+        /** L1 本地緩存 */
+        L1("l1"),
+        /** L2 集群緩存 */
+        L2("l2"),
+        /** 數據庫加載（含排隊與等待） */
+        DB("db"),
+        /** 連接池取連接 */
+        POOL("pool"),
+        /** SQL 執行與結果映射 */
+        SQL("sql"),
+        /** DTO 映射 */
+        MAPPING("map"),
+        /** 響應序列化 */
+        SERIALIZE("ser");
+
+        private final String metric;
+
+        Phase(String metric) {
+            this.metric = metric;
+        }
+
+        public String metric() {
+            return metric;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicLongArray nanos = new AtomicLongArray(PHASES.length);
+    private final AtomicLongArray counts = new AtomicLongArray(PHASES.length);
+    private final boolean emitHeader;
+
+    private RequestTiming(boolean emitHeader) {
+        this.emitHeader = emitHeader;
+    }
+
+    /**
+     * 在當前線程開始一個請求的計時
+     *
+     * @param emitHeader 是否輸出 Server-Timing 頭（只做慢請求採樣時為 false）
+     */
+    static RequestTiming begin(boolean emitHeader) {
+        RequestTiming timing = new RequestTiming(emitHeader);
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 當前線程綁定的計時（沒有時為 null）
+     */
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 把計時綁定到當前線程（用於跨線程傳遞），返回之前綁定的實例以便恢復
+     */
+    public static RequestTiming bind(RequestTiming timing) {
+        RequestTiming previous = CURRENT.get();
+        if (timing == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(timing);
+        }
+        return previous;
+    }
+
+    /**
+     * 分段開始，未計時時返回 0
+     */
+    public static long start() {
+        return CURRENT.get() != null ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 分段結束，累加自 {@link #start()} 以來的耗時
+     */
+    public static void stop(Phase phase, long startNanos) {
+        if (startNanos == 0L) {
+            return;
+        }
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.add(phase, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * 當前請求的 Server-Timing 頭（未計時或不輸出時為 null）
+     */
+    public static String currentHeader() {
+        RequestTiming timing = CURRENT.get();
+        return timing != null && timing.emitHeader ? timing.toHeader() : null;
+    }
+
+    public void add(Phase phase, long elapsedNanos) {
+        nanos.addAndGet(phase.ordinal(), elapsedNanos);
+        counts.incrementAndGet(phase.ordinal());
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * 生成 Server-Timing 頭：只列出發生過的分段，最後附上到目前為止的總耗時
+     */
+    public String toHeader() {
+        StringBuilder header = new StringBuilder(128);
+        for (Phase phase : PHASES) {
+            if (counts.get(phase.ordinal()) > 0) {
+                appendMetric(header, phase.metric(), nanos.get(phase.ordinal()));
+            }
+        }
+        appendMetric(header, "total", elapsedNanos());
+        return header.toString();
+    }
+
+    /**
+     * 各分段耗時（納秒）與次數
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> phases = new LinkedHashMap<>();
+        for (Phase phase : PHASES) {
+            long count = counts.get(phase.ordinal());
+            if (count > 0) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("nanos", nanos.get(phase.ordinal()));
+                entry.put("count", count);
+                phases.put(phase.metric(), entry);
+            }
+        }
+        return phases;
+    }
+
+    private static void appendMetric(StringBuilder header, String metric, long elapsedNanos) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        header.append(metric).append(";dur=").append(String.format(Locale.ROOT, "%.3f", elapsedNanos / 1_000_000.0));
+    }
+}
@@ -0,0 +1,51 @@
+package com.multilevelcache.timing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 請求計時過濾器
+ *
+ * 為每個請求綁定 {@link RequestTiming}。JSON 響應在序列化後、寫出前加上 Server-Timing 頭；
+ * 其他尚未提交的響應在這裡補上。Server-Timing 與慢請求採樣都關閉時不綁定，各層計時點不取時間。
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    private final SlowRequestTracer slowRequestTracer;
+
+    @Value("${request-timing.server-timing-header:true}")
+    private boolean serverTimingHeader;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!serverTimingHeader && !slowRequestTracer.isEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RequestTiming timing = RequestTiming.begin(serverTimingHeader);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (serverTimingHeader && !response.isCommitted()
+                    && !response.containsHeader(RequestTiming.SERVER_TIMING_HEADER)) {
+                response.setHeader(RequestTiming.SERVER_TIMING_HEADER, timing.toHeader());
+            }
+            if (slowRequestTracer.isEnabled()) {
+                slowRequestTracer.onComplete(request.getMethod(), request.getRequestURI(), response.getStatus(), timing);
+            }
+            RequestTiming.end();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.multilevelcache.timing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * 帶序列化計時的 JSON 轉換器
+ *
+ * 計時中的請求先序列化到內存，記錄序列化耗時後把 Server-Timing 頭加到響應上再寫出，
+ * 頭裡因此包含序列化在內的全部分段；未計時的請求直接走父類的流式寫出。
+ */
+public class ServerTimingJsonConverter extends MappingJackson2HttpMessageConverter {
+
+    public ServerTimingJsonConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        if (RequestTiming.current() == null) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+
+        long startTime = RequestTiming.start();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        super.writeInternal(object, type, new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return buffer;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return outputMessage.getHeaders();
+            }
+        });
+        RequestTiming.stop(RequestTiming.Phase.SERIALIZE, startTime);
+
+        String header = RequestTiming.currentHeader();
+        if (header != null) {
+            outputMessage.getHeaders().set(RequestTiming.SERVER_TIMING_HEADER, header);
+        }
+        buffer.writeTo(outputMessage.getBody());
+    }
+}
@@ -0,0 +1,88 @@
+package com.multilevelcache.timing;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 慢請求採樣
+ *
+ * 總耗時超過閾值的請求連同分段耗時寫入固定大小的環形緩衝區，新記錄覆蓋最舊的記錄。
+ */
+@Component
+public class SlowRequestTracer {
+
+    @Getter
+    @Value("${request-timing.slow-trace.enabled:false}")
+    private boolean enabled;
+
+    @Value("${request-timing.slow-trace.threshold-ms:200}")
+    private long thresholdMs;
+
+    @Value("${request-timing.slow-trace.buffer-size:256}")
+    private int bufferSize;
+
+    private long thresholdNanos;
+    private AtomicReferenceArray<Map<String, Object>> buffer;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        thresholdNanos = thresholdMs * 1_000_000L;
+        buffer = new AtomicReferenceArray<>(Math.max(1, bufferSize));
+    }
+
+    /**
+     * 請求結束時調用，超過閾值才記錄
+     */
+    void onComplete(String method, String uri, int status, RequestTiming timing) {
+        long elapsed = timing.elapsedNanos();
+        if (elapsed < thresholdNanos) {
+            return;
+        }
+        Map<String, Object> trace = new LinkedHashMap<>();
+        trace.put("timestamp", LocalDateTime.now());
+        trace.put("method", method);
+        trace.put("uri", uri);
+        trace.put("status", status);
+        trace.put("totalNanos", elapsed);
+        trace.put("phases", timing.snapshot());
+        trace.put("thread", Thread.currentThread().getName());
+        long seq = sequence.getAndIncrement();
+        buffer.set((int) (seq % buffer.length()), trace);
+    }
+
+    /**
+     * 最近的慢請求，按時間倒序
+     */
+    public List<Map<String, Object>> recent(int limit) {
+        long last = sequence.get();
+        int count = (int) Math.min(Math.min(limit, buffer.length()), last);
+        List<Map<String, Object>> traces = new ArrayList<>(count);
+        for (long seq = last - 1; seq >= last - count; seq--) {
+            Map<String, Object> trace = buffer.get((int) (seq % buffer.length()));
+            if (trace != null) {
+                traces.add(trace);
+            }
+        }
+        return traces;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("thresholdMs", thresholdMs);
+        stats.put("bufferSize", buffer.length());
+        stats.put("recorded", sequence.get());
+        return stats;
+    }
+}
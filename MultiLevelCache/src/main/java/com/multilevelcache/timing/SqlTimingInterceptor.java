@@ -0,0 +1,35 @@
+package com.multilevelcache.timing;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+
+/**
+ * SQL 執行計時（MyBatis 插件）
+ *
+ * 攔截 StatementHandler 的執行方法，把語句執行與結果映射的耗時累加到當前請求的 sql 分段。
+ */
+@Component
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+        @Signature(type = StatementHandler.class, method = "update", args = {Statement.class}),
+        @Signature(type = StatementHandler.class, method = "batch", args = {Statement.class})
+})
+public class SqlTimingInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        long startTime = RequestTiming.start();
+        try {
+            return invocation.proceed();
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.SQL, startTime);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.multilevelcache.trace;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 讀入內存的緩存訪問軌跡（按序號排列的列式數組，只讀，可在多個回放線程間共享）
+ */
+public final class AccessTrace {
+
+    private final List<String> cacheNames;
+    private final long[] timestamps;
+    private final long[] keyHashes;
+    private final int[] valueSizes;
+    private final short[] cacheIds;
+    private final byte[] ops;
+    private final boolean[] hits;
+
+    private AccessTrace(List<String> cacheNames, int size) {
+        this.cacheNames = cacheNames;
+        this.timestamps = new long[size];
+        this.keyHashes = new long[size];
+        this.valueSizes = new int[size];
+        this.cacheIds = new short[size];
+        this.ops = new byte[size];
+        this.hits = new boolean[size];
+    }
+
+    /**
+     * 讀取軌跡文件
+     */
+    public static AccessTrace read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(TraceFormat.MAGIC_OFFSET) != TraceFormat.MAGIC) {
+                throw new IOException("不是緩存訪問軌跡文件: " + path);
+            }
+            if (buffer.getInt(TraceFormat.VERSION_OFFSET) != TraceFormat.VERSION
+                    || buffer.getInt(TraceFormat.RECORD_BYTES_OFFSET) != TraceFormat.RECORD_BYTES) {
+                throw new IOException("不支持的軌跡文件版本: " + path);
+            }
+            int capacity = (int) buffer.getLong(TraceFormat.CAPACITY_OFFSET);
+
+            int nameCount = buffer.getInt(TraceFormat.NAME_COUNT_OFFSET);
+            List<String> names = new ArrayList<>(nameCount);
+            for (int i = 0; i < nameCount; i++) {
+                ByteBuffer slot = buffer.duplicate();
+                slot.position(TraceFormat.NAMES_OFFSET + i * TraceFormat.NAME_SLOT_BYTES);
+                byte[] name = new byte[slot.getShort()];
+                slot.get(name);
+                names.add(new String(name, StandardCharsets.UTF_8));
+            }
+
+            // 環中最大序號所在槽位之後即為最舊的記錄
+            long maxSeq = 0;
+            int newest = -1;
+            int valid = 0;
+            for (int slot = 0; slot < capacity; slot++) {
+                long seq = buffer.getLong(recordOffset(slot) + TraceFormat.SEQ_OFFSET);
+                if (seq > 0) {
+                    valid++;
+                    if (seq > maxSeq) {
+                        maxSeq = seq;
+                        newest = slot;
+                    }
+                }
+            }
+
+            AccessTrace trace = new AccessTrace(Collections.unmodifiableList(names), valid);
+            int index = 0;
+            for (int i = 1; i <= capacity && index < valid; i++) {
+                int slot = (newest + i) % capacity;
+                int offset = recordOffset(slot);
+                if (buffer.getLong(offset + TraceFormat.SEQ_OFFSET) <= 0) {
+                    continue;
+                }
+                trace.timestamps[index] = buffer.getLong(offset + TraceFormat.TIMESTAMP_OFFSET);
+                trace.keyHashes[index] = buffer.getLong(offset + TraceFormat.KEY_HASH_OFFSET);
+                trace.valueSizes[index] = buffer.getInt(offset + TraceFormat.VALUE_SIZE_OFFSET);
+                trace.cacheIds[index] = buffer.getShort(offset + TraceFormat.CACHE_ID_OFFSET);
+                trace.ops[index] = buffer.get(offset + TraceFormat.OP_OFFSET);
+                trace.hits[index] = buffer.get(offset + TraceFormat.HIT_OFFSET) != 0;
+                index++;
+            }
+            return trace;
+        }
+    }
+
+    private static int recordOffset(int slot) {
+        return TraceFormat.HEADER_BYTES + slot * TraceFormat.RECORD_BYTES;
+    }
+
+    public int size() {
+        return ops.length;
+    }
+
+    public List<String> getCacheNames() {
+        return cacheNames;
+    }
+
+    public long timestamp(int index) {
+        return timestamps[index];
+    }
+
+    public long keyHash(int index) {
+        return keyHashes[index];
+    }
+
+    public int valueSize(int index) {
+        return valueSizes[index];
+    }
+
+    public short cacheId(int index) {
+        return cacheIds[index];
+    }
+
+    public byte op(int index) {
+        return ops[index];
+    }
+
+    public boolean hit(int index) {
+        return hits[index];
+    }
+}
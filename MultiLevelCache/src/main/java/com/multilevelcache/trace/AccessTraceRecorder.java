@@ -0,0 +1,180 @@
+package com.multilevelcache.trace;
+
+import com.multilevelcache.cache.ColumnarTransactionList;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 緩存訪問軌跡記錄器
+ *
+ * 記錄寫入內存映射的定長環形文件：寫入方以原子遞增的序號認領槽位，各自寫入互不重疊的區域，
+ * 不需要加鎖；文件寫滿後從頭覆蓋最舊的記錄。鍵只保存哈希，值只保存估算大小。
+ * 軌跡文件可由 {@link AccessTrace#read} 讀取，供 {@code CachePolicySimulator} 離線回放。
+ */
+@Slf4j
+@Component
+public class AccessTraceRecorder {
+
+    @Value("${cache.trace.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cache.trace.file:./data/trace/access.trace}")
+    private String file;
+
+    @Value("${cache.trace.capacity-records:1000000}")
+    private int capacity;
+
+    @Value("${cache.trace.estimated-row-bytes:256}")
+    private int estimatedRowBytes;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Short> cacheIds = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        // 單個映射區最大 2GB
+        capacity = Math.max(1, Math.min(capacity,
+                (Integer.MAX_VALUE - TraceFormat.HEADER_BYTES) / TraceFormat.RECORD_BYTES));
+        try {
+            Path path = Paths.get(file);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            long size = TraceFormat.HEADER_BYTES + (long) capacity * TraceFormat.RECORD_BYTES;
+            // 每次啟動重新開始記錄，舊軌跡應在重啟前複製走
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(TraceFormat.MAGIC_OFFSET, TraceFormat.MAGIC);
+            buffer.putInt(TraceFormat.VERSION_OFFSET, TraceFormat.VERSION);
+            buffer.putInt(TraceFormat.RECORD_BYTES_OFFSET, TraceFormat.RECORD_BYTES);
+            buffer.putLong(TraceFormat.CAPACITY_OFFSET, capacity);
+            buffer.putInt(TraceFormat.NAME_COUNT_OFFSET, 0);
+            log.info("🎞️ 緩存訪問軌跡記錄已啟用: {} ({} 條記錄環)", path.toAbsolutePath(), capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("無法創建緩存訪問軌跡文件: " + file, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (buffer != null) {
+            buffer.force();
+            channel.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 記錄一次緩存操作
+     *
+     * @param value 寫入的值，用於估算大小；其他操作傳 null
+     */
+    public void record(byte op, String cacheName, String key, boolean hit, Object value) {
+        if (!enabled) {
+            return;
+        }
+        Short cacheId = cacheId(cacheName);
+        if (cacheId == null) {
+            dropped.increment();
+            return;
+        }
+        long seq = sequence.incrementAndGet();
+        int position = TraceFormat.HEADER_BYTES + (int) ((seq - 1) % capacity) * TraceFormat.RECORD_BYTES;
+
+        // 先清除序號使讀取方忽略寫到一半的槽位，最後寫入序號發布記錄
+        buffer.putLong(position + TraceFormat.SEQ_OFFSET, 0L);
+        buffer.putLong(position + TraceFormat.TIMESTAMP_OFFSET, System.currentTimeMillis());
+        buffer.putLong(position + TraceFormat.KEY_HASH_OFFSET, key == null ? 0L : TraceFormat.hashKey(key));
+        buffer.putInt(position + TraceFormat.VALUE_SIZE_OFFSET, estimateSize(value));
+        buffer.putShort(position + TraceFormat.CACHE_ID_OFFSET, cacheId);
+        buffer.put(position + TraceFormat.OP_OFFSET, op);
+        buffer.put(position + TraceFormat.HIT_OFFSET, (byte) (hit ? 1 : 0));
+        buffer.putLong(position + TraceFormat.SEQ_OFFSET, seq);
+    }
+
+    private Short cacheId(String cacheName) {
+        Short id = cacheIds.get(cacheName);
+        return id != null ? id : registerCacheName(cacheName);
+    }
+
+    private synchronized Short registerCacheName(String cacheName) {
+        Short id = cacheIds.get(cacheName);
+        if (id != null) {
+            return id;
+        }
+        int count = buffer.getInt(TraceFormat.NAME_COUNT_OFFSET);
+        byte[] name = cacheName.getBytes(StandardCharsets.UTF_8);
+        if (count >= TraceFormat.MAX_CACHE_NAMES || name.length > TraceFormat.NAME_SLOT_BYTES - 2) {
+            return null;
+        }
+        ByteBuffer slot = buffer.duplicate();
+        slot.position(TraceFormat.NAMES_OFFSET + count * TraceFormat.NAME_SLOT_BYTES);
+        slot.putShort((short) name.length);
+        slot.put(name);
+        buffer.putInt(TraceFormat.NAME_COUNT_OFFSET, count + 1);
+        cacheIds.put(cacheName, (short) count);
+        return (short) count;
+    }
+
+    /**
+     * 估算緩存值大小：列表（包括列式交易列表）按行數乘以單行估算值
+     */
+    private int estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof ColumnarTransactionList) {
+            return ((ColumnarTransactionList) value).size() * estimatedRowBytes;
+        }
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).size() * estimatedRowBytes;
+        }
+        return estimatedRowBytes;
+    }
+
+    /**
+     * 獲取軌跡記錄狀態
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("file", Paths.get(file).toAbsolutePath().toString());
+        stats.put("capacityRecords", capacity);
+        long written = sequence.get();
+        stats.put("recordsWritten", written);
+        stats.put("recordsRetained", Math.min(written, capacity));
+        stats.put("dropped", dropped.sum());
+        stats.put("caches", cacheIds.keySet());
+        return stats;
+    }
+}
@@ -0,0 +1,76 @@
+package com.multilevelcache.trace;
+
+/**
+ * 緩存訪問軌跡文件格式
+ *
+ * 文件頭 4096 字節：magic、版本、記錄長度、槽位數、緩存名表；其後為固定長度的記錄環。
+ * 每條記錄 32 字節：
+ * <pre>
+ * [seq:8][timestampMillis:8][keyHash:8][valueSize:4][cacheId:2][op:1][hit:1]
+ * </pre>
+ * seq 從 1 開始，為 0 表示槽位尚未寫入或正在寫入；讀取時按 seq 排序還原訪問順序。
+ */
+public final class TraceFormat {
+
+    public static final int MAGIC = 0x4D4C4354;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 4096;
+    public static final int RECORD_BYTES = 32;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int RECORD_BYTES_OFFSET = 8;
+    static final int CAPACITY_OFFSET = 12;
+    static final int NAME_COUNT_OFFSET = 20;
+    static final int NAMES_OFFSET = 64;
+    static final int NAME_SLOT_BYTES = 60;
+    static final int MAX_CACHE_NAMES = (HEADER_BYTES - NAMES_OFFSET) / NAME_SLOT_BYTES;
+
+    static final int SEQ_OFFSET = 0;
+    static final int TIMESTAMP_OFFSET = 8;
+    static final int KEY_HASH_OFFSET = 16;
+    static final int VALUE_SIZE_OFFSET = 24;
+    static final int CACHE_ID_OFFSET = 28;
+    static final int OP_OFFSET = 30;
+    static final int HIT_OFFSET = 31;
+
+    public static final byte OP_GET = 1;
+    public static final byte OP_PUT = 2;
+    public static final byte OP_EVICT = 3;
+    public static final byte OP_CLEAR = 4;
+
+    private TraceFormat() {
+    }
+
+    /**
+     * 緩存鍵哈希（FNV-1a 64 位，再經 fmix64 打散），軌跡中不保存鍵原文
+     */
+    public static long hashKey(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    public static String opName(byte op) {
+        switch (op) {
+            case OP_GET:
+                return "GET";
+            case OP_PUT:
+                return "PUT";
+            case OP_EVICT:
+                return "EVICT";
+            case OP_CLEAR:
+                return "CLEAR";
+            default:
+                return "UNKNOWN";
+        }
+    }
+}
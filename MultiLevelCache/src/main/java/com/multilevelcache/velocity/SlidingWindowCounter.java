@@ -0,0 +1,107 @@
+package com.multilevelcache.velocity;
+
+/**
+ * 單個鍵的滑動窗口計數器
+ *
+ * 每個窗口是一個固定長度的時間桶環，桶記錄自己所屬的桶序號，寫入時遇到舊序號的桶先清零再累加，
+ * 因此不需要後台推進時間。讀取時只彙總序號落在窗口內的桶，耗時 O(桶數)。
+ * 窗口包含當前未滿的桶，實際覆蓋時長在 (桶數 - 1) 與桶數個桶寬之間。
+ * 非線程安全，由調用方加鎖。
+ */
+final class SlidingWindowCounter {
+
+    /**
+     * 統計窗口：1 分鐘 12 × 5 秒，1 小時 60 × 1 分鐘，24 小時 96 × 15 分鐘
+     */
+    enum Window {
+        ONE_MINUTE("1m", 5_000L, 12),
+        ONE_HOUR("1h", 60_000L, 60),
+        ONE_DAY("24h", 900_000L, 96);
+
+        private final String label;
+        private final long bucketMillis;
+        private final int buckets;
+        private int offset;
+
+        Window(String label, long bucketMillis, int buckets) {
+            this.label = label;
+            this.bucketMillis = bucketMillis;
+            this.buckets = buckets;
+        }
+
+        String label() {
+            return label;
+        }
+
+        long spanMillis() {
+            return bucketMillis * buckets;
+        }
+
+        static final int TOTAL_BUCKETS;
+
+        static {
+            int offset = 0;
+            for (Window window : values()) {
+                window.offset = offset;
+                offset += window.buckets;
+            }
+            TOTAL_BUCKETS = offset;
+        }
+    }
+
+    /**
+     * 每個計數器佔用的數組字節數（桶序號 int + 筆數 int + 金額 long）
+     */
+    static final int BYTES_PER_COUNTER = Window.TOTAL_BUCKETS * (4 + 4 + 8);
+
+    private final int[] bucketIndex = new int[Window.TOTAL_BUCKETS];
+    private final int[] counts = new int[Window.TOTAL_BUCKETS];
+    private final long[] amountCents = new long[Window.TOTAL_BUCKETS];
+    private long lastEventMillis;
+
+    /**
+     * 在事件時間所在的桶上累加一筆
+     */
+    void add(long eventMillis, long cents) {
+        for (Window window : Window.values()) {
+            int index = (int) (eventMillis / window.bucketMillis);
+            int slot = window.offset + index % window.buckets;
+            if (bucketIndex[slot] != index) {
+                if (bucketIndex[slot] > index) {
+                    // 槽位已被更新的桶佔用，事件早於窗口
+                    continue;
+                }
+                bucketIndex[slot] = index;
+                counts[slot] = 0;
+                amountCents[slot] = 0;
+            }
+            counts[slot]++;
+            amountCents[slot] += cents;
+        }
+        lastEventMillis = Math.max(lastEventMillis, eventMillis);
+    }
+
+    /**
+     * 彙總窗口內的筆數與金額（分）
+     *
+     * @return {筆數, 金額}
+     */
+    long[] sum(Window window, long nowMillis) {
+        int current = (int) (nowMillis / window.bucketMillis);
+        int oldest = current - window.buckets + 1;
+        long count = 0;
+        long cents = 0;
+        for (int slot = window.offset; slot < window.offset + window.buckets; slot++) {
+            int index = bucketIndex[slot];
+            if (index >= oldest && index <= current) {
+                count += counts[slot];
+                cents += amountCents[slot];
+            }
+        }
+        return new long[]{count, cents};
+    }
+
+    long getLastEventMillis() {
+        return lastEventMillis;
+    }
+}
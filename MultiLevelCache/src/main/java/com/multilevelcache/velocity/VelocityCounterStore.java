@@ -0,0 +1,267 @@
+package com.multilevelcache.velocity;
+
+import com.multilevelcache.dto.VelocityDTO;
+import com.multilevelcache.entity.Transaction;
+import com.multilevelcache.mapper.TransactionMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 交易速率計數器
+ *
+ * 按用戶與賬戶維護最近 1 分鐘 / 1 小時 / 24 小時的交易筆數與金額，供風控在創建交易時直接讀取，
+ * 不必按時間範圍掃描交易表。鍵按哈希分散到多個分段，每段一把鎖、一個按訪問順序排列的表，
+ * 超出分段容量時淘汰最久未訪問的鍵；最近 24 小時沒有交易的鍵由定時任務清理。
+ * 啟動時從數據庫回放最近 24 小時的交易，只回放計數器創建之前的交易，與實時累加不重疊。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VelocityCounterStore {
+
+    public static final String KEY_TYPE_USER = "USER";
+    public static final String KEY_TYPE_ACCOUNT = "ACCOUNT";
+
+    private final TransactionMapper transactionMapper;
+
+    @Value("${velocity.enabled:true}")
+    private boolean enabled;
+
+    @Value("${velocity.max-keys:20000}")
+    private int maxKeys;
+
+    @Value("${velocity.stripes:64}")
+    private int stripeCount;
+
+    @Value("${velocity.seed-on-startup:true}")
+    private boolean seedOnStartup;
+
+    private Stripe[] stripes;
+    private long seedCutoffMillis;
+
+    private volatile boolean seeded;
+    private volatile long seededRows;
+    private volatile long seedMillis;
+
+    @PostConstruct
+    public void init() {
+        int perStripe = Math.max(1, (maxKeys + stripeCount - 1) / stripeCount);
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        seedCutoffMillis = System.currentTimeMillis();
+        seeded = !enabled || !seedOnStartup;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 累加一筆新交易
+     */
+    public void record(Transaction transaction) {
+        if (!enabled) {
+            return;
+        }
+        long eventMillis = transaction.getCreatedAt() != null
+                ? toMillis(transaction.getCreatedAt()) : System.currentTimeMillis();
+        add(transaction, eventMillis);
+    }
+
+    private void add(Transaction transaction, long eventMillis) {
+        long cents = toCents(transaction.getAmount());
+        if (transaction.getUserId() != null) {
+            add(key(KEY_TYPE_USER, transaction.getUserId()), eventMillis, cents);
+        }
+        if (transaction.getAccountNumber() != null) {
+            add(key(KEY_TYPE_ACCOUNT, transaction.getAccountNumber()), eventMillis, cents);
+        }
+    }
+
+    private void add(String key, long eventMillis, long cents) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            SlidingWindowCounter counter = stripe.counters.get(key);
+            if (counter == null) {
+                counter = new SlidingWindowCounter();
+                stripe.counters.put(key, counter);
+            }
+            counter.add(eventMillis, cents);
+        }
+    }
+
+    /**
+     * 讀取某個用戶或賬戶的速率
+     */
+    public VelocityDTO query(String keyType, String id) {
+        long startTime = System.currentTimeMillis();
+        String key = key(keyType, id);
+        long[][] sums = new long[SlidingWindowCounter.Window.values().length][];
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            SlidingWindowCounter counter = stripe.counters.get(key);
+            for (SlidingWindowCounter.Window window : SlidingWindowCounter.Window.values()) {
+                sums[window.ordinal()] = counter != null ? counter.sum(window, startTime) : new long[2];
+            }
+        }
+        long[] minute = sums[SlidingWindowCounter.Window.ONE_MINUTE.ordinal()];
+        long[] hour = sums[SlidingWindowCounter.Window.ONE_HOUR.ordinal()];
+        long[] day = sums[SlidingWindowCounter.Window.ONE_DAY.ordinal()];
+        return VelocityDTO.builder()
+                .keyType(keyType)
+                .key(id)
+                .count1m(minute[0])
+                .amount1m(BigDecimal.valueOf(minute[1], 2))
+                .count1h(hour[0])
+                .amount1h(BigDecimal.valueOf(hour[1], 2))
+                .count24h(day[0])
+                .amount24h(BigDecimal.valueOf(day[1], 2))
+                .seeded(seeded)
+                .responseTimeMs(System.currentTimeMillis() - startTime)
+                .build();
+    }
+
+    /**
+     * 從數據庫回放最近 24 小時、計數器創建之前的交易
+     */
+    @Async("taskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        if (seeded) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        LocalDateTime cutoff = toDateTime(seedCutoffMillis);
+        LocalDateTime from = toDateTime(seedCutoffMillis - SlidingWindowCounter.Window.ONE_DAY.spanMillis());
+        long[] rows = {0};
+        try {
+            transactionMapper.streamCreatedBetween(from, cutoff, context -> {
+                Transaction transaction = context.getResultObject();
+                if (transaction.getCreatedAt() != null) {
+                    add(transaction, toMillis(transaction.getCreatedAt()));
+                    rows[0]++;
+                }
+            });
+            seededRows = rows[0];
+            seedMillis = System.currentTimeMillis() - startTime;
+            log.info("🚦 速率計數器已從數據庫回放 {} 筆交易，耗時 {}ms", rows[0], seedMillis);
+        } catch (DataAccessException e) {
+            log.warn("⚠️ 速率計數器回放失敗，僅統計啟動後的交易: {}", e.getMessage());
+        } finally {
+            seeded = true;
+        }
+    }
+
+    /**
+     * 清理最近 24 小時沒有交易的鍵
+     */
+    @Scheduled(fixedDelayString = "${velocity.idle-sweep-interval-ms:60000}")
+    public void evictIdle() {
+        if (!enabled) {
+            return;
+        }
+        long idleBefore = System.currentTimeMillis() - SlidingWindowCounter.Window.ONE_DAY.spanMillis();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<SlidingWindowCounter> iterator = stripe.counters.values().iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().getLastEventMillis() < idleBefore) {
+                        iterator.remove();
+                        stripe.idleEvicted++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 獲取計數器統計信息
+     */
+    public Map<String, Object> getStats() {
+        long keys = 0;
+        long capacityEvicted = 0;
+        long idleEvicted = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                keys += stripe.counters.size();
+                capacityEvicted += stripe.capacityEvicted;
+                idleEvicted += stripe.idleEvicted;
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("keys", keys);
+        stats.put("maxKeys", maxKeys);
+        stats.put("stripes", stripeCount);
+        stats.put("estimatedBytes", keys * SlidingWindowCounter.BYTES_PER_COUNTER);
+        stats.put("capacityEvicted", capacityEvicted);
+        stats.put("idleEvicted", idleEvicted);
+        stats.put("seeded", seeded);
+        stats.put("seededRows", seededRows);
+        stats.put("seedMillis", seedMillis);
+        return stats;
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return stripes[(hash & 0x7fffffff) % stripes.length];
+    }
+
+    private static String key(String keyType, String id) {
+        return (KEY_TYPE_USER.equals(keyType) ? "U:" : "A:") + id;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).longValue();
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    /**
+     * 一個鎖分段：按訪問順序排列，超出容量時淘汰最久未訪問的鍵
+     */
+    private static final class Stripe {
+
+        private final Map<String, SlidingWindowCounter> counters;
+        private long capacityEvicted;
+        private long idleEvicted;
+
+        Stripe(int capacity) {
+            this.counters = new LinkedHashMap<String, SlidingWindowCounter>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SlidingWindowCounter> eldest) {
+                    if (size() > capacity) {
+                        capacityEvicted++;
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+}
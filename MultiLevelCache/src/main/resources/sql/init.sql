@@ -22,7 +22,10 @@ CREATE TABLE IF NOT EXISTS `transaction` (
     KEY `idx_user_id` (`user_id`),
     KEY `idx_account_number` (`account_number`),
     KEY `idx_created_at` (`created_at`),
-    KEY `idx_deleted` (`deleted`)
+    KEY `idx_deleted` (`deleted`),
+    KEY `idx_user_status_updated` (`user_id`, `status`, `updated_at`),
+    KEY `idx_account_status_updated` (`account_number`, `status`, `updated_at`),
+    KEY `idx_status_updated` (`status`, `updated_at`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='交易記錄表';
 
 -- 創建黑名單表
@@ -46,6 +49,23 @@ CREATE TABLE IF NOT EXISTS `blacklist` (
     KEY `idx_deleted` (`deleted`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='黑名單表';
 
+-- 創建黑名單規則表（賬戶號碼前綴 / 號段）
+CREATE TABLE IF NOT EXISTS `blacklist_rule` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主鍵ID',
+    `rule_type` VARCHAR(20) NOT NULL COMMENT '規則類型：PREFIX / RANGE',
+    `account_prefix` VARCHAR(50) NULL COMMENT '賬戶號碼前綴',
+    `range_start` VARCHAR(50) NULL COMMENT '號段起點（含）',
+    `range_end` VARCHAR(50) NULL COMMENT '號段終點（含）',
+    `reason` VARCHAR(500) NOT NULL COMMENT '規則原因',
+    `status` VARCHAR(20) NOT NULL COMMENT '規則狀態',
+    `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '創建時間',
+    `updated_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新時間',
+    `expires_at` TIMESTAMP NULL COMMENT '過期時間',
+    `deleted` TINYINT NOT NULL DEFAULT 0 COMMENT '邏輯刪除標記',
+    PRIMARY KEY (`id`),
+    KEY `idx_rule_updated_at` (`updated_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='黑名單規則表';
+
 -- 插入測試數據（可選）
 -- 交易記錄測試數據
 INSERT INTO `transaction` (`transaction_id`, `user_id`, `account_number`, `transaction_type`, `amount`, `currency`, `description`, `status`) VALUES
@@ -0,0 +1,61 @@
+-- H2 本地測試表結構（MySQL 兼容模式，URL 需帶 NON_KEYWORDS=TRANSACTION，H2 索引名全庫唯一）
+
+-- 創建交易記錄表
+CREATE TABLE IF NOT EXISTS `transaction` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT,
+    `transaction_id` VARCHAR(50) NOT NULL,
+    `user_id` VARCHAR(50) NOT NULL,
+    `account_number` VARCHAR(50) NOT NULL,
+    `transaction_type` VARCHAR(20) NOT NULL,
+    `amount` DECIMAL(19,2) NOT NULL,
+    `currency` VARCHAR(3) NOT NULL,
+    `description` VARCHAR(500),
+    `status` VARCHAR(20) NOT NULL,
+    `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `updated_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `deleted` TINYINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_transaction_id` (`transaction_id`),
+    KEY `idx_txn_user_id` (`user_id`),
+    KEY `idx_txn_account_number` (`account_number`),
+    KEY `idx_txn_created_at` (`created_at`),
+    KEY `idx_txn_user_status_updated` (`user_id`, `status`, `updated_at`),
+    KEY `idx_txn_account_status_updated` (`account_number`, `status`, `updated_at`),
+    KEY `idx_txn_status_updated` (`status`, `updated_at`)
+);
+
+-- 創建黑名單表
+CREATE TABLE IF NOT EXISTS `blacklist` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT,
+    `user_id` VARCHAR(50) NOT NULL,
+    `account_number` VARCHAR(50) NOT NULL,
+    `reason` VARCHAR(500) NOT NULL,
+    `blacklist_type` VARCHAR(20) NOT NULL,
+    `status` VARCHAR(20) NOT NULL,
+    `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `updated_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `expires_at` TIMESTAMP NULL,
+    `deleted` TINYINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (`id`),
+    KEY `idx_bl_user_id` (`user_id`),
+    KEY `idx_bl_account_number` (`account_number`),
+    KEY `idx_bl_blacklist_type` (`blacklist_type`),
+    KEY `idx_bl_status` (`status`)
+);
+
+-- 創建黑名單規則表
+CREATE TABLE IF NOT EXISTS `blacklist_rule` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT,
+    `rule_type` VARCHAR(20) NOT NULL,
+    `account_prefix` VARCHAR(50) NULL,
+    `range_start` VARCHAR(50) NULL,
+    `range_end` VARCHAR(50) NULL,
+    `reason` VARCHAR(500) NOT NULL,
+    `status` VARCHAR(20) NOT NULL,
+    `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `updated_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `expires_at` TIMESTAMP NULL,
+    `deleted` TINYINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (`id`),
+    KEY `idx_rule_updated_at` (`updated_at`)
+);
@@ -0,0 +1,102 @@
+package com.multilevelcache.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AIMD 自適應並發上限測試
+ */
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = 1_000_000L;
+    private static final long SLOW = 50_000_000L;
+
+    @Test
+    void shareLimitsInFlight() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100, 2.0, 0.5, 0);
+
+        int acquired = 0;
+        while (limit.tryAcquire(0.5)) {
+            acquired++;
+        }
+        assertEquals(5, acquired, "只能使用上限的一半");
+        assertTrue(limit.tryAcquire(1.0), "全額份額仍有空位");
+        assertEquals(6, limit.getInFlight());
+
+        limit.release(FAST, false);
+        assertEquals(5, limit.getInFlight());
+    }
+
+    @Test
+    void shareAlwaysAllowsOne() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 100, 2.0, 0.5, 0);
+
+        assertTrue(limit.tryAcquire(0.1), "份額過小時至少放行一個");
+        assertFalse(limit.tryAcquire(0.1));
+    }
+
+    @Test
+    void decreasesMultiplicativelyDownToMin() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(40, 8, 100, 2.0, 0.5, 0);
+        sample(limit, FAST);
+
+        sample(limit, SLOW);
+        assertEquals(20, limit.getLimit(), 0.001, "擁塞時應乘性減小");
+        sample(limit, SLOW);
+        sample(limit, SLOW);
+        assertEquals(8, limit.getLimit(), 0.001, "不應低於下限");
+    }
+
+    @Test
+    void cooldownAllowsOneDecreasePerPeriod() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(40, 1, 100, 2.0, 0.5, 60_000);
+        sample(limit, FAST);
+
+        sample(limit, SLOW);
+        assertEquals(20, limit.getLimit(), 0.001, "首次擁塞應立即減小");
+        sample(limit, SLOW);
+        sample(limit, SLOW);
+        assertEquals(20, limit.getLimit(), 0.001, "冷卻期內不應再次減小");
+    }
+
+    @Test
+    void increasesOnlyWhenNearLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 11, 2.0, 0.5, 0);
+
+        // 空閒時的快速樣本不應拉高上限
+        for (int i = 0; i < 100; i++) {
+            sample(limit, FAST);
+        }
+        assertEquals(10, limit.getLimit(), 0.001);
+
+        // 並發達到上限一半以上時，每個樣本加 1/limit
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limit.tryAcquire(1.0));
+        }
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limit.tryAcquire(1.0));
+            limit.release(FAST, true);
+        }
+        assertEquals(11, limit.getLimit(), 0.001, "應加性增長並受上限約束");
+    }
+
+    @Test
+    void unsampledReleaseLeavesLimitAlone() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(40, 1, 100, 2.0, 0.5, 0);
+        sample(limit, FAST);
+
+        assertTrue(limit.tryAcquire(1.0));
+        limit.release(SLOW * 100, false);
+
+        assertEquals(40, limit.getLimit(), 0.001, "不參與採樣的請求不應影響上限");
+        assertEquals(1.0, limit.getBaselineMillis(), 0.001, "也不應改變延遲基線");
+    }
+
+    private static void sample(AdaptiveConcurrencyLimit limit, long elapsedNanos) {
+        assertTrue(limit.tryAcquire(1.0));
+        limit.release(elapsedNanos, true);
+    }
+}
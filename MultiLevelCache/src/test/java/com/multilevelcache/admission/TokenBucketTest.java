@@ -0,0 +1,48 @@
+package com.multilevelcache.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GCRA 令牌桶測試
+ */
+class TokenBucketTest {
+
+    @Test
+    void allowsBurstThenAsksToWait() {
+        // 每秒 10 個，間隔 100ms，測試期間不會補充令牌
+        TokenBucket bucket = new TokenBucket(10, 5);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0L, bucket.tryAcquire(), "突發容量內應直接放行");
+        }
+
+        long wait = bucket.tryAcquire();
+        assertTrue(wait > 0, "超出突發容量應返回等待時間");
+        assertTrue(wait <= TimeUnit.MILLISECONDS.toNanos(100), "等待不應超過一個發放間隔");
+    }
+
+    @Test
+    void rejectionDoesNotConsumeTokens() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        assertEquals(0L, bucket.tryAcquire());
+        long first = bucket.tryAcquire();
+        long second = bucket.tryAcquire();
+
+        assertTrue(second <= first, "被拒絕的請求不應把理論到達時間繼續推後");
+    }
+
+    @Test
+    void recoversAfterWaiting() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(100, 1);
+        assertEquals(0L, bucket.tryAcquire());
+        long wait = bucket.tryAcquire();
+        assertTrue(wait > 0);
+
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(2));
+        assertEquals(0L, bucket.tryAcquire(), "等待返回的時間後應能取到令牌");
+    }
+}
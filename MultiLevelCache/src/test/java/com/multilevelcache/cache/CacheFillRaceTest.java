@@ -0,0 +1,169 @@
+package com.multilevelcache.cache;
+
+import com.multilevelcache.entity.Transaction;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 緩存回填競態壓力測試
+ *
+ * 寫線程不斷「更新數據庫後刪除緩存」，讀線程未命中時讀數據庫並回填，讀與回填之間隨機停頓以放大競態窗口。
+ * 數據庫以內存中的版本號數組模擬，緩存值為以版本號作主鍵的交易，結束後逐鍵比較緩存值與數據庫當前值。
+ */
+@SpringJUnitConfig(CacheFillRaceTest.TestConfig.class)
+class CacheFillRaceTest {
+
+    private static final String CACHE_NAME = "fillRace";
+    private static final int KEY_COUNT = 32;
+    private static final int READER_THREADS = 8;
+    private static final int WRITER_THREADS = 2;
+    private static final long DURATION_MS = 1500;
+
+    @Autowired
+    private MultiLevelCacheService cacheService;
+
+    @Test
+    void versionedFillsLeaveNoStaleEntries() throws InterruptedException {
+        RaceResult result = race(cacheService, true, "versioned");
+
+        assertEquals(0, result.staleKeys, "版本校驗開啟時不應殘留舊值");
+        assertTrue(result.rejectedFills > 0, "壓力不足，沒有發生需要拒絕的回填");
+    }
+
+    @Test
+    void unversionedPutsLeaveStaleEntries() throws InterruptedException {
+        // 無版本的 put 作對照，證明測試確實能觸發競態；競態依賴調度，最多重試幾輪
+        int staleKeys = 0;
+        for (int round = 0; round < 5 && staleKeys == 0; round++) {
+            staleKeys = race(cacheService, false, "unversioned-" + round).staleKeys;
+        }
+        assertTrue(staleKeys > 0, "無版本校驗時應出現殘留舊值");
+    }
+
+    @Test
+    void versionedFillsLeaveNoStaleEntriesInClusterMode() throws Exception {
+        // 鍵分佈在兩個節點上，刪除經由本地分區存儲與歸屬節點的 RPC
+        try (ClusterTestNodes nodes = ClusterTestNodes.start(2)) {
+            RaceResult result = race(nodes.service(0), true, "cluster");
+
+            assertEquals(0, result.staleKeys, "集群模式下版本校驗開啟時不應殘留舊值");
+            assertTrue(result.rejectedFills > 0, "壓力不足，沒有發生需要拒絕的回填");
+        }
+    }
+
+    private RaceResult race(MultiLevelCacheService cacheService, boolean versioned, String prefix) throws InterruptedException {
+        String[] keys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = prefix + ":" + i;
+        }
+        AtomicLongArray database = new AtomicLongArray(KEY_COUNT);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicBoolean reading = new AtomicBoolean(true);
+        LongAdder rejected = new LongAdder();
+
+        ExecutorService writers = Executors.newFixedThreadPool(WRITER_THREADS);
+        ExecutorService readers = Executors.newFixedThreadPool(READER_THREADS);
+        try {
+            for (int t = 0; t < WRITER_THREADS; t++) {
+                writers.execute(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (writing.get()) {
+                        int k = random.nextInt(KEY_COUNT);
+                        database.incrementAndGet(k);
+                        cacheService.evict(CACHE_NAME, keys[k]);
+                        LockSupport.parkNanos(random.nextInt(50_000));
+                    }
+                });
+            }
+            for (int t = 0; t < READER_THREADS; t++) {
+                readers.execute(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (reading.get()) {
+                        int k = random.nextInt(KEY_COUNT);
+                        if (cacheService.get(CACHE_NAME, keys[k], Transaction.class) != null) {
+                            continue;
+                        }
+                        long fillVersion = cacheService.beginFill(CACHE_NAME, keys[k]);
+                        Transaction row = row(database.get(k));
+                        LockSupport.parkNanos(random.nextInt(200_000));
+                        if (versioned) {
+                            if (!cacheService.fill(CACHE_NAME, keys[k], row, fillVersion)) {
+                                rejected.increment();
+                            }
+                        } else {
+                            cacheService.put(CACHE_NAME, keys[k], row);
+                        }
+                    }
+                });
+            }
+
+            Thread.sleep(DURATION_MS);
+            // 先停寫再停讀，讀線程最後的回填必須與最終的數據庫值一致
+            writing.set(false);
+            writers.shutdown();
+            assertTrue(writers.awaitTermination(10, TimeUnit.SECONDS));
+            reading.set(false);
+            readers.shutdown();
+            assertTrue(readers.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            writers.shutdownNow();
+            readers.shutdownNow();
+        }
+
+        RaceResult result = new RaceResult();
+        result.rejectedFills = rejected.sum();
+        for (int k = 0; k < KEY_COUNT; k++) {
+            Transaction value = cacheService.get(CACHE_NAME, keys[k], Transaction.class);
+            if (value != null && value.getId() != database.get(k)) {
+                result.staleKeys++;
+            }
+        }
+        return result;
+    }
+
+    private static Transaction row(long version) {
+        Transaction transaction = new Transaction();
+        transaction.setId(version);
+        return transaction;
+    }
+
+    private static final class RaceResult {
+        private int staleKeys;
+        private long rejectedFills;
+    }
+
+    @Configuration
+    @Import({MultiLevelCacheService.class, CacheFillVersions.class, CacheTagIndex.class, CacheNamespaces.class})
+    static class TestConfig {
+
+        @Bean
+        public CacheManager caffeineCacheManager() {
+            return new CaffeineCacheManager();
+        }
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
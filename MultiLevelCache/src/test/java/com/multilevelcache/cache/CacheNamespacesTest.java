@@ -0,0 +1,79 @@
+package com.multilevelcache.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 命名空間代際與物理鍵換算測試
+ */
+class CacheNamespacesTest {
+
+    private static final String CACHE = "transactionCache";
+
+    @Test
+    void namespaceIsPrefixBeforeFirstColon() {
+        assertEquals("user_transactions", CacheNamespaces.namespaceOf("user_transactions:USER001"));
+        assertEquals("transaction", CacheNamespaces.namespaceOf("transaction:TXN:1"));
+        assertEquals("plain", CacheNamespaces.namespaceOf("plain"));
+        assertEquals(":leading", CacheNamespaces.namespaceOf(":leading"), "冒號在首位時整個鍵即命名空間");
+    }
+
+    @Test
+    void generationZeroUsesLogicalKey() {
+        CacheNamespaces namespaces = new CacheNamespaces();
+
+        assertEquals("transaction:TXN1", namespaces.physicalKey(CACHE, "transaction:TXN1"));
+        assertEquals("transaction:TXN1", namespaces.currentLogicalKey(CACHE, "transaction:TXN1"));
+    }
+
+    @Test
+    void bumpOrphansOnlyItsOwnNamespace() {
+        CacheNamespaces namespaces = new CacheNamespaces();
+        String before = namespaces.physicalKey(CACHE, "transaction:TXN1");
+        String otherNamespace = namespaces.physicalKey(CACHE, "user_transactions:USER001");
+        String otherCache = namespaces.physicalKey("blacklistCache", "transaction:TXN1");
+
+        assertEquals(1, namespaces.bump(CACHE, "transaction"));
+
+        String after = namespaces.physicalKey(CACHE, "transaction:TXN1");
+        assertEquals("transaction:TXN1#g1", after);
+        assertNull(namespaces.currentLogicalKey(CACHE, before), "舊代際的物理鍵應視為孤立條目");
+        assertEquals("transaction:TXN1", namespaces.currentLogicalKey(CACHE, after));
+        assertEquals(otherNamespace, namespaces.physicalKey(CACHE, "user_transactions:USER001"));
+        assertEquals(otherCache, namespaces.physicalKey("blacklistCache", "transaction:TXN1"));
+    }
+
+    @Test
+    void logicalKeysThatLookSuffixedStayUnambiguous() {
+        CacheNamespaces namespaces = new CacheNamespaces();
+        String logical = "transaction:TXN#g5";
+
+        String physical = namespaces.physicalKey(CACHE, logical);
+        assertEquals("transaction:TXN#g5#g0", physical);
+        assertEquals(logical, CacheNamespaces.logicalKey(physical));
+        assertEquals(logical, namespaces.currentLogicalKey(CACHE, physical));
+    }
+
+    @Test
+    void nonNumericOrOverlongSuffixIsPartOfTheKey() {
+        assertEquals("a#gx", CacheNamespaces.logicalKey("a#gx"));
+        assertEquals("a#g", CacheNamespaces.logicalKey("a#g"));
+        String overlong = "a#g1234567890123456789";
+        assertEquals(overlong, CacheNamespaces.logicalKey(overlong));
+    }
+
+    @Test
+    void advanceToOnlyMovesForward() {
+        CacheNamespaces namespaces = new CacheNamespaces();
+
+        assertTrue(namespaces.advanceTo(CACHE, "transaction", 3));
+        assertFalse(namespaces.advanceTo(CACHE, "transaction", 2));
+        assertFalse(namespaces.advanceTo(CACHE, "transaction", 3));
+        assertEquals(4, namespaces.bump(CACHE, "transaction"));
+        assertEquals(4L, namespaces.generations().get(CACHE).get("transaction"));
+    }
+}
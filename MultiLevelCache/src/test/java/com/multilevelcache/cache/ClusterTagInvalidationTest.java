@@ -0,0 +1,47 @@
+package com.multilevelcache.cache;
+
+import com.multilevelcache.entity.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 集群模式下的標籤失效：標籤登記在寫入節點，失效在另一個節點發起
+ */
+class ClusterTagInvalidationTest {
+
+    private static final String CACHE_NAME = "transactions";
+
+    private ClusterTestNodes nodes;
+
+    @BeforeEach
+    void startCluster() throws Exception {
+        nodes = ClusterTestNodes.start(2);
+    }
+
+    @AfterEach
+    void stopCluster() {
+        nodes.close();
+    }
+
+    @Test
+    void tagInvalidationOnAnotherNodeEvictsEntriesStoredOnOwner() {
+        // 鍵歸屬 node-1，由 node-0 寫入並登記標籤
+        String key = nodes.keyOwnedBy(1, CACHE_NAME, "transaction:TXN");
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId("TXN1");
+        transaction.setUserId("U1");
+        nodes.service(0).put(CACHE_NAME, key, transaction, "user:U1");
+        assertEquals("TXN1", nodes.service(1).get(CACHE_NAME, key, Transaction.class).getTransactionId());
+
+        nodes.service(1).invalidateTags(CACHE_NAME, Collections.singletonList("user:U1"), null);
+
+        assertNull(nodes.service(1).get(CACHE_NAME, key, Transaction.class));
+        assertNull(nodes.service(0).get(CACHE_NAME, key, Transaction.class));
+    }
+}
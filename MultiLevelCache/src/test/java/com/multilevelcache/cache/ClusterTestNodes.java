@@ -0,0 +1,133 @@
+package com.multilevelcache.cache;
+
+import com.multilevelcache.cluster.CaffeineLocalCacheStore;
+import com.multilevelcache.cluster.ClusterMember;
+import com.multilevelcache.cluster.PartitionedCacheNode;
+import com.multilevelcache.cluster.RpcSecurity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 同一 JVM 內的多節點分區集群，每個節點一個獨立的 Spring 上下文
+ */
+final class ClusterTestNodes implements AutoCloseable {
+
+    private static final String SECRET = "cluster-test-secret-0123456789";
+
+    private final List<AnnotationConfigApplicationContext> contexts = new ArrayList<>();
+
+    private ClusterTestNodes() {
+    }
+
+    static ClusterTestNodes start(int count) throws IOException {
+        List<ClusterMember> members = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            members.add(new ClusterMember("node-" + i, "127.0.0.1", freePort()));
+        }
+        String spec = members.stream().map(ClusterMember::toSpec).collect(Collectors.joining(","));
+
+        ClusterTestNodes nodes = new ClusterTestNodes();
+        try {
+            for (ClusterMember member : members) {
+                AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+                context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("node",
+                        Collections.<String, Object>singletonMap("test.cluster.self", member.toSpec())));
+                context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("members",
+                        Collections.<String, Object>singletonMap("test.cluster.members", spec)));
+                context.register(NodeConfig.class);
+                context.refresh();
+                nodes.contexts.add(context);
+            }
+        } catch (RuntimeException e) {
+            nodes.close();
+            throw e;
+        }
+        return nodes;
+    }
+
+    MultiLevelCacheService service(int index) {
+        return contexts.get(index).getBean(MultiLevelCacheService.class);
+    }
+
+    PartitionedCacheNode node(int index) {
+        return contexts.get(index).getBean(PartitionedCacheNode.class);
+    }
+
+    /**
+     * 歸屬指定節點的鍵：在前綴後追加序號直到物理鍵的歸屬節點符合
+     */
+    String keyOwnedBy(int index, String cacheName, String prefix) {
+        String owner = "node-" + index;
+        CacheNamespaces namespaces = contexts.get(0).getBean(CacheNamespaces.class);
+        for (int i = 0; ; i++) {
+            String key = prefix + i;
+            if (node(0).ownerOf(namespaces.physicalKey(cacheName, key)).getId().equals(owner)) {
+                return key;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (int i = contexts.size() - 1; i >= 0; i--) {
+            contexts.get(i).close();
+        }
+        contexts.clear();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Configuration
+    @Import({MultiLevelCacheService.class, CacheFillVersions.class, CacheTagIndex.class, CacheNamespaces.class})
+    static class NodeConfig {
+
+        @Bean
+        public CacheManager caffeineCacheManager() {
+            return new CaffeineCacheManager();
+        }
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean(initMethod = "start", destroyMethod = "stop")
+        public PartitionedCacheNode partitionedCacheNode(Environment environment,
+                                                         @Qualifier("caffeineCacheManager") CacheManager cacheManager,
+                                                         ObjectProvider<CacheInvalidationListener> listeners) {
+            ClusterMember self = ClusterMember.parse(environment.getRequiredProperty("test.cluster.self"));
+            List<ClusterMember> seeds = new ArrayList<>();
+            for (String spec : environment.getRequiredProperty("test.cluster.members").split(",")) {
+                ClusterMember member = ClusterMember.parse(spec);
+                if (!member.getId().equals(self.getId())) {
+                    seeds.add(member);
+                }
+            }
+            CaffeineLocalCacheStore store = new CaffeineLocalCacheStore(cacheManager,
+                    listeners.orderedStream().collect(Collectors.toList()));
+            return new PartitionedCacheNode(self, seeds, 160, store, 1000, 2000, 1000,
+                    new RpcSecurity(SECRET, 1 << 20));
+        }
+    }
+}
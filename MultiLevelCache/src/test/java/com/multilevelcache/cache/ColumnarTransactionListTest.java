@@ -0,0 +1,119 @@
+package com.multilevelcache.cache;
+
+import com.multilevelcache.entity.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 列式交易列表的編碼還原測試
+ */
+class ColumnarTransactionListTest {
+
+    @Test
+    void roundTripsEveryColumn() {
+        List<Transaction> rows = new ArrayList<>();
+        rows.add(transaction(1L, "TXN001", new BigDecimal("123.45"), LocalDateTime.of(2026, 1, 2, 3, 4, 5, 678_901_234)));
+        rows.add(transaction(2L, "TXN002", new BigDecimal("-0.01"), LocalDateTime.of(1969, 12, 31, 23, 59, 59, 1)));
+        rows.add(transaction(3L, "TXN003", new BigDecimal("1E+3"), LocalDateTime.of(2000, 2, 29, 0, 0)));
+
+        ColumnarTransactionList list = ColumnarTransactionList.of(rows);
+
+        assertEquals(3, list.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(rows.get(i), list.toEntity(i));
+        }
+        assertEquals(new BigDecimal("-0.01"), list.getAmount(1));
+        assertEquals(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 1), list.getCreatedAt(1), "紀元前的時間應正確還原");
+    }
+
+    @Test
+    void keepsNullsAndAmountsThatDoNotFitInLong() {
+        Transaction empty = new Transaction();
+        Transaction wide = transaction(9L, "TXN009", new BigDecimal("12345678901234567890.123"), LocalDateTime.now());
+        Transaction hugeScale = transaction(10L, "TXN010", new BigDecimal("1E-200"), LocalDateTime.now());
+
+        ColumnarTransactionList list = ColumnarTransactionList.of(Arrays.asList(empty, wide, hugeScale));
+
+        assertEquals(empty, list.toEntity(0));
+        assertNull(list.getTransactionId(0));
+        assertNull(list.getAmount(0));
+        assertNull(list.getCreatedAt(0));
+        assertEquals(wide.getAmount(), list.getAmount(1));
+        assertEquals(hugeScale.getAmount(), list.getAmount(2));
+    }
+
+    @Test
+    void dictionaryEncodingSharesRepeatedValues() {
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(transaction((long) i, "TXN" + i, BigDecimal.valueOf(i, 2), LocalDateTime.of(2026, 1, 1, 0, 0)));
+        }
+
+        ColumnarTransactionList list = ColumnarTransactionList.of(rows);
+
+        assertEquals("USER001", list.getUserId(999));
+        assertEquals("TXN999", list.getTransactionId(999));
+        assertTrue(list.estimatedBytes() * 2 < list.rowObjectBytes(),
+                "重複列值較多時列式佔用應明顯小於行對象: " + list.estimatedBytes() + " / " + list.rowObjectBytes());
+    }
+
+    @Test
+    void emptyList() {
+        ColumnarTransactionList list = ColumnarTransactionList.of(Collections.emptyList());
+
+        assertTrue(list.isEmpty());
+        assertEquals(0, list.size());
+    }
+
+    @Test
+    void survivesJavaSerialization() throws Exception {
+        List<Transaction> rows = new ArrayList<>();
+        rows.add(transaction(1L, "TXN001", new BigDecimal("99999999999999999999.99"), LocalDateTime.of(2026, 5, 6, 7, 8)));
+        rows.add(transaction(2L, "TXN002", new BigDecimal("5.00"), null));
+        ColumnarTransactionList list = ColumnarTransactionList.of(rows);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(list);
+        }
+        ColumnarTransactionList copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (ColumnarTransactionList) in.readObject();
+        }
+
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(rows.get(i), copy.toEntity(i));
+        }
+    }
+
+    private static Transaction transaction(Long id, String transactionId, BigDecimal amount, LocalDateTime createdAt) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTransactionId(transactionId);
+        transaction.setUserId("USER001");
+        transaction.setAccountNumber("ACC001");
+        transaction.setTransactionType("TRANSFER");
+        transaction.setAmount(amount);
+        transaction.setCurrency("CNY");
+        transaction.setDescription("轉賬");
+        transaction.setStatus("COMPLETED");
+        transaction.setCreatedAt(createdAt);
+        transaction.setUpdatedAt(createdAt != null ? createdAt.plusSeconds(1) : null);
+        transaction.setDeleted(0);
+        return transaction;
+    }
+}
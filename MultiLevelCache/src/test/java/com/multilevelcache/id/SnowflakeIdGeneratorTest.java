@@ -0,0 +1,127 @@
+package com.multilevelcache.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Snowflake ID 的有序性、序號進位與時鐘回撥測試（使用可控的牆鐘）
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final long START = SnowflakeIdGenerator.EPOCH_MILLIS + 86_400_000L;
+
+    @Test
+    void idsAreStrictlyIncreasingAsNumbersAndStrings() {
+        AtomicLong clock = new AtomicLong(START);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator("TXN", 7, 1000, 5000, clock::get);
+
+        List<String> ids = new ArrayList<>();
+        long previous = -1;
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 100 == 0) {
+                clock.addAndGet(1);
+            }
+            long next = generator.nextLong();
+            assertTrue(next > previous);
+            previous = next;
+            ids.add(generator.nextId());
+        }
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0, ids.get(i - 1) + " >= " + ids.get(i));
+            assertEquals(16, ids.get(i).length());
+        }
+    }
+
+    @Test
+    void exhaustedSequenceBorrowsNextMillisecond() {
+        AtomicLong clock = new AtomicLong(START);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator("TXN", 0, 1000, 5000, clock::get);
+
+        long first = generator.nextLong();
+        long last = first;
+        for (int i = 0; i < 4096; i++) {
+            last = generator.nextLong();
+        }
+
+        assertEquals(millisOf(first) + 1, millisOf(last), "同一毫秒 4096 個序號用盡後應進位到下一毫秒");
+        assertEquals(1L, generator.getStats().get("borrowedIds"));
+    }
+
+    @Test
+    void smallClockRegressionKeepsIdsIncreasing() {
+        AtomicLong clock = new AtomicLong(START);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator("TXN", 0, 1000, 5000, clock::get);
+        long before = generator.nextLong();
+
+        clock.addAndGet(-500);
+        long during = generator.nextLong();
+        clock.addAndGet(600);
+        long after = generator.nextLong();
+
+        assertTrue(during > before, "回撥期間應沿用邏輯時鐘繼續遞增");
+        assertTrue(after > during);
+        assertEquals(millisOf(before), millisOf(during));
+        assertEquals(1L, generator.getStats().get("clockBackwardsIds"));
+        assertEquals(0L, generator.getStats().get("clockWaits"));
+    }
+
+    @Test
+    void regressionBeyondBorrowWindowWaitsForWallClock() {
+        AtomicLong clock = new AtomicLong(START);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator("TXN", 0, 10, 5000, () -> clock.getAndAdd(5));
+        long before = generator.nextLong();
+
+        clock.addAndGet(-50);
+        long after = generator.nextLong();
+
+        assertTrue(after > before);
+        assertTrue((Long) generator.getStats().get("clockWaits") > 0, "領先超過借用窗口時應等待牆鐘追上");
+    }
+
+    @Test
+    void regressionBeyondWaitLimitIsRejected() {
+        AtomicLong clock = new AtomicLong(START);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator("TXN", 0, 10, 100, clock::get);
+        long before = generator.nextLong();
+
+        clock.addAndGet(-10_000);
+        assertThrows(IllegalStateException.class, generator::nextLong);
+
+        clock.addAndGet(10_001);
+        assertTrue(generator.nextLong() > before, "時鐘恢復後應繼續生成");
+    }
+
+    @Test
+    void timestampOfDecodesGenerationTime() {
+        long millis = START + 12_345;
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator("TXN", 3, 1000, 5000, () -> millis);
+
+        LocalDateTime expected = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        assertEquals(expected, generator.timestampOf(generator.nextId()));
+        assertNull(generator.timestampOf("TXN123"));
+        assertNull(generator.timestampOf("ABC0000000000000"));
+        assertNull(generator.timestampOf("TXN000000000000I"), "I 不在字母表中");
+    }
+
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator("TXN", -1, 1000, 5000));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeIdGenerator("TXN", SnowflakeIdGenerator.MAX_NODE_ID + 1, 1000, 5000));
+    }
+
+    private static long millisOf(long id) {
+        return id >>> 22;
+    }
+}
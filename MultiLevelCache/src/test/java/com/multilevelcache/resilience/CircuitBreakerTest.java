@@ -0,0 +1,122 @@
+package com.multilevelcache.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 熔斷器狀態切換與試探許可測試
+ */
+class CircuitBreakerTest {
+
+    /** 窗口 4、至少 2 次、失敗率 50%、開啟 0ms（下一次申請即進入半開）、2 個試探名額 */
+    private CircuitBreaker newBreaker() {
+        return new CircuitBreaker(4, 2, 0.5, 0, 2);
+    }
+
+    private void trip(CircuitBreaker breaker) {
+        breaker.onFailure(breaker.tryAcquire());
+        breaker.onFailure(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        CircuitBreaker breaker = newBreaker();
+        breaker.onSuccess(breaker.tryAcquire());
+        breaker.onFailure(breaker.tryAcquire());
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void closesAfterAllProbesSucceed() {
+        CircuitBreaker breaker = newBreaker();
+        trip(breaker);
+
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+        assertTrue(first.isProbe());
+        assertNull(breaker.tryAcquire(), "試探名額用完後應拒絕");
+
+        breaker.onSuccess(first);
+        breaker.onSuccess(second);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void closedPermitCompletingDuringHalfOpenDoesNotReleaseProbeSlot() {
+        CircuitBreaker breaker = newBreaker();
+        CircuitBreaker.Permit slow = breaker.tryAcquire();
+        assertFalse(slow.isProbe());
+        trip(breaker);
+
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+        assertNotNull(first);
+        assertNotNull(second);
+
+        // CLOSED 時放行的慢調用在半開期間結束，不應歸還試探名額或計入試探成功
+        breaker.onSuccess(slow);
+        breaker.onIgnored(slow);
+        assertNull(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onSuccess(first);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess(second);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void staleFailureDoesNotReopenHalfOpenBreaker() {
+        CircuitBreaker breaker = newBreaker();
+        CircuitBreaker.Permit slow = breaker.tryAcquire();
+        trip(breaker);
+        assertNotNull(breaker.tryAcquire());
+
+        breaker.onFailure(slow);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void ignoredProbeReturnsItsSlot() {
+        CircuitBreaker breaker = newBreaker();
+        trip(breaker);
+
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        breaker.tryAcquire();
+        breaker.onIgnored(first);
+
+        assertNotNull(breaker.tryAcquire());
+    }
+
+    @Test
+    void failedProbeReopens() {
+        CircuitBreaker breaker = newBreaker();
+        trip(breaker);
+
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+        CircuitBreaker.Permit other = breaker.tryAcquire();
+        breaker.onFailure(probe);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // 上一輪半開的試探結果不計入下一輪
+        assertNotNull(breaker.tryAcquire());
+        breaker.onSuccess(other);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void rejectsWhileOpen() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 2, 0.5, 60_000, 2);
+        breaker.onFailure(breaker.tryAcquire());
+        breaker.onFailure(breaker.tryAcquire());
+
+        assertNull(breaker.tryAcquire(), "開啟期間應拒絕");
+    }
+}
@@ -0,0 +1,101 @@
+package com.multilevelcache.rule;
+
+import com.multilevelcache.entity.BlacklistRule;
+import com.multilevelcache.mapper.BlacklistRuleMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 黑名單規則索引的增量維護與匹配優先級測試
+ */
+class BlacklistRuleIndexTest {
+
+    private BlacklistRuleIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BlacklistRuleIndex(mock(BlacklistRuleMapper.class));
+    }
+
+    @Test
+    void prefixRulesTakePrecedenceOverRanges() {
+        index.apply(range(1L, "6222000000", "6222999999"));
+        index.apply(prefix(2L, "62221"));
+
+        assertEquals(2L, index.match("6222123456").getId());
+        assertEquals(1L, index.match("6222523456").getId());
+        assertNull(index.match("6223000000"));
+        assertNull(index.match(null));
+    }
+
+    @Test
+    void updatedRuleReplacesPreviousVersion() {
+        index.apply(prefix(1L, "6222"));
+        BlacklistRule moved = prefix(1L, "6333");
+        index.apply(moved);
+
+        assertNull(index.match("6222000000"), "舊前綴應從索引中移除");
+        assertEquals(1L, index.match("6333000000").getId());
+
+        // 同一規則從前綴改為號段
+        index.apply(range(1L, "100", "200"));
+        assertNull(index.match("6333000000"));
+        assertEquals(1L, index.match("150").getId());
+    }
+
+    @Test
+    void deletedOrInactiveRulesAreRemoved() {
+        index.apply(prefix(1L, "6222"));
+        index.apply(range(2L, "100", "200"));
+
+        BlacklistRule deleted = prefix(1L, "6222");
+        deleted.setDeleted(1);
+        index.apply(deleted);
+        BlacklistRule inactive = range(2L, "100", "200");
+        inactive.setStatus("INACTIVE");
+        index.apply(inactive);
+
+        assertNull(index.match("6222000000"));
+        assertNull(index.match("150"));
+    }
+
+    @Test
+    void expiredRulesDoNotMatch() {
+        BlacklistRule expired = prefix(1L, "62221");
+        expired.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        index.apply(expired);
+        index.apply(prefix(2L, "6222"));
+
+        assertEquals(2L, index.match("6222100000").getId(), "過期的長前綴應回退到較短的有效前綴");
+    }
+
+    private static BlacklistRule prefix(Long id, String accountPrefix) {
+        BlacklistRule rule = base(id);
+        rule.setRuleType(BlacklistRule.TYPE_PREFIX);
+        rule.setAccountPrefix(accountPrefix);
+        return rule;
+    }
+
+    private static BlacklistRule range(Long id, String start, String end) {
+        BlacklistRule rule = base(id);
+        rule.setRuleType(BlacklistRule.TYPE_RANGE);
+        rule.setRangeStart(start);
+        rule.setRangeEnd(end);
+        return rule;
+    }
+
+    private static BlacklistRule base(Long id) {
+        BlacklistRule rule = new BlacklistRule();
+        rule.setId(id);
+        rule.setStatus("ACTIVE");
+        rule.setDeleted(0);
+        rule.setReason("test");
+        return rule;
+    }
+}
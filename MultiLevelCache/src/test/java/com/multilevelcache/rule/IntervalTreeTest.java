@@ -0,0 +1,108 @@
+package com.multilevelcache.rule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 區間樹點查詢與增量刪除測試
+ */
+class IntervalTreeTest {
+
+    @Test
+    void stabsClosedIntervals() {
+        IntervalTree<Long, String> tree = new IntervalTree<>(Comparator.<Long>naturalOrder());
+        tree.add(1, 10L, 20L, "a");
+        tree.add(2, 15L, 30L, "b");
+        tree.add(3, 40L, 50L, "c");
+
+        assertEquals("a", tree.stab(10L, v -> v.equals("a")));
+        assertEquals("a", tree.stab(20L, v -> v.equals("a")), "終點是閉區間");
+        assertEquals("b", tree.stab(25L, v -> true));
+        assertEquals("c", tree.stab(50L, v -> true));
+        assertNull(tree.stab(35L, v -> true));
+        assertNull(tree.stab(9L, v -> true));
+        assertNull(tree.stab(51L, v -> true));
+    }
+
+    @Test
+    void filterSkipsToAnotherContainingInterval() {
+        IntervalTree<Long, String> tree = new IntervalTree<>(Comparator.<Long>naturalOrder());
+        tree.add(1, 0L, 100L, "expired");
+        tree.add(2, 50L, 60L, "active");
+
+        assertEquals("active", tree.stab(55L, v -> v.equals("active")));
+        assertNull(tree.stab(70L, v -> v.equals("active")));
+    }
+
+    @Test
+    void removeByIdKeepsIntervalsWithSameStart() {
+        IntervalTree<Long, String> tree = new IntervalTree<>(Comparator.<Long>naturalOrder());
+        tree.add(1, 10L, 20L, "short");
+        tree.add(2, 10L, 90L, "long");
+
+        assertTrue(tree.remove(2, 10L));
+        assertFalse(tree.remove(2, 10L));
+        assertFalse(tree.remove(1, 11L), "起點不符時找不到區間");
+        assertNull(tree.stab(50L, v -> true), "刪除後最大終點應隨之更新");
+        assertEquals("short", tree.stab(15L, v -> true));
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    void matchesBruteForceOnRandomIntervals() {
+        Random random = new Random(7);
+        IntervalTree<Long, Long> tree = new IntervalTree<>(Comparator.<Long>naturalOrder());
+        List<long[]> live = new ArrayList<>();
+        for (long id = 0; id < 2000; id++) {
+            long start = random.nextInt(100_000);
+            long end = start + random.nextInt(500);
+            tree.add(id, start, end, id);
+            live.add(new long[]{id, start, end});
+        }
+        for (int i = live.size() - 1; i >= 0; i -= 3) {
+            long[] removed = live.remove(i);
+            assertTrue(tree.remove(removed[0], removed[1]));
+        }
+        assertEquals(live.size(), tree.size());
+
+        for (int i = 0; i < 5000; i++) {
+            long point = random.nextInt(100_500);
+            boolean expected = false;
+            for (long[] interval : live) {
+                if (interval[1] <= point && point <= interval[2]) {
+                    expected = true;
+                    break;
+                }
+            }
+            Long found = tree.stab(point, v -> true);
+            assertEquals(expected, found != null, "point " + point);
+            if (found != null) {
+                long[] interval = live.stream().filter(r -> r[0] == found).findFirst().orElse(null);
+                assertNotNull(interval, "返回了已刪除的區間");
+                assertTrue(interval[1] <= point && point <= interval[2]);
+            }
+        }
+        int height = (Integer) tree.getStats().get("height");
+        assertTrue(height < 60, "Treap 高度應為對數級: " + height);
+    }
+
+    @Test
+    void usesAccountOrderForVariableLengthNumbers() {
+        IntervalTree<String, String> tree = new IntervalTree<>(BlacklistRuleIndex.ACCOUNT_ORDER);
+        tree.add(1, "900", "1100", "range");
+
+        assertEquals("range", tree.stab("1000", v -> true), "按長度優先時 1000 位於 900 與 1100 之間");
+        assertNull(tree.stab("99", v -> true));
+        assertNull(tree.stab("1101", v -> true));
+    }
+}
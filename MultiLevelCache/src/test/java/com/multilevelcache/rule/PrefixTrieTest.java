@@ -0,0 +1,122 @@
+package com.multilevelcache.rule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 壓縮前綴樹的最長匹配、拆分與合併測試
+ */
+class PrefixTrieTest {
+
+    @Test
+    void returnsLongestMatchingPrefix() {
+        PrefixTrie<String> trie = new PrefixTrie<>();
+        trie.add("62", "card");
+        trie.add("6222", "bank");
+        trie.add("622202", "branch");
+
+        assertEquals("branch", trie.longestMatch("6222021234", v -> true));
+        assertEquals("bank", trie.longestMatch("6222991234", v -> true));
+        assertEquals("card", trie.longestMatch("6299", v -> true));
+        assertNull(trie.longestMatch("7000", v -> true));
+        assertNull(trie.longestMatch("6", v -> true), "鍵比所有前綴都短時不應匹配");
+    }
+
+    @Test
+    void filterFallsBackToShorterPrefix() {
+        PrefixTrie<String> trie = new PrefixTrie<>();
+        trie.add("62", "active");
+        trie.add("6222", "expired");
+
+        assertEquals("active", trie.longestMatch("62221", v -> !v.equals("expired")));
+    }
+
+    @Test
+    void splitsEdgeWhenPrefixesDiverge() {
+        PrefixTrie<String> trie = new PrefixTrie<>();
+        trie.add("ACC100", "a");
+        trie.add("ACC200", "b");
+        trie.add("ACC", "root");
+
+        assertEquals("a", trie.longestMatch("ACC1001", v -> true));
+        assertEquals("b", trie.longestMatch("ACC2001", v -> true));
+        assertEquals("root", trie.longestMatch("ACC3", v -> true));
+        assertNull(trie.longestMatch("AC", v -> true));
+    }
+
+    @Test
+    void removeMergesAndKeepsOtherPrefixes() {
+        PrefixTrie<String> trie = new PrefixTrie<>();
+        trie.add("ACC100", "a");
+        trie.add("ACC200", "b");
+        trie.add("ACC", "root");
+
+        assertTrue(trie.remove("ACC", "root"));
+        assertFalse(trie.remove("ACC", "root"), "重複刪除應返回 false");
+        assertFalse(trie.remove("ACC1", "a"), "只匹配半條邊的前綴不存在");
+        assertNull(trie.longestMatch("ACC3", v -> true));
+        assertEquals("a", trie.longestMatch("ACC1001", v -> true));
+
+        assertTrue(trie.remove("ACC200", "b"));
+        assertEquals("a", trie.longestMatch("ACC1001", v -> true));
+        assertEquals(1, trie.size());
+        assertEquals(1, trie.getStats().get("nodes"), "只剩一條規則時應合併為單個節點");
+    }
+
+    @Test
+    void samePrefixHoldsSeveralValues() {
+        PrefixTrie<String> trie = new PrefixTrie<>();
+        trie.add("62", "first");
+        trie.add("62", "second");
+
+        assertTrue(trie.remove("62", "first"));
+        assertEquals("second", trie.longestMatch("6200", v -> true));
+    }
+
+    @Test
+    void matchesBruteForceOnRandomPrefixes() {
+        Random random = new Random(42);
+        PrefixTrie<String> trie = new PrefixTrie<>();
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String prefix = randomDigits(random, 1 + random.nextInt(6));
+            prefixes.add(prefix);
+            trie.add(prefix, prefix);
+        }
+        // 刪掉一半，覆蓋合併路徑
+        for (int i = 0; i < prefixes.size(); i += 2) {
+            assertTrue(trie.remove(prefixes.get(i), prefixes.get(i)));
+        }
+        List<String> live = new ArrayList<>();
+        for (int i = 1; i < prefixes.size(); i += 2) {
+            live.add(prefixes.get(i));
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            String key = randomDigits(random, 8);
+            String expected = null;
+            for (String prefix : live) {
+                if (key.startsWith(prefix) && (expected == null || prefix.length() > expected.length())) {
+                    expected = prefix;
+                }
+            }
+            assertEquals(expected, trie.longestMatch(key, v -> true), key);
+        }
+    }
+
+    private static String randomDigits(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('0' + random.nextInt(3)));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,94 @@
+package com.multilevelcache.simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ARC 淘汰策略測試
+ */
+class ArcCacheTest {
+
+    @Test
+    void hitsAfterFill() {
+        ArcCache cache = new ArcCache(4);
+
+        assertFalse(cache.get(1));
+        cache.put(1);
+        assertTrue(cache.get(1));
+        cache.remove(1);
+        assertFalse(cache.get(1));
+    }
+
+    @Test
+    void neverHoldsMoreThanCapacity() {
+        int capacity = 50;
+        ArcCache cache = new ArcCache(capacity);
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            // 混合熱點與長尾，覆蓋 B1 / B2 幽靈命中調整 p 的路徑
+            long key = random.nextInt(10) < 7 ? random.nextInt(40) : random.nextInt(1000);
+            if (!cache.get(key)) {
+                cache.put(key);
+            }
+            if (i % 10_000 == 0) {
+                assertTrue(residentCount(cache, 1000) <= capacity);
+            }
+        }
+        assertTrue(residentCount(cache, 1000) <= capacity);
+    }
+
+    @Test
+    void frequentKeysSurviveOneTimeScan() {
+        ArcCache cache = new ArcCache(100);
+        for (int round = 0; round < 3; round++) {
+            for (long key = 0; key < 50; key++) {
+                if (!cache.get(key)) {
+                    cache.put(key);
+                }
+            }
+        }
+        // 只訪問一次的掃描鍵留在 T1，淘汰時先於 T2 中的熱點鍵
+        for (long key = 1000; key < 11_000; key++) {
+            if (!cache.get(key)) {
+                cache.put(key);
+            }
+        }
+
+        int survivors = 0;
+        for (long key = 0; key < 50; key++) {
+            if (cache.get(key)) {
+                survivors++;
+            }
+        }
+        assertEquals(50, survivors, "掃描不應沖掉多次訪問的熱點鍵");
+    }
+
+    @Test
+    void clearDropsEverything() {
+        ArcCache cache = new ArcCache(10);
+        for (long key = 0; key < 10; key++) {
+            cache.put(key);
+        }
+        cache.clear();
+
+        assertEquals(0, residentCount(cache, 10));
+    }
+
+    /**
+     * 命中的 get 只會把鍵移入 T2，不淘汰任何鍵，可用來數駐留鍵
+     */
+    private static int residentCount(ArcCache cache, int keySpace) {
+        int count = 0;
+        for (long key = 0; key < keySpace; key++) {
+            if (cache.get(key)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,92 @@
+package com.multilevelcache.simulator;
+
+import com.multilevelcache.trace.AccessTrace;
+import com.multilevelcache.trace.AccessTraceRecorder;
+import com.multilevelcache.trace.TraceFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 軌跡記錄、讀取與策略回放的端到端測試
+ */
+class CachePolicySimulatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void replaysRecordedTrace() throws Exception {
+        Path file = tempDir.resolve("access.trace");
+        AccessTraceRecorder recorder = recorder(file, 10_000);
+        // 10 個可緩存的鍵循環讀 5 輪，另有一個從未寫入的鍵（視為不可緩存）
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 10; i++) {
+                String key = "transaction:" + i;
+                recorder.record(TraceFormat.OP_GET, "transactionCache", key, round > 0, null);
+                if (round == 0) {
+                    recorder.record(TraceFormat.OP_PUT, "transactionCache", key, false, "value");
+                }
+            }
+            recorder.record(TraceFormat.OP_GET, "transactionCache", "transaction:missing", false, null);
+        }
+        recorder.record(TraceFormat.OP_EVICT, "transactionCache", "transaction:0", false, null);
+        recorder.record(TraceFormat.OP_GET, "transactionCache", "transaction:0", false, null);
+        recorder.record(TraceFormat.OP_GET, "blacklistCache", "blacklist:1", false, null);
+        recorder.close();
+
+        AccessTrace trace = AccessTrace.read(file);
+        assertEquals(2, trace.getCacheNames().size());
+        CachePolicySimulator.CacheTrace cacheTrace = CachePolicySimulator.CacheTrace.of(trace,
+                (short) trace.getCacheNames().indexOf("transactionCache"));
+
+        for (String policy : new String[]{"lru", "wtinylfu", "arc"}) {
+            CachePolicySimulator.Result fits = CachePolicySimulator.replay(cacheTrace, policy, 20, 0);
+            // 56 次 GET：首輪 10 次強制未命中、不可緩存鍵 5 次、驅逐後 1 次
+            assertEquals(56, fits.gets(), policy);
+            assertEquals(40, fits.hits(), policy);
+        }
+
+        CachePolicySimulator.Result lru = CachePolicySimulator.replay(cacheTrace, "lru", 5, 0);
+        assertEquals(0, lru.hits(), "循環訪問大於容量的鍵集時 LRU 不會命中");
+    }
+
+    @Test
+    void readerKeepsNewestRecordsAfterRingWraps() throws Exception {
+        Path file = tempDir.resolve("ring.trace");
+        AccessTraceRecorder recorder = recorder(file, 8);
+        for (int i = 0; i < 20; i++) {
+            recorder.record(TraceFormat.OP_GET, "transactionCache", "transaction:" + i, false, null);
+        }
+        recorder.close();
+
+        AccessTrace trace = AccessTrace.read(file);
+        assertEquals(8, trace.size());
+        for (int i = 0; i < 8; i++) {
+            assertEquals(TraceFormat.hashKey("transaction:" + (12 + i)), trace.keyHash(i), "應按序號從舊到新排列");
+        }
+    }
+
+    @Test
+    void parsesDurations() {
+        assertEquals(250, CachePolicySimulator.parseDuration("250ms"));
+        assertEquals(10_000, CachePolicySimulator.parseDuration("10s"));
+        assertEquals(600_000, CachePolicySimulator.parseDuration("10m"));
+        assertEquals(7_200_000, CachePolicySimulator.parseDuration("2h"));
+        assertEquals(0, CachePolicySimulator.parseDuration("0"));
+    }
+
+    private static AccessTraceRecorder recorder(Path file, int capacity) {
+        AccessTraceRecorder recorder = new AccessTraceRecorder();
+        ReflectionTestUtils.setField(recorder, "enabled", true);
+        ReflectionTestUtils.setField(recorder, "file", file.toString());
+        ReflectionTestUtils.setField(recorder, "capacity", capacity);
+        ReflectionTestUtils.setField(recorder, "estimatedRowBytes", 256);
+        recorder.init();
+        return recorder;
+    }
+}